@@ -35,6 +35,7 @@ package org.restlet.ext.crypto;
 
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.restlet.Context;
 import org.restlet.data.ChallengeRequest;
@@ -48,7 +49,17 @@ import org.restlet.security.Verifier;
 
 /**
  * Authenticator supporting the digest challenge authentication schemes. By
- * default, it only knows about the {@link ChallengeScheme#HTTP_DIGEST} scheme.
+ * default, it only knows about the {@link ChallengeScheme#HTTP_DIGEST}
+ * scheme.<br>
+ * <br>
+ * By default, the server nonces are only checked against their maximum age, so
+ * a captured request can be replayed until its nonce expires. When a
+ * {@link ServerNonceStore} is set, the nonces issued are unique and the nonce
+ * counts received for each of them are tracked, rejecting the replayed
+ * requests. The maximum age of the nonces can then be safely increased,
+ * avoiding stale challenges for the clients sending many requests. As the
+ * store is kept in memory, the nonces issued by another authenticator
+ * instance, for example on another node of a cluster, are considered stale.
  * 
  * @see DigestVerifier
  * @see DigestAuthenticator
@@ -68,6 +79,12 @@ public class DigestAuthenticator extends ChallengeAuthenticator {
     /** The secret key known only to server. */
     private volatile String serverKey;
 
+    /** The store of the nonces issued, or null. */
+    private volatile ServerNonceStore serverNonceStore;
+
+    /** The sequence distinguishing the nonces issued. */
+    private final AtomicLong serverNonceSequence;
+
     /**
      * Constructor. Sets the challenge scheme to
      * {@link ChallengeScheme#HTTP_DIGEST} and the nonce lifespan to 5 minutes
@@ -90,6 +107,7 @@ public class DigestAuthenticator extends ChallengeAuthenticator {
         this.domainRefs = domainRefs;
         this.maxServerNonceAge = DEFAULT_MAX_SERVER_NONCE_AGE;
         this.serverKey = serverKey;
+        this.serverNonceSequence = new AtomicLong();
         setVerifier(new org.restlet.ext.crypto.internal.HttpDigestVerifier(this,
                 null, null));
     }
@@ -119,12 +137,22 @@ public class DigestAuthenticator extends ChallengeAuthenticator {
     }
 
     /**
-     * Generates a server nonce.
+     * Generates a server nonce. If a server nonce store is set, the nonce is
+     * unique and added to the store.
      * 
      * @return A new server nonce.
      */
     public String generateServerNonce() {
-        return CryptoUtils.makeNonce(getServerKey());
+        ServerNonceStore store = getServerNonceStore();
+
+        if (store == null) {
+            return CryptoUtils.makeNonce(getServerKey());
+        }
+
+        String result = CryptoUtils.makeNonce(getServerKey(),
+                this.serverNonceSequence.incrementAndGet());
+        store.add(result);
+        return result;
     }
 
     /**
@@ -186,6 +214,16 @@ public class DigestAuthenticator extends ChallengeAuthenticator {
         return this.serverKey;
     }
 
+    /**
+     * Returns the store of the nonces issued, tracking the nonce counts
+     * received to reject the replayed requests. Returns null by default.
+     * 
+     * @return The server nonce store or null.
+     */
+    public ServerNonceStore getServerNonceStore() {
+        return this.serverNonceStore;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public DigestVerifier<LocalVerifier> getVerifier() {
@@ -223,6 +261,18 @@ public class DigestAuthenticator extends ChallengeAuthenticator {
         this.serverKey = serverKey;
     }
 
+    /**
+     * Sets the store of the nonces issued, tracking the nonce counts received
+     * to reject the replayed requests. The nonces issued before are then
+     * considered stale.
+     * 
+     * @param serverNonceStore
+     *            The server nonce store or null.
+     */
+    public void setServerNonceStore(ServerNonceStore serverNonceStore) {
+        this.serverNonceStore = serverNonceStore;
+    }
+
     /**
      * Set the internal verifier. In general you shouldn't replace it and
      * instead use the {@link #setWrappedVerifier(LocalVerifier)} method.
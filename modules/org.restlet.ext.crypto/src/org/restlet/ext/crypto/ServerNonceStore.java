@@ -0,0 +1,395 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.crypto;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.restlet.security.Verifier;
+
+/**
+ * Bounded and concurrent store of the server nonces issued by a
+ * {@link DigestAuthenticator}, tracking the nonce counts received for each of
+ * them. A nonce count already received for a given nonce is rejected, which
+ * protects against the replay of requests even when the nonces are valid
+ * during a long time. As the nonce counts sent by a client can arrive out of
+ * order when several requests are sent concurrently, the last 64 nonce counts
+ * below the highest one received are accepted once. A request without nonce
+ * count, sent by a client not supporting the "qop" directive, can't be
+ * distinguished from its replay, so its nonce is only accepted once.<br>
+ * <br>
+ * A nonce that isn't used during the maximum idle time is forgotten, as well
+ * as the nonces evicted when the maximum number of nonces is reached. The
+ * nonces never used are evicted first, in the order they were issued, so that
+ * the challenges sent to anonymous requests can't evict the nonces of the
+ * authenticated clients, then arbitrary ones. A forgotten nonce is considered
+ * stale so that the client is silently challenged with a new nonce.
+ * 
+ * @see DigestAuthenticator#setServerNonceStore(ServerNonceStore)
+ * @author Jerome Louvel
+ */
+public class ServerNonceStore {
+
+    /** The nonce counts received for a given nonce. */
+    private static final class Entry {
+
+        /** The highest nonce count received. */
+        private int highestCount;
+
+        /** The time of the last use, in milliseconds. */
+        private volatile long lastUse;
+
+        /** Indicates if the nonce was received from a client. */
+        private volatile boolean used;
+
+        /**
+         * The nonce counts received below the highest one, the lowest bit
+         * being the highest nonce count.
+         */
+        private long window;
+
+        private Entry(long lastUse) {
+            this.lastUse = lastUse;
+        }
+
+        /**
+         * Records a nonce count.
+         * 
+         * @param nonceCount
+         *            The nonce count received.
+         * @param now
+         *            The current time, in milliseconds.
+         * @return False if the nonce count was already received or is too old.
+         */
+        private synchronized boolean record(int nonceCount, long now) {
+            boolean result = true;
+            this.used = true;
+
+            if (nonceCount > this.highestCount) {
+                int shift = nonceCount - this.highestCount;
+                this.window = (shift < 64) ? ((this.window << shift) | 1L)
+                        : 1L;
+                this.highestCount = nonceCount;
+            } else {
+                int offset = this.highestCount - nonceCount;
+
+                if ((offset >= 64) || ((this.window & (1L << offset)) != 0)) {
+                    result = false;
+                } else {
+                    this.window |= (1L << offset);
+                }
+            }
+
+            if (result) {
+                this.lastUse = now;
+            }
+
+            return result;
+        }
+
+        /**
+         * Marks the nonce as used by a request without nonce count.
+         * 
+         * @param now
+         *            The current time, in milliseconds.
+         * @return False if the nonce was already used.
+         */
+        private synchronized boolean use(long now) {
+            boolean result = !this.used;
+
+            if (result) {
+                this.used = true;
+                this.lastUse = now;
+            }
+
+            return result;
+        }
+    }
+
+    /** The nonces issued, with their nonce counts. */
+    private final ConcurrentMap<String, Entry> entries;
+
+    /** The number of nonces evicted before being idle. */
+    private final AtomicLong evictionCount;
+
+    /** The time of the last sweep, in milliseconds. */
+    private volatile long lastSweep;
+
+    /** The maximum idle time of the nonces, in milliseconds. */
+    private volatile long maxIdleTime;
+
+    /** The maximum number of nonces. */
+    private volatile int maxSize;
+
+    /** The nonces issued that might not be used yet, in the issuing order. */
+    private final Queue<String> unusedNonces;
+
+    /** The number of requests rejected as replays. */
+    private final AtomicLong replayCount;
+
+    /**
+     * Constructor. The nonces are forgotten after 5 minutes without being used
+     * and up to 10000 nonces are stored.
+     */
+    public ServerNonceStore() {
+        this(5 * 60 * 1000L, 10000);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param maxIdleTime
+     *            The maximum idle time of the nonces, in milliseconds.
+     * @param maxSize
+     *            The maximum number of nonces.
+     */
+    public ServerNonceStore(long maxIdleTime, int maxSize) {
+        this.maxIdleTime = maxIdleTime;
+        this.maxSize = maxSize;
+        this.entries = new ConcurrentHashMap<String, Entry>();
+        this.evictionCount = new AtomicLong();
+        this.replayCount = new AtomicLong();
+        this.unusedNonces = new ConcurrentLinkedQueue<String>();
+        this.lastSweep = System.currentTimeMillis();
+    }
+
+    /**
+     * Adds a nonce just issued. Sweeps the idle nonces when the last sweep is
+     * older than the maximum idle time, and evicts nonces while the maximum
+     * size is reached.
+     * 
+     * @param nonce
+     *            The nonce issued.
+     */
+    public void add(String nonce) {
+        long now = System.currentTimeMillis();
+
+        if ((now - this.lastSweep) > getMaxIdleTime()) {
+            sweep();
+        }
+
+        while ((this.entries.size() >= getMaxSize()) && evict()) {
+            this.evictionCount.incrementAndGet();
+        }
+
+        if (this.entries.putIfAbsent(nonce, new Entry(now)) == null) {
+            this.unusedNonces.offer(nonce);
+        }
+    }
+
+    /**
+     * Removes all the nonces.
+     */
+    public void clear() {
+        this.entries.clear();
+        this.unusedNonces.clear();
+    }
+
+    /**
+     * Evicts the oldest nonce never used, or an arbitrary nonce if all of
+     * them were used.
+     * 
+     * @return True if a nonce was evicted.
+     */
+    private boolean evict() {
+        String nonce;
+        Entry entry;
+
+        while ((nonce = this.unusedNonces.poll()) != null) {
+            entry = this.entries.get(nonce);
+
+            if ((entry != null) && !entry.used
+                    && this.entries.remove(nonce, entry)) {
+                return true;
+            }
+        }
+
+        Iterator<Entry> iter = this.entries.values().iterator();
+
+        if (iter.hasNext()) {
+            iter.next();
+            iter.remove();
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the number of nonces evicted before being idle, because the
+     * maximum size was reached.
+     * 
+     * @return The number of evicted nonces.
+     */
+    public long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+    /**
+     * Returns the maximum idle time of the nonces, in milliseconds.
+     * 
+     * @return The maximum idle time of the nonces.
+     */
+    public long getMaxIdleTime() {
+        return this.maxIdleTime;
+    }
+
+    /**
+     * Returns the maximum number of nonces.
+     * 
+     * @return The maximum number of nonces.
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Returns the number of requests rejected because their nonce count was
+     * already received or is too old, or because their nonce was already used
+     * without nonce count.
+     * 
+     * @return The number of rejected replays.
+     */
+    public long getReplayCount() {
+        return this.replayCount.get();
+    }
+
+    /**
+     * Returns the number of nonces, including the idle ones not swept yet.
+     * 
+     * @return The number of nonces.
+     */
+    public int getSize() {
+        return this.entries.size();
+    }
+
+    /**
+     * Sets the maximum idle time of the nonces, in milliseconds.
+     * 
+     * @param maxIdleTime
+     *            The maximum idle time of the nonces.
+     */
+    public void setMaxIdleTime(long maxIdleTime) {
+        this.maxIdleTime = maxIdleTime;
+    }
+
+    /**
+     * Sets the maximum number of nonces.
+     * 
+     * @param maxSize
+     *            The maximum number of nonces.
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Removes the nonces that weren't used during the maximum idle time, and
+     * forgets the used or removed ones in the queue of the nonces never used.
+     * 
+     * @return The number of nonces removed.
+     */
+    public int sweep() {
+        long now = System.currentTimeMillis();
+        long maxIdleTime = getMaxIdleTime();
+        int result = 0;
+        this.lastSweep = now;
+
+        for (Iterator<Entry> iter = this.entries.values().iterator(); iter
+                .hasNext();) {
+            if ((now - iter.next().lastUse) > maxIdleTime) {
+                iter.remove();
+                result++;
+            }
+        }
+
+        Entry entry;
+
+        for (Iterator<String> iter = this.unusedNonces.iterator(); iter
+                .hasNext();) {
+            entry = this.entries.get(iter.next());
+
+            if ((entry == null) || entry.used) {
+                iter.remove();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Verifies and records the nonce count received with a nonce. A nonce
+     * count lower or equal to zero indicates that the client didn't send any,
+     * in which case the nonce is only accepted if it wasn't used yet.
+     * 
+     * @param nonce
+     *            The nonce received.
+     * @param nonceCount
+     *            The nonce count received.
+     * @return {@link Verifier#RESULT_VALID} if the nonce count wasn't received
+     *         yet, {@link Verifier#RESULT_STALE} if the nonce is unknown, idle
+     *         or already used without nonce count, or
+     *         {@link Verifier#RESULT_INVALID} if the nonce count was already
+     *         received or is too old.
+     */
+    public int verify(String nonce, int nonceCount) {
+        long now = System.currentTimeMillis();
+        Entry entry = (nonce == null) ? null : this.entries.get(nonce);
+
+        if ((entry != null) && ((now - entry.lastUse) > getMaxIdleTime())) {
+            this.entries.remove(nonce, entry);
+            entry = null;
+        }
+
+        if (entry == null) {
+            return Verifier.RESULT_STALE;
+        } else if (nonceCount <= 0) {
+            if (!entry.use(now)) {
+                // Challenge the client again with a new nonce
+                this.replayCount.incrementAndGet();
+                return Verifier.RESULT_STALE;
+            }
+        } else if (!entry.record(nonceCount, now)) {
+            this.replayCount.incrementAndGet();
+            return Verifier.RESULT_INVALID;
+        }
+
+        return Verifier.RESULT_VALID;
+    }
+
+}
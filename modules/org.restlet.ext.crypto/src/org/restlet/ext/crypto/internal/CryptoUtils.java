@@ -178,6 +178,29 @@ public final class CryptoUtils {
                         + secretKey)).getBytes(), true);
     }
 
+    /**
+     * Generates a nonce like {@link #makeNonce(String)}, but unique for each
+     * value of the given sequence, even when generated during the same
+     * millisecond. The format is: <code><pre>
+     * Base64.encodeBytes(currentTimeMS + &quot;:&quot; + hexSequence + &quot;:&quot;
+     *         + md5String(currentTimeMS + &quot;:&quot; + hexSequence + &quot;:&quot; + secretKey))
+     * </pre></code>
+     * 
+     * @param secretKey
+     *            a secret value known only to the creator of the nonce. It's
+     *            inserted into the nonce, and can be used later to validate the
+     *            nonce.
+     * @param sequence
+     *            The sequence number distinguishing the nonce.
+     */
+    public static String makeNonce(String secretKey, long sequence) {
+        final String prefix = System.currentTimeMillis() + ":"
+                + Long.toHexString(sequence);
+        return Base64.encode(
+                (prefix + ":" + DigestUtils.toMd5(prefix + ":" + secretKey))
+                        .getBytes(), false);
+    }
+
     /**
      * Private constructor to ensure that the class acts as a true utility class
      * i.e. it isn't instantiable and extensible.
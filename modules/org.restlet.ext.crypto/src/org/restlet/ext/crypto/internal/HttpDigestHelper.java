@@ -65,7 +65,8 @@ public class HttpDigestHelper extends AuthenticatorHelper {
     /**
      * Checks whether the specified nonce is valid with respect to the specified
      * secretKey, and further confirms that the nonce was generated less than
-     * lifespanMillis milliseconds ago
+     * lifespanMillis milliseconds ago. The nonces generated with a sequence
+     * number are supported as well.
      * 
      * @param nonce
      *            The nonce value.
@@ -84,11 +85,14 @@ public class HttpDigestHelper extends AuthenticatorHelper {
             long lifespan) throws Exception {
         try {
             String decodedNonce = new String(Base64.decode(nonce));
-            long nonceTimeMS = Long.parseLong(decodedNonce.substring(0,
-                    decodedNonce.indexOf(':')));
-
-            if (decodedNonce.equals(nonceTimeMS + ":"
-                    + DigestUtils.toMd5(nonceTimeMS + ":" + secretKey))) {
+            String prefix = decodedNonce.substring(0,
+                    decodedNonce.lastIndexOf(':'));
+            int timeEnd = prefix.indexOf(':');
+            long nonceTimeMS = Long.parseLong((timeEnd == -1) ? prefix
+                    : prefix.substring(0, timeEnd));
+
+            if (decodedNonce.equals(prefix + ":"
+                    + DigestUtils.toMd5(prefix + ":" + secretKey))) {
                 // Valid with regard to the secretKey, now check lifespan
                 return lifespan > (System.currentTimeMillis() - nonceTimeMS);
             }
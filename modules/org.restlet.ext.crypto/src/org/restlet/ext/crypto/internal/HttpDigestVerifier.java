@@ -41,6 +41,7 @@ import org.restlet.data.Reference;
 import org.restlet.engine.security.AuthenticatorUtils;
 import org.restlet.ext.crypto.DigestAuthenticator;
 import org.restlet.ext.crypto.DigestUtils;
+import org.restlet.ext.crypto.ServerNonceStore;
 import org.restlet.security.LocalVerifier;
 import org.restlet.security.User;
 
@@ -197,6 +198,16 @@ public class HttpDigestVerifier extends
                 }
             }
 
+            ServerNonceStore store = getDigestAuthenticator()
+                    .getServerNonceStore();
+
+            if ((result == RESULT_VALID) && (store != null)) {
+                // Reject the replayed nonce counts, or the reused nonces when
+                // the response doesn't cover any nonce count
+                result = store.verify(nonce,
+                        AuthenticatorUtils.anyNull(qop, cnonce) ? 0 : nc);
+            }
+
             if (result == RESULT_VALID) {
                 request.getClientInfo().setUser(new User(username));
             }
@@ -36,11 +36,16 @@ package org.restlet.ext.jdbc;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -50,11 +55,15 @@ import javax.xml.parsers.ParserConfigurationException;
 import org.apache.commons.dbcp.ConnectionFactory;
 import org.apache.commons.dbcp.DriverManagerConnectionFactory;
 import org.apache.commons.dbcp.PoolableConnectionFactory;
+import org.apache.commons.pool.KeyedObjectPoolFactory;
 import org.apache.commons.pool.ObjectPool;
+import org.apache.commons.pool.impl.GenericKeyedObjectPool;
+import org.apache.commons.pool.impl.GenericKeyedObjectPoolFactory;
 import org.apache.commons.pool.impl.GenericObjectPool;
 import org.restlet.Client;
 import org.restlet.Request;
 import org.restlet.Response;
+import org.restlet.data.MediaType;
 import org.restlet.data.Method;
 import org.restlet.data.Protocol;
 import org.restlet.data.Status;
@@ -77,12 +86,26 @@ import org.xml.sax.SAXException;
  * <p>
  * Database connections are optionally pooled using Apache Commons DBCP. In this
  * case, a different connection pool is created for each unique combination of
- * JDBC URI and connection properties.
+ * JDBC URI and connection properties. Pooled connections also keep a cache of
+ * their prepared statements, the least recently used ones being closed first
+ * when the cache is full. The statistics of each pool are available as a list
+ * of {@link JdbcPoolStatistics} in the connector's context, under the
+ * {@link #POOL_STATISTICS_ATTRIBUTE} attribute.
  * <p>
  * Paging is supported via two header elements: "start" for the index of the
  * first result (0 by default) and "limit" for the maximum number of results
  * retrieved (unlimited by default).
  * <p>
+ * Large results can be streamed by setting the "streaming" header element to
+ * true. In this case, a {@link ResultSetRepresentation} writes the rows one at
+ * a time in XML, JSON or CSV, depending on the media types accepted by the
+ * client, and keeps the connection open until it is written or released. The
+ * "fetchSize" header element gives the number of rows fetched from the
+ * database at once, and the statements are created with forward only and read
+ * only cursors. As some drivers, such as PostgreSQL, only use a cursor when the
+ * auto commit mode is disabled, the statements are executed in a transaction
+ * committed once the representation is written or released.
+ * <p>
  * Do not forget to register your JDBC drivers before using this client. See
  * {@link DriverManager} for details.
  * <p>
@@ -104,6 +127,9 @@ import org.xml.sax.SAXException;
  * &nbsp;&nbsp;&nbsp;&nbsp;{@code </connection>}<br>
  * &nbsp;&nbsp;&nbsp;&nbsp;{@code <start>10</start>}<br>
  * &nbsp;&nbsp;&nbsp;&nbsp;{@code <limit>20</limit>}<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;{@code <streaming>true</streaming>}<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;{@code <fetchSize>500</fetchSize>}<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;{@code <batch>true</batch>}<br>
  * &nbsp;&nbsp;&nbsp;&nbsp;
  * {@code <returnGeneratedKeys>true</returnGeneratedKeys>}<br>
  * &nbsp;&nbsp;{@code </header>}<br>
@@ -115,15 +141,115 @@ import org.xml.sax.SAXException;
  * &nbsp;&nbsp;{@code </body>}<br>
  * {@code </request>}
  * <p>
- * Several SQL Statements can be specified. A {@link RowSetRepresentation} of
- * the last correctly executed SQL request is returned to the Client.
+ * Several SQL Statements can be specified. A {@link RowSetRepresentation}, or a
+ * {@link ResultSetRepresentation} when streaming, of the last correctly
+ * executed SQL request is returned to the Client. When the "batch" header
+ * element is set to true, the statements preceding the last one are sent to
+ * the database as a single batch.
+ * <p>
+ * Here is the list of parameters that are supported. They should be set in the
+ * Client's context before it is started:
+ * <table>
+ * <tr>
+ * <th>Parameter name</th>
+ * <th>Value type</th>
+ * <th>Default value</th>
+ * <th>Description</th>
+ * </tr>
+ * <tr>
+ * <td>maxActive</td>
+ * <td>int</td>
+ * <td>8</td>
+ * <td>The maximum number of connections of each pool.</td>
+ * </tr>
+ * <tr>
+ * <td>maxIdle</td>
+ * <td>int</td>
+ * <td>8</td>
+ * <td>The maximum number of idle connections of each pool.</td>
+ * </tr>
+ * <tr>
+ * <td>maxOpenPreparedStatements</td>
+ * <td>int</td>
+ * <td>0</td>
+ * <td>The maximum number of prepared statements cached by each pooled
+ * connection, or 0 to disable the cache. When enabled, the SQL statements are
+ * prepared instead of being executed directly, so this option is opt-in: SQL
+ * texts containing '?' characters that aren't parameters, such as some
+ * PostgreSQL operators, can't be prepared.</td>
+ * </tr>
+ * <tr>
+ * <td>maxWait</td>
+ * <td>long</td>
+ * <td>-1</td>
+ * <td>The maximum time in ms to wait for a pooled connection, or -1 to wait
+ * indefinitely.</td>
+ * </tr>
+ * <tr>
+ * <td>minEvictableIdleTimeMillis</td>
+ * <td>long</td>
+ * <td>1800000</td>
+ * <td>The minimum idle time in ms before an idle connection can be evicted.</td>
+ * </tr>
+ * <tr>
+ * <td>minIdle</td>
+ * <td>int</td>
+ * <td>0</td>
+ * <td>The minimum number of idle connections maintained by the evictor.</td>
+ * </tr>
+ * <tr>
+ * <td>testOnBorrow</td>
+ * <td>boolean</td>
+ * <td>false</td>
+ * <td>Indicates if connections are validated before being borrowed.</td>
+ * </tr>
+ * <tr>
+ * <td>testWhileIdle</td>
+ * <td>boolean</td>
+ * <td>false</td>
+ * <td>Indicates if idle connections are validated by the evictor.</td>
+ * </tr>
+ * <tr>
+ * <td>timeBetweenEvictionRunsMillis</td>
+ * <td>long</td>
+ * <td>-1</td>
+ * <td>The time in ms between two runs of the idle connections evictor, or -1
+ * to disable it.</td>
+ * </tr>
+ * <tr>
+ * <td>validationQuery</td>
+ * <td>String</td>
+ * <td>null</td>
+ * <td>The SQL query used to validate connections. If null, only closed
+ * connections are detected.</td>
+ * </tr>
+ * <tr>
+ * <td>validationQueryTimeout</td>
+ * <td>int</td>
+ * <td>-1</td>
+ * <td>The timeout in seconds of the validation query, or -1 for none.</td>
+ * </tr>
+ * </table>
  * 
  * @see org.restlet.ext.jdbc.RowSetRepresentation
+ * @see org.restlet.ext.jdbc.ResultSetRepresentation
  * 
  * @author Jerome Louvel
  * @author Thierry Boileau
  */
 public class JdbcClientHelper extends ClientHelper {
+
+    /**
+     * The name of the context attribute holding the list of
+     * {@link JdbcPoolStatistics}.
+     */
+    public static final String POOL_STATISTICS_ATTRIBUTE = "org.restlet.ext.jdbc.poolStatistics";
+
+    /** The media types of the streamed result sets. */
+    private static final List<MediaType> STREAMING_MEDIA_TYPES = Arrays
+            .asList(MediaType.TEXT_XML, MediaType.APPLICATION_JSON,
+                    MediaType.TEXT_CSV);
+
     /**
      * Creates an uniform call.
      * 
@@ -153,20 +279,58 @@ public class JdbcClientHelper extends ClientHelper {
      */
     public static ObjectPool createConnectionPool(String uri,
             Properties properties) {
+        return createConnectionPool(uri, properties,
+                new GenericObjectPool.Config(), null, -1, 0);
+    }
+
+    /**
+     * Creates a connection pool for a given connection configuration.
+     * 
+     * @param uri
+     *            The connection URI.
+     * @param properties
+     *            The connection properties.
+     * @param config
+     *            The pool configuration.
+     * @param validationQuery
+     *            The SQL query used to validate connections or null.
+     * @param validationQueryTimeout
+     *            The timeout in seconds of the validation query, or -1 for
+     *            none.
+     * @param maxOpenPreparedStatements
+     *            The maximum number of prepared statements cached by each
+     *            connection, or 0 to disable the cache.
+     * @return The new connection pool.
+     */
+    public static ObjectPool createConnectionPool(String uri,
+            Properties properties, GenericObjectPool.Config config,
+            String validationQuery, int validationQueryTimeout,
+            int maxOpenPreparedStatements) {
         // Create an ObjectPool that will serve as the actual pool of
         // connections
-        ObjectPool result = new GenericObjectPool(null);
+        ObjectPool result = new GenericObjectPool(null, config);
 
         // Create a ConnectionFactory that the pool will use to create
         // Connections
         ConnectionFactory connectionFactory = new DriverManagerConnectionFactory(
                 uri, properties);
 
+        // Create the factory of the prepared statements caches. When a
+        // cache is full, its oldest idle statements are closed first.
+        KeyedObjectPoolFactory statementPoolFactory = null;
+
+        if (maxOpenPreparedStatements > 0) {
+            statementPoolFactory = new GenericKeyedObjectPoolFactory(null, -1,
+                    GenericKeyedObjectPool.WHEN_EXHAUSTED_FAIL, 0, 1,
+                    maxOpenPreparedStatements);
+        }
+
         // Create the PoolableConnectionFactory, which wraps the "real"
         // Connections created by the ConnectionFactory with
         // the classes that implement the pooling functionality.
         PoolableConnectionFactory poolableConnectionFactory = new PoolableConnectionFactory(
-                connectionFactory, result, null, null, false, false);
+                connectionFactory, result, statementPoolFactory,
+                validationQuery, validationQueryTimeout, false, false);
 
         // To remove warnings
         poolableConnectionFactory.getPool();
@@ -200,6 +364,9 @@ public class JdbcClientHelper extends ClientHelper {
     /** Map of connection factories. */
     private volatile List<ConnectionSource> connectionSources;
 
+    /** The statistics of the connection pools. */
+    private final List<JdbcPoolStatistics> poolStatistics;
+
     /**
      * Constructor.
      * 
@@ -212,7 +379,76 @@ public class JdbcClientHelper extends ClientHelper {
         getProtocols().add(Protocol.JDBC);
 
         // Set up the list of factories
-        this.connectionSources = new ArrayList<ConnectionSource>();
+        this.connectionSources = new CopyOnWriteArrayList<ConnectionSource>();
+        this.poolStatistics = new CopyOnWriteArrayList<JdbcPoolStatistics>();
+    }
+
+    /**
+     * Creates a connection source, pooling the connections according to the
+     * helper parameters.
+     * 
+     * @param uri
+     *            The connection URI.
+     * @param properties
+     *            The connection properties.
+     * @return The new connection source.
+     */
+    protected ConnectionSource createConnectionSource(String uri,
+            Properties properties) {
+        GenericObjectPool.Config config = new GenericObjectPool.Config();
+        config.maxActive = getMaxActive();
+        config.maxIdle = getMaxIdle();
+        config.minIdle = getMinIdle();
+        config.maxWait = getMaxWait();
+        config.whenExhaustedAction = GenericObjectPool.WHEN_EXHAUSTED_BLOCK;
+        config.testOnBorrow = isTestOnBorrow();
+        config.testWhileIdle = isTestWhileIdle();
+        config.timeBetweenEvictionRunsMillis = getTimeBetweenEvictionRunsMillis();
+        config.minEvictableIdleTimeMillis = getMinEvictableIdleTimeMillis();
+
+        return new ConnectionSource(uri, properties, createConnectionPool(uri,
+                properties, config, getValidationQuery(),
+                getValidationQueryTimeout(), getMaxOpenPreparedStatements()));
+    }
+
+    /**
+     * Returns the existing connection source of a given connection
+     * configuration.
+     * 
+     * @param uri
+     *            The connection URI.
+     * @param properties
+     *            The connection properties.
+     * @return The connection source or null.
+     */
+    private ConnectionSource findConnectionSource(String uri,
+            Properties properties) {
+        ConnectionSource result = null;
+
+        for (ConnectionSource c : this.connectionSources) {
+            // Check if the connection URI is identical
+            // and if the same number of properties is present
+            if ((result == null) && c.getUri().equalsIgnoreCase(uri)
+                    && (properties.size() == c.getProperties().size())) {
+                // Check that the properties tables are equivalent
+                boolean equal = true;
+                for (Object key : c.getProperties().keySet()) {
+                    if (equal && properties.containsKey(key)) {
+                        equal = equal
+                                && (properties.get(key).equals(c
+                                        .getProperties().get(key)));
+                    } else {
+                        equal = false;
+                    }
+                }
+
+                if (equal) {
+                    result = c;
+                }
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -232,42 +468,148 @@ public class JdbcClientHelper extends ClientHelper {
         Connection result = null;
 
         if (usePooling) {
-            for (ConnectionSource c : this.connectionSources) {
-                // Check if the connection URI is identical
-                // and if the same number of properties is present
-                if ((result == null) && c.getUri().equalsIgnoreCase(uri)
-                        && (properties.size() == c.getProperties().size())) {
-                    // Check that the properties tables are equivalent
-                    boolean equal = true;
-                    for (Object key : c.getProperties().keySet()) {
-                        if (equal && properties.containsKey(key)) {
-                            equal = equal
-                                    && (properties.get(key).equals(c
-                                            .getProperties().get(key)));
-                        } else {
-                            equal = false;
-                        }
-                    }
+            result = getConnectionSource(uri, properties).getConnection();
+        } else {
+            result = DriverManager.getConnection(uri, properties);
+        }
 
-                    if (equal) {
-                        result = c.getConnection();
-                    }
-                }
-            }
+        return result;
+    }
+
+    /**
+     * Returns the connection source of a given connection configuration,
+     * creating it if needed.
+     * 
+     * @param uri
+     *            The connection URI.
+     * @param properties
+     *            The connection properties.
+     * @return The connection source.
+     */
+    private ConnectionSource getConnectionSource(String uri,
+            Properties properties) {
+        ConnectionSource result = findConnectionSource(uri, properties);
 
-            if (result == null) {
-                // No existing connection source found
-                ConnectionSource cs = new ConnectionSource(uri, properties);
-                this.connectionSources.add(cs);
-                result = cs.getConnection();
+        if (result == null) {
+            synchronized (this.connectionSources) {
+                result = findConnectionSource(uri, properties);
+
+                if (result == null) {
+                    // No existing connection source found
+                    result = createConnectionSource(uri, properties);
+                    this.connectionSources.add(result);
+                    this.poolStatistics.add(result.getStatistics());
+                }
             }
-        } else {
-            result = DriverManager.getConnection(uri, properties);
         }
 
         return result;
     }
 
+    /**
+     * Returns the maximum number of connections of each pool.
+     * 
+     * @return The maximum number of connections of each pool.
+     */
+    public int getMaxActive() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxActive", "8"));
+    }
+
+    /**
+     * Returns the maximum number of idle connections of each pool.
+     * 
+     * @return The maximum number of idle connections of each pool.
+     */
+    public int getMaxIdle() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxIdle", "8"));
+    }
+
+    /**
+     * Returns the maximum number of prepared statements cached by each pooled
+     * connection, or 0 if the cache is disabled, which is the default.
+     * 
+     * @return The maximum number of cached prepared statements per
+     *         connection.
+     */
+    public int getMaxOpenPreparedStatements() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxOpenPreparedStatements", "0"));
+    }
+
+    /**
+     * Returns the maximum time in ms to wait for a pooled connection.
+     * 
+     * @return The maximum time in ms to wait for a pooled connection.
+     */
+    public long getMaxWait() {
+        return Long.parseLong(getHelpedParameters().getFirstValue("maxWait",
+                "-1"));
+    }
+
+    /**
+     * Returns the minimum idle time in ms before an idle connection can be
+     * evicted.
+     * 
+     * @return The minimum idle time in ms before an idle connection can be
+     *         evicted.
+     */
+    public long getMinEvictableIdleTimeMillis() {
+        return Long.parseLong(getHelpedParameters().getFirstValue(
+                "minEvictableIdleTimeMillis", "1800000"));
+    }
+
+    /**
+     * Returns the minimum number of idle connections maintained by the
+     * evictor.
+     * 
+     * @return The minimum number of idle connections.
+     */
+    public int getMinIdle() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "minIdle", "0"));
+    }
+
+    /**
+     * Returns the statistics of the connection pools.
+     * 
+     * @return The statistics of the connection pools.
+     */
+    public List<JdbcPoolStatistics> getPoolStatistics() {
+        return Collections.unmodifiableList(this.poolStatistics);
+    }
+
+    /**
+     * Returns the time in ms between two runs of the idle connections
+     * evictor.
+     * 
+     * @return The time in ms between two runs of the idle connections evictor.
+     */
+    public long getTimeBetweenEvictionRunsMillis() {
+        return Long.parseLong(getHelpedParameters().getFirstValue(
+                "timeBetweenEvictionRunsMillis", "-1"));
+    }
+
+    /**
+     * Returns the SQL query used to validate connections.
+     * 
+     * @return The SQL query used to validate connections.
+     */
+    public String getValidationQuery() {
+        return getHelpedParameters().getFirstValue("validationQuery", null);
+    }
+
+    /**
+     * Returns the timeout in seconds of the validation query.
+     * 
+     * @return The timeout in seconds of the validation query.
+     */
+    public int getValidationQueryTimeout() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "validationQueryTimeout", "-1"));
+    }
+
     /**
      * Handles a call.
      * 
@@ -341,6 +683,25 @@ public class JdbcClientHelper extends ClientHelper {
                 boolean returnGeneratedKeys = returnGeneratedKeysNode
                         .getTextContent().equals("true") ? true : false;
 
+                // Read the streaming settings
+                Node streamingNode = headerElt.getElementsByTagName(
+                        "streaming").item(0);
+                boolean streaming = (streamingNode != null)
+                        && streamingNode.getTextContent().trim()
+                                .equals("true");
+
+                Node fetchSizeNode = headerElt.getElementsByTagName(
+                        "fetchSize").item(0);
+                int fetchSize = fetchSizeNode != null
+                        && fetchSizeNode.getTextContent().trim().length() > 0 ? Integer
+                        .parseInt(fetchSizeNode.getTextContent().trim()) : 0;
+
+                // Read the batch setting
+                Node batchNode = headerElt.getElementsByTagName("batch")
+                        .item(0);
+                boolean batch = (batchNode != null)
+                        && batchNode.getTextContent().trim().equals("true");
+
                 // Read the SQL body and get the list of sql statements
                 Element bodyElt = (Element) rootElt
                         .getElementsByTagName("body").item(0);
@@ -356,9 +717,20 @@ public class JdbcClientHelper extends ClientHelper {
                 connection = getConnection(connectionURI, properties,
                         usePooling);
                 JdbcResult result = handleSqlRequests(connection,
-                        returnGeneratedKeys, sqlRequests);
-                response.setEntity(new RowSetRepresentation(result, start,
-                        limit));
+                        returnGeneratedKeys, sqlRequests, streaming,
+                        fetchSize, batch, usePooling
+                                && (getMaxOpenPreparedStatements() > 0));
+
+                if (streaming && (result != null)) {
+                    MediaType mediaType = request.getClientInfo()
+                            .getPreferredMediaType(STREAMING_MEDIA_TYPES);
+                    response.setEntity(new ResultSetRepresentation(result,
+                            (mediaType == null) ? MediaType.TEXT_XML
+                                    : mediaType, start, limit));
+                } else {
+                    response.setEntity(new RowSetRepresentation(result,
+                            start, limit));
+                }
             } catch (SQLException se) {
                 getLogger().log(Level.WARNING,
                         "Error while processing the SQL request", se);
@@ -387,23 +759,98 @@ public class JdbcClientHelper extends ClientHelper {
      * @param connection
      * @param returnGeneratedKeys
      * @param sqlRequests
+     * @param streaming
+     *            Indicates if the result set is streamed, using a forward
+     *            only and read only cursor in a transaction left open.
+     * @param fetchSize
+     *            The number of rows fetched at once or 0 for the driver's
+     *            default.
+     * @param batch
+     *            Indicates if the statements preceding the last one are
+     *            executed as a single batch.
+     * @param cachedStatements
+     *            Indicates if the connection caches its prepared statements.
      * @return the result of the last executed SQL request
      */
     private JdbcResult handleSqlRequests(Connection connection,
-            boolean returnGeneratedKeys, List<String> sqlRequests) {
+            boolean returnGeneratedKeys, List<String> sqlRequests,
+            boolean streaming, int fetchSize, boolean batch,
+            boolean cachedStatements) {
         JdbcResult result = null;
         try {
-            connection.setAutoCommit(true);
-            Statement statement = connection.createStatement();
-            for (String sqlRequest : sqlRequests) {
-                statement.execute(sqlRequest,
-                        returnGeneratedKeys ? Statement.RETURN_GENERATED_KEYS
-                                : Statement.NO_GENERATED_KEYS);
-                result = new JdbcResult(statement);
+            // The streamed result set is read in a transaction ended by the
+            // representation, as the fetch size is ignored in auto commit
+            connection.setAutoCommit(!streaming);
+            List<String> requests = sqlRequests;
+            int last = requests.size() - 1;
+
+            if (batch && (last > 0)
+                    && connection.getMetaData().supportsBatchUpdates()) {
+                // Send the leading statements in a single round trip
+                Statement batchStatement = connection.createStatement();
+
+                try {
+                    for (String sqlRequest : requests.subList(0, last)) {
+                        batchStatement.addBatch(sqlRequest);
+                    }
+
+                    batchStatement.executeBatch();
+                } finally {
+                    batchStatement.close();
+                }
+
+                requests = requests.subList(last, last + 1);
+            }
+
+            if (cachedStatements && !returnGeneratedKeys) {
+                PreparedStatement statement = null;
+
+                for (String sqlRequest : requests) {
+                    if (statement != null) {
+                        // Give the previous statement back to the cache
+                        statement.close();
+                    }
+
+                    if (streaming) {
+                        statement = connection.prepareStatement(sqlRequest,
+                                ResultSet.TYPE_FORWARD_ONLY,
+                                ResultSet.CONCUR_READ_ONLY);
+                        statement.setFetchDirection(ResultSet.FETCH_FORWARD);
+                    } else {
+                        statement = connection.prepareStatement(sqlRequest);
+                    }
+
+                    // Cached statements keep the previous fetch size
+                    statement.setFetchSize(fetchSize);
+                    statement.execute();
+                    result = new JdbcResult(statement);
+                }
+            } else {
+                Statement statement = null;
+
+                if (streaming) {
+                    statement = connection.createStatement(
+                            ResultSet.TYPE_FORWARD_ONLY,
+                            ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchDirection(ResultSet.FETCH_FORWARD);
+                } else {
+                    statement = connection.createStatement();
+                }
+
+                if (fetchSize > 0) {
+                    statement.setFetchSize(fetchSize);
+                }
+
+                for (String sqlRequest : requests) {
+                    statement.execute(sqlRequest,
+                            returnGeneratedKeys ? Statement.RETURN_GENERATED_KEYS
+                                    : Statement.NO_GENERATED_KEYS);
+                    result = new JdbcResult(statement);
+                }
             }
 
             // Commit any changes to the database
-            if (!connection.getAutoCommit()) {
+            if (!streaming && !connection.getAutoCommit()) {
                 connection.commit();
             }
         } catch (SQLException se) {
@@ -421,4 +868,53 @@ public class JdbcClientHelper extends ClientHelper {
         return result;
 
     }
+
+    /**
+     * Indicates if connections are validated before being borrowed.
+     * 
+     * @return True if connections are validated before being borrowed.
+     */
+    public boolean isTestOnBorrow() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "testOnBorrow", "false"));
+    }
+
+    /**
+     * Indicates if idle connections are validated by the evictor.
+     * 
+     * @return True if idle connections are validated by the evictor.
+     */
+    public boolean isTestWhileIdle() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "testWhileIdle", "false"));
+    }
+
+    @Override
+    public void start() throws Exception {
+        super.start();
+
+        if (getContext() != null) {
+            getContext().getAttributes().put(POOL_STATISTICS_ATTRIBUTE,
+                    getPoolStatistics());
+        }
+    }
+
+    @Override
+    public void stop() throws Exception {
+        synchronized (this.connectionSources) {
+            for (ConnectionSource connectionSource : this.connectionSources) {
+                try {
+                    connectionSource.close();
+                } catch (Exception e) {
+                    getLogger().log(Level.FINE,
+                            "Unable to close the connection pool", e);
+                }
+            }
+
+            this.connectionSources.clear();
+            this.poolStatistics.clear();
+        }
+
+        super.stop();
+    }
 }
@@ -0,0 +1,234 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.jdbc;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.pool.ObjectPool;
+
+/**
+ * Live statistics of a JDBC connection pool. An instance is maintained for each
+ * pool created by the JDBC client connector and the list of instances is
+ * available in the connector's context, under the
+ * {@link JdbcClientHelper#POOL_STATISTICS_ATTRIBUTE} attribute.
+ * 
+ * @author Jerome Louvel
+ */
+public class JdbcPoolStatistics {
+
+    /** The number of successful acquisitions. */
+    private final AtomicLong acquisitionCount;
+
+    /** The number of failed acquisitions, including the timeouts. */
+    private final AtomicLong failedAcquisitionCount;
+
+    /** The maximum time waited for a connection, in nanoseconds. */
+    private final AtomicLong maxWaitTime;
+
+    /** The underlying connection pool. */
+    private final ObjectPool pool;
+
+    /** The total time waited for connections, in nanoseconds. */
+    private final AtomicLong totalWaitTime;
+
+    /** The connection URI. */
+    private final String uri;
+
+    /**
+     * Constructor.
+     * 
+     * @param uri
+     *            The connection URI.
+     * @param pool
+     *            The underlying connection pool.
+     */
+    public JdbcPoolStatistics(String uri, ObjectPool pool) {
+        this.uri = uri;
+        this.pool = pool;
+        this.acquisitionCount = new AtomicLong();
+        this.failedAcquisitionCount = new AtomicLong();
+        this.maxWaitTime = new AtomicLong();
+        this.totalWaitTime = new AtomicLong();
+    }
+
+    /**
+     * Returns the number of successful connection acquisitions.
+     * 
+     * @return The number of successful connection acquisitions.
+     */
+    public long getAcquisitionCount() {
+        return this.acquisitionCount.get();
+    }
+
+    /**
+     * Returns the number of connections currently borrowed from the pool.
+     * 
+     * @return The number of active connections.
+     */
+    public int getActiveCount() {
+        return this.pool.getNumActive();
+    }
+
+    /**
+     * Returns the average time waited for a connection, in milliseconds.
+     * 
+     * @return The average time waited for a connection, in milliseconds.
+     */
+    public double getAverageWaitTime() {
+        long count = getAcquisitionCount() + getFailedAcquisitionCount();
+        return (count == 0) ? 0 : (this.totalWaitTime.get() / 1000000D)
+                / count;
+    }
+
+    /**
+     * Returns the number of failed connection acquisitions, including the
+     * acquisition timeouts.
+     * 
+     * @return The number of failed connection acquisitions.
+     */
+    public long getFailedAcquisitionCount() {
+        return this.failedAcquisitionCount.get();
+    }
+
+    /**
+     * Returns the number of idle connections in the pool.
+     * 
+     * @return The number of idle connections.
+     */
+    public int getIdleCount() {
+        return this.pool.getNumIdle();
+    }
+
+    /**
+     * Returns the maximum time waited for a connection, in milliseconds.
+     * 
+     * @return The maximum time waited for a connection, in milliseconds.
+     */
+    public long getMaxWaitTime() {
+        return this.maxWaitTime.get() / 1000000L;
+    }
+
+    /**
+     * Returns the connection URI without its credentials and parameters, so
+     * that it can be safely logged. The part after the first '?' or ';'
+     * character is removed, as well as the user information before the '@'
+     * character.
+     * 
+     * @return The connection URI without its credentials and parameters.
+     */
+    public String getSafeUri() {
+        String result = this.uri;
+
+        if (result != null) {
+            int end = result.length();
+            int index = result.indexOf('?');
+
+            if (index != -1) {
+                end = index;
+            }
+
+            index = result.indexOf(';');
+
+            if ((index != -1) && (index < end)) {
+                end = index;
+            }
+
+            result = result.substring(0, end);
+            int at = result.lastIndexOf('@');
+
+            if (at != -1) {
+                int start = result.indexOf("//");
+                start = ((start != -1) && (start < at)) ? start + 2 : result
+                        .lastIndexOf(':', at) + 1;
+                result = result.substring(0, start)
+                        + result.substring(at + 1);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the total time waited for connections, in milliseconds.
+     * 
+     * @return The total time waited for connections, in milliseconds.
+     */
+    public long getTotalWaitTime() {
+        return this.totalWaitTime.get() / 1000000L;
+    }
+
+    /**
+     * Returns the connection URI, possibly including credentials.
+     * 
+     * @return The connection URI.
+     * @see #getSafeUri()
+     */
+    public String getUri() {
+        return this.uri;
+    }
+
+    /**
+     * Records a connection acquisition.
+     * 
+     * @param waitTime
+     *            The time waited for the connection, in nanoseconds.
+     * @param success
+     *            Indicates if a connection was acquired.
+     */
+    public void record(long waitTime, boolean success) {
+        if (success) {
+            this.acquisitionCount.incrementAndGet();
+        } else {
+            this.failedAcquisitionCount.incrementAndGet();
+        }
+
+        this.totalWaitTime.addAndGet(waitTime);
+        long max = this.maxWaitTime.get();
+
+        while ((waitTime > max)
+                && !this.maxWaitTime.compareAndSet(max, waitTime)) {
+            max = this.maxWaitTime.get();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "JDBC pool [uri=" + getSafeUri() + ", active=" + getActiveCount()
+                + ", idle=" + getIdleCount() + ", acquisitions="
+                + getAcquisitionCount() + ", failures="
+                + getFailedAcquisitionCount() + ", averageWait="
+                + getAverageWaitTime() + "ms, maxWait=" + getMaxWaitTime()
+                + "ms]";
+    }
+}
@@ -34,6 +34,7 @@
 package org.restlet.ext.jdbc;
 
 import java.io.Serializable;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -60,6 +61,16 @@ public class JdbcResult implements Serializable {
         this.statement = statement;
     }
 
+    /**
+     * Returns the connection of the statement.
+     * 
+     * @return The connection of the statement.
+     * @throws SQLException
+     */
+    public Connection getConnection() throws SQLException {
+        return this.statement.getConnection();
+    }
+
     /**
      * Returns the generated keys.
      * 
@@ -0,0 +1,516 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.jdbc;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.logging.Level;
+
+import org.restlet.Context;
+import org.restlet.data.CharacterSet;
+import org.restlet.data.MediaType;
+import org.restlet.representation.WriterRepresentation;
+
+/**
+ * Streaming representation of a ResultSet instance wrapped in a JdbcResult
+ * instance. Contrary to the {@link RowSetRepresentation}, the rows are not
+ * loaded in memory first but written one at a time while the result set is
+ * read, keeping the statement and its connection open until the
+ * representation is written or released. When the auto commit mode of the
+ * connection is disabled, the transaction is committed at this time, or rolled
+ * back if the rows couldn't be written.<br>
+ * <br>
+ * The rows can be written in XML ({@link MediaType#TEXT_XML}), JSON (
+ * {@link MediaType#APPLICATION_JSON}) or CSV ({@link MediaType#TEXT_CSV}):
+ * <ul>
+ * <li>XML: {@code <resultSet><row><column name="id">1</column></row></resultSet>}
+ * with SQL NULL values omitted.</li>
+ * <li>JSON: an array of objects, one per row, keyed by the column labels.</li>
+ * <li>CSV: a header line with the column labels followed by one line per row,
+ * quoted as specified by RFC 4180.</li>
+ * </ul>
+ * 
+ * @author Jerome Louvel
+ */
+public class ResultSetRepresentation extends WriterRepresentation {
+
+    /** The JdbcResult instance that gives access to the result set. */
+    private volatile JdbcResult jdbcResult;
+
+    /** The page size or -1 if no limit is set. */
+    private final int limit;
+
+    /** The start index of the page or 0 for the first result. */
+    private final int start;
+
+    /**
+     * Constructor.
+     * 
+     * @param jdbcResult
+     *            The inner JdbcResult.
+     * @param mediaType
+     *            The media type, either XML, JSON or CSV.
+     */
+    public ResultSetRepresentation(JdbcResult jdbcResult, MediaType mediaType) {
+        this(jdbcResult, mediaType, 0, -1);
+    }
+
+    /**
+     * Constructor with paging.
+     * 
+     * @param jdbcResult
+     *            The inner JdbcResult.
+     * @param mediaType
+     *            The media type, either XML, JSON or CSV.
+     * @param start
+     *            The start index of the page or 0 for the first result.
+     * @param limit
+     *            The page size or -1 if no limit is set.
+     */
+    public ResultSetRepresentation(JdbcResult jdbcResult, MediaType mediaType,
+            int start, int limit) {
+        super(mediaType);
+        setCharacterSet(CharacterSet.UTF_8);
+        this.jdbcResult = jdbcResult;
+        this.start = start;
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the inner JdbcResult instance or null if released.
+     * 
+     * @return The inner JdbcResult instance or null.
+     */
+    public JdbcResult getJdbcResult() {
+        return this.jdbcResult;
+    }
+
+    /**
+     * Commits the transaction if any, then releases the result set, its
+     * statement and the connection, returning it to its pool if any.
+     */
+    @Override
+    public void release() {
+        release(true);
+    }
+
+    /**
+     * Ends the transaction if any, then releases the result set, its statement
+     * and the connection, returning it to its pool if any.
+     * 
+     * @param commit
+     *            True to commit the transaction, false to roll it back.
+     */
+    private void release(boolean commit) {
+        JdbcResult result = this.jdbcResult;
+        this.jdbcResult = null;
+
+        if (result != null) {
+            try {
+                Connection connection = result.getConnection();
+
+                if (!connection.getAutoCommit()) {
+                    if (commit) {
+                        connection.commit();
+                    } else {
+                        connection.rollback();
+                    }
+                }
+            } catch (SQLException se) {
+                Context.getCurrentLogger().log(Level.WARNING,
+                        "Unable to end the transaction of the result set", se);
+            }
+
+            try {
+                result.release();
+            } catch (SQLException se) {
+                Context.getCurrentLogger().log(Level.WARNING,
+                        "Unable to release the JdbcResult instance", se);
+            }
+        }
+
+        super.release();
+    }
+
+    @Override
+    public void write(Writer writer) throws IOException {
+        JdbcResult result = this.jdbcResult;
+
+        if (result == null) {
+            throw new IOException(
+                    "The JdbcResult instance has already been released");
+        }
+
+        boolean written = false;
+
+        try {
+            ResultSet resultSet = result.getResultSet();
+
+            if (MediaType.APPLICATION_JSON.equals(getMediaType(), true)) {
+                writeJson(writer, resultSet);
+            } else if (MediaType.TEXT_CSV.equals(getMediaType(), true)) {
+                writeCsv(writer, resultSet);
+            } else {
+                writeXml(writer, resultSet);
+            }
+
+            writer.flush();
+            written = true;
+        } catch (SQLException se) {
+            throw new IOException(
+                    "SQL exception while writing the result set. "
+                            + se.getMessage(), se);
+        } finally {
+            release(written);
+        }
+    }
+
+    /**
+     * Moves the cursor to the next row of the page.
+     * 
+     * @param resultSet
+     *            The result set.
+     * @param index
+     *            The index of the row in the page.
+     * @return True if a row is available.
+     * @throws SQLException
+     */
+    private boolean next(ResultSet resultSet, int index) throws SQLException {
+        if ((resultSet == null) || ((this.limit > -1) && (index >= this.limit))) {
+            return false;
+        }
+
+        if (index == 0) {
+            for (int i = 0; i < this.start; i++) {
+                if (!resultSet.next()) {
+                    return false;
+                }
+            }
+        }
+
+        return resultSet.next();
+    }
+
+    /**
+     * Writes the rows as CSV.
+     * 
+     * @param writer
+     *            The writer.
+     * @param resultSet
+     *            The result set or null.
+     * @throws IOException
+     * @throws SQLException
+     */
+    private void writeCsv(Writer writer, ResultSet resultSet)
+            throws IOException, SQLException {
+        if (resultSet == null) {
+            return;
+        }
+
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int count = metaData.getColumnCount();
+
+        for (int i = 1; i <= count; i++) {
+            if (i > 1) {
+                writer.write(',');
+            }
+
+            writeCsvValue(writer, metaData.getColumnLabel(i));
+        }
+
+        writer.write("\r\n");
+
+        for (int index = 0; next(resultSet, index); index++) {
+            for (int i = 1; i <= count; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+
+                String value = resultSet.getString(i);
+
+                if (value != null) {
+                    writeCsvValue(writer, value);
+                }
+            }
+
+            writer.write("\r\n");
+        }
+    }
+
+    /**
+     * Writes a CSV value, quoted if needed.
+     * 
+     * @param writer
+     *            The writer.
+     * @param value
+     *            The value.
+     * @throws IOException
+     */
+    private void writeCsvValue(Writer writer, String value) throws IOException {
+        boolean quoted = false;
+
+        for (int i = 0; !quoted && (i < value.length()); i++) {
+            char c = value.charAt(i);
+            quoted = (c == ',') || (c == '"') || (c == '\r') || (c == '\n');
+        }
+
+        if (quoted) {
+            writer.write('"');
+
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+
+                if (c == '"') {
+                    writer.write('"');
+                }
+
+                writer.write(c);
+            }
+
+            writer.write('"');
+        } else {
+            writer.write(value);
+        }
+    }
+
+    /**
+     * Writes the rows as a JSON array of objects.
+     * 
+     * @param writer
+     *            The writer.
+     * @param resultSet
+     *            The result set or null.
+     * @throws IOException
+     * @throws SQLException
+     */
+    private void writeJson(Writer writer, ResultSet resultSet)
+            throws IOException, SQLException {
+        writer.write('[');
+
+        if (resultSet != null) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            int count = metaData.getColumnCount();
+            String[] labels = new String[count + 1];
+            int[] types = new int[count + 1];
+
+            for (int i = 1; i <= count; i++) {
+                labels[i] = metaData.getColumnLabel(i);
+
+                switch (metaData.getColumnType(i)) {
+                case Types.BIT:
+                case Types.BOOLEAN:
+                    types[i] = Types.BOOLEAN;
+                    break;
+                case Types.BIGINT:
+                case Types.DECIMAL:
+                case Types.DOUBLE:
+                case Types.FLOAT:
+                case Types.INTEGER:
+                case Types.NUMERIC:
+                case Types.REAL:
+                case Types.SMALLINT:
+                case Types.TINYINT:
+                    types[i] = Types.NUMERIC;
+                    break;
+                default:
+                    types[i] = Types.VARCHAR;
+                }
+            }
+
+            for (int index = 0; next(resultSet, index); index++) {
+                if (index > 0) {
+                    writer.write(',');
+                }
+
+                writer.write('{');
+
+                for (int i = 1; i <= count; i++) {
+                    if (i > 1) {
+                        writer.write(',');
+                    }
+
+                    writeJsonString(writer, labels[i]);
+                    writer.write(':');
+                    String value = resultSet.getString(i);
+
+                    if (value == null) {
+                        writer.write("null");
+                    } else if (types[i] == Types.BOOLEAN) {
+                        writer.write(Boolean.toString(resultSet.getBoolean(i)));
+                    } else if ((types[i] == Types.NUMERIC)
+                            && (value.length() > 0)
+                            && Character.isDigit(value.charAt(value.length() - 1))) {
+                        writer.write(value);
+                    } else {
+                        // Including the NaN and infinite values
+                        writeJsonString(writer, value);
+                    }
+                }
+
+                writer.write('}');
+            }
+        }
+
+        writer.write(']');
+    }
+
+    /**
+     * Writes a JSON string.
+     * 
+     * @param writer
+     *            The writer.
+     * @param value
+     *            The value.
+     * @throws IOException
+     */
+    private void writeJsonString(Writer writer, String value)
+            throws IOException {
+        writer.write('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            switch (c) {
+            case '"':
+                writer.write("\\\"");
+                break;
+            case '\\':
+                writer.write("\\\\");
+                break;
+            case '\n':
+                writer.write("\\n");
+                break;
+            case '\r':
+                writer.write("\\r");
+                break;
+            case '\t':
+                writer.write("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    writer.write(String.format("\\u%04x", (int) c));
+                } else {
+                    writer.write(c);
+                }
+            }
+        }
+
+        writer.write('"');
+    }
+
+    /**
+     * Writes the rows as XML.
+     * 
+     * @param writer
+     *            The writer.
+     * @param resultSet
+     *            The result set or null.
+     * @throws IOException
+     * @throws SQLException
+     */
+    private void writeXml(Writer writer, ResultSet resultSet)
+            throws IOException, SQLException {
+        writer.write("<?xml version=\"1.0\" encoding=\"");
+        writer.write(getCharacterSet().getName());
+        writer.write("\"?>\n<resultSet>");
+
+        if (resultSet != null) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            int count = metaData.getColumnCount();
+            String[] labels = new String[count + 1];
+
+            for (int i = 1; i <= count; i++) {
+                labels[i] = metaData.getColumnLabel(i);
+            }
+
+            for (int index = 0; next(resultSet, index); index++) {
+                writer.write("\n<row>");
+
+                for (int i = 1; i <= count; i++) {
+                    String value = resultSet.getString(i);
+
+                    if (value != null) {
+                        writer.write("<column name=\"");
+                        writeXmlText(writer, labels[i]);
+                        writer.write("\">");
+                        writeXmlText(writer, value);
+                        writer.write("</column>");
+                    }
+                }
+
+                writer.write("</row>");
+            }
+        }
+
+        writer.write("\n</resultSet>\n");
+    }
+
+    /**
+     * Writes an XML text, escaping the markup characters.
+     * 
+     * @param writer
+     *            The writer.
+     * @param value
+     *            The value.
+     * @throws IOException
+     */
+    private void writeXmlText(Writer writer, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            switch (c) {
+            case '<':
+                writer.write("&lt;");
+                break;
+            case '>':
+                writer.write("&gt;");
+                break;
+            case '&':
+                writer.write("&amp;");
+                break;
+            case '"':
+                writer.write("&quot;");
+                break;
+            default:
+                writer.write(c);
+            }
+        }
+    }
+
+}
@@ -33,20 +33,31 @@
 
 package org.restlet.ext.jdbc.internal;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.Properties;
 
 import org.apache.commons.dbcp.PoolingDataSource;
+import org.apache.commons.pool.ObjectPool;
 import org.restlet.ext.jdbc.JdbcClientHelper;
+import org.restlet.ext.jdbc.JdbcPoolStatistics;
 
 /**
- * Pooling data source which remembers its connection properties and URI.
+ * Pooling data source which remembers its connection properties and URI. It
+ * also records the statistics of the connection acquisitions.
  * 
  * @author Jerome Louvel
  */
 public class ConnectionSource extends PoolingDataSource {
+    /** The underlying connection pool. */
+    private final ObjectPool pool;
+
     /** The connection properties. */
     protected Properties properties;
 
+    /** The pool statistics. */
+    private final JdbcPoolStatistics statistics;
+
     /** The connection URI. */
     protected String uri;
 
@@ -59,9 +70,49 @@ public class ConnectionSource extends PoolingDataSource {
      *            The connection properties.
      */
     public ConnectionSource(String uri, Properties properties) {
-        super(JdbcClientHelper.createConnectionPool(uri, properties));
+        this(uri, properties, JdbcClientHelper.createConnectionPool(uri,
+                properties));
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param uri
+     *            The connection URI.
+     * @param properties
+     *            The connection properties.
+     * @param pool
+     *            The underlying connection pool.
+     */
+    public ConnectionSource(String uri, Properties properties, ObjectPool pool) {
+        super(pool);
+        this.pool = pool;
         this.uri = uri;
         this.properties = properties;
+        this.statistics = new JdbcPoolStatistics(uri, pool);
+    }
+
+    /**
+     * Closes the underlying connection pool.
+     * 
+     * @throws Exception
+     */
+    public void close() throws Exception {
+        this.pool.close();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        boolean success = false;
+
+        try {
+            Connection result = super.getConnection();
+            success = true;
+            return result;
+        } finally {
+            getStatistics().record(System.nanoTime() - start, success);
+        }
     }
 
     /**
@@ -73,6 +124,15 @@ public class ConnectionSource extends PoolingDataSource {
         return this.properties;
     }
 
+    /**
+     * Returns the pool statistics.
+     * 
+     * @return The pool statistics.
+     */
+    public JdbcPoolStatistics getStatistics() {
+        return this.statistics;
+    }
+
     /**
      * Returns the connection URI.
      * 
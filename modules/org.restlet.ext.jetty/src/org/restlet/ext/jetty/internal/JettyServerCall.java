@@ -36,6 +36,8 @@ package org.restlet.ext.jetty.internal;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.security.cert.Certificate;
 import java.util.Arrays;
 import java.util.Enumeration;
@@ -45,11 +47,14 @@ import java.util.logging.Level;
 
 import org.eclipse.jetty.io.EofException;
 import org.eclipse.jetty.server.HttpChannel;
+import org.eclipse.jetty.server.HttpOutput;
 import org.restlet.Response;
 import org.restlet.Server;
 import org.restlet.data.Header;
 import org.restlet.data.Status;
 import org.restlet.engine.adapter.ServerCall;
+import org.restlet.engine.io.IoUtils;
+import org.restlet.representation.Representation;
 import org.restlet.util.Series;
 
 /**
@@ -292,6 +297,52 @@ public class JettyServerCall extends ServerCall {
         }
     }
 
+    /**
+     * Writes the response body. File entities are written as memory-mapped
+     * buffers, letting Jetty pass them to the socket without copying them
+     * into the JVM heap.
+     * 
+     * @param entity
+     *            The representation to write as entity of the body.
+     * @param responseEntityStream
+     *            The response entity stream.
+     * @throws IOException
+     */
+    @Override
+    protected void writeResponseBody(Representation entity,
+            OutputStream responseEntityStream) throws IOException {
+        FileChannel fileChannel = null;
+
+        if (responseEntityStream instanceof HttpOutput) {
+            fileChannel = IoUtils.getTransferChannel(entity);
+        }
+
+        if (fileChannel != null) {
+            HttpOutput output = (HttpOutput) responseEntityStream;
+
+            try {
+                long position = fileChannel.position();
+                long remaining = Math.min(entity.getAvailableSize(),
+                        fileChannel.size() - position);
+                long count;
+
+                while (remaining > 0) {
+                    count = Math.min(remaining, Integer.MAX_VALUE);
+                    output.write(fileChannel.map(MapMode.READ_ONLY, position,
+                            count));
+                    position += count;
+                    remaining -= count;
+                }
+
+                output.flush();
+            } finally {
+                fileChannel.close();
+            }
+        } else {
+            super.writeResponseBody(entity, responseEntityStream);
+        }
+    }
+
     /** The wrapped Jetty HTTP channel. */
     private final HttpChannel<?> channel;
 
@@ -119,7 +119,7 @@ public class JsonpRepresentation extends WrapperRepresentation {
 
     @Override
     public InputStream getStream() throws IOException {
-        return IoUtils.getStream(this);
+        return IoUtils.getInputStream(this);
     }
 
     @Override
@@ -43,6 +43,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -54,6 +55,7 @@ import org.restlet.data.Status;
 import org.restlet.engine.Engine;
 import org.restlet.engine.connector.ConnectorHelper;
 import org.restlet.engine.log.LoggingThreadFactory;
+import org.restlet.engine.util.SystemUtils;
 import org.restlet.ext.nio.internal.controller.ConnectionController;
 
 /**
@@ -145,6 +147,15 @@ import org.restlet.ext.nio.internal.controller.ConnectionController;
  * never block, otherwise the other connections would hang.</td>
  * </tr>
  * <tr>
+ * <td>virtualThreads</td>
+ * <td>boolean</td>
+ * <td>false</td>
+ * <td>Indicates if the worker service should run each call on its own virtual
+ * thread when supported by the Java Runtime Environment, so that blocking
+ * calls don't exhaust the worker threads. In this case, the "minThreads",
+ * "maxThreads", "lowThreads" and "maxQueued" parameters are ignored.</td>
+ * </tr>
+ * <tr>
  * <td>inboundBufferSize</td>
  * <td>int</td>
  * <td>16 * 1024</td>
@@ -165,6 +176,14 @@ import org.restlet.ext.nio.internal.controller.ConnectionController;
  * use direct buffers.</td>
  * </tr>
  * <tr>
+ * <td>directTransfers</td>
+ * <td>boolean</td>
+ * <td>true</td>
+ * <td>Indicates if file entities should be directly transferred to the socket
+ * channel with the FileChannel#transferTo() method, bypassing the IO buffers.
+ * Note that tracing, throttling and SSL disable direct transfers.</td>
+ * </tr>
+ * <tr>
  * <td>throttleTimeMs</td>
  * <td>int</td>
  * <td>0</td>
@@ -187,6 +206,9 @@ public abstract class BaseHelper<T extends Connector> extends
     /** Indicates if it is helping a client connector. */
     protected final boolean clientSide;
 
+    /** The snapshot of the helper parameters. */
+    private volatile HelperConfiguration configuration;
+
     /** The controller task. */
     protected final ConnectionController controller;
 
@@ -199,6 +221,9 @@ public abstract class BaseHelper<T extends Connector> extends
     /** The queue of outbound messages. */
     protected final Queue<Response> outboundMessages;
 
+    /** Indicates if the worker service runs its tasks on virtual threads. */
+    private volatile boolean virtualWorkerService;
+
     /** The worker service. */
     private volatile ThreadPoolExecutor workerService;
 
@@ -244,6 +269,15 @@ public abstract class BaseHelper<T extends Connector> extends
         return result;
     }
 
+    /**
+     * Creates a new snapshot of the current helper parameters.
+     * 
+     * @return A new snapshot of the current helper parameters.
+     */
+    protected HelperConfiguration createConfiguration() {
+        return new HelperConfiguration(this);
+    }
+
     /**
      * Creates a new controller.
      * 
@@ -258,7 +292,7 @@ public abstract class BaseHelper<T extends Connector> extends
      */
     protected ExecutorService createControllerService() {
         return Executors.newSingleThreadExecutor(new LoggingThreadFactory(
-                getLogger(), isControllerDaemon()));
+                getLogger(), getConfiguration().isControllerDaemon()));
     }
 
     /**
@@ -276,22 +310,50 @@ public abstract class BaseHelper<T extends Connector> extends
      * @return The handler service.
      */
     protected ThreadPoolExecutor createWorkerService() {
-        int maxThreads = getMaxThreads();
-        int minThreads = getMinThreads();
+        HelperConfiguration config = getConfiguration();
+        int maxThreads = config.getMaxThreads();
+        int minThreads = config.getMinThreads();
+        int maxQueued = config.getMaxQueued();
+        ThreadPoolExecutor result = null;
+        ThreadFactory virtualThreadFactory = null;
+
+        if (config.isVirtualThreads()) {
+            virtualThreadFactory = SystemUtils
+                    .createVirtualThreadFactory("Restlet-"
+                            + (isClientSide() ? "Client" : "Server")
+                            + "-Worker-");
+        }
 
-        BlockingQueue<Runnable> queue = null;
+        this.virtualWorkerService = (virtualThreadFactory != null);
 
-        if (getMaxQueued() == 0) {
-            queue = new SynchronousQueue<Runnable>();
-        } else if (getMaxQueued() < 0) {
-            queue = new LinkedBlockingQueue<Runnable>();
+        if (virtualThreadFactory != null) {
+            // No core thread and no keep alive, so each call gets its own
+            // virtual thread
+            result = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0L,
+                    TimeUnit.MILLISECONDS, new SynchronousQueue<Runnable>(),
+                    virtualThreadFactory);
         } else {
-            queue = new ArrayBlockingQueue<Runnable>(getMaxQueued());
+            if (config.isVirtualThreads()) {
+                getLogger().fine(
+                        "Virtual threads aren't supported by this JVM. "
+                                + "Using platform worker threads instead.");
+            }
+
+            BlockingQueue<Runnable> queue = null;
+
+            if (maxQueued == 0) {
+                queue = new SynchronousQueue<Runnable>();
+            } else if (maxQueued < 0) {
+                queue = new LinkedBlockingQueue<Runnable>();
+            } else {
+                queue = new ArrayBlockingQueue<Runnable>(maxQueued);
+            }
+
+            result = new ThreadPoolExecutor(minThreads, maxThreads,
+                    config.getMaxThreadIdleTimeMs(), TimeUnit.MILLISECONDS,
+                    queue, new LoggingThreadFactory(getLogger(), true));
         }
 
-        ThreadPoolExecutor result = new ThreadPoolExecutor(minThreads,
-                maxThreads, getMaxThreadIdleTimeMs(), TimeUnit.MILLISECONDS,
-                queue, new LoggingThreadFactory(getLogger(), true));
         result.setRejectedExecutionHandler(new RejectedExecutionHandler() {
             public void rejectedExecution(Runnable r,
                     ThreadPoolExecutor executor) {
@@ -388,6 +450,31 @@ public abstract class BaseHelper<T extends Connector> extends
         }
     }
 
+    /**
+     * Returns the immutable snapshot of the helper parameters. It is built when
+     * the helper is started and rebuilt by {@link #reconfigure()}. This is the
+     * snapshot that should be read on the IO paths instead of the parameter
+     * getters that parse the context parameters on each call.
+     * 
+     * @return The immutable snapshot of the helper parameters.
+     */
+    public HelperConfiguration getConfiguration() {
+        // Lazy initialization with double-check.
+        HelperConfiguration c = this.configuration;
+
+        if (c == null) {
+            synchronized (this) {
+                c = this.configuration;
+
+                if (c == null) {
+                    this.configuration = c = createConfiguration();
+                }
+            }
+        }
+
+        return c;
+    }
+
     /**
      * Returns the controller task.
      * 
@@ -585,7 +672,7 @@ public abstract class BaseHelper<T extends Connector> extends
      */
     protected void handleInbound(final Response response, boolean synchronous) {
         if (response != null) {
-            if (synchronous || !hasWorkerThreads()) {
+            if (synchronous || !getConfiguration().hasWorkerThreads()) {
                 doHandleInbound(response);
             } else {
                 execute(new Runnable() {
@@ -624,7 +711,7 @@ public abstract class BaseHelper<T extends Connector> extends
      */
     protected void handleOutbound(final Response response, boolean synchronous) {
         if (response != null) {
-            if (synchronous || !hasWorkerThreads()) {
+            if (synchronous || !getConfiguration().hasWorkerThreads()) {
                 doHandleOutbound(response);
             } else {
                 execute(new Runnable() {
@@ -685,6 +772,20 @@ public abstract class BaseHelper<T extends Connector> extends
                         "directBuffers", "false"));
     }
 
+    /**
+     * Indicates if file entities should be directly transferred to the socket
+     * channel, bypassing the IO buffers. Note that tracing and throttling must
+     * be disabled to use direct transfers.
+     * 
+     * @return True if file entities should be directly transferred.
+     */
+    public boolean isDirectTransfers() {
+        return !isTracing()
+                && (getThrottleTimeMs() <= 0)
+                && Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                        "directTransfers", "true"));
+    }
+
     /**
      * Indicates if it is helping a server connector.
      * 
@@ -704,16 +805,40 @@ public abstract class BaseHelper<T extends Connector> extends
                 "tracing", "false"));
     }
 
+    /**
+     * Indicates if the worker service should run each call on its own virtual
+     * thread when supported by the Java Runtime Environment.
+     * 
+     * @return True if the worker service should use virtual threads.
+     */
+    public boolean isVirtualThreads() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "virtualThreads", "false"));
+    }
+
+    /**
+     * Indicates if the worker service effectively runs its tasks on virtual
+     * threads.
+     * 
+     * @return True if the worker service runs its tasks on virtual threads.
+     */
+    public boolean isVirtualWorkerService() {
+        return (getWorkerService() != null) && this.virtualWorkerService;
+    }
+
     /**
      * Indicates if the worker service is busy. This state is detected by
      * checking if the number of active task running is superior or equal to the
-     * maximum pool size.
+     * maximum pool size. A worker service running on virtual threads is never
+     * considered busy.
      * 
      * @return True if the worker service is busy.
      */
     public boolean isWorkerServiceOverloaded() {
         return (getWorkerService() != null)
-                && getWorkerService().getActiveCount() >= getLowThreads();
+                && !this.virtualWorkerService
+                && getWorkerService().getActiveCount() >= getConfiguration()
+                        .getLowThreads();
     }
 
     /**
@@ -752,12 +877,23 @@ public abstract class BaseHelper<T extends Connector> extends
         }
     }
 
+    /**
+     * Rebuilds the snapshot of the helper parameters returned by
+     * {@link #getConfiguration()}. Should be called after changing the
+     * parameters of a started helper. Note that the thread pool settings are
+     * only taken into account when the helper is started.
+     */
+    public void reconfigure() {
+        this.configuration = createConfiguration();
+    }
+
     @Override
     public void start() throws Exception {
         super.start();
+        reconfigure();
         this.controllerService = createControllerService();
 
-        if (hasWorkerThreads()) {
+        if (getConfiguration().hasWorkerThreads()) {
             this.workerService = createWorkerService();
         }
 
@@ -35,9 +35,12 @@ package org.restlet.ext.nio;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.net.UnknownHostException;
 import java.nio.channels.SocketChannel;
-import java.util.Iterator;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.logging.Level;
 
@@ -47,8 +50,9 @@ import org.restlet.Response;
 import org.restlet.data.Reference;
 import org.restlet.data.Status;
 import org.restlet.ext.nio.internal.connection.Connection;
+import org.restlet.ext.nio.internal.connection.HostConnectionPool;
 import org.restlet.ext.nio.internal.controller.ConnectionController;
-import org.restlet.ext.nio.internal.state.ConnectionState;
+import org.restlet.ext.nio.internal.util.AddressCache;
 
 /**
  * Base client helper based on NIO non blocking sockets. Here is the list of
@@ -62,6 +66,13 @@ import org.restlet.ext.nio.internal.state.ConnectionState;
  * <th>Description</th>
  * </tr>
  * <tr>
+ * <td>addressCacheTtlMs</td>
+ * <td>long</td>
+ * <td>30000</td>
+ * <td>Time to live of the resolved host addresses, in milliseconds, or 0 to
+ * resolve the host address for each connection lookup.</td>
+ * </tr>
+ * <tr>
  * <td>proxyHost</td>
  * <td>String</td>
  * <td>System property "http.proxyHost"</td>
@@ -80,6 +91,12 @@ import org.restlet.ext.nio.internal.state.ConnectionState;
  * <td>The socket connection timeout or 0 for unlimited wait.</td>
  * </tr>
  * </table>
+ * <br>
+ * The connections are indexed by host address, so that finding a connection
+ * for a request doesn't depend on the number of connections opened to other
+ * hosts. A pool is detached and removed once its last connection is checked
+ * in, after being closed, and the statistics of the current pools are
+ * available via the {@link #getHostConnectionPools()} method.
  * 
  * @author Jerome Louvel
  */
@@ -87,6 +104,12 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
 
     protected static final String CONNECTOR_LATCH = "org.restlet.engine.connector.latch";
 
+    /** The cache of the resolved host addresses. */
+    private volatile AddressCache addressCache;
+
+    /** The connections indexed by host address. */
+    private final ConcurrentMap<InetSocketAddress, HostConnectionPool<Client>> hostConnectionPools;
+
     /**
      * Constructor.
      * 
@@ -95,6 +118,27 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
      */
     public ClientConnectionHelper(Client connector) {
         super(connector, true);
+        this.addressCache = null;
+        this.hostConnectionPools = new ConcurrentHashMap<InetSocketAddress, HostConnectionPool<Client>>();
+    }
+
+    @Override
+    public void checkin(Connection<?> connection) {
+        SocketAddress socketAddress = connection.getSocketAddress();
+
+        if (socketAddress != null) {
+            HostConnectionPool<Client> pool = this.hostConnectionPools
+                    .get(socketAddress);
+
+            // Release the pools left empty, such as the ones of the previous
+            // addresses of a host. A connection concurrently created for a
+            // detached pool is added to a new one.
+            if ((pool != null) && pool.remove(connection) && pool.detach()) {
+                this.hostConnectionPools.remove(socketAddress, pool);
+            }
+        }
+
+        super.checkin(connection);
     }
 
     @Override
@@ -102,7 +146,13 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
             ConnectionController controller, InetSocketAddress socketAddress)
             throws IOException {
         return new Connection<Client>(this, socketChannel, controller,
-                socketAddress, getInboundBufferSize(), getOutboundBufferSize());
+                socketAddress, getConfiguration().getInboundBufferSize(),
+                getConfiguration().getOutboundBufferSize());
+    }
+
+    @Override
+    protected ClientConnectionHelperConfiguration createConfiguration() {
+        return new ClientConnectionHelperConfiguration(this);
     }
 
     @Override
@@ -231,12 +281,7 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
     protected Connection<Client> getBestConnection(Request request)
             throws UnknownHostException, IOException {
         Connection<Client> result = null;
-
-        // Try to reuse an existing connection for the same host and
-        // port
-        int hostConnectionCount = 0;
-        int bestScore = Integer.MAX_VALUE;
-        boolean foundConn = false;
+        ConnectionHelperConfiguration config = getConfiguration();
 
         // Determine the target host domain and port of the request.
         InetSocketAddress socketAddress = getSocketAddress(request);
@@ -246,86 +291,155 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
                     .log(Level.WARNING,
                             "Unable to create a socket address related to the request.");
         } else {
-            // Associate the given request to the first available connection
-            // opened on the same host domain and port.
-            for (Iterator<Connection<Client>> iterator = getConnections()
-                    .iterator(); !foundConn && iterator.hasNext();) {
-                Connection<Client> currConn = iterator.next();
-
-                if (socketAddress.equals(currConn.getSocketAddress())) {
-                    if (currConn.isAvailable()) {
-                        result = currConn;
-                        foundConn = true;
-                    } else if (currConn.getState().compareTo(
-                            ConnectionState.OPEN) <= 0) {
-                        // Assign the request to the busy connection that
-                        // handles the less number of messages. This is useful
-                        // in case the maximum number of connections has been
-                        // reached. As a drawback, the message will only be
-                        // handled as soon as possible.
-                        int currScore = currConn.getLoadScore();
-
-                        if (bestScore > currScore) {
-                            bestScore = currScore;
-                            result = currConn;
-                        }
-
-                        hostConnectionCount++;
-                    }
-                }
-            }
+            // Try to reuse an idle connection opened on the same host domain
+            // and port.
+            HostConnectionPool<Client> pool = getHostConnectionPool(socketAddress);
+            result = pool.getIdleConnection();
 
-            // No connection has been found, try to create a new one that will
-            // handle the message soon.
-            if (foundConn) {
+            if (result != null) {
                 getLogger().log(
                         Level.FINE,
                         "Reusing an existing client connection to: "
                                 + socketAddress);
-            } else if ((getMaxTotalConnections() != -1)
-                    && (getConnections().size() >= getMaxTotalConnections())) {
-                if (result == null) {
-                    getLogger()
-                            .log(Level.WARNING,
-                                    "Unable to create a new connection. Maximum total number of connections reached!");
-                } else {
-                    getLogger().log(
-                            Level.FINE,
-                            "Enqueue Request to an existing client connection to: "
-                                    + socketAddress);
-                }
-            } else if ((getMaxConnectionsPerHost() != -1)
-                    && (hostConnectionCount >= getMaxConnectionsPerHost())) {
-                if (result == null) {
-                    getLogger()
-                            .log(Level.WARNING,
-                                    "Unable to create a new connection. Maximum number of connections reached for host: "
-                                            + socketAddress);
-                } else {
-                    getLogger().log(
-                            Level.FINE,
-                            "Enqueue Request to an existing client connection to: "
-                                    + socketAddress);
-                }
             } else {
-                // Create a new connection
-                if (getLogger().isLoggable(Level.FINE)) {
-                    getLogger().log(
-                            Level.FINE,
-                            "Creating a new client connection to: "
-                                    + socketAddress);
+                // Assign the request to the busy connection that handles the
+                // less number of messages. This is useful in case the maximum
+                // number of connections has been reached. As a drawback, the
+                // message will only be handled as soon as possible.
+                result = pool.getLeastLoadedConnection();
+
+                // No connection has been found, try to create a new one that
+                // will handle the message soon.
+                if ((config.getMaxTotalConnections() != -1)
+                        && (getConnections().size() >= config
+                                .getMaxTotalConnections())) {
+                    if (result == null) {
+                        pool.onRejected();
+                        getLogger()
+                                .log(Level.WARNING,
+                                        "Unable to create a new connection. Maximum total number of connections reached!");
+                    } else {
+                        pool.onQueued();
+                        getLogger().log(
+                                Level.FINE,
+                                "Enqueue Request to an existing client connection to: "
+                                        + socketAddress);
+                    }
+                } else if ((config.getMaxConnectionsPerHost() != -1)
+                        && (pool.getBusyCount() >= config
+                                .getMaxConnectionsPerHost())) {
+                    if (result == null) {
+                        pool.onRejected();
+                        getLogger()
+                                .log(Level.WARNING,
+                                        "Unable to create a new connection. Maximum number of connections reached for host: "
+                                                + socketAddress);
+                    } else {
+                        pool.onQueued();
+                        getLogger().log(
+                                Level.FINE,
+                                "Enqueue Request to an existing client connection to: "
+                                        + socketAddress);
+                    }
+                } else {
+                    // Create a new connection
+                    if (getLogger().isLoggable(Level.FINE)) {
+                        getLogger().log(
+                                Level.FINE,
+                                "Creating a new client connection to: "
+                                        + socketAddress);
+                    }
+
+                    result = checkout(
+                            createSocketChannel(request.isConfidential(),
+                                    socketAddress), getController(),
+                            socketAddress);
+
+                    // Indexed before being controlled, so that it is found
+                    // when closed
+                    while (!pool.add(result)) {
+                        // The pool was detached once its last connection
+                        // closed
+                        pool = getHostConnectionPool(socketAddress);
+                    }
+
+                    getConnections().add(result);
+                    getController().onAssigned(result);
                 }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the cache of the resolved host addresses, available once the
+     * helper is started.
+     * 
+     * @return The cache of the resolved host addresses.
+     */
+    public AddressCache getAddressCache() {
+        return addressCache;
+    }
 
-                result = checkout(
-                        createSocketChannel(request.isConfidential(),
-                                socketAddress), getController(), socketAddress);
-                getConnections().add(result);
+    /**
+     * Returns the time to live of the resolved host addresses, in
+     * milliseconds. By default, the addresses are resolved again after 30
+     * seconds.
+     * 
+     * @return The time to live of the resolved host addresses.
+     */
+    public long getAddressCacheTtlMs() {
+        return Long.parseLong(getHelpedParameters().getFirstValue(
+                "addressCacheTtlMs", "30000"));
+    }
+
+    @Override
+    public ClientConnectionHelperConfiguration getConfiguration() {
+        return (ClientConnectionHelperConfiguration) super.getConfiguration();
+    }
+
+    /**
+     * Returns the connections pool of the given host address, creating it if
+     * necessary or replacing it if detached.
+     * 
+     * @param socketAddress
+     *            The host address.
+     * @return The connections pool of the host.
+     */
+    protected HostConnectionPool<Client> getHostConnectionPool(
+            InetSocketAddress socketAddress) {
+        HostConnectionPool<Client> result = this.hostConnectionPools
+                .get(socketAddress);
+
+        while ((result == null) || result.isDetached()) {
+            if (result != null) {
+                this.hostConnectionPools.remove(socketAddress, result);
+            }
+
+            result = new HostConnectionPool<Client>(socketAddress);
+            HostConnectionPool<Client> current = this.hostConnectionPools
+                    .putIfAbsent(socketAddress, result);
+
+            if (current != null) {
+                result = current;
             }
         }
 
         return result;
     }
 
+    /**
+     * Returns the connections pools of the hosts contacted, typically to
+     * monitor the number of idle and busy connections per host. The pools are
+     * released once their last connection is closed.
+     * 
+     * @return The connections pools of the hosts contacted.
+     */
+    public Collection<HostConnectionPool<Client>> getHostConnectionPools() {
+        return this.hostConnectionPools.values();
+    }
+
     /**
      * Returns the host name of the HTTP proxy, if specified.
      * 
@@ -401,9 +515,16 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
         }
 
         if (hostDomain != null) {
-            result = new InetSocketAddress(hostDomain, hostPort);
-            if (result != null && result.getAddress() == null) {
-                throw new UnknownHostException(hostDomain);
+            AddressCache cache = getAddressCache();
+
+            if (cache != null) {
+                result = cache.resolve(hostDomain, hostPort);
+            } else {
+                result = new InetSocketAddress(hostDomain, hostPort);
+
+                if (result.getAddress() == null) {
+                    throw new UnknownHostException(hostDomain);
+                }
             }
         }
 
@@ -483,12 +604,19 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
     public void start() throws Exception {
         getLogger().info("Starting the internal " + getProtocols() + " client");
         super.start();
+        this.addressCache = new AddressCache(getConfiguration()
+                .getAddressCacheTtlMs());
     }
 
     @Override
     public void stop() throws Exception {
         getLogger().info("Stopping the internal " + getProtocols() + " client");
         super.stop();
+        this.hostConnectionPools.clear();
+
+        if (this.addressCache != null) {
+            this.addressCache.clear();
+        }
     }
 
     /**
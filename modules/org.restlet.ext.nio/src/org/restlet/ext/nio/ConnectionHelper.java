@@ -38,13 +38,18 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketException;
 import java.nio.channels.SocketChannel;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.restlet.Application;
 import org.restlet.Connector;
 import org.restlet.Context;
 import org.restlet.Response;
+import org.restlet.ext.nio.internal.buffer.Buffer;
+import org.restlet.ext.nio.internal.buffer.BufferPool;
 import org.restlet.ext.nio.internal.connection.Connection;
 import org.restlet.ext.nio.internal.connection.ConnectionPool;
 import org.restlet.ext.nio.internal.controller.ConnectionController;
@@ -78,6 +83,13 @@ import org.restlet.routing.VirtualHost;
  * simply reused.</td>
  * </tr>
  * <tr>
+ * <td>maxPooledBuffers</td>
+ * <td>int</td>
+ * <td>256</td>
+ * <td>Maximum number of free byte buffers retained by each buffer pool when
+ * "pooledBuffers" is enabled.</td>
+ * </tr>
+ * <tr>
  * <td>maxTotalConnections</td>
  * <td>int</td>
  * <td>-1</td>
@@ -102,6 +114,15 @@ import org.restlet.routing.VirtualHost;
  * <td>Indicates if connections should be pooled to save instantiation time.</td>
  * </tr>
  * <tr>
+ * <td>pooledBuffers</td>
+ * <td>boolean</td>
+ * <td>false</td>
+ * <td>Indicates if the byte buffers of the connections should be lent by a
+ * shared pool only while they are reading or writing, instead of being
+ * allocated for each connection. This saves memory when many connections are
+ * idle, for example kept alive.</td>
+ * </tr>
+ * <tr>
  * <td>socketKeepAlive</td>
  * <td>boolean</td>
  * <td>true</td>
@@ -162,6 +183,9 @@ import org.restlet.routing.VirtualHost;
  */
 public abstract class ConnectionHelper<T extends Connector> extends
         BaseHelper<T> {
+    /** The byte buffer pools, by buffer size. */
+    private final ConcurrentMap<Integer, BufferPool> bufferPools;
+
     /** The connection pool. */
     private volatile ConnectionPool<T> connectionPool;
 
@@ -178,6 +202,7 @@ public abstract class ConnectionHelper<T extends Connector> extends
      */
     public ConnectionHelper(T connector, boolean clientSide) {
         super(connector, clientSide);
+        this.bufferPools = new ConcurrentHashMap<Integer, BufferPool>();
         this.connections = new CopyOnWriteArrayList<Connection<T>>();
         this.connectionPool = null;
     }
@@ -218,7 +243,7 @@ public abstract class ConnectionHelper<T extends Connector> extends
     public void checkin(Connection<?> connection) {
         connection.clear();
 
-        if (isPooledConnection()) {
+        if (getConfiguration().isPooledConnection()) {
             getConnectionPool().checkin((Connection<T>) connection);
         }
     }
@@ -240,7 +265,7 @@ public abstract class ConnectionHelper<T extends Connector> extends
             throws IOException {
         Connection<T> result = null;
 
-        if (isPooledConnection()) {
+        if (getConfiguration().isPooledConnection()) {
             result = getConnectionPool().checkout();
             result.reuse(socketChannel, controller, socketAddress);
         } else {
@@ -258,15 +283,41 @@ public abstract class ConnectionHelper<T extends Connector> extends
      * @throws SocketException
      */
     public void configure(Socket socket) throws SocketException {
-        socket.setKeepAlive(isSocketKeepAlive());
-        socket.setOOBInline(isSocketOobInline());
-        socket.setReceiveBufferSize(getSocketReceiveBufferSize());
-        socket.setReuseAddress(isSocketReuseAddress());
-        socket.setSoLinger(getSocketLingerTimeMs() > 0, getSocketLingerTimeMs());
-        socket.setSendBufferSize(getSocketSendBufferSize());
-        socket.setSoTimeout(getMaxIoIdleTimeMs());
-        socket.setTcpNoDelay(isSocketNoDelay());
-        socket.setTrafficClass(getSocketTrafficClass());
+        ConnectionHelperConfiguration config = getConfiguration();
+        socket.setKeepAlive(config.isSocketKeepAlive());
+        socket.setOOBInline(config.isSocketOobInline());
+        socket.setReceiveBufferSize(config.getSocketReceiveBufferSize());
+        socket.setReuseAddress(config.isSocketReuseAddress());
+        socket.setSoLinger(config.getSocketLingerTimeMs() > 0,
+                config.getSocketLingerTimeMs());
+        socket.setSendBufferSize(config.getSocketSendBufferSize());
+        socket.setSoTimeout(config.getMaxIoIdleTimeMs());
+        socket.setTcpNoDelay(config.isSocketNoDelay());
+        socket.setTrafficClass(config.getSocketTrafficClass());
+    }
+
+    /**
+     * Creates a byte buffer for a connection way. If the "pooledBuffers"
+     * parameter is enabled, the underlying byte buffer is lent by the buffer
+     * pool associated to the given size.
+     * 
+     * @param bufferSize
+     *            The byte buffer size.
+     * @return The new buffer.
+     */
+    public Buffer createBuffer(int bufferSize) {
+        BufferPool pool = getBufferPool(bufferSize);
+
+        if (pool == null) {
+            return new Buffer(bufferSize, getConfiguration().isDirectBuffers());
+        }
+
+        return new Buffer(pool);
+    }
+
+    @Override
+    protected ConnectionHelperConfiguration createConfiguration() {
+        return new ConnectionHelperConfiguration(this);
     }
 
     /**
@@ -289,9 +340,9 @@ public abstract class ConnectionHelper<T extends Connector> extends
      * Creates the connection pool.
      */
     public void createConnectionPool() {
-        if (isPooledConnection()) {
+        if (getConfiguration().isPooledConnection()) {
             this.connectionPool = new ConnectionPool<T>(this,
-                    getInitialConnections());
+                    getConfiguration().getInitialConnections());
         }
     }
 
@@ -323,9 +374,15 @@ public abstract class ConnectionHelper<T extends Connector> extends
     protected void doFinishStop() {
         super.doFinishStop();
 
-        if (isPooledConnection()) {
+        if (getConfiguration().isPooledConnection()) {
             this.connectionPool = null;
         }
+
+        for (BufferPool pool : getBufferPools()) {
+            pool.clear();
+        }
+
+        this.bufferPools.clear();
     }
 
     @Override
@@ -338,6 +395,52 @@ public abstract class ConnectionHelper<T extends Connector> extends
         }
     }
 
+    /**
+     * Returns the byte buffer pool associated to the given buffer size,
+     * creating it if necessary. Returns null if the "pooledBuffers" parameter
+     * isn't enabled.
+     * 
+     * @param bufferSize
+     *            The byte buffer size.
+     * @return The byte buffer pool or null.
+     */
+    public BufferPool getBufferPool(int bufferSize) {
+        ConnectionHelperConfiguration config = getConfiguration();
+        BufferPool result = null;
+
+        if (config.isPooledBuffers()) {
+            result = this.bufferPools.get(bufferSize);
+
+            if (result == null) {
+                result = new BufferPool(bufferSize, config.isDirectBuffers(),
+                        config.getMaxPooledBuffers());
+                BufferPool current = this.bufferPools.putIfAbsent(bufferSize,
+                        result);
+
+                if (current != null) {
+                    result = current;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the byte buffer pools currently created, typically to monitor
+     * the number of slabs in use and free.
+     * 
+     * @return The byte buffer pools currently created.
+     */
+    public Collection<BufferPool> getBufferPools() {
+        return this.bufferPools.values();
+    }
+
+    @Override
+    public ConnectionHelperConfiguration getConfiguration() {
+        return (ConnectionHelperConfiguration) super.getConfiguration();
+    }
+
     /**
      * Returns the connection pool.
      * 
@@ -380,6 +483,18 @@ public abstract class ConnectionHelper<T extends Connector> extends
                 "maxConnectionsPerHost", "-1"));
     }
 
+    /**
+     * Returns the maximum number of free byte buffers retained by each buffer
+     * pool.
+     * 
+     * @return The maximum number of free byte buffers retained by each buffer
+     *         pool.
+     */
+    public int getMaxPooledBuffers() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxPooledBuffers", "256"));
+    }
+
     /**
      * Returns the maximum number of concurrent connections allowed. By default,
      * it is unbounded.
@@ -473,6 +588,17 @@ public abstract class ConnectionHelper<T extends Connector> extends
                 "pooledConnections", "true"));
     }
 
+    /**
+     * Indicates if the byte buffers of the connections should be lent by a
+     * shared pool only while they are reading or writing.
+     * 
+     * @return True if the byte buffers should be pooled.
+     */
+    public boolean isPooledBuffers() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "pooledBuffers", "false"));
+    }
+
     /**
      * Indicates if the helper is going through a client proxy or is a server
      * proxy.
@@ -0,0 +1,296 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.nio;
+
+/**
+ * Immutable snapshot of the parameters of a {@link ConnectionHelper}, adding
+ * the connection and socket settings to the ones of the base helper.
+ * 
+ * @author Jerome Louvel
+ * @see ConnectionHelper#getConfiguration()
+ */
+public class ConnectionHelperConfiguration extends HelperConfiguration {
+
+    /** The initial number of connections pre-created in the pool. */
+    private final int initialConnections;
+
+    /** The maximum concurrent connections per host. */
+    private final int maxConnectionsPerHost;
+
+    /** The maximum number of free byte buffers retained by each pool. */
+    private final int maxPooledBuffers;
+
+    /** The maximum number of concurrent connections allowed. */
+    private final int maxTotalConnections;
+
+    /** Indicates if persistent connections should be used if possible. */
+    private final boolean persistingConnections;
+
+    /** Indicates if pipelining connections are supported. */
+    private final boolean pipeliningConnections;
+
+    /** Indicates if the byte buffers should be pooled. */
+    private final boolean pooledBuffers;
+
+    /** Indicates if the connection objects should be pooled. */
+    private final boolean pooledConnection;
+
+    /** Indicates if TCP connections should be automatically kept alive. */
+    private final boolean socketKeepAlive;
+
+    /** The time to block when a socket close is requested. */
+    private final int socketLingerTimeMs;
+
+    /** Indicates if Nagle's algorithm should be disabled. */
+    private final boolean socketNoDelay;
+
+    /** Indicates if urgent TCP data is received through the input stream. */
+    private final boolean socketOobInline;
+
+    /** The hinted size of the TCP buffers for inbound network I/O. */
+    private final int socketReceiveBufferSize;
+
+    /** Indicates if sockets can be reused right away even if they are busy. */
+    private final boolean socketReuseAddress;
+
+    /** The hinted size of the TCP buffers for outbound network I/O. */
+    private final int socketSendBufferSize;
+
+    /** The type of service to set in IP packets. */
+    private final int socketTrafficClass;
+
+    /**
+     * Constructor reading the current parameters of the given helper.
+     * 
+     * @param helper
+     *            The helper to snapshot.
+     */
+    public ConnectionHelperConfiguration(ConnectionHelper<?> helper) {
+        super(helper);
+        this.initialConnections = helper.getInitialConnections();
+        this.maxConnectionsPerHost = helper.getMaxConnectionsPerHost();
+        this.maxPooledBuffers = helper.getMaxPooledBuffers();
+        this.maxTotalConnections = helper.getMaxTotalConnections();
+        this.persistingConnections = helper.isPersistingConnections();
+        this.pipeliningConnections = helper.isPipeliningConnections();
+        this.pooledBuffers = helper.isPooledBuffers();
+        this.pooledConnection = helper.isPooledConnection();
+        this.socketKeepAlive = helper.isSocketKeepAlive();
+        this.socketLingerTimeMs = helper.getSocketLingerTimeMs();
+        this.socketNoDelay = helper.isSocketNoDelay();
+        this.socketOobInline = helper.isSocketOobInline();
+        this.socketReceiveBufferSize = helper.getSocketReceiveBufferSize();
+        this.socketReuseAddress = helper.isSocketReuseAddress();
+        this.socketSendBufferSize = helper.getSocketSendBufferSize();
+        this.socketTrafficClass = helper.getSocketTrafficClass();
+    }
+
+    /**
+     * Returns the initial number of connections pre-created in the connections
+     * pool.
+     * 
+     * @return The initial number of connections pre-created in the connections
+     *         pool.
+     * @see ConnectionHelper#getInitialConnections()
+     */
+    public int getInitialConnections() {
+        return initialConnections;
+    }
+
+    /**
+     * Returns the maximum concurrent connections per host (IP address).
+     * 
+     * @return Maximum number of concurrent connections per host (IP address).
+     * @see ConnectionHelper#getMaxConnectionsPerHost()
+     */
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * Returns the maximum number of free byte buffers retained by each buffer
+     * pool.
+     * 
+     * @return The maximum number of free byte buffers retained by each buffer
+     *         pool.
+     * @see ConnectionHelper#getMaxPooledBuffers()
+     */
+    public int getMaxPooledBuffers() {
+        return maxPooledBuffers;
+    }
+
+    /**
+     * Returns the maximum number of concurrent connections allowed.
+     * 
+     * @return The maximum number of concurrent connections allowed.
+     * @see ConnectionHelper#getMaxTotalConnections()
+     */
+    public int getMaxTotalConnections() {
+        return maxTotalConnections;
+    }
+
+    /**
+     * Returns the time to block when a socket close is requested or -1 to not
+     * block at all.
+     * 
+     * @return The time to block when a socket close is requested or -1 to not
+     *         block at all.
+     * @see ConnectionHelper#getSocketLingerTimeMs()
+     */
+    public int getSocketLingerTimeMs() {
+        return socketLingerTimeMs;
+    }
+
+    /**
+     * Returns the hinted size of the underlying TCP buffers used by the
+     * platform for inbound network I/O.
+     * 
+     * @return The hinted size of the underlying TCP buffers used by the
+     *         platform for inbound network I/O.
+     * @see ConnectionHelper#getSocketReceiveBufferSize()
+     */
+    public int getSocketReceiveBufferSize() {
+        return socketReceiveBufferSize;
+    }
+
+    /**
+     * Returns the hinted size of the underlying TCP buffers used by the
+     * platform for outbound network I/O.
+     * 
+     * @return The hinted size of the underlying TCP buffers used by the
+     *         platform for outbound network I/O.
+     * @see ConnectionHelper#getSocketSendBufferSize()
+     */
+    public int getSocketSendBufferSize() {
+        return socketSendBufferSize;
+    }
+
+    /**
+     * Returns the type of service to set in IP packets.
+     * 
+     * @return The type of service to set in IP packets.
+     * @see ConnectionHelper#getSocketTrafficClass()
+     */
+    public int getSocketTrafficClass() {
+        return socketTrafficClass;
+    }
+
+    /**
+     * Indicates if persistent connections should be used if possible.
+     * 
+     * @return True if persistent connections should be used if possible.
+     * @see ConnectionHelper#isPersistingConnections()
+     */
+    public boolean isPersistingConnections() {
+        return persistingConnections;
+    }
+
+    /**
+     * Indicates if pipelining connections are supported.
+     * 
+     * @return True if pipelining connections are supported.
+     * @see ConnectionHelper#isPipeliningConnections()
+     */
+    public boolean isPipeliningConnections() {
+        return pipeliningConnections;
+    }
+
+    /**
+     * Indicates if the byte buffers of the connections should be lent by a
+     * shared pool only while they are reading or writing.
+     * 
+     * @return True if the byte buffers should be pooled.
+     * @see ConnectionHelper#isPooledBuffers()
+     */
+    public boolean isPooledBuffers() {
+        return pooledBuffers;
+    }
+
+    /**
+     * Indicates if the connection objects should be pooled to save
+     * instantiation time.
+     * 
+     * @return True if the connection objects should be pooled.
+     * @see ConnectionHelper#isPooledConnection()
+     */
+    public boolean isPooledConnection() {
+        return pooledConnection;
+    }
+
+    /**
+     * Indicates if a TCP connection should be automatically kept alive after 2
+     * hours of inactivity.
+     * 
+     * @return True if a TCP connection should be automatically kept alive after
+     *         2 hours of inactivity.
+     * @see ConnectionHelper#isSocketKeepAlive()
+     */
+    public boolean isSocketKeepAlive() {
+        return socketKeepAlive;
+    }
+
+    /**
+     * Indicates if Nagle's algorithm should be disabled.
+     * 
+     * @return True if Nagle's algorithm should be disabled.
+     * @see ConnectionHelper#isSocketNoDelay()
+     */
+    public boolean isSocketNoDelay() {
+        return socketNoDelay;
+    }
+
+    /**
+     * Indicates if urgent TCP data received on the socket will be received
+     * through the socket input stream.
+     * 
+     * @return True if urgent TCP data received on the socket will be received
+     *         through the socket input stream.
+     * @see ConnectionHelper#isSocketOobInline()
+     */
+    public boolean isSocketOobInline() {
+        return socketOobInline;
+    }
+
+    /**
+     * Indicates if sockets can be reused right away even if they are busy (in
+     * TIME_WAIT or 2MSL wait state).
+     * 
+     * @return True if sockets can be reused right away even if they are busy.
+     * @see ConnectionHelper#isSocketReuseAddress()
+     */
+    public boolean isSocketReuseAddress() {
+        return socketReuseAddress;
+    }
+
+}
@@ -0,0 +1,302 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.nio;
+
+/**
+ * Immutable snapshot of the parameters of a {@link BaseHelper}. Reading the
+ * helper parameters requires a lookup in the context parameters and a parsing
+ * of the values, which is too costly on the IO paths. This snapshot is built
+ * once when the helper is started or explicitly reconfigured and is read by
+ * the connections, ways and controllers instead.
+ * 
+ * @author Jerome Louvel
+ * @see BaseHelper#getConfiguration()
+ * @see BaseHelper#reconfigure()
+ */
+public class HelperConfiguration {
+
+    /** Indicates if the controller thread should be a daemon. */
+    private final boolean controllerDaemon;
+
+    /** The time for the controller thread to sleep between each control. */
+    private final int controllerSleepTimeMs;
+
+    /** Indicates if direct NIO buffers should be used. */
+    private final boolean directBuffers;
+
+    /** Indicates if file entities should be directly transferred. */
+    private final boolean directTransfers;
+
+    /** The size of the content buffer for receiving messages. */
+    private final int inboundBufferSize;
+
+    /** The number of threads for the overload state. */
+    private final int lowThreads;
+
+    /** The time for an idle IO connection to wait for an operation. */
+    private final int maxIoIdleTimeMs;
+
+    /** The maximum number of calls that can be queued. */
+    private final int maxQueued;
+
+    /** The time for an idle thread to wait for an operation. */
+    private final int maxThreadIdleTimeMs;
+
+    /** The maximum threads that will service requests. */
+    private final int maxThreads;
+
+    /** The minimum threads waiting to service requests. */
+    private final int minThreads;
+
+    /** The size of the content buffer for sending messages. */
+    private final int outboundBufferSize;
+
+    /** The time to wait between socket write operations in milliseconds. */
+    private final int throttleTimeMs;
+
+    /** Indicates if console tracing is enabled. */
+    private final boolean tracing;
+
+    /** The transport protocol. */
+    private final String transport;
+
+    /** Indicates if the worker service should use virtual threads. */
+    private final boolean virtualThreads;
+
+    /** Indicates if the worker service is enabled. */
+    private final boolean workerThreads;
+
+    /**
+     * Constructor reading the current parameters of the given helper.
+     * 
+     * @param helper
+     *            The helper to snapshot.
+     */
+    public HelperConfiguration(BaseHelper<?> helper) {
+        this.controllerDaemon = helper.isControllerDaemon();
+        this.controllerSleepTimeMs = helper.getControllerSleepTimeMs();
+        this.directBuffers = helper.isDirectBuffers();
+        this.directTransfers = helper.isDirectTransfers();
+        this.inboundBufferSize = helper.getInboundBufferSize();
+        this.lowThreads = helper.getLowThreads();
+        this.maxIoIdleTimeMs = helper.getMaxIoIdleTimeMs();
+        this.maxQueued = helper.getMaxQueued();
+        this.maxThreadIdleTimeMs = helper.getMaxThreadIdleTimeMs();
+        this.maxThreads = helper.getMaxThreads();
+        this.minThreads = helper.getMinThreads();
+        this.outboundBufferSize = helper.getOutboundBufferSize();
+        this.throttleTimeMs = helper.getThrottleTimeMs();
+        this.tracing = helper.isTracing();
+        this.transport = helper.getTransport();
+        this.virtualThreads = helper.isVirtualThreads();
+        this.workerThreads = helper.hasWorkerThreads();
+    }
+
+    /**
+     * Returns the time for the controller thread to sleep between each control.
+     * 
+     * @return The time for the controller thread to sleep between each control.
+     * @see BaseHelper#getControllerSleepTimeMs()
+     */
+    public int getControllerSleepTimeMs() {
+        return controllerSleepTimeMs;
+    }
+
+    /**
+     * Returns the size of the content buffer for receiving messages.
+     * 
+     * @return The size of the content buffer for receiving messages.
+     * @see BaseHelper#getInboundBufferSize()
+     */
+    public int getInboundBufferSize() {
+        return inboundBufferSize;
+    }
+
+    /**
+     * Returns the number of threads for the overload state.
+     * 
+     * @return The number of threads for the overload state.
+     * @see BaseHelper#getLowThreads()
+     */
+    public int getLowThreads() {
+        return lowThreads;
+    }
+
+    /**
+     * Returns the time for an idle IO connection or request to wait for an
+     * operation before being closed.
+     * 
+     * @return The time for an idle IO connection to wait for an operation
+     *         before being closed.
+     * @see BaseHelper#getMaxIoIdleTimeMs()
+     */
+    public int getMaxIoIdleTimeMs() {
+        return maxIoIdleTimeMs;
+    }
+
+    /**
+     * Returns the maximum number of calls that can be queued if there aren't
+     * any worker thread available to service them.
+     * 
+     * @return The maximum number of calls that can be queued.
+     * @see BaseHelper#getMaxQueued()
+     */
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    /**
+     * Returns the time for an idle thread to wait for an operation before being
+     * collected.
+     * 
+     * @return The time for an idle thread to wait for an operation before being
+     *         collected.
+     * @see BaseHelper#getMaxThreadIdleTimeMs()
+     */
+    public int getMaxThreadIdleTimeMs() {
+        return maxThreadIdleTimeMs;
+    }
+
+    /**
+     * Returns the maximum threads that will service requests.
+     * 
+     * @return The maximum threads that will service requests.
+     * @see BaseHelper#getMaxThreads()
+     */
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * Returns the minimum threads waiting to service requests.
+     * 
+     * @return The minimum threads waiting to service requests.
+     * @see BaseHelper#getMinThreads()
+     */
+    public int getMinThreads() {
+        return minThreads;
+    }
+
+    /**
+     * Returns the size of the content buffer for sending messages.
+     * 
+     * @return The size of the content buffer for sending messages.
+     * @see BaseHelper#getOutboundBufferSize()
+     */
+    public int getOutboundBufferSize() {
+        return outboundBufferSize;
+    }
+
+    /**
+     * Returns the time to wait between socket write operations in milliseconds.
+     * 
+     * @return The time to wait between socket write operations in milliseconds.
+     * @see BaseHelper#getThrottleTimeMs()
+     */
+    public int getThrottleTimeMs() {
+        return throttleTimeMs;
+    }
+
+    /**
+     * Returns the transport protocol.
+     * 
+     * @return The transport protocol.
+     * @see BaseHelper#getTransport()
+     */
+    public String getTransport() {
+        return transport;
+    }
+
+    /**
+     * Indicates if the worker service (pool of worker threads) is enabled.
+     * 
+     * @return True if the worker service (pool of worker threads) is enabled.
+     * @see BaseHelper#hasWorkerThreads()
+     */
+    public boolean hasWorkerThreads() {
+        return workerThreads;
+    }
+
+    /**
+     * Indicates if the controller thread should be a daemon.
+     * 
+     * @return True if the controller thread should be a daemon.
+     * @see BaseHelper#isControllerDaemon()
+     */
+    public boolean isControllerDaemon() {
+        return controllerDaemon;
+    }
+
+    /**
+     * Indicates if direct NIO buffers should be used.
+     * 
+     * @return True if direct NIO buffers should be used.
+     * @see BaseHelper#isDirectBuffers()
+     */
+    public boolean isDirectBuffers() {
+        return directBuffers;
+    }
+
+    /**
+     * Indicates if file entities should be directly transferred to the socket
+     * channel.
+     * 
+     * @return True if file entities should be directly transferred.
+     * @see BaseHelper#isDirectTransfers()
+     */
+    public boolean isDirectTransfers() {
+        return directTransfers;
+    }
+
+    /**
+     * Indicates if console tracing is enabled.
+     * 
+     * @return True if console tracing is enabled.
+     * @see BaseHelper#isTracing()
+     */
+    public boolean isTracing() {
+        return tracing;
+    }
+
+    /**
+     * Indicates if the worker service should use virtual threads.
+     * 
+     * @return True if the worker service should use virtual threads.
+     * @see BaseHelper#isVirtualThreads()
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+}
@@ -78,6 +78,29 @@ import org.restlet.ext.nio.internal.request.InboundRequest;
  * <td>Enable/disable the SO_REUSEADDR socket option. See
  * java.io.ServerSocket#reuseAddress property for additional details.</td>
  * </tr>
+ * <tr>
+ * <td>selectorLoops</td>
+ * <td>int</td>
+ * <td>1</td>
+ * <td>Number of NIO selector loops, each running in its own controller thread
+ * and serving a share of the accepted connections. The first loop also
+ * processes the connector's outbound messages.</td>
+ * </tr>
+ * <tr>
+ * <td>selectorAssignment</td>
+ * <td>String</td>
+ * <td>roundRobin</td>
+ * <td>Policy assigning accepted connections to the selector loops. Either
+ * "roundRobin" or "leastLoaded" to pick the loop with the fewest connections.
+ * </td>
+ * </tr>
+ * <tr>
+ * <td>acceptorThread</td>
+ * <td>boolean</td>
+ * <td>false</td>
+ * <td>Indicates if new connections should be accepted by a dedicated thread
+ * with its own NIO selector instead of the first selector loop.</td>
+ * </tr>
  * </table>
  * 
  * @author Jerome Louvel
@@ -120,7 +143,13 @@ public abstract class ServerConnectionHelper extends ConnectionHelper<Server> {
             ConnectionController controller, InetSocketAddress socketAddress)
             throws IOException {
         return new Connection<Server>(this, socketChannel, controller,
-                socketAddress, getInboundBufferSize(), getOutboundBufferSize());
+                socketAddress, getConfiguration().getInboundBufferSize(),
+                getConfiguration().getOutboundBufferSize());
+    }
+
+    @Override
+    protected ServerConnectionHelperConfiguration createConfiguration() {
+        return new ServerConnectionHelperConfiguration(this);
     }
 
     @Override
@@ -156,9 +185,10 @@ public abstract class ServerConnectionHelper extends ConnectionHelper<Server> {
 
         // Configure the server socket
         ServerSocket socket = result.socket();
-        socket.setReceiveBufferSize(getSocketReceiveBufferSize());
-        socket.setReuseAddress(isSocketReuseAddress());
-        socket.setSoTimeout(getMaxIoIdleTimeMs());
+        ConnectionHelperConfiguration config = getConfiguration();
+        socket.setReceiveBufferSize(config.getSocketReceiveBufferSize());
+        socket.setReuseAddress(config.isSocketReuseAddress());
+        socket.setSoTimeout(config.getMaxIoIdleTimeMs());
         socket.bind(createSocketAddress());
 
         result.configureBlocking(false);
@@ -214,6 +244,13 @@ public abstract class ServerConnectionHelper extends ConnectionHelper<Server> {
                     if (canHandle(connection, response)) {
                         // Add the response to the outbound queue
                         connection.getOutboundWay().handle(response);
+
+                        // Wake up the selector loop owning the connection
+                        ConnectionController loop = connection.getController();
+
+                        if ((loop != null) && (loop != getController())) {
+                            loop.wakeup();
+                        }
                     } else {
                         // Put the response at the end of the queue
                         getOutboundMessages().add(response);
@@ -232,11 +269,37 @@ public abstract class ServerConnectionHelper extends ConnectionHelper<Server> {
         }
     }
 
+    @Override
+    public ServerConnectionHelperConfiguration getConfiguration() {
+        return (ServerConnectionHelperConfiguration) super.getConfiguration();
+    }
+
     @Override
     public ServerConnectionController getController() {
         return (ServerConnectionController) super.getController();
     }
 
+    /**
+     * Returns the policy assigning accepted connections to the selector loops,
+     * either "roundRobin" or "leastLoaded".
+     * 
+     * @return The policy assigning accepted connections to the selector loops.
+     */
+    public String getSelectorAssignment() {
+        return getHelpedParameters().getFirstValue("selectorAssignment",
+                "roundRobin");
+    }
+
+    /**
+     * Returns the number of NIO selector loops.
+     * 
+     * @return The number of NIO selector loops.
+     */
+    public int getSelectorLoops() {
+        return Math.max(1, Integer.parseInt(getHelpedParameters()
+                .getFirstValue("selectorLoops", "1")));
+    }
+
     /**
      * Returns the server socket channel.
      * 
@@ -271,6 +334,17 @@ public abstract class ServerConnectionHelper extends ConnectionHelper<Server> {
         handleOutbound(response, true);
     }
 
+    /**
+     * Indicates if new connections should be accepted by a dedicated thread.
+     * 
+     * @return True if new connections should be accepted by a dedicated
+     *         thread.
+     */
+    public boolean isAcceptorThread() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "acceptorThread", "false"));
+    }
+
     @Override
     public boolean isControllerDaemon() {
         return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
@@ -342,6 +416,10 @@ public abstract class ServerConnectionHelper extends ConnectionHelper<Server> {
                             "Interrupted while waiting for starting latch. Stopping...",
                             ex);
             stop();
+        } catch (IOException ioe) {
+            // Nothing would accept the connections
+            stop();
+            throw ioe;
         }
     }
 
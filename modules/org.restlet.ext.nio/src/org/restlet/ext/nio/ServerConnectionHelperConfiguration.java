@@ -0,0 +1,109 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.nio;
+
+/**
+ * Immutable snapshot of the parameters of a {@link ServerConnectionHelper},
+ * adding the selector loops and acceptor settings to the ones of the
+ * connection helper.
+ * 
+ * @author Jerome Louvel
+ * @see ServerConnectionHelper#getConfiguration()
+ */
+public class ServerConnectionHelperConfiguration extends
+        ConnectionHelperConfiguration {
+
+    /** Indicates if connections are accepted by a separate thread. */
+    private final boolean acceptorThread;
+
+    /** The policy assigning accepted connections to selector loops. */
+    private final String selectorAssignment;
+
+    /** The number of selector loops. */
+    private final int selectorLoops;
+
+    /**
+     * Constructor reading the current parameters of the given helper.
+     * 
+     * @param helper
+     *            The helper to snapshot.
+     */
+    public ServerConnectionHelperConfiguration(ServerConnectionHelper helper) {
+        super(helper);
+        this.acceptorThread = helper.isAcceptorThread();
+        this.selectorAssignment = helper.getSelectorAssignment();
+        this.selectorLoops = helper.getSelectorLoops();
+    }
+
+    /**
+     * Returns the policy assigning accepted connections to selector loops.
+     * 
+     * @return The policy assigning accepted connections to selector loops.
+     * @see ServerConnectionHelper#getSelectorAssignment()
+     */
+    public String getSelectorAssignment() {
+        return selectorAssignment;
+    }
+
+    /**
+     * Returns the number of selector loops.
+     * 
+     * @return The number of selector loops.
+     * @see ServerConnectionHelper#getSelectorLoops()
+     */
+    public int getSelectorLoops() {
+        return selectorLoops;
+    }
+
+    /**
+     * Indicates if connections are accepted by a separate thread.
+     * 
+     * @return True if connections are accepted by a separate thread.
+     * @see ServerConnectionHelper#isAcceptorThread()
+     */
+    public boolean isAcceptorThread() {
+        return acceptorThread;
+    }
+
+    /**
+     * Indicates if accepted connections are assigned to the selector loop
+     * with the least connections instead of round-robin.
+     * 
+     * @return True if accepted connections are assigned by least load.
+     */
+    public boolean isLeastLoadedAssignment() {
+        return "leastLoaded".equalsIgnoreCase(selectorAssignment);
+    }
+
+}
@@ -44,7 +44,10 @@ import org.restlet.engine.header.HeaderUtils;
 import org.restlet.ext.nio.internal.util.NioUtils;
 
 /**
- * Wrapper around a byte buffer and its state.
+ * Wrapper around a byte buffer and its state. When created with a
+ * {@link BufferPool}, the byte buffer is only checked out from the pool when
+ * it is first needed and can be returned to the pool via {@link #release()}
+ * when the buffer is empty.
  * 
  * @author Jerome Louvel
  */
@@ -71,12 +74,18 @@ public class Buffer {
         return result;
     }
 
-    /** The byte buffer. */
-    private final ByteBuffer bytes;
+    /** The byte buffer, null if it hasn't been checked out of the pool. */
+    private volatile ByteBuffer bytes;
 
     /** The index of the buffer's beginning while filling. */
     private volatile int fillBegin;
 
+    /** The lock protecting the byte buffer. */
+    private final Object lock;
+
+    /** The optional pool lending the byte buffer. */
+    private final BufferPool pool;
+
     /** The byte buffer IO state. */
     private volatile BufferState state;
 
@@ -99,12 +108,40 @@ public class Buffer {
      *            The initial byte buffer state.
      */
     public Buffer(ByteBuffer byteBuffer, BufferState byteBufferState) {
+        this(byteBuffer, byteBufferState, null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param byteBuffer
+     *            The byte buffer wrapped or null if it should be checked out
+     *            of the pool when needed.
+     * @param byteBufferState
+     *            The initial byte buffer state.
+     * @param pool
+     *            The optional pool lending the byte buffer.
+     */
+    private Buffer(ByteBuffer byteBuffer, BufferState byteBufferState,
+            BufferPool pool) {
         super();
         this.fillBegin = 0;
         this.bytes = byteBuffer;
+        this.lock = new Object();
+        this.pool = pool;
         this.state = byteBufferState;
     }
 
+    /**
+     * Constructor. The byte buffer is lent by the given pool when needed.
+     * 
+     * @param pool
+     *            The pool lending the byte buffer.
+     */
+    public Buffer(BufferPool pool) {
+        this(null, BufferState.FILLING, pool);
+    }
+
     /**
      * Constructor. Allocates a new non-direct byte buffer.
      * 
@@ -182,7 +219,8 @@ public class Buffer {
      * @return The maximum capacity of this buffer.
      */
     public final int capacity() {
-        return getBytes().capacity();
+        ByteBuffer b = this.bytes;
+        return (b == null) ? this.pool.getBufferSize() : b.capacity();
     }
 
     /**
@@ -190,7 +228,12 @@ public class Buffer {
      */
     public void clear() {
         this.fillBegin = 0;
-        this.bytes.clear();
+        ByteBuffer b = this.bytes;
+
+        if (b != null) {
+            b.clear();
+        }
+
         this.state = BufferState.FILLING;
     }
 
@@ -214,7 +257,8 @@ public class Buffer {
      * @return True if bytes could be drained.
      */
     public boolean couldDrain() {
-        return (isFilling() && (getBytes().position() > this.fillBegin));
+        return isFilling() && !isUnallocated()
+                && (getBytes().position() > this.fillBegin);
     }
 
     /**
@@ -414,7 +458,9 @@ public class Buffer {
      * Flip from draining to filling or the other way around.
      */
     public void flip() {
-        if (isFilling()) {
+        if (isUnallocated()) {
+            // Flipping an empty buffer, nothing to do
+        } else if (isFilling()) {
             setState(BufferState.DRAINING);
             getBytes().limit(getBytes().position());
             getBytes().position(this.fillBegin);
@@ -432,12 +478,25 @@ public class Buffer {
     }
 
     /**
-     * Returns the byte buffer.
+     * Returns the byte buffer. If the buffer is backed by a pool and currently
+     * doesn't hold a byte buffer, a new one is checked out of the pool.
      * 
      * @return The byte buffer.
      */
     public ByteBuffer getBytes() {
-        return bytes;
+        ByteBuffer result = this.bytes;
+
+        if (result == null) {
+            synchronized (getLock()) {
+                result = this.bytes;
+
+                if (result == null) {
+                    this.bytes = result = this.pool.checkout();
+                }
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -447,7 +506,7 @@ public class Buffer {
      * @return The lock on which multiple thread can synchronize.
      */
     public Object getLock() {
-        return this.bytes;
+        return this.lock;
     }
 
     /**
@@ -465,7 +524,9 @@ public class Buffer {
      * @return True if the buffer has remaining bytes to be read or written.
      */
     public final boolean hasRemaining() {
-        return getBytes().hasRemaining();
+        ByteBuffer b = this.bytes;
+        return (b == null) ? (isFilling() && (capacity() > 0)) : b
+                .hasRemaining();
     }
 
     /**
@@ -485,6 +546,10 @@ public class Buffer {
      * @return True if the buffer is empty.
      */
     public boolean isEmpty() {
+        if (isUnallocated()) {
+            return true;
+        }
+
         return isFilling() ? (capacity() == remaining()) : !hasRemaining();
     }
 
@@ -498,6 +563,25 @@ public class Buffer {
         return getState() == BufferState.FILLING;
     }
 
+    /**
+     * Indicates if the byte buffer is lent by a pool.
+     * 
+     * @return True if the byte buffer is lent by a pool.
+     */
+    public boolean isPooled() {
+        return this.pool != null;
+    }
+
+    /**
+     * Indicates if the buffer is backed by a pool and doesn't currently hold a
+     * byte buffer. In this case, the buffer is empty and filling.
+     * 
+     * @return True if the buffer doesn't currently hold a byte buffer.
+     */
+    public boolean isUnallocated() {
+        return this.bytes == null;
+    }
+
     /**
      * Processes as a loop the IO event by draining or filling the IO buffer.
      * Note that synchronization of the {@link #getLock()} object is
@@ -655,6 +739,31 @@ public class Buffer {
         return result;
     }
 
+    /**
+     * Returns the byte buffer to the pool if the buffer is pooled and empty. It
+     * will be checked out again when needed.
+     * 
+     * @return True if the byte buffer was returned to the pool.
+     */
+    public boolean release() {
+        boolean result = false;
+
+        if (isPooled()) {
+            synchronized (getLock()) {
+                if (!isUnallocated() && isEmpty()) {
+                    ByteBuffer b = this.bytes;
+                    this.bytes = null;
+                    this.fillBegin = 0;
+                    this.state = BufferState.FILLING;
+                    this.pool.checkin(b);
+                    result = true;
+                }
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Returns the number of bytes that can be read or written in the byte
      * buffer.
@@ -662,7 +771,8 @@ public class Buffer {
      * @return The number of bytes that can be read or written.
      */
     public final int remaining() {
-        return getBytes().remaining();
+        ByteBuffer b = this.bytes;
+        return (b == null) ? (isFilling() ? capacity() : 0) : b.remaining();
     }
 
     /**
@@ -677,7 +787,8 @@ public class Buffer {
 
     @Override
     public String toString() {
-        return getBytes().toString() + ", " + getState() + ", " + isEmpty();
+        return (isUnallocated() ? "unallocated" : getBytes().toString())
+                + ", " + getState() + ", " + isEmpty();
     }
 
 }
@@ -0,0 +1,284 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.nio.internal.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.restlet.engine.util.Pool;
+
+/**
+ * Pool of byte buffers of the same size lent to the connection ways only while
+ * they are actively reading or writing. Direct buffers are carved as slabs out
+ * of larger arenas in order to limit the number of direct memory allocations.
+ * The number of free slabs retained by the pool is bounded, extra slabs
+ * checked in are left to the garbage collector.
+ * 
+ * @author Jerome Louvel
+ */
+public class BufferPool extends Pool<ByteBuffer> {
+
+    /** The default size of the arenas of direct slabs. */
+    public static final int DEFAULT_ARENA_SIZE = 256 * 1024;
+
+    /** The number of slabs carved out of each arena. */
+    private final int arenaSlabs;
+
+    /** The size of each slab. */
+    private final int bufferSize;
+
+    /** The number of slabs created. */
+    private final AtomicLong createdCount;
+
+    /** Indicates if direct NIO buffers are allocated. */
+    private final boolean direct;
+
+    /** The number of slabs discarded because the pool was full. */
+    private final AtomicLong discardedCount;
+
+    /** The number of free slabs in the pool. */
+    private final AtomicInteger freeCount;
+
+    /** The number of slabs lent. */
+    private final AtomicInteger inUseCount;
+
+    /** The maximum number of free slabs retained. */
+    private final int maxFree;
+
+    /**
+     * Constructor.
+     * 
+     * @param bufferSize
+     *            The size of each slab.
+     * @param direct
+     *            Indicates if direct NIO buffers should be allocated.
+     * @param maxFree
+     *            The maximum number of free slabs retained.
+     */
+    public BufferPool(int bufferSize, boolean direct, int maxFree) {
+        super();
+        this.bufferSize = bufferSize;
+        this.direct = direct;
+        this.maxFree = maxFree;
+        this.arenaSlabs = direct ? Math.max(1,
+                Math.min(maxFree, DEFAULT_ARENA_SIZE / bufferSize)) : 1;
+        this.createdCount = new AtomicLong();
+        this.discardedCount = new AtomicLong();
+        this.freeCount = new AtomicInteger();
+        this.inUseCount = new AtomicInteger();
+    }
+
+    /**
+     * Checks in a slab returned by a buffer. If the maximum number of free
+     * slabs is reached, the slab is discarded.
+     * 
+     * @param slab
+     *            The slab to check in.
+     */
+    @Override
+    public void checkin(ByteBuffer slab) {
+        if (slab != null) {
+            this.inUseCount.decrementAndGet();
+            offer(slab);
+        }
+    }
+
+    /**
+     * Checks out a free slab, creating new ones if the pool is empty.
+     * 
+     * @return A cleared slab.
+     */
+    @Override
+    public ByteBuffer checkout() {
+        ByteBuffer result = getStore().poll();
+
+        if (result == null) {
+            result = createObject();
+        } else {
+            this.freeCount.decrementAndGet();
+        }
+
+        this.inUseCount.incrementAndGet();
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        this.freeCount.set(0);
+    }
+
+    @Override
+    protected void clear(ByteBuffer slab) {
+        slab.clear();
+    }
+
+    /**
+     * Creates a new slab. For direct buffers, a new arena is allocated and
+     * sliced into several slabs, the extra ones being added to the pool.
+     * 
+     * @return A new slab.
+     */
+    @Override
+    protected ByteBuffer createObject() {
+        ByteBuffer result = null;
+
+        if (isDirect()) {
+            ByteBuffer arena = ByteBuffer.allocateDirect(this.arenaSlabs
+                    * getBufferSize());
+
+            for (int i = 0; i < this.arenaSlabs; i++) {
+                arena.limit((i + 1) * getBufferSize());
+                arena.position(i * getBufferSize());
+                ByteBuffer slab = arena.slice();
+
+                if (result == null) {
+                    result = slab;
+                } else {
+                    offer(slab);
+                }
+            }
+
+            this.createdCount.addAndGet(this.arenaSlabs);
+        } else {
+            result = ByteBuffer.allocate(getBufferSize());
+            this.createdCount.incrementAndGet();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the size of each slab.
+     * 
+     * @return The size of each slab.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Returns the number of slabs created since the pool was created.
+     * 
+     * @return The number of slabs created.
+     */
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    /**
+     * Returns the number of slabs discarded because the maximum number of free
+     * slabs was reached.
+     * 
+     * @return The number of slabs discarded.
+     */
+    public long getDiscardedCount() {
+        return discardedCount.get();
+    }
+
+    /**
+     * Returns the number of free slabs retained by the pool.
+     * 
+     * @return The number of free slabs.
+     */
+    public int getFreeCount() {
+        return freeCount.get();
+    }
+
+    /**
+     * Returns the number of slabs currently lent to buffers.
+     * 
+     * @return The number of slabs in use.
+     */
+    public int getInUseCount() {
+        return inUseCount.get();
+    }
+
+    /**
+     * Returns the maximum number of free slabs retained.
+     * 
+     * @return The maximum number of free slabs retained.
+     */
+    public int getMaxFree() {
+        return maxFree;
+    }
+
+    /**
+     * Indicates if direct NIO buffers are allocated.
+     * 
+     * @return True if direct NIO buffers are allocated.
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Adds a slab to the free ones if the maximum number isn't reached.
+     * 
+     * @param slab
+     *            The slab to add.
+     */
+    private void offer(ByteBuffer slab) {
+        if (this.freeCount.incrementAndGet() <= getMaxFree()) {
+            clear(slab);
+            getStore().offer(slab);
+        } else {
+            this.freeCount.decrementAndGet();
+            this.discardedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Pre-creates free slabs, up to the maximum number of free slabs.
+     * 
+     * @param initialSize
+     *            The initial number of free slabs.
+     */
+    @Override
+    public void preCreate(int initialSize) {
+        while (getFreeCount() < Math.min(initialSize, getMaxFree())) {
+            offer(createObject());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BufferPool [bufferSize=" + getBufferSize() + ", direct="
+                + isDirect() + ", inUse=" + getInUseCount() + ", free="
+                + getFreeCount() + ", created=" + getCreatedCount()
+                + ", discarded=" + getDiscardedCount() + "]";
+    }
+
+}
@@ -0,0 +1,421 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.nio.internal.buffer;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.restlet.data.Header;
+import org.restlet.engine.header.HeaderConstants;
+import org.restlet.engine.header.HeaderUtils;
+
+/**
+ * State machine parsing header lines directly from a byte buffer. It replaces
+ * the accumulation of each line in a string builder followed by its parsing
+ * with {@link org.restlet.engine.header.HeaderReader#readHeader(CharSequence)}
+ * .<br>
+ * <br>
+ * The well-known header names declared in {@link HeaderConstants} are
+ * recognized while the bytes are read, and the constant instance is reused
+ * instead of allocating a new string. The header values are kept as bytes and
+ * only decoded when first read. The bytes are decoded as ISO-8859-1 characters.
+ * The parser can be fed with several buffers, for example when a line is split
+ * between two reads from the network.<br>
+ * <br>
+ * Concurrency note: instances of this class are not designed to be shared
+ * among several threads.
+ * 
+ * @author Jerome Louvel
+ */
+public class HeaderParser {
+
+    /** Header whose value is decoded from its bytes when first read. */
+    private static final class LazyHeader extends Header {
+
+        /**
+         * The value bytes, or null when already decoded. Unlike the parser,
+         * the header is read by the worker threads.
+         */
+        private volatile byte[] valueBytes;
+
+        /**
+         * Constructor.
+         * 
+         * @param name
+         *            The header name.
+         * @param valueBytes
+         *            The value bytes.
+         */
+        private LazyHeader(String name, byte[] valueBytes) {
+            super(name, null);
+            this.valueBytes = valueBytes;
+        }
+
+        @Override
+        public String getValue() {
+            byte[] bytes = this.valueBytes;
+
+            if (bytes != null) {
+                super.setValue(new String(bytes, ISO_8859_1));
+                this.valueBytes = null;
+            }
+
+            return super.getValue();
+        }
+
+        @Override
+        public void setValue(String value) {
+            this.valueBytes = null;
+            super.setValue(value);
+        }
+    }
+
+    /** The character set of the header lines. */
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    /**
+     * The well-known header names, in an open addressing table indexed by
+     * their hash code.
+     */
+    private static final String[] KNOWN_NAMES;
+
+    /** The carriage return ending the line was read. */
+    private static final int STATE_LINE_END = 4;
+
+    /** The header name is being read. */
+    private static final int STATE_NAME = 1;
+
+    /** The line start is expected. */
+    private static final int STATE_START = 0;
+
+    /** The header value is being read. */
+    private static final int STATE_VALUE = 3;
+
+    /** The spaces preceding the header value are being skipped. */
+    private static final int STATE_VALUE_START = 2;
+
+    static {
+        List<String> names = new ArrayList<String>();
+
+        for (Field field : HeaderConstants.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers())
+                    && field.getName().startsWith("HEADER_")
+                    && (field.getType() == String.class)) {
+                try {
+                    names.add((String) field.get(null));
+                } catch (IllegalAccessException e) {
+                    // Ignore this field
+                }
+            }
+        }
+
+        int size = Integer.highestOneBit(names.size() * 4);
+        String[] table = new String[size];
+
+        for (String name : names) {
+            int index = name.hashCode() & (size - 1);
+
+            while ((table[index] != null) && !table[index].equals(name)) {
+                index = (index + 1) & (size - 1);
+            }
+
+            table[index] = name;
+        }
+
+        KNOWN_NAMES = table;
+    }
+
+    /**
+     * Returns the well-known header name matching the given bytes, or null.
+     * The bytes must match exactly, as the case of the received names is
+     * preserved.
+     * 
+     * @param bytes
+     *            The name bytes.
+     * @param length
+     *            The number of name bytes.
+     * @param hashCode
+     *            The hash code of the name, computed like
+     *            {@link String#hashCode()}.
+     * @return The well-known header name or null.
+     */
+    private static String getKnownName(byte[] bytes, int length, int hashCode) {
+        String[] table = KNOWN_NAMES;
+        int mask = table.length - 1;
+        String result = null;
+
+        for (int index = hashCode & mask; (result == null)
+                && (table[index] != null); index = (index + 1) & mask) {
+            String candidate = table[index];
+
+            if ((candidate.hashCode() == hashCode)
+                    && (candidate.length() == length)) {
+                boolean matches = true;
+
+                for (int i = 0; matches && (i < length); i++) {
+                    matches = (candidate.charAt(i) == (bytes[i] & 0xff));
+                }
+
+                if (matches) {
+                    result = candidate;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /** The header parsed from the last complete line, or null. */
+    private Header header;
+
+    /** Indicates if the last complete line was read. */
+    private boolean lineRead;
+
+    /** The hash code of the name read so far. */
+    private int nameHash;
+
+    /** The number of name bytes read so far. */
+    private int nameLength;
+
+    /** The name bytes. */
+    private byte[] nameBytes;
+
+    /** The current state. */
+    private int state;
+
+    /** The number of value bytes read so far. */
+    private int valueLength;
+
+    /** The value bytes. */
+    private byte[] valueBytes;
+
+    /**
+     * Constructor.
+     */
+    public HeaderParser() {
+        this.nameBytes = new byte[64];
+        this.valueBytes = new byte[256];
+        clear();
+    }
+
+    /**
+     * Clears the parser state, discarding any partially read line.
+     */
+    public void clear() {
+        this.header = null;
+        this.lineRead = false;
+        this.nameHash = 0;
+        this.nameLength = 0;
+        this.state = STATE_START;
+        this.valueLength = 0;
+    }
+
+    /**
+     * Returns the header parsed from the last complete line and prepares the
+     * parsing of the next line. Returns null if the last line was empty,
+     * marking the end of the headers.
+     * 
+     * @return The header parsed or null.
+     */
+    public Header getHeader() {
+        Header result = this.header;
+        clear();
+        return result;
+    }
+
+    /**
+     * Indicates if a complete line was read and can be obtained via
+     * {@link #getHeader()}.
+     * 
+     * @return True if a complete line was read.
+     */
+    public boolean isLineRead() {
+        return this.lineRead;
+    }
+
+    /**
+     * Creates the header parsed from the current line.
+     * 
+     * @param nameBytes
+     *            The name bytes.
+     * @param nameLength
+     *            The number of name bytes.
+     * @param nameHash
+     *            The hash code of the name.
+     * @param valueBytes
+     *            The value bytes.
+     * @param valueLength
+     *            The number of value bytes.
+     * @return The new header.
+     */
+    private Header newHeader(byte[] nameBytes, int nameLength, int nameHash,
+            byte[] valueBytes, int valueLength) {
+        String name = getKnownName(nameBytes, nameLength, nameHash);
+
+        if (name == null) {
+            name = new String(nameBytes, 0, nameLength, ISO_8859_1);
+        }
+
+        Header result;
+
+        if (valueLength == 0) {
+            result = new Header(name, "");
+        } else {
+            result = new LazyHeader(name, Arrays.copyOf(valueBytes,
+                    valueLength));
+        }
+
+        return result;
+    }
+
+    /**
+     * Parses the bytes remaining in the given buffer until a line is complete
+     * or until the buffer is exhausted.
+     * 
+     * @param bytes
+     *            The byte buffer to read, in draining mode.
+     * @return True if a complete line was read.
+     * @throws IOException
+     */
+    public boolean parse(ByteBuffer bytes) throws IOException {
+        if (this.lineRead) {
+            return true;
+        }
+
+        // Work on local copies while looping over the bytes
+        int state = this.state;
+        byte[] nameBytes = this.nameBytes;
+        int nameLength = this.nameLength;
+        int nameHash = this.nameHash;
+        byte[] valueBytes = this.valueBytes;
+        int valueLength = this.valueLength;
+        boolean lineRead = false;
+        byte next;
+
+        try {
+            while (!lineRead && bytes.hasRemaining()) {
+                next = bytes.get();
+
+                switch (state) {
+                case STATE_START:
+                    if (HeaderUtils.isCarriageReturn(next)) {
+                        // Empty line marking the end of the headers
+                        this.header = null;
+                        state = STATE_LINE_END;
+                        break;
+                    }
+
+                    // Parse this byte again as the first byte of the name
+                    state = STATE_NAME;
+                    bytes.position(bytes.position() - 1);
+                    break;
+
+                case STATE_NAME:
+                    if (next == ':') {
+                        state = STATE_VALUE_START;
+                    } else if (HeaderUtils.isCarriageReturn(next)) {
+                        throw new IOException(
+                                "Unable to parse the header name. End of line reached too early.");
+                    } else {
+                        if (nameLength == nameBytes.length) {
+                            nameBytes = Arrays.copyOf(nameBytes,
+                                    nameLength * 2);
+                        }
+
+                        nameBytes[nameLength++] = next;
+                        nameHash = (31 * nameHash) + (next & 0xff);
+                    }
+
+                    break;
+
+                case STATE_VALUE_START:
+                    if (HeaderUtils.isSpace(next)) {
+                        // Skip the spaces between the colon and the value
+                        break;
+                    }
+
+                    // Parse this byte again as the first byte of the value
+                    state = STATE_VALUE;
+                    bytes.position(bytes.position() - 1);
+                    break;
+
+                case STATE_VALUE:
+                    if (HeaderUtils.isCarriageReturn(next)) {
+                        this.header = newHeader(nameBytes, nameLength,
+                                nameHash, valueBytes, valueLength);
+                        state = STATE_LINE_END;
+                    } else {
+                        if (valueLength == valueBytes.length) {
+                            valueBytes = Arrays.copyOf(valueBytes,
+                                    valueLength * 2);
+                        }
+
+                        valueBytes[valueLength++] = next;
+                    }
+
+                    break;
+
+                case STATE_LINE_END:
+                    if (HeaderUtils.isLineFeed(next)) {
+                        lineRead = true;
+                    } else {
+                        throw new IOException(
+                                "Missing line feed character at the end of the line. Found character \""
+                                        + (char) (next & 0xff) + "\" ("
+                                        + (next & 0xff) + ") instead");
+                    }
+
+                    break;
+                }
+            }
+        } finally {
+            this.state = state;
+            this.nameBytes = nameBytes;
+            this.nameLength = nameLength;
+            this.nameHash = nameHash;
+            this.valueBytes = valueBytes;
+            this.valueLength = valueLength;
+            this.lineRead = lineRead;
+        }
+
+        return lineRead;
+    }
+
+}
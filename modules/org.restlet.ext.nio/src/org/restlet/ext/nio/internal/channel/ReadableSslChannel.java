@@ -75,7 +75,8 @@ public class ReadableSslChannel extends ReadableBufferedChannel implements
     public ReadableSslChannel(ReadableSelectionChannel source,
             SslConnection<?> connection, WakeupListener wakeupListener) {
         super(null, new Buffer(connection.getPacketBufferSize(), connection
-                .getHelper().isDirectBuffers()), source, wakeupListener);
+                .getHelper().getConfiguration().isDirectBuffers()), source,
+                wakeupListener);
 
         if (Context.getCurrentLogger().isLoggable(Level.FINER)) {
             Context.getCurrentLogger().log(
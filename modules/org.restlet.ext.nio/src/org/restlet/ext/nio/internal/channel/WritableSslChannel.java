@@ -73,7 +73,8 @@ public class WritableSslChannel extends WritableBufferedChannel implements
     public WritableSslChannel(WritableSelectionChannel target,
             SslConnection<?> connection, WakeupListener wakeupListener) {
         super(new Buffer(connection.getPacketBufferSize(), connection
-                .getHelper().isDirectBuffers()), target, wakeupListener);
+                .getHelper().getConfiguration().isDirectBuffers()), target,
+                wakeupListener);
         this.connection = connection;
     }
 
@@ -47,6 +47,7 @@ import org.restlet.Response;
 import org.restlet.data.Status;
 import org.restlet.engine.io.ReadableSelectionChannel;
 import org.restlet.ext.nio.ConnectionHelper;
+import org.restlet.ext.nio.ConnectionHelperConfiguration;
 import org.restlet.ext.nio.internal.channel.ReadableSocketChannel;
 import org.restlet.ext.nio.internal.channel.ReadableTraceChannel;
 import org.restlet.ext.nio.internal.channel.WritableSelectionChannel;
@@ -70,6 +71,9 @@ import org.restlet.util.SelectionRegistration;
  */
 public class Connection<T extends Connector> implements SelectionListener {
 
+    /** The IO controller running the selector loop of this connection. */
+    private volatile ConnectionController controller;
+
     /** The parent connector helper. */
     private final ConnectionHelper<T> helper;
 
@@ -144,6 +148,7 @@ public class Connection<T extends Connector> implements SelectionListener {
     public void clear() {
         this.inboundWay.clear();
         this.outboundWay.clear();
+        this.controller = null;
         this.readableSelectionChannel = null;
         this.socketChannel = null;
         this.registration = null;
@@ -265,6 +270,15 @@ public class Connection<T extends Connector> implements SelectionListener {
                         .getInetAddress().getHostAddress();
     }
 
+    /**
+     * Returns the IO controller running the selector loop of this connection.
+     * 
+     * @return The IO controller running the selector loop of this connection.
+     */
+    public ConnectionController getController() {
+        return controller;
+    }
+
     /**
      * Returns the parent connector helper.
      * 
@@ -281,7 +295,7 @@ public class Connection<T extends Connector> implements SelectionListener {
      * @return The size of the content buffer for receiving messages.
      */
     public int getInboundBufferSize() {
-        return getHelper().getInboundBufferSize();
+        return getHelper().getConfiguration().getInboundBufferSize();
     }
 
     /**
@@ -339,7 +353,7 @@ public class Connection<T extends Connector> implements SelectionListener {
      * @return The size of the content buffer for sending responses.
      */
     public int getOutboundBufferSize() {
-        return getHelper().getOutboundBufferSize();
+        return getHelper().getConfiguration().getOutboundBufferSize();
     }
 
     /**
@@ -417,6 +431,19 @@ public class Connection<T extends Connector> implements SelectionListener {
         return state;
     }
 
+    /**
+     * Returns the socket channel that file entities can be directly
+     * transferred to, bypassing the outbound buffer, or null if the written
+     * bytes must go through the writable selection channel.
+     * 
+     * @return The socket channel that file entities can be transferred to.
+     * @see ConnectionHelperConfiguration#isDirectTransfers()
+     */
+    public SocketChannel getTransferTarget() {
+        return getHelper().getConfiguration().isDirectTransfers() ? socketChannel
+                : null;
+    }
+
     /**
      * Returns the underlying socket channel as a writable selection channel.
      * 
@@ -450,10 +477,12 @@ public class Connection<T extends Connector> implements SelectionListener {
     public void init(SocketChannel socketChannel,
             ConnectionController controller, InetSocketAddress socketAddress)
             throws IOException {
-        this.persistent = helper.isPersistingConnections();
-        this.pipelining = helper.isPipeliningConnections();
-        this.maxIoIdleTimeMs = helper.getMaxIoIdleTimeMs();
+        ConnectionHelperConfiguration config = helper.getConfiguration();
+        this.persistent = config.isPersistingConnections();
+        this.pipelining = config.isPipeliningConnections();
+        this.maxIoIdleTimeMs = config.getMaxIoIdleTimeMs();
         this.state = ConnectionState.OPENING;
+        this.controller = controller;
         this.socketChannel = socketChannel;
         this.socketAddress = socketAddress;
 
@@ -464,7 +493,7 @@ public class Connection<T extends Connector> implements SelectionListener {
             this.readableSelectionChannel = createReadableSelectionChannel();
             this.writableSelectionChannel = createWritableSelectionChannel();
 
-            if (getHelper().isTracing()) {
+            if (config.isTracing()) {
                 this.readableSelectionChannel = new ReadableTraceChannel(
                         this.readableSelectionChannel);
                 this.writableSelectionChannel = new WritableTraceChannel(
@@ -577,7 +606,7 @@ public class Connection<T extends Connector> implements SelectionListener {
         close(false);
 
         // Give the controller a hint to clean up the closed connection
-        getHelper().getController().wakeup();
+        wakeupController();
     }
 
     /**
@@ -690,7 +719,7 @@ public class Connection<T extends Connector> implements SelectionListener {
                     "Closing " + (isServerSide() ? "server" : "client")
                             + " connection with \"" + getSocketAddress()
                             + "\" due to lack of activity during "
-                            + getHelper().getMaxIoIdleTimeMs() + " ms");
+                            + getMaxIoIdleTimeMs() + " ms");
         }
 
         getInboundWay().onTimeOut();
@@ -831,4 +860,18 @@ public class Connection<T extends Connector> implements SelectionListener {
 
         return result;
     }
+
+    /**
+     * Wakes up the selector loop controlling this connection, or the helper's
+     * controller if the connection isn't assigned to a loop.
+     */
+    public void wakeupController() {
+        ConnectionController loop = getController();
+
+        if (loop == null) {
+            loop = getHelper().getController();
+        }
+
+        loop.wakeup();
+    }
 }
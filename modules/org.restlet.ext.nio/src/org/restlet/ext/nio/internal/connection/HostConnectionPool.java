@@ -0,0 +1,338 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.nio.internal.connection;
+
+import java.net.InetSocketAddress;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.restlet.Connector;
+import org.restlet.ext.nio.internal.state.ConnectionState;
+
+/**
+ * Index of the connections opened by a client connector to a given host
+ * address. It lets the connector find a connection for a request without
+ * scanning the connections opened to all the other hosts.<br>
+ * <br>
+ * The connections are kept in most recently used order, so that the idle
+ * connection selected for a new request is the one that was used last, like
+ * the top of a stack. The connections used less often stay at the bottom and
+ * can time out. When no connection is idle, the busy connection with the
+ * lowest load score is selected.<br>
+ * <br>
+ * Once its last connection is removed, a pool can be detached from its
+ * connector so that the pools of the hosts no longer contacted are released.
+ * No connection can be added to a detached pool anymore.
+ * 
+ * @author Jerome Louvel
+ */
+public class HostConnectionPool<T extends Connector> {
+
+    /** The host address. */
+    private final InetSocketAddress address;
+
+    /** The connections, most recently used first. */
+    private final Deque<Connection<T>> connections;
+
+    /** The number of connections created. */
+    private final AtomicLong createdCount;
+
+    /** Indicates if the pool is detached from its connector. */
+    private volatile boolean detached;
+
+    /** The number of requests queued on a busy connection. */
+    private final AtomicLong queuedCount;
+
+    /** The number of requests rejected due to the connection limits. */
+    private final AtomicLong rejectedCount;
+
+    /** The number of idle connections reused. */
+    private final AtomicLong reusedCount;
+
+    /**
+     * Constructor.
+     * 
+     * @param address
+     *            The host address.
+     */
+    public HostConnectionPool(InetSocketAddress address) {
+        this.address = address;
+        this.connections = new ConcurrentLinkedDeque<Connection<T>>();
+        this.createdCount = new AtomicLong();
+        this.detached = false;
+        this.queuedCount = new AtomicLong();
+        this.rejectedCount = new AtomicLong();
+        this.reusedCount = new AtomicLong();
+    }
+
+    /**
+     * Adds a new connection opened to the host, unless the pool is detached.
+     * It becomes the most recently used connection.
+     * 
+     * @param connection
+     *            The new connection.
+     * @return True if the connection was added, false if the pool is
+     *         detached.
+     */
+    public synchronized boolean add(Connection<T> connection) {
+        if (!this.detached) {
+            this.connections.addFirst(connection);
+            this.createdCount.incrementAndGet();
+        }
+
+        return !this.detached;
+    }
+
+    /**
+     * Detaches the pool from its connector if no connection is opened to the
+     * host.
+     * 
+     * @return True if the pool is detached.
+     */
+    public synchronized boolean detach() {
+        if (this.connections.isEmpty()) {
+            this.detached = true;
+        }
+
+        return this.detached;
+    }
+
+    /**
+     * Returns the host address.
+     * 
+     * @return The host address.
+     */
+    public InetSocketAddress getAddress() {
+        return this.address;
+    }
+
+    /**
+     * Returns the number of busy connections, still open or opening.
+     * 
+     * @return The number of busy connections.
+     */
+    public int getBusyCount() {
+        int result = 0;
+
+        for (Connection<T> connection : this.connections) {
+            if (!connection.isAvailable()
+                    && (connection.getState().compareTo(ConnectionState.OPEN) <= 0)) {
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of connections opened to the host, in any state.
+     * 
+     * @return The number of connections.
+     */
+    public int getConnectionCount() {
+        return this.connections.size();
+    }
+
+    /**
+     * Returns the number of connections created.
+     * 
+     * @return The number of connections created.
+     */
+    public long getCreatedCount() {
+        return this.createdCount.get();
+    }
+
+    /**
+     * Returns the most recently used idle connection and makes it the most
+     * recently used one again, or null if all the connections are busy.
+     * 
+     * @return The most recently used idle connection or null.
+     */
+    public Connection<T> getIdleConnection() {
+        Connection<T> result = null;
+
+        for (Connection<T> connection : this.connections) {
+            if (connection.isAvailable()) {
+                result = connection;
+                break;
+            }
+        }
+
+        if (result != null) {
+            this.reusedCount.incrementAndGet();
+
+            if (this.connections.peekFirst() != result) {
+                moveFirst(result);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of idle connections.
+     * 
+     * @return The number of idle connections.
+     */
+    public int getIdleCount() {
+        int result = 0;
+
+        for (Connection<T> connection : this.connections) {
+            if (connection.isAvailable()) {
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the busy connection with the lowest load score among the ones
+     * still open or opening, or null.
+     * 
+     * @return The least loaded busy connection or null.
+     */
+    public Connection<T> getLeastLoadedConnection() {
+        Connection<T> result = null;
+        int bestScore = Integer.MAX_VALUE;
+
+        for (Connection<T> connection : this.connections) {
+            if (connection.getState().compareTo(ConnectionState.OPEN) <= 0) {
+                int score = connection.getLoadScore();
+
+                if (bestScore > score) {
+                    bestScore = score;
+                    result = connection;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of requests queued on a busy connection.
+     * 
+     * @return The number of requests queued on a busy connection.
+     */
+    public long getQueuedCount() {
+        return this.queuedCount.get();
+    }
+
+    /**
+     * Returns the number of requests rejected due to the connection limits.
+     * 
+     * @return The number of requests rejected.
+     */
+    public long getRejectedCount() {
+        return this.rejectedCount.get();
+    }
+
+    /**
+     * Returns the number of idle connections reused.
+     * 
+     * @return The number of idle connections reused.
+     */
+    public long getReusedCount() {
+        return this.reusedCount.get();
+    }
+
+    /**
+     * Indicates if the pool is detached from its connector.
+     * 
+     * @return True if the pool is detached from its connector.
+     */
+    public boolean isDetached() {
+        return this.detached;
+    }
+
+    /**
+     * Indicates if no connection is opened to the host.
+     * 
+     * @return True if no connection is opened to the host.
+     */
+    public boolean isEmpty() {
+        return this.connections.isEmpty();
+    }
+
+    /**
+     * Makes a connection the most recently used one, unless it was removed
+     * meanwhile.
+     * 
+     * @param connection
+     *            The connection to move.
+     */
+    private synchronized void moveFirst(Connection<T> connection) {
+        if (this.connections.removeFirstOccurrence(connection)) {
+            this.connections.addFirst(connection);
+        }
+    }
+
+    /**
+     * Records a request queued on a busy connection.
+     */
+    public void onQueued() {
+        this.queuedCount.incrementAndGet();
+    }
+
+    /**
+     * Records a request rejected due to the connection limits.
+     */
+    public void onRejected() {
+        this.rejectedCount.incrementAndGet();
+    }
+
+    /**
+     * Removes a connection closed or detached from the host.
+     * 
+     * @param connection
+     *            The connection to remove.
+     * @return True if the connection was removed.
+     */
+    public synchronized boolean remove(Connection<?> connection) {
+        return this.connections.removeFirstOccurrence(connection);
+    }
+
+    @Override
+    public String toString() {
+        return "Host connection pool [address=" + getAddress()
+                + ", connections=" + getConnectionCount() + ", idle="
+                + getIdleCount() + ", busy=" + getBusyCount() + ", created="
+                + getCreatedCount() + ", reused=" + getReusedCount()
+                + ", queued=" + getQueuedCount() + ", rejected="
+                + getRejectedCount() + "]";
+    }
+
+}
@@ -266,6 +266,12 @@ public class SslConnection<T extends Connector> extends Connection<T> {
         return getSslEngine() == null ? null : getSslEngine().getSession();
     }
 
+    @Override
+    public SocketChannel getTransferTarget() {
+        // The written bytes must always be encrypted by the SSL engine
+        return null;
+    }
+
     /**
      * Handles the SSL handshake states based on the last result received.
      * 
@@ -442,7 +448,7 @@ public class SslConnection<T extends Connector> extends Connection<T> {
                                 "Unable to handle SSL handshake", e);
                     }
 
-                    getHelper().getController().wakeup();
+                    wakeupController();
                 }
             });
         }
@@ -0,0 +1,182 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.nio.internal.controller;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.logging.Level;
+
+/**
+ * Dedicated thread accepting the new connections of a server helper with its
+ * own NIO selector. The accepted connections are then assigned to the
+ * selector loops of the {@link ServerConnectionController}.
+ * 
+ * @author Jerome Louvel
+ */
+public class Acceptor implements Runnable {
+
+    /** The parent server controller. */
+    private final ServerConnectionController controller;
+
+    /** Indicates if the task is running. */
+    private volatile boolean running;
+
+    /** Indicates if the acceptor was asked to shut down. */
+    private volatile boolean stopping;
+
+    /** The NIO selector only interested in accept events. */
+    private volatile Selector selector;
+
+    /**
+     * Constructor.
+     * 
+     * @param controller
+     *            The parent server controller.
+     */
+    public Acceptor(ServerConnectionController controller) {
+        this.controller = controller;
+        this.running = false;
+        this.stopping = false;
+    }
+
+    /**
+     * Returns the parent server controller.
+     * 
+     * @return The parent server controller.
+     */
+    public ServerConnectionController getController() {
+        return controller;
+    }
+
+    /**
+     * Indicates if the task is running.
+     * 
+     * @return True if the task is running.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Accepts new connections until shutdown. If the acceptor can't be set up
+     * or stops unexpectedly, the parent controller is notified so it can
+     * accept the connections in its own selector loop instead.
+     */
+    public void run() {
+        Throwable failure = null;
+
+        try {
+            this.selector = getController().createSelector();
+
+            if (this.selector == null) {
+                throw new IOException(
+                        "Unable to open the acceptor's NIO selector");
+            }
+
+            this.running = !this.stopping;
+            getController().getHelper().getServerSocketChannel()
+                    .register(this.selector, SelectionKey.OP_ACCEPT);
+            getController().onAcceptorReady();
+            long sleepTime = getController().getHelper().getConfiguration()
+                    .getControllerSleepTimeMs();
+
+            while (isRunning()) {
+                if (this.selector.select(sleepTime) > 0) {
+                    for (Iterator<SelectionKey> keys = this.selector
+                            .selectedKeys().iterator(); keys.hasNext();) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+
+                        if (key.isValid() && key.isAcceptable()) {
+                            try {
+                                getController().accept();
+                            } catch (RuntimeException re) {
+                                // Only this connection is lost
+                                getController()
+                                        .getHelper()
+                                        .getLogger()
+                                        .log(Level.WARNING,
+                                                "Unexpected error while accepting a new connection",
+                                                re);
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (Throwable t) {
+            failure = t;
+
+            if (!this.stopping) {
+                getController()
+                        .getHelper()
+                        .getLogger()
+                        .log(Level.WARNING,
+                                "Unexpected error while accepting connections",
+                                t);
+            }
+        } finally {
+            this.running = false;
+
+            try {
+                if (this.selector != null) {
+                    this.selector.close();
+                }
+            } catch (IOException e) {
+                getController().getHelper().getLogger()
+                        .log(Level.WARNING,
+                                "Unable to close the acceptor's NIO selector",
+                                e);
+            }
+
+            if (!this.stopping) {
+                getController().onAcceptorFailed(failure);
+            }
+        }
+    }
+
+    /**
+     * Aborts the acceptor.
+     */
+    public void shutdown() {
+        this.stopping = true;
+        this.running = false;
+
+        if (this.selector != null) {
+            this.selector.wakeup();
+        }
+    }
+
+}
@@ -39,9 +39,13 @@ import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import org.restlet.Context;
@@ -60,12 +64,24 @@ import org.restlet.util.SelectionRegistration;
 public class ConnectionController extends Controller implements Runnable,
         WakeupListener {
 
+    /** The connections controlled by this selector loop. */
+    private final Set<Connection<?>> connections;
+
+    /** The maximum time spent dispatching the keys of a selection. */
+    private volatile long maxSelectionLatencyNs;
+
     /** The list of new selection registrations. */
     private final Queue<SelectionRegistration> newRegistrations;
 
     /** The NIO selector. */
     private volatile Selector selector;
 
+    /** The number of selections that returned ready keys. */
+    private volatile long selectionCount;
+
+    /** The total time spent dispatching the keys of the selections. */
+    private volatile long selectionLatencyNs;
+
     /** The list of updated selection registrations. */
     private final Queue<SelectionRegistration> updatedRegistrations;
 
@@ -77,6 +93,8 @@ public class ConnectionController extends Controller implements Runnable,
      */
     public ConnectionController(ConnectionHelper<?> helper) {
         super(helper);
+        this.connections = Collections
+                .newSetFromMap(new ConcurrentHashMap<Connection<?>, Boolean>());
         this.newRegistrations = new ConcurrentLinkedQueue<SelectionRegistration>();
         this.updatedRegistrations = new ConcurrentLinkedQueue<SelectionRegistration>();
     }
@@ -98,6 +116,7 @@ public class ConnectionController extends Controller implements Runnable,
 
         if (conn.getState() == ConnectionState.CLOSED) {
             // Detach the connection and collect it
+            this.connections.remove(conn);
             getHelper().getConnections().remove(conn);
             getHelper().checkin(conn);
         } else if ((conn.getState() == ConnectionState.CLOSING)
@@ -113,12 +132,12 @@ public class ConnectionController extends Controller implements Runnable,
     }
 
     /**
-     * Controls all helper connections.
+     * Controls the connections assigned to this selector loop.
      * 
      * @throws IOException
      */
     protected void controlConnections() throws IOException {
-        for (Connection<?> connection : getHelper().getConnections()) {
+        for (Connection<?> connection : this.connections) {
             controlConnection(connection);
         }
     }
@@ -144,9 +163,12 @@ public class ConnectionController extends Controller implements Runnable,
     @Override
     protected void doInit() {
         this.selector = createSelector();
-        // Done in the controller for thread safety reason regarding the byte
-        // buffers part of the pooled connections
-        getHelper().createConnectionPool();
+
+        if (isControllingHelper()) {
+            // Done in the controller for thread safety reason regarding the
+            // byte buffers part of the pooled connections
+            getHelper().createConnectionPool();
+        }
     }
 
     @Override
@@ -161,8 +183,11 @@ public class ConnectionController extends Controller implements Runnable,
 
     @Override
     protected void doRun(long sleepTime) throws IOException {
-        getHelper().getLogger().log(Level.FINEST, "helper.control()");
-        super.doRun(sleepTime);
+        if (isControllingHelper()) {
+            getHelper().getLogger().log(Level.FINEST, "helper.control()");
+            super.doRun(sleepTime);
+        }
+
         getHelper().getLogger().log(Level.FINEST, "controlConnections()");
         controlConnections();
         getHelper().getLogger().log(Level.FINEST, "registerKeys()");
@@ -174,6 +199,25 @@ public class ConnectionController extends Controller implements Runnable,
         selectKeys(sleepTime);
     }
 
+    /**
+     * Returns the number of connections controlled by this selector loop.
+     * 
+     * @return The number of connections controlled by this selector loop.
+     */
+    public int getConnectionCount() {
+        return this.connections.size();
+    }
+
+    /**
+     * Returns the maximum time spent dispatching the ready keys of a single
+     * selection, in nanoseconds.
+     * 
+     * @return The maximum selection latency in nanoseconds.
+     */
+    public long getMaxSelectionLatencyNs() {
+        return this.maxSelectionLatencyNs;
+    }
+
     /**
      * Returns the queue of new selection registrations.
      * 
@@ -192,6 +236,26 @@ public class ConnectionController extends Controller implements Runnable,
         return selector;
     }
 
+    /**
+     * Returns the number of selections that returned ready keys.
+     * 
+     * @return The number of selections that returned ready keys.
+     */
+    public long getSelectionCount() {
+        return this.selectionCount;
+    }
+
+    /**
+     * Returns the average time spent dispatching the ready keys of a
+     * selection, in nanoseconds.
+     * 
+     * @return The average selection latency in nanoseconds.
+     */
+    public long getSelectionLatencyNs() {
+        long count = this.selectionCount;
+        return (count == 0) ? 0 : this.selectionLatencyNs / count;
+    }
+
     /**
      * Returns the queue of updated selection registrations.
      * 
@@ -201,6 +265,27 @@ public class ConnectionController extends Controller implements Runnable,
         return this.updatedRegistrations;
     }
 
+    /**
+     * Indicates if this controller also runs the parent helper's control,
+     * processing its outbound messages. Only one selector loop per helper
+     * should do it. Returns true by default.
+     * 
+     * @return True if this controller also runs the parent helper's control.
+     */
+    protected boolean isControllingHelper() {
+        return true;
+    }
+
+    /**
+     * Called back when a connection has been assigned to this selector loop.
+     * 
+     * @param connection
+     *            The connection assigned.
+     */
+    public void onAssigned(Connection<?> connection) {
+        this.connections.add(connection);
+    }
+
     /**
      * Called back when a ready key has been selected.
      * 
@@ -305,12 +390,16 @@ public class ConnectionController extends Controller implements Runnable,
                         "NIO controller selected " + selectCount + " key(s) !");
             }
 
+            long start = System.nanoTime();
+
             for (Iterator<SelectionKey> keys = getSelector().selectedKeys()
                     .iterator(); keys.hasNext();) {
                 // Retrieve the next selected key
                 onSelected(keys.next());
                 keys.remove();
             }
+
+            updateSelectionLatency(System.nanoTime() - start);
         } else if (getHelper().getLogger().isLoggable(Level.FINER)) {
             getHelper().getLogger().log(Level.FINER,
                     "NIO controlled selected no key");
@@ -323,6 +412,20 @@ public class ConnectionController extends Controller implements Runnable,
         wakeup();
     }
 
+    /**
+     * Returns a summary of the selector loop metrics, in microseconds.
+     * 
+     * @return A summary of the selector loop metrics.
+     */
+    public String toStatistics() {
+        return getConnectionCount() + " connection(s), "
+                + getSelectionCount() + " selection(s), average latency "
+                + TimeUnit.NANOSECONDS.toMicros(getSelectionLatencyNs())
+                + " us, max latency "
+                + TimeUnit.NANOSECONDS.toMicros(getMaxSelectionLatencyNs())
+                + " us";
+    }
+
     /**
      * Updates all the selection registrations for new interest or cancellation.
      * 
@@ -345,6 +448,22 @@ public class ConnectionController extends Controller implements Runnable,
         }
     }
 
+    /**
+     * Records the time spent dispatching the ready keys of a selection. Only
+     * called by the controller thread.
+     * 
+     * @param latencyNs
+     *            The time spent in nanoseconds.
+     */
+    private void updateSelectionLatency(long latencyNs) {
+        this.selectionCount++;
+        this.selectionLatencyNs += latencyNs;
+
+        if (latencyNs > this.maxSelectionLatencyNs) {
+            this.maxSelectionLatencyNs = latencyNs;
+        }
+    }
+
     /**
      * Wakes up the controller thread if wait for an NIO selection.
      */
@@ -38,6 +38,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
 
 import org.restlet.ext.nio.ConnectionHelper;
+import org.restlet.ext.nio.HelperConfiguration;
 
 /**
  * Controls the IO work of parent connector helper.
@@ -133,8 +134,9 @@ public abstract class Controller {
         try {
             doInit();
             setRunning(true);
-            long sleepTime = getHelper().getControllerSleepTimeMs();
-            boolean hasWorkerThreads = getHelper().hasWorkerThreads();
+            HelperConfiguration config = getHelper().getConfiguration();
+            long sleepTime = config.getControllerSleepTimeMs();
+            boolean hasWorkerThreads = config.hasWorkerThreads();
             boolean isWorkerServiceOverloaded;
 
             while (isRunning()) {
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.nio.internal.controller;
+
+import org.restlet.ext.nio.ServerConnectionHelper;
+
+/**
+ * Additional selector loop of a server helper. It only controls the
+ * connections assigned to it by the {@link ServerConnectionController}, which
+ * remains in charge of accepting connections and of the helper's outbound
+ * messages.
+ * 
+ * @author Jerome Louvel
+ */
+public class SelectorLoop extends ConnectionController {
+
+    /** The index of the loop, starting at 1 for additional loops. */
+    private final int index;
+
+    /**
+     * Constructor.
+     * 
+     * @param helper
+     *            The parent server helper.
+     * @param index
+     *            The index of the loop.
+     */
+    public SelectorLoop(ServerConnectionHelper helper, int index) {
+        super(helper);
+        this.index = index;
+    }
+
+    /**
+     * Returns the index of the loop, starting at 1 for additional loops.
+     * 
+     * @return The index of the loop.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    protected boolean isControllingHelper() {
+        return false;
+    }
+
+}
@@ -40,26 +40,59 @@ import java.nio.channels.AsynchronousCloseException;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import org.restlet.Server;
 import org.restlet.engine.io.IoUtils;
+import org.restlet.engine.log.LoggingThreadFactory;
 import org.restlet.ext.nio.ServerConnectionHelper;
+import org.restlet.ext.nio.ServerConnectionHelperConfiguration;
 import org.restlet.ext.nio.internal.connection.Connection;
 
 /**
  * Controls the IO work of parent server helper and manages its connections.
- * Listens on a server socket channel for incoming connections.
+ * Listens on a server socket channel for incoming connections.<br>
+ * <br>
+ * When the "selectorLoops" parameter is greater than one, additional
+ * {@link SelectorLoop} instances are started, each with its own NIO selector
+ * and thread, and the accepted connections are spread across this controller
+ * and those loops. When the "acceptorThread" parameter is enabled, the
+ * connections are accepted by a separate {@link Acceptor} instead of this
+ * controller.
  * 
  * @author Jerome Louvel
  */
 public class ServerConnectionController extends ConnectionController {
 
+    /** The optional acceptor thread. */
+    private volatile Acceptor acceptor;
+
+    /** Indicates if the acceptor failed and this controller should accept. */
+    private volatile boolean acceptorFailed;
+
     /** The latch to countdown when the socket is ready to accept connections. */
     private final CountDownLatch latch;
 
+    /** The error preventing the connections from being accepted, if any. */
+    private volatile Throwable startError;
+
+    /** The round-robin index of the next selector loop to assign. */
+    private final AtomicInteger nextLoop;
+
+    /** The service running the additional selector loops and the acceptor. */
+    private volatile ExecutorService loopService;
+
+    /** The selector loops, starting with this controller. */
+    private volatile ConnectionController[] selectorLoops;
+
     /**
      * Constructor.
      * 
@@ -69,14 +102,91 @@ public class ServerConnectionController extends ConnectionController {
     public ServerConnectionController(ServerConnectionHelper helper) {
         super(helper);
         this.latch = new CountDownLatch(1);
+        this.nextLoop = new AtomicInteger();
+    }
+
+    /**
+     * Accepts a new connection from the server socket channel and assigns it
+     * to a selector loop.
+     * 
+     * @throws IOException
+     */
+    protected void accept() throws IOException {
+        if (isOverloaded()) {
+            return;
+        }
+
+        try {
+            // Accept the new connection
+            SocketChannel socketChannel = getHelper().getServerSocketChannel()
+                    .accept();
+
+            if (socketChannel != null) {
+                socketChannel.configureBlocking(false);
+                getHelper().configure(socketChannel.socket());
+
+                int connectionsCount = getHelper().getConnections().size();
+
+                int maxTotalConnections = getHelper().getConfiguration()
+                        .getMaxTotalConnections();
+
+                if ((maxTotalConnections == -1)
+                        || (connectionsCount <= maxTotalConnections)) {
+                    ConnectionController loop = selectLoop();
+                    Connection<Server> connection = getHelper().checkout(
+                            socketChannel,
+                            loop,
+                            (InetSocketAddress) socketChannel.socket()
+                                    .getRemoteSocketAddress());
+                    connection.open();
+                    getHelper().getConnections().add(connection);
+                    loop.onAssigned(connection);
+
+                    if ((loop != this) || (this.acceptor != null)) {
+                        // Let the selector loop register the new connection
+                        loop.wakeup();
+                    }
+
+                    if (getHelper().getLogger().isLoggable(Level.FINE)) {
+                        getHelper().getLogger().fine(
+                                "Connection from \""
+                                        + connection.getSocketAddress()
+                                        + "\" accepted. New count: "
+                                        + getHelper().getConnections().size());
+                    }
+                } else {
+                    // Rejection connection
+                    socketChannel.close();
+                    getHelper()
+                            .getLogger()
+                            .info("Maximum number of concurrent connections reached. New connection rejected.");
+                }
+            }
+        } catch (ClosedByInterruptException ex) {
+            getHelper().getLogger().log(Level.FINE,
+                    "ServerSocket channel was closed by interrupt", ex);
+            throw ex;
+        } catch (AsynchronousCloseException ace) {
+            getHelper().getLogger().log(Level.FINE,
+                    "The server socket was closed", ace);
+        } catch (SocketException se) {
+            getHelper().getLogger().log(Level.FINE,
+                    "The server socket was closed", se);
+        } catch (IOException ex) {
+            getHelper().getLogger().log(Level.WARNING,
+                    "Unexpected error while accepting new connection", ex);
+        }
     }
 
     /**
      * Awaits for the controller to be effectively started.
      * 
      * @throws InterruptedException
+     * @throws IOException
+     *             If the server socket couldn't be registered to accept
+     *             connections.
      */
-    public void await() throws InterruptedException {
+    public void await() throws InterruptedException, IOException {
         if (!this.latch.await(IoUtils.TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
             // Timeout detected
             getHelper()
@@ -84,6 +194,98 @@ public class ServerConnectionController extends ConnectionController {
                     .warning(
                             "The calling thread timed out while waiting for the controller to be ready to accept connections.");
         }
+
+        if (this.startError != null) {
+            throw new IOException(
+                    "Unable to accept connections on the server socket",
+                    this.startError);
+        }
+    }
+
+    @Override
+    protected void doRun(long sleepTime) throws IOException {
+        if (this.acceptorFailed) {
+            this.acceptorFailed = false;
+            this.acceptor = null;
+            registerAccept();
+        }
+
+        super.doRun(sleepTime);
+    }
+
+    @Override
+    protected void doInit() {
+        super.doInit();
+        ServerConnectionHelperConfiguration config = getHelper()
+                .getConfiguration();
+        int loopCount = config.getSelectorLoops();
+        ConnectionController[] loops = new ConnectionController[loopCount];
+        loops[0] = this;
+        int threads = loopCount - 1 + (config.isAcceptorThread() ? 1 : 0);
+
+        if (threads > 0) {
+            this.loopService = Executors.newFixedThreadPool(threads,
+                    new LoggingThreadFactory(getHelper().getLogger(), config
+                            .isControllerDaemon()));
+
+            for (int i = 1; i < loopCount; i++) {
+                loops[i] = new SelectorLoop(getHelper(), i);
+                this.loopService.submit((SelectorLoop) loops[i]);
+            }
+        }
+
+        this.selectorLoops = loops;
+
+        if (config.isAcceptorThread()) {
+            // The acceptor counts down the latch once registered
+            this.acceptor = new Acceptor(this);
+            this.loopService.submit(this.acceptor);
+        } else {
+            registerAccept();
+        }
+    }
+
+    @Override
+    protected void doRelease() {
+        if (this.acceptor != null) {
+            this.acceptor.shutdown();
+        }
+
+        ConnectionController[] loops = this.selectorLoops;
+
+        if (loops != null) {
+            for (int i = 1; i < loops.length; i++) {
+                loops[i].shutdown();
+            }
+        }
+
+        if (this.loopService != null) {
+            this.loopService.shutdown();
+
+            try {
+                this.loopService.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                getHelper().getLogger().log(Level.FINE,
+                        "Interruption while shutting down the selector loops",
+                        ex);
+            }
+        }
+
+        if ((loops != null) && getHelper().getLogger().isLoggable(Level.FINE)) {
+            for (int i = 0; i < loops.length; i++) {
+                getHelper().getLogger().fine(
+                        "Selector loop #" + i + ": " + loops[i].toStatistics());
+            }
+        }
+
+        // Never leave the starting thread waiting
+        if (this.latch.getCount() > 0) {
+            this.startError = new IOException(
+                    "The controller stopped before accepting connections");
+            this.latch.countDown();
+        }
+
+        super.doRelease();
     }
 
     /**
@@ -95,80 +297,105 @@ public class ServerConnectionController extends ConnectionController {
         return (ServerConnectionHelper) super.getHelper();
     }
 
+    /**
+     * Returns the selector loops, starting with this controller, typically to
+     * monitor their connection count and selection latency. Returns an empty
+     * list if the controller hasn't been started.
+     * 
+     * @return The selector loops.
+     */
+    public List<ConnectionController> getSelectorLoops() {
+        ConnectionController[] loops = this.selectorLoops;
+        return (loops == null) ? Collections.<ConnectionController> emptyList()
+                : Collections.unmodifiableList(Arrays.asList(loops));
+    }
+
+    /**
+     * Called back by the acceptor when it stops without being shut down,
+     * either because it couldn't be set up or because of an unexpected error.
+     * This controller then accepts the connections in its own selector loop.
+     * 
+     * @param cause
+     *            The error that stopped the acceptor, if any.
+     */
+    protected void onAcceptorFailed(Throwable cause) {
+        getHelper().getLogger().log(Level.WARNING,
+                "The acceptor thread stopped, accepting in the selector loop",
+                cause);
+        this.acceptorFailed = true;
+        wakeup();
+    }
+
+    /**
+     * Called back by the acceptor when it is ready to accept connections.
+     */
+    protected void onAcceptorReady() {
+        this.latch.countDown();
+    }
+
     @Override
     protected void onSelected(SelectionKey key) throws IOException {
         if (!key.isAcceptable()) {
             super.onSelected(key);
-        } else if (!isOverloaded()) {
-            try {
-                // Accept the new connection
-                SocketChannel socketChannel = getHelper()
-                        .getServerSocketChannel().accept();
-
-                if (socketChannel != null) {
-                    socketChannel.configureBlocking(false);
-                    getHelper().configure(socketChannel.socket());
-
-                    int connectionsCount = getHelper().getConnections().size();
-
-                    if ((getHelper().getMaxTotalConnections() == -1)
-                            || (connectionsCount <= getHelper()
-                                    .getMaxTotalConnections())) {
-                        Connection<Server> connection = getHelper().checkout(
-                                socketChannel,
-                                this,
-                                (InetSocketAddress) socketChannel.socket()
-                                        .getRemoteSocketAddress());
-                        connection.open();
-                        getHelper().getConnections().add(connection);
-
-                        if (getHelper().getLogger().isLoggable(Level.FINE)) {
-                            getHelper().getLogger().fine(
-                                    "Connection from \""
-                                            + connection.getSocketAddress()
-                                            + "\" accepted. New count: "
-                                            + getHelper().getConnections()
-                                                    .size());
-                        }
-                    } else {
-                        // Rejection connection
-                        socketChannel.close();
-                        getHelper()
-                                .getLogger()
-                                .info("Maximum number of concurrent connections reached. New connection rejected.");
-                    }
-                }
-            } catch (ClosedByInterruptException ex) {
-                getHelper().getLogger().log(Level.FINE,
-                        "ServerSocket channel was closed by interrupt", ex);
-                throw ex;
-            } catch (AsynchronousCloseException ace) {
-                getHelper().getLogger().log(Level.FINE,
-                        "The server socket was closed", ace);
-            } catch (SocketException se) {
-                getHelper().getLogger().log(Level.FINE,
-                        "The server socket was closed", se);
-            } catch (IOException ex) {
-                getHelper().getLogger().log(Level.WARNING,
-                        "Unexpected error while accepting new connection", ex);
-            }
+        } else {
+            accept();
         }
     }
 
-    @Override
-    protected void doInit() {
-        super.doInit();
-
-        // Register interest in NIO accept events
+    /**
+     * Registers the interest of this controller's selector in NIO accept
+     * events and counts down the starting latch. A registration failure is
+     * reported to the thread starting the server.
+     */
+    private void registerAccept() {
         try {
             getHelper().getServerSocketChannel().register(getSelector(),
                     SelectionKey.OP_ACCEPT);
         } catch (IOException ioe) {
-            getHelper().getLogger().log(Level.WARNING,
-                    "Unexpected error while registering an NIO selection key",
-                    ioe);
+            getHelper()
+                    .getLogger()
+                    .log(Level.WARNING,
+                            "Unexpected error while registering an NIO selection key",
+                            ioe);
+
+            if (this.latch.getCount() > 0) {
+                this.startError = ioe;
+            }
         }
 
         this.latch.countDown();
     }
+
+    /**
+     * Selects the loop that will control the next accepted connection, either
+     * round-robin or the one with the fewest connections depending on the
+     * "selectorAssignment" parameter.
+     * 
+     * @return The selected loop.
+     */
+    protected ConnectionController selectLoop() {
+        ConnectionController[] loops = this.selectorLoops;
+
+        if ((loops == null) || (loops.length == 1)) {
+            return this;
+        }
+
+        ConnectionController result;
+
+        if (getHelper().getConfiguration().isLeastLoadedAssignment()) {
+            result = loops[0];
+
+            for (int i = 1; i < loops.length; i++) {
+                if (loops[i].getConnectionCount() < result
+                        .getConnectionCount()) {
+                    result = loops[i];
+                }
+            }
+        } else {
+            int index = this.nextLoop.getAndIncrement() % loops.length;
+            result = loops[(index < 0) ? index + loops.length : index];
+        }
+
+        return result;
+    }
 }
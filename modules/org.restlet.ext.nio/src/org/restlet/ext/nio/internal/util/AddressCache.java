@@ -0,0 +1,228 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.nio.internal.util;
+
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the socket addresses resolved for host domain and port pairs. It
+ * prevents the creation of a new {@link InetSocketAddress} and the related
+ * name resolution for each request sent by a client connector. The resolved
+ * addresses expire after a given time to live, so that changes of the DNS
+ * records are eventually taken into account. Unresolved host names are never
+ * cached.<br>
+ * <br>
+ * When the maximum number of entries is reached, the cache is cleared.
+ * 
+ * @author Jerome Louvel
+ */
+public class AddressCache {
+
+    /** A resolved address and its expiration time. */
+    private static final class Entry {
+
+        /** The resolved address. */
+        private final InetSocketAddress address;
+
+        /** The expiration time, in milliseconds. */
+        private final long expirationTime;
+
+        private Entry(InetSocketAddress address, long expirationTime) {
+            this.address = address;
+            this.expirationTime = expirationTime;
+        }
+    }
+
+    /** The resolved addresses, keyed by host domain and port. */
+    private final ConcurrentMap<String, Entry> entries;
+
+    /** The number of lookups that found a valid address. */
+    private final AtomicLong hitCount;
+
+    /** The maximum number of entries. */
+    private final int maxSize;
+
+    /** The number of lookups that required a name resolution. */
+    private final AtomicLong missCount;
+
+    /** The time to live of the resolved addresses, in milliseconds. */
+    private final long ttlMs;
+
+    /**
+     * Constructor. Up to 4096 addresses are cached.
+     * 
+     * @param ttlMs
+     *            The time to live of the resolved addresses, in milliseconds,
+     *            or 0 to disable the cache.
+     */
+    public AddressCache(long ttlMs) {
+        this(ttlMs, 4096);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param ttlMs
+     *            The time to live of the resolved addresses, in milliseconds,
+     *            or 0 to disable the cache.
+     * @param maxSize
+     *            The maximum number of entries.
+     */
+    public AddressCache(long ttlMs, int maxSize) {
+        this.entries = new ConcurrentHashMap<String, Entry>();
+        this.hitCount = new AtomicLong();
+        this.maxSize = maxSize;
+        this.missCount = new AtomicLong();
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Clears the cache.
+     */
+    public void clear() {
+        this.entries.clear();
+    }
+
+    /**
+     * Returns the number of lookups that found a valid address.
+     * 
+     * @return The number of cache hits.
+     */
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    /**
+     * Returns the maximum number of entries.
+     * 
+     * @return The maximum number of entries.
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Returns the number of lookups that required a name resolution.
+     * 
+     * @return The number of cache misses.
+     */
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    /**
+     * Returns the time to live of the resolved addresses, in milliseconds.
+     * 
+     * @return The time to live of the resolved addresses, in milliseconds.
+     */
+    public long getTtlMs() {
+        return this.ttlMs;
+    }
+
+    /**
+     * Returns the socket address for the given host domain and port, resolving
+     * it if it isn't cached or if it has expired.
+     * 
+     * @param hostDomain
+     *            The host domain name.
+     * @param hostPort
+     *            The host port.
+     * @return The resolved socket address.
+     * @throws UnknownHostException
+     *             If the host domain couldn't be resolved.
+     */
+    public InetSocketAddress resolve(String hostDomain, int hostPort)
+            throws UnknownHostException {
+        if (this.ttlMs <= 0) {
+            this.missCount.incrementAndGet();
+            return resolveAddress(hostDomain, hostPort);
+        }
+
+        String key = hostDomain + ':' + hostPort;
+        long now = System.currentTimeMillis();
+        Entry entry = this.entries.get(key);
+
+        if ((entry != null) && (entry.expirationTime > now)) {
+            this.hitCount.incrementAndGet();
+        } else {
+            this.missCount.incrementAndGet();
+            entry = new Entry(resolveAddress(hostDomain, hostPort), now
+                    + this.ttlMs);
+
+            if (this.entries.size() >= this.maxSize) {
+                this.entries.clear();
+            }
+
+            this.entries.put(key, entry);
+        }
+
+        return entry.address;
+    }
+
+    /**
+     * Resolves the socket address for the given host domain and port.
+     * 
+     * @param hostDomain
+     *            The host domain name.
+     * @param hostPort
+     *            The host port.
+     * @return The resolved socket address.
+     * @throws UnknownHostException
+     *             If the host domain couldn't be resolved.
+     */
+    private InetSocketAddress resolveAddress(String hostDomain, int hostPort)
+            throws UnknownHostException {
+        InetSocketAddress result = new InetSocketAddress(hostDomain, hostPort);
+
+        if (result.isUnresolved()) {
+            throw new UnknownHostException(hostDomain);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of cached addresses, including the expired ones.
+     * 
+     * @return The number of cached addresses.
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+}
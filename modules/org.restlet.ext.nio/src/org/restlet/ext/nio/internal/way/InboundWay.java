@@ -40,11 +40,11 @@ import java.util.logging.Level;
 import org.restlet.Response;
 import org.restlet.data.Header;
 import org.restlet.data.Status;
-import org.restlet.engine.header.HeaderReader;
 import org.restlet.engine.header.HeaderUtils;
 import org.restlet.engine.io.ReadableSelectionChannel;
 import org.restlet.ext.nio.internal.buffer.Buffer;
 import org.restlet.ext.nio.internal.buffer.BufferState;
+import org.restlet.ext.nio.internal.buffer.HeaderParser;
 import org.restlet.ext.nio.internal.channel.ReadableChunkedChannel;
 import org.restlet.ext.nio.internal.channel.ReadableSizedSelectionChannel;
 import org.restlet.ext.nio.internal.connection.Connection;
@@ -53,6 +53,7 @@ import org.restlet.ext.nio.internal.state.MessageState;
 import org.restlet.representation.EmptyRepresentation;
 import org.restlet.representation.ReadableRepresentation;
 import org.restlet.representation.Representation;
+import org.restlet.util.IndexedSeries;
 import org.restlet.util.SelectionRegistration;
 import org.restlet.util.Series;
 
@@ -70,6 +71,9 @@ public abstract class InboundWay extends Way {
     /** The NIO selection registration of the entity. */
     private volatile SelectionRegistration entityRegistration;
 
+    /** The parser of the header lines. */
+    private final HeaderParser headerParser;
+
     /**
      * Constructor.
      * 
@@ -81,6 +85,7 @@ public abstract class InboundWay extends Way {
     public InboundWay(Connection<?> connection, int bufferSize) {
         super(connection, bufferSize);
         this.builderIndex = 0;
+        this.headerParser = new HeaderParser();
     }
 
     @Override
@@ -88,6 +93,7 @@ public abstract class InboundWay extends Way {
         super.clear();
         this.builderIndex = 0;
         this.entityRegistration = null;
+        this.headerParser.clear();
     }
 
     /**
@@ -188,6 +194,15 @@ public abstract class InboundWay extends Way {
         return entityRegistration;
     }
 
+    /**
+     * Returns the parser of the header lines.
+     * 
+     * @return The parser of the header lines.
+     */
+    protected HeaderParser getHeaderParser() {
+        return headerParser;
+    }
+
     @Override
     public int getInterestOperations() {
         int result = 0;
@@ -200,15 +215,26 @@ public abstract class InboundWay extends Way {
     }
 
     /**
-     * Indicates if the next message line is readable.
+     * Indicates if the next message line is readable. The header lines are
+     * directly parsed from the buffer bytes by the {@link HeaderParser}.
      * 
      * @return True if the next message line is readable.
      * @throws IOException
      */
     protected boolean isLineReadable() throws IOException {
-        return getBuffer().canDrain()
+        boolean result = getBuffer().canDrain()
                 && (getMessageState() != MessageState.IDLE)
-                && (getMessageState() != MessageState.BODY) && fillLine();
+                && (getMessageState() != MessageState.BODY);
+
+        if (result) {
+            if (getMessageState() == MessageState.HEADERS) {
+                result = getHeaderParser().parse(getBuffer().getBytes());
+            } else {
+                result = fillLine();
+            }
+        }
+
+        return result;
     }
 
     @Override
@@ -217,7 +243,7 @@ public abstract class InboundWay extends Way {
 
         // Wakeup the controller to update the registrations,
         // since this callback can be called asynchronous
-        getHelper().getController().wakeup();
+        getConnection().wakeupController();
 
         if (getLogger().isLoggable(Level.FINER)) {
             getLogger().finer("Inbound message completed");
@@ -255,7 +281,7 @@ public abstract class InboundWay extends Way {
 
                 if (header != null) {
                     if (getHeaders() == null) {
-                        setHeaders(new Series<Header>(Header.class));
+                        setHeaders(new IndexedSeries<Header>(Header.class));
                     }
 
                     getHeaders().add(header);
@@ -372,8 +398,13 @@ public abstract class InboundWay extends Way {
      * @throws IOException
      */
     protected Header readHeader() throws IOException {
-        Header header = HeaderReader.readHeader(getLineBuilder());
-        clearLineBuilder();
+        Header header = getHeaderParser().getHeader();
+
+        if ((header != null) && getLogger().isLoggable(Level.FINE)) {
+            getLogger().log(Level.FINE,
+                    header.getName() + ": " + header.getValue());
+        }
+
         return header;
     }
 
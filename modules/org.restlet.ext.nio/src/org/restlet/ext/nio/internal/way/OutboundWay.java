@@ -50,6 +50,7 @@ import org.restlet.engine.connector.ConnectorHelper;
 import org.restlet.engine.header.HeaderConstants;
 import org.restlet.engine.header.HeaderUtils;
 import org.restlet.engine.io.BlockableChannel;
+import org.restlet.engine.io.IoUtils;
 import org.restlet.engine.util.StringUtils;
 import org.restlet.ext.nio.internal.buffer.Buffer;
 import org.restlet.ext.nio.internal.channel.ReadableChunkingChannel;
@@ -59,6 +60,7 @@ import org.restlet.ext.nio.internal.state.IoState;
 import org.restlet.ext.nio.internal.state.MessageState;
 import org.restlet.representation.Representation;
 import org.restlet.service.ConnectorService;
+import org.restlet.util.IndexedSeries;
 import org.restlet.util.Series;
 
 /**
@@ -98,6 +100,18 @@ public abstract class OutboundWay extends Way {
     /** The header index. */
     private volatile int headerIndex;
 
+    /**
+     * The file channel directly transferred to the socket channel, bypassing
+     * the IO buffer.
+     */
+    private volatile FileChannel transferChannel;
+
+    /** The position of the next byte to transfer from the file channel. */
+    private volatile long transferPosition;
+
+    /** The number of bytes remaining to transfer from the file channel. */
+    private volatile long transferRemaining;
+
     /**
      * Constructor.
      * 
@@ -111,6 +125,7 @@ public abstract class OutboundWay extends Way {
         this.entityChannel = null;
         this.entitySelectionKey = null;
         this.headerIndex = 0;
+        this.transferChannel = null;
     }
 
     /**
@@ -157,6 +172,7 @@ public abstract class OutboundWay extends Way {
         this.entityChannel = null;
         this.entitySelectionKey = null;
         this.headerIndex = 0;
+        this.transferChannel = null;
     }
 
     /**
@@ -250,7 +266,18 @@ public abstract class OutboundWay extends Way {
     @Override
     protected boolean hasIoInterest() {
         return (getMessageState() == MessageState.START)
-                || getBuffer().canDrain();
+                || getBuffer().canDrain() || isTransferring();
+    }
+
+    /**
+     * Indicates if the entity is a file directly transferred to the socket
+     * channel, bypassing the IO buffer.
+     * 
+     * @return True if the entity is directly transferred to the socket channel.
+     */
+    protected boolean isTransferring() {
+        return (this.transferChannel != null)
+                && (getMessageState() == MessageState.BODY);
     }
 
     /**
@@ -274,37 +301,54 @@ public abstract class OutboundWay extends Way {
             }
 
             setMessageState(MessageState.BODY);
-            ReadableByteChannel rbc = getActualMessage().getEntity()
-                    .getChannel();
+            Representation entity = getActualMessage().getEntity();
+            long availableSize = entity.getAvailableSize();
+            FileChannel fc = null;
+
+            if ((availableSize != Representation.UNKNOWN_SIZE)
+                    && (getConnection().getTransferTarget() != null)) {
+                fc = IoUtils.getTransferChannel(entity);
+            }
 
-            if (rbc instanceof FileChannel) {
+            if (fc != null) {
+                // Transfer the file content without copying it in the buffer
                 setEntityChannelType(EntityType.TRANSFERABLE);
-            } else if (rbc instanceof BlockableChannel) {
-                BlockableChannel bc = (BlockableChannel) rbc;
+                setEntityChannel(fc);
+                this.transferChannel = fc;
+                this.transferPosition = fc.position();
+                this.transferRemaining = availableSize;
+            } else {
+                ReadableByteChannel rbc = entity.getChannel();
 
-                if (bc.isBlocking()) {
-                    setEntityChannelType(EntityType.BLOCKING);
+                if (rbc instanceof FileChannel) {
+                    setEntityChannelType(EntityType.TRANSFERABLE);
+                } else if (rbc instanceof BlockableChannel) {
+                    BlockableChannel bc = (BlockableChannel) rbc;
+
+                    if (bc.isBlocking()) {
+                        setEntityChannelType(EntityType.BLOCKING);
+                    } else {
+                        setEntityChannelType(EntityType.NON_BLOCKING);
+                    }
+                } else if (rbc instanceof SelectableChannel) {
+                    SelectableChannel sc = (SelectableChannel) rbc;
+
+                    if (sc.isBlocking()) {
+                        setEntityChannelType(EntityType.BLOCKING);
+                    } else {
+                        setEntityChannelType(EntityType.NON_BLOCKING);
+                    }
                 } else {
-                    setEntityChannelType(EntityType.NON_BLOCKING);
+                    setEntityChannelType(EntityType.BLOCKING);
                 }
-            } else if (rbc instanceof SelectableChannel) {
-                SelectableChannel sc = (SelectableChannel) rbc;
 
-                if (sc.isBlocking()) {
-                    setEntityChannelType(EntityType.BLOCKING);
+                if (availableSize == Representation.UNKNOWN_SIZE) {
+                    setEntityChannel(new ReadableChunkingChannel(rbc,
+                            getBuffer().capacity()));
                 } else {
-                    setEntityChannelType(EntityType.NON_BLOCKING);
+                    setEntityChannel(new ReadableSizedChannel(rbc,
+                            availableSize));
                 }
-            } else {
-                setEntityChannelType(EntityType.BLOCKING);
-            }
-
-            if (getActualMessage().getEntity().getAvailableSize() == Representation.UNKNOWN_SIZE) {
-                setEntityChannel(new ReadableChunkingChannel(rbc, getBuffer()
-                        .capacity()));
-            } else {
-                setEntityChannel(new ReadableSizedChannel(rbc,
-                        getActualMessage().getEntity().getAvailableSize()));
             }
 
         } else {
@@ -321,6 +365,8 @@ public abstract class OutboundWay extends Way {
                 getEntityChannel().close();
             }
 
+            this.transferChannel = null;
+
             // Release entity
             if (messageEntity != null) {
                 messageEntity.release();
@@ -353,9 +399,11 @@ public abstract class OutboundWay extends Way {
             getLogger().log(Level.FINER, result + " bytes written");
         }
 
-        if (getHelper().getThrottleTimeMs() > 0) {
+        int throttleTimeMs = getHelper().getConfiguration().getThrottleTimeMs();
+
+        if (throttleTimeMs > 0) {
             try {
-                Thread.sleep(getHelper().getThrottleTimeMs());
+                Thread.sleep(throttleTimeMs);
             } catch (InterruptedException e) {
             }
         }
@@ -385,7 +433,9 @@ public abstract class OutboundWay extends Way {
 
         // Write the message or part of it in the byte
         // buffer
-        if (getMessageState() == MessageState.BODY) {
+        if (isTransferring()) {
+            // The entity is transferred once the buffer is drained
+        } else if (getMessageState() == MessageState.BODY) {
             try {
                 int filled = buffer.fill(getEntityChannel());
 
@@ -464,6 +514,15 @@ public abstract class OutboundWay extends Way {
     public int processIoBuffer() throws IOException {
         int result = super.processIoBuffer();
 
+        if (isTransferring() && getBuffer().isEmpty()) {
+            long transferred = transfer();
+
+            if (transferred > 0) {
+                result = (int) Math.min(Integer.MAX_VALUE,
+                        Math.max(result, 0) + transferred);
+            }
+        }
+
         if (getMessage() != null) {
             if (getMessageState() == MessageState.END) {
                 // Message fully written, ready for a new one
@@ -530,6 +589,47 @@ public abstract class OutboundWay extends Way {
                 && (entity.getAvailableSize() == Representation.UNKNOWN_SIZE);
     }
 
+    /**
+     * Transfers the file entity to the socket channel using the file channel
+     * transferTo method, until the socket channel can't accept more bytes.
+     * 
+     * @return The number of bytes transferred.
+     * @throws IOException
+     */
+    protected long transfer() throws IOException {
+        long result = 0;
+        long transferred = 1;
+
+        while ((this.transferRemaining > 0) && (transferred > 0)) {
+            transferred = this.transferChannel.transferTo(
+                    this.transferPosition, this.transferRemaining,
+                    getConnection().getTransferTarget());
+
+            if (transferred > 0) {
+                this.transferPosition += transferred;
+                this.transferRemaining -= transferred;
+                result += transferred;
+            } else if (this.transferPosition >= this.transferChannel.size()) {
+                throw new IOException(
+                        "The file was truncated while being transferred");
+            }
+        }
+
+        if (getLogger().isLoggable(Level.FINER)) {
+            getLogger().log(Level.FINER, result + " bytes transferred");
+        }
+
+        if (result > 0) {
+            getConnection().onActivity();
+        }
+
+        if (this.transferRemaining <= 0) {
+            setMessageState(MessageState.END);
+        }
+
+        return result;
+    }
+
     @Override
     public void updateState() {
         if ((getMessageState() == MessageState.IDLE) && (getMessage() != null)) {
@@ -560,7 +660,7 @@ public abstract class OutboundWay extends Way {
 
         case HEADERS:
             if (getHeaders() == null) {
-                setHeaders(new Series<Header>(Header.class));
+                setHeaders(new IndexedSeries<Header>(Header.class));
                 setHeaderIndex(0);
                 addHeaders(getHeaders());
             }
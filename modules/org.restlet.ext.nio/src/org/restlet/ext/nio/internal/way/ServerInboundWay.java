@@ -139,6 +139,13 @@ public abstract class ServerInboundWay extends InboundWay {
             // Add it to the helper queue
             getHelper().getInboundMessages().add(message);
 
+            // Wake up the helper controller if another selector loop owns
+            // the connection
+            if (getConnection().getController() != getHelper()
+                    .getController()) {
+                getHelper().getController().wakeup();
+            }
+
             if (!message.getRequest().isEntityAvailable()) {
                 // The request has been completely read
                 onMessageCompleted(false);
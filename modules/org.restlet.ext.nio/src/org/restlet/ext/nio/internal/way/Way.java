@@ -103,7 +103,7 @@ public abstract class Way implements SelectionListener, CompletionListener,
      */
     public Way(Connection<?> connection, int bufferSize) {
         this.connection = connection;
-        this.buffer = new Buffer(bufferSize, getHelper().isDirectBuffers());
+        this.buffer = getHelper().createBuffer(bufferSize);
         this.headers = null;
         this.ioState = IoState.IDLE;
         this.lineBuilder = new StringBuilder();
@@ -141,6 +141,7 @@ public abstract class Way implements SelectionListener, CompletionListener,
         }
 
         this.buffer.clear();
+        this.buffer.release();
         this.headers = null;
         this.ioState = IoState.IDLE;
         clearLineBuilder();
@@ -347,6 +348,7 @@ public abstract class Way implements SelectionListener, CompletionListener,
         setMessage(null);
         setHeaders(null);
         getBuffer().clear();
+        getBuffer().release();
     }
 
     /**
@@ -471,6 +473,9 @@ public abstract class Way implements SelectionListener, CompletionListener,
                     Status.CONNECTOR_ERROR_COMMUNICATION);
         }
 
+        // Return the byte buffer to the pool while the way is idle
+        getBuffer().release();
+
         if (this instanceof InboundWay) {
             getLogger().log(Level.FINER,
                     "Inbound way selected. Done for : " + this);
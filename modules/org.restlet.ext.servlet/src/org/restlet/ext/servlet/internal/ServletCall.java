@@ -62,6 +62,7 @@ import org.restlet.engine.header.LanguageReader;
 import org.restlet.engine.io.UnclosableInputStream;
 import org.restlet.engine.io.UnclosableOutputStream;
 import org.restlet.representation.Representation;
+import org.restlet.util.IndexedSeries;
 import org.restlet.util.Series;
 
 /**
@@ -247,7 +248,7 @@ public class ServletCall extends ServerCall {
     @Override
     public Series<Header> getRequestHeaders() {
         if (this.requestHeaders == null) {
-            this.requestHeaders = new Series<Header>(Header.class);
+            this.requestHeaders = new IndexedSeries<Header>(Header.class);
 
             // Copy the headers from the request object
             String headerName;
@@ -36,6 +36,7 @@ package org.restlet.ext.simple.internal;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SocketChannel;
 import java.security.cert.Certificate;
 import java.util.Arrays;
@@ -50,7 +51,9 @@ import org.restlet.Server;
 import org.restlet.data.Header;
 import org.restlet.data.Method;
 import org.restlet.engine.adapter.ServerCall;
+import org.restlet.engine.io.IoUtils;
 import org.restlet.engine.ssl.SslUtils;
+import org.restlet.representation.Representation;
 import org.restlet.util.Series;
 import org.simpleframework.http.Request;
 import org.simpleframework.http.Response;
@@ -297,6 +300,38 @@ public class SimpleCall extends ServerCall {
         return request.isKeepAlive();
     }
 
+    /**
+     * Writes the response body. File entities are directly transferred to the
+     * byte channel of the Simple response using the file channel transferTo
+     * method.
+     * 
+     * @param entity
+     *            The representation to write as entity of the body.
+     * @param responseEntityStream
+     *            The response entity stream.
+     * @throws IOException
+     */
+    @Override
+    protected void writeResponseBody(Representation entity,
+            OutputStream responseEntityStream) throws IOException {
+        FileChannel fileChannel = (responseEntityStream != null) ? IoUtils
+                .getTransferChannel(entity) : null;
+
+        if (fileChannel != null) {
+            try {
+                IoUtils.copy(fileChannel, fileChannel.position(),
+                        entity.getAvailableSize(),
+                        this.response.getByteChannel());
+            } finally {
+                fileChannel.close();
+            }
+
+            responseEntityStream.flush();
+        } else {
+            super.writeResponseBody(entity, responseEntityStream);
+        }
+    }
+
     @Override
     public void writeResponseHead(org.restlet.Response restletResponse)
             throws IOException {
@@ -66,6 +66,8 @@ import org.restlet.test.ext.html.HtmlTestSuite;
 import org.restlet.test.ext.jackson.JacksonTestCase;
 import org.restlet.test.ext.jaxb.JaxbBasicConverterTestCase;
 import org.restlet.test.ext.jaxb.JaxbIntegrationConverterTestCase;
+import org.restlet.test.ext.jdbc.JdbcClientHelperTestCase;
+import org.restlet.test.ext.jdbc.ResultSetRepresentationTestCase;
 import org.restlet.test.ext.json.JsonTestSuite;
 import org.restlet.test.ext.odata.ODataTestSuite;
 import org.restlet.test.ext.sip.SipTestSuite;
@@ -80,12 +82,17 @@ import org.restlet.test.representation.RangeRepresentationTestCase;
 import org.restlet.test.routing.FilterTestCase;
 import org.restlet.test.routing.RedirectTestCase;
 import org.restlet.test.routing.RouteListTestCase;
+import org.restlet.test.routing.RouterTestCase;
 import org.restlet.test.routing.ValidatorTestCase;
+import org.restlet.test.security.CachingVerifierTestCase;
 import org.restlet.test.security.HttpBasicTestCase;
+import org.restlet.test.security.MemoryRealmTestCase;
 import org.restlet.test.security.RoleTestCase;
 import org.restlet.test.security.SecurityTestCase;
 import org.restlet.test.service.ServiceTestSuite;
+import org.restlet.test.util.IndexedSeriesTestCase;
 import org.restlet.test.util.TemplateTestCase;
+import org.restlet.test.util.VersionedWrapperListTestCase;
 
 /**
  * Suite of unit tests for the Restlet RI.
@@ -120,23 +127,30 @@ public class RestletTestSuite extends TestSuite {
 		addTestSuite(FreeMarkerTestCase.class);
 		addTestSuite(GuiceSelfInjectingServerResourceModuleTestCase.class);
 		addTestSuite(GwtConverterTestCase.class);
+		addTestSuite(IndexedSeriesTestCase.class);
 		addTestSuite(JacksonTestCase.class);
 		addTestSuite(JaxbBasicConverterTestCase.class);
 		addTestSuite(JaxbIntegrationConverterTestCase.class);
+		addTestSuite(JdbcClientHelperTestCase.class);
 		addTestSuite(LanguageTestCase.class);
 		addTestSuite(MediaTypeTestCase.class);
+		addTestSuite(MemoryRealmTestCase.class);
 		addTestSuite(ProductTokenTestCase.class);
 		addTestSuite(ReferenceTestCase.class);
 		addTestSuite(RestartTestCase.class);
+		addTestSuite(ResultSetRepresentationTestCase.class);
 		addTestSuite(RiapTestCase.class);
 		addTestSuite(RouteListTestCase.class);
+		addTestSuite(RouterTestCase.class);
 		addTestSuite(DigestVerifierTestCase.class);
 		addTestSuite(RecipientInfoTestCase.class);
 		addTestSuite(RoleTestCase.class);
+		addTestSuite(CachingVerifierTestCase.class);
 		addTestSuite(StatusTestCase.class);
 		addTestSuite(TemplateTestCase.class);
 		addTestSuite(ValidatorTestCase.class);
 		addTestSuite(VelocityTestCase.class);
+		addTestSuite(VersionedWrapperListTestCase.class);
 		addTest(RegressionTestSuite.suite());
 		addTest(CryptoTestSuite.suite());
 		addTest(EmfTestSuite.suite());
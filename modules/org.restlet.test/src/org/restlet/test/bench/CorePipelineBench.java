@@ -0,0 +1,442 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.restlet.Application;
+import org.restlet.Component;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.ClientInfo;
+import org.restlet.data.Header;
+import org.restlet.data.Language;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Preference;
+import org.restlet.data.Protocol;
+import org.restlet.data.Reference;
+import org.restlet.data.Tag;
+import org.restlet.engine.header.HeaderReader;
+import org.restlet.engine.header.HeaderUtils;
+import org.restlet.engine.log.AccessLogFormatter;
+import org.restlet.engine.log.LogFilter;
+import org.restlet.engine.util.CallTemplate;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.representation.Variant;
+import org.restlet.routing.Router;
+import org.restlet.routing.Template;
+import org.restlet.service.ConnegService;
+import org.restlet.service.ConverterService;
+import org.restlet.service.LogService;
+import org.restlet.service.MetadataService;
+import org.restlet.util.Series;
+
+/**
+ * Micro-benchmarks of the core request pipeline: routing, URI template
+ * parsing, reference parsing, header parsing and writing, conversion, content
+ * negotiation, a full round trip from a {@link Component} to a server resource
+ * over the RIAP connector and the synchronous or asynchronous access logging.<br>
+ * <br>
+ * Usage: CorePipelineBench [json file] [warmup iterations] [iterations]
+ * [iteration time in ms]. The results are written as JSON in the
+ * "core-pipeline-bench.json" file by default.
+ * 
+ * @author Jerome Louvel
+ */
+public class CorePipelineBench {
+
+    /** The raw request headers parsed. */
+    private static final String[] HEADER_LINES = {
+            "Host: www.example.com:8080",
+            "User-Agent: Mozilla/5.0 (X11; Linux x86_64; rv:31.0) Gecko/20100101 Firefox/31.0",
+            "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8",
+            "Accept-Language: fr-FR,fr;q=0.8,en-US;q=0.5,en;q=0.3",
+            "Accept-Encoding: gzip, deflate",
+            "Content-Type: application/json; charset=UTF-8",
+            "Content-Length: 1234", "Connection: keep-alive",
+            "Cache-Control: max-age=0" };
+
+    /** The custom access log format. */
+    private static final String LOG_FORMAT = "{cia} {cri} [{d}] \"{m} {rp}?{rq} {p}\" {S} {ES} \"{fi}\" \"{cig}\"";
+
+    /** The routes attached to the benchmarked router. */
+    private static final String[] ROUTES = { "/users", "/users/{user}",
+            "/users/{user}/orders", "/users/{user}/orders/{order}",
+            "/users/{user}/orders/{order}/items/{item}", "/products",
+            "/products/{product}", "/products/{product}/reviews",
+            "/categories/{category}/products", "/search", "/admin/stats",
+            "/admin/users/{user}" };
+
+    /**
+     * Creates a benchmark of the formatting of a call with a custom access log
+     * format.
+     * 
+     * @param compiled
+     *            Indicates if the template is compiled once.
+     * @return The benchmark.
+     */
+    private static MicroBench createLogFormatBench(final boolean compiled) {
+        return new MicroBench(compiled ? "CallTemplate.format"
+                : "Template.format") {
+            private final Template template = new Template(LOG_FORMAT);
+
+            private final CallTemplate callTemplate = new CallTemplate(
+                    template);
+
+            private Request request;
+
+            private Response response;
+
+            @Override
+            public Object run() throws Exception {
+                return compiled ? callTemplate.format(request, response)
+                        : template.format(request, response);
+            }
+
+            @Override
+            public void setUp() {
+                request = new Request(Method.GET,
+                        "http://localhost/users/jlouvel?page=2");
+                request.getClientInfo().setAddress("10.0.0.1");
+                request.getClientInfo().setAgent("Mozilla/5.0");
+                response = new Response(request);
+                response.setEntity(new StringRepresentation("hello"));
+            }
+        };
+    }
+
+    /**
+     * Creates a benchmark of the access logging of a call, discarding the
+     * formatted entries.
+     * 
+     * @param asynchronous
+     *            Indicates if the access log is asynchronously written.
+     * @return The benchmark.
+     */
+    private static MicroBench createLogBench(final boolean asynchronous) {
+        return new MicroBench(asynchronous ? "LogFilter.async"
+                : "LogFilter.sync") {
+            private LogService logService;
+
+            private LogFilter logFilter;
+
+            @Override
+            public Object run() throws Exception {
+                Request request = new Request(Method.GET,
+                        "http://localhost/users/jlouvel?page=2");
+                request.getClientInfo().setAddress("10.0.0.1");
+                request.getClientInfo().setAgent("Mozilla/5.0");
+                Response response = new Response(request);
+                logFilter.handle(request, response);
+                return response;
+            }
+
+            @Override
+            public void setUp() throws Exception {
+                Logger logger = Logger.getLogger("org.restlet.bench.access."
+                        + getName());
+                logger.setUseParentHandlers(false);
+                logger.addHandler(new Handler() {
+                    @Override
+                    public void close() {
+                    }
+
+                    @Override
+                    public void flush() {
+                    }
+
+                    @Override
+                    public void publish(LogRecord record) {
+                        getFormatter().format(record);
+                    }
+                });
+                logger.getHandlers()[0].setFormatter(new AccessLogFormatter());
+                logService = new LogService();
+                logService.setLoggerName(logger.getName());
+                logService.setAsynchronous(asynchronous);
+                logService.setBlocking(true);
+                logService.start();
+                logFilter = new LogFilter(new Context(), logService);
+                logFilter.setNext(new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity(new StringRepresentation("hello"));
+                    }
+                });
+            }
+
+            @Override
+            public void tearDown() throws Exception {
+                logService.stop();
+            }
+        };
+    }
+
+    /**
+     * Creates the benchmarks.
+     * 
+     * @return The benchmarks.
+     */
+    public static List<MicroBench> createBenches() {
+        List<MicroBench> result = new ArrayList<MicroBench>();
+
+        result.add(new MicroBench("Router.getNext") {
+            private Router router;
+
+            private Request request;
+
+            private Response response;
+
+            @Override
+            public Object run() throws Exception {
+                return router.getNext(request, response);
+            }
+
+            @Override
+            public void setUp() {
+                router = new Router(new Context());
+
+                for (String route : ROUTES) {
+                    router.attach(route, HelloServerResource.class);
+                }
+
+                request = new Request(Method.GET,
+                        "http://localhost/admin/users/jlouvel");
+                request.setRootRef(new Reference("http://localhost"));
+                response = new Response(request);
+            }
+        });
+
+        result.add(new MicroBench("Template.parse") {
+            private final Template template = new Template(
+                    "/users/{user}/orders/{order}/items/{item}");
+
+            private final Map<String, Object> variables = new HashMap<String, Object>();
+
+            @Override
+            public Object run() throws Exception {
+                variables.clear();
+                template.parse("/users/jlouvel/orders/1234/items/42",
+                        variables);
+                return variables.get("item");
+            }
+        });
+
+        result.add(createLogFormatBench(false));
+        result.add(createLogFormatBench(true));
+
+        result.add(new MicroBench("Reference.parse") {
+            @Override
+            public Object run() throws Exception {
+                Reference reference = new Reference(
+                        "http://user@www.example.com:8080/users/jlouvel/orders?sort=date&max=20#top");
+                return reference.getHostDomain() + reference.getPath()
+                        + reference.getQueryAsForm().getFirstValue("max")
+                        + reference.getFragment();
+            }
+        });
+
+        result.add(new MicroBench("HeaderUtils.parse") {
+            @Override
+            public Object run() throws Exception {
+                Series<Header> headers = new Series<Header>(Header.class);
+
+                for (String line : HEADER_LINES) {
+                    headers.add(HeaderReader.readHeader(line));
+                }
+
+                return HeaderUtils.extractEntityHeaders(headers, null);
+            }
+        });
+
+        result.add(new MicroBench("HeaderUtils.write") {
+            private final ByteArrayOutputStream out = new ByteArrayOutputStream(
+                    1024);
+
+            private Response response;
+
+            @Override
+            public Object run() throws Exception {
+                Series<Header> headers = new Series<Header>(Header.class);
+                HeaderUtils.addGeneralHeaders(response, headers);
+                HeaderUtils.addResponseHeaders(response, headers);
+                HeaderUtils.addEntityHeaders(response.getEntity(), headers);
+                out.reset();
+
+                for (Header header : headers) {
+                    HeaderUtils.writeHeaderLine(header, out);
+                }
+
+                return out.size();
+            }
+
+            @Override
+            public void setUp() {
+                response = new Response(new Request(Method.GET,
+                        "http://localhost/"));
+                response.setEntity(new StringRepresentation("hello, world",
+                        MediaType.TEXT_PLAIN));
+                response.getEntity().setTag(
+                        new Tag("xyzzy", false));
+                response.getServerInfo().setAgent("Restlet-Framework");
+            }
+        });
+
+        result.add(new MicroBench("ConverterService.toRepresentation") {
+            private final ConverterService converterService = new ConverterService();
+
+            private final Variant variant = new Variant(MediaType.TEXT_PLAIN);
+
+            @Override
+            public Object run() throws Exception {
+                return converterService.toRepresentation("hello, world",
+                        variant);
+            }
+        });
+
+        result.add(new MicroBench("ConnegService.getPreferredVariant") {
+            private final ConnegService connegService = new ConnegService();
+
+            private final MetadataService metadataService = new MetadataService();
+
+            private Request request;
+
+            private final List<Variant> variants = new ArrayList<Variant>();
+
+            @Override
+            public Object run() throws Exception {
+                return connegService.getPreferredVariant(variants, request,
+                        metadataService);
+            }
+
+            @Override
+            public void setUp() {
+                variants.add(new Variant(MediaType.APPLICATION_JSON,
+                        Language.ENGLISH));
+                variants.add(new Variant(MediaType.APPLICATION_XML,
+                        Language.ENGLISH));
+                variants.add(new Variant(MediaType.TEXT_HTML, Language.FRENCH));
+                variants.add(new Variant(MediaType.TEXT_HTML, Language.ENGLISH));
+                variants.add(new Variant(MediaType.TEXT_PLAIN,
+                        Language.ENGLISH));
+
+                request = new Request(Method.GET, "http://localhost/");
+                ClientInfo clientInfo = request.getClientInfo();
+                clientInfo.getAcceptedMediaTypes().add(
+                        new Preference<MediaType>(MediaType.TEXT_HTML));
+                clientInfo.getAcceptedMediaTypes().add(
+                        new Preference<MediaType>(MediaType.APPLICATION_XML,
+                                0.9f));
+                clientInfo.getAcceptedMediaTypes().add(
+                        new Preference<MediaType>(MediaType.ALL, 0.8f));
+                clientInfo.getAcceptedLanguages().add(
+                        new Preference<Language>(Language.valueOf("fr-FR")));
+                clientInfo.getAcceptedLanguages().add(
+                        new Preference<Language>(Language.ENGLISH, 0.5f));
+            }
+        });
+
+        result.add(new MicroBench("Component.riapRoundTrip") {
+            private Component component;
+
+            @Override
+            public Object run() throws Exception {
+                Request request = new Request(Method.GET,
+                        "riap://component/app/hello");
+                Response response = new Response(request);
+                component.getContext().getClientDispatcher()
+                        .handle(request, response);
+                return response.getEntity().getText();
+            }
+
+            @Override
+            public void setUp() throws Exception {
+                component = new Component();
+                component.getClients().add(Protocol.RIAP);
+                component.getLogService().setEnabled(false);
+                component.getInternalRouter().attach("/app",
+                        new Application() {
+                            @Override
+                            public Restlet createInboundRoot() {
+                                Router router = new Router(getContext());
+                                router.attach("/hello",
+                                        HelloServerResource.class);
+                                return router;
+                            }
+                        });
+                component.start();
+            }
+
+            @Override
+            public void tearDown() throws Exception {
+                component.stop();
+            }
+        });
+
+        result.add(createLogBench(false));
+        result.add(createLogBench(true));
+        return result;
+    }
+
+    public static void main(String[] args) throws Exception {
+        File file = new File((args.length > 0) ? args[0]
+                : "core-pipeline-bench.json");
+        int warmupIterations = (args.length > 1) ? Integer.parseInt(args[1])
+                : 5;
+        int iterations = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+        long iterationTimeMs = (args.length > 3) ? Long.parseLong(args[3])
+                : 1000;
+        MicroBenchRunner runner = new MicroBenchRunner(warmupIterations,
+                iterations, iterationTimeMs);
+
+        for (MicroBench bench : createBenches()) {
+            runner.run(bench);
+        }
+
+        runner.writeJson(file);
+        System.out.println("Results written to " + file.getAbsolutePath());
+    }
+
+}
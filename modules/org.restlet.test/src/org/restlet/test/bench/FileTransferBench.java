@@ -0,0 +1,249 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import org.restlet.Application;
+import org.restlet.Component;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.LocalReference;
+import org.restlet.data.Protocol;
+import org.restlet.engine.Engine;
+import org.restlet.engine.io.IoUtils;
+import org.restlet.ext.nio.HttpServerHelper;
+import org.restlet.resource.Directory;
+
+/**
+ * Benchmark of the static files served by a {@link Directory} through the NIO
+ * HTTP server connector, comparing the direct transfer of file channels to the
+ * socket channels with the buffered copy. By default, 1 GB of files is served
+ * for each round, both as full downloads and as ranges.<br>
+ * <br>
+ * Arguments: [total size in MB] [number of files] [number of rounds].
+ * 
+ * @author Jerome Louvel
+ */
+public class FileTransferBench {
+
+    /**
+     * Creates the files to serve.
+     * 
+     * @param directory
+     *            The parent directory.
+     * @param count
+     *            The number of files.
+     * @param fileSize
+     *            The size of each file.
+     * @throws Exception
+     */
+    private static void createFiles(File directory, int count, long fileSize)
+            throws Exception {
+        byte[] chunk = new byte[1024 * 1024];
+
+        for (int i = 0; i < chunk.length; i++) {
+            chunk[i] = (byte) ('a' + (i % 26));
+        }
+
+        for (int i = 0; i < count; i++) {
+            RandomAccessFile raf = new RandomAccessFile(new File(directory,
+                    "file" + i + ".bin"), "rw");
+
+            try {
+                long written = 0;
+
+                while (written < fileSize) {
+                    int length = (int) Math.min(chunk.length, fileSize
+                            - written);
+                    raf.write(chunk, 0, length);
+                    written += length;
+                }
+            } finally {
+                raf.close();
+            }
+        }
+    }
+
+    /**
+     * Downloads a file, optionally starting at a given index, and returns the
+     * number of bytes received.
+     * 
+     * @param url
+     *            The URL of the file.
+     * @param fromIndex
+     *            The index of the first byte to download or -1 for the full
+     *            file.
+     * @return The number of bytes received.
+     * @throws Exception
+     */
+    private static long download(String url, long fromIndex) throws Exception {
+        long result = 0;
+        HttpURLConnection connection = (HttpURLConnection) new URL(url)
+                .openConnection();
+
+        if (fromIndex >= 0) {
+            connection.setRequestProperty("Range", "bytes=" + fromIndex + "-");
+        }
+
+        InputStream is = connection.getInputStream();
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+
+        try {
+            while ((read = is.read(buffer)) != -1) {
+                result += read;
+            }
+        } finally {
+            is.close();
+        }
+
+        return result;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long totalSize = ((args.length > 0) ? Long.parseLong(args[0]) : 1024)
+                * 1024 * 1024;
+        int count = (args.length > 1) ? Integer.parseInt(args[1]) : 16;
+        int rounds = (args.length > 2) ? Integer.parseInt(args[2]) : 3;
+        long fileSize = totalSize / count;
+
+        File directory = File.createTempFile("restlet-bench", "");
+        directory.delete();
+        directory.mkdir();
+        createFiles(directory, count, fileSize);
+
+        Engine.getInstance().getRegisteredServers()
+                .add(0, new HttpServerHelper(null));
+
+        try {
+            run("buffered", false, directory, count, fileSize, rounds);
+            run("direct", true, directory, count, fileSize, rounds);
+        } finally {
+            IoUtils.delete(directory, true);
+        }
+    }
+
+    /**
+     * Serves the files with the given transfer mode and prints the measured
+     * throughputs.
+     * 
+     * @param name
+     *            The name of the transfer mode.
+     * @param directTransfers
+     *            True if file channels should be directly transferred.
+     * @param directory
+     *            The directory of the files.
+     * @param count
+     *            The number of files.
+     * @param fileSize
+     *            The size of each file.
+     * @param rounds
+     *            The number of rounds.
+     * @throws Exception
+     */
+    private static void run(String name, boolean directTransfers,
+            final File directory, int count, long fileSize, int rounds)
+            throws Exception {
+        Component component = new Component();
+        Server server = component.getServers().add(Protocol.HTTP, 0);
+        server.getContext().getParameters()
+                .add("directTransfers", Boolean.toString(directTransfers));
+
+        // Avoid waiting for delayed acknowledgments between partial writes
+        server.getContext().getParameters().add("socketNoDelay", "true");
+        server.getContext().getParameters()
+                .add("socketSendBufferSize", Integer.toString(256 * 1024));
+        component.getClients().add(Protocol.FILE);
+        component.getDefaultHost().attach(new Application() {
+            @Override
+            public Restlet createInboundRoot() {
+                return new Directory(getContext(), LocalReference
+                        .createFileReference(directory));
+            }
+        });
+        component.start();
+
+        try {
+            String baseUri = "http://localhost:" + server.getEphemeralPort()
+                    + "/";
+
+            for (int round = 0; round < rounds; round++) {
+                long received = 0;
+                long start = System.nanoTime();
+
+                for (int i = 0; i < count; i++) {
+                    received += download(baseUri + "file" + i + ".bin", -1);
+                }
+
+                long fullNs = System.nanoTime() - start;
+                long rangeReceived = 0;
+                start = System.nanoTime();
+
+                for (int i = 0; i < count; i++) {
+                    rangeReceived += download(baseUri + "file" + i + ".bin",
+                            fileSize / 2);
+                }
+
+                long rangeNs = System.nanoTime() - start;
+                System.out.println(name + " round " + (round + 1) + ": full "
+                        + toThroughput(received, fullNs) + " MB/s ("
+                        + received + " bytes), range "
+                        + toThroughput(rangeReceived, rangeNs) + " MB/s ("
+                        + rangeReceived + " bytes)");
+            }
+        } finally {
+            component.stop();
+        }
+    }
+
+    /**
+     * Returns the throughput in MB/s.
+     * 
+     * @param bytes
+     *            The number of bytes received.
+     * @param durationNs
+     *            The duration in nanoseconds.
+     * @return The throughput in MB/s.
+     */
+    private static long toThroughput(long bytes, long durationNs) {
+        return (durationNs == 0) ? 0 : (bytes * 1000000000L)
+                / (durationNs * 1024 * 1024);
+    }
+
+}
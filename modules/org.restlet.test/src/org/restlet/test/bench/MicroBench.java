@@ -0,0 +1,94 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+/**
+ * Micro-benchmark measured by a {@link MicroBenchRunner}. The {@link #run()}
+ * method is invoked in a loop and should perform a single operation, returning
+ * a value depending on its result so that the work isn't optimized away by the
+ * JIT compiler.
+ * 
+ * @author Jerome Louvel
+ */
+public abstract class MicroBench {
+
+    /** The name of the benchmark. */
+    private final String name;
+
+    /**
+     * Constructor.
+     * 
+     * @param name
+     *            The name of the benchmark.
+     */
+    public MicroBench(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name of the benchmark.
+     * 
+     * @return The name of the benchmark.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Performs a single operation.
+     * 
+     * @return A value depending on the result of the operation.
+     * @throws Exception
+     */
+    public abstract Object run() throws Exception;
+
+    /**
+     * Prepares the state of the benchmark before the warmup. Does nothing by
+     * default.
+     * 
+     * @throws Exception
+     */
+    public void setUp() throws Exception {
+    }
+
+    /**
+     * Releases the state of the benchmark after the measurement. Does nothing
+     * by default.
+     * 
+     * @throws Exception
+     */
+    public void tearDown() throws Exception {
+    }
+
+}
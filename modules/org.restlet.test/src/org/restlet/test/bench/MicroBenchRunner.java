@@ -0,0 +1,318 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal micro-benchmark harness, running each {@link MicroBench} for a number
+ * of timed warmup and measurement iterations in throughput mode. The results
+ * are printed on the console and can be written as JSON using the layout of
+ * the JMH result files, so that the usual JMH visualization and comparison
+ * tools can be used.
+ * 
+ * @author Jerome Louvel
+ */
+public class MicroBenchRunner {
+
+    /** The result of a benchmark. */
+    public static class Result {
+
+        /** The name of the benchmark. */
+        private final String name;
+
+        /** The throughput measured for each iteration, in ops/s. */
+        private final double[] scores;
+
+        /**
+         * Constructor.
+         * 
+         * @param name
+         *            The name of the benchmark.
+         * @param scores
+         *            The throughput measured for each iteration, in ops/s.
+         */
+        public Result(String name, double[] scores) {
+            this.name = name;
+            this.scores = scores;
+        }
+
+        /**
+         * Returns the half-width of the 99.9% confidence interval of the mean
+         * throughput, using a normal approximation.
+         * 
+         * @return The error of the mean throughput.
+         */
+        public double getError() {
+            if (scores.length < 2) {
+                return Double.NaN;
+            }
+
+            double mean = getScore();
+            double sum = 0;
+
+            for (double score : scores) {
+                sum += (score - mean) * (score - mean);
+            }
+
+            return 3.291 * Math.sqrt(sum / (scores.length - 1))
+                    / Math.sqrt(scores.length);
+        }
+
+        /**
+         * Returns the name of the benchmark.
+         * 
+         * @return The name of the benchmark.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the mean throughput, in ops/s.
+         * 
+         * @return The mean throughput, in ops/s.
+         */
+        public double getScore() {
+            double sum = 0;
+
+            for (double score : scores) {
+                sum += score;
+            }
+
+            return (scores.length == 0) ? 0 : sum / scores.length;
+        }
+
+        /**
+         * Returns the throughput measured for each iteration, in ops/s.
+         * 
+         * @return The throughput measured for each iteration, in ops/s.
+         */
+        public double[] getScores() {
+            return scores;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-40s %15.1f +- %12.1f ops/s", name,
+                    getScore(), getError());
+        }
+    }
+
+    /** Accumulates the values returned by the benchmarks. */
+    private static volatile int sink;
+
+    /** The number of measurement iterations. */
+    private final int iterations;
+
+    /** The duration of each iteration, in milliseconds. */
+    private final long iterationTimeMs;
+
+    /** The results collected. */
+    private final List<Result> results;
+
+    /** The number of warmup iterations. */
+    private final int warmupIterations;
+
+    /**
+     * Constructor.
+     * 
+     * @param warmupIterations
+     *            The number of warmup iterations.
+     * @param iterations
+     *            The number of measurement iterations.
+     * @param iterationTimeMs
+     *            The duration of each iteration, in milliseconds.
+     */
+    public MicroBenchRunner(int warmupIterations, int iterations,
+            long iterationTimeMs) {
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+        this.iterationTimeMs = iterationTimeMs;
+        this.results = new ArrayList<Result>();
+    }
+
+    /**
+     * Runs the benchmark for one iteration and returns its throughput.
+     * 
+     * @param bench
+     *            The benchmark to run.
+     * @return The throughput in ops/s.
+     * @throws Exception
+     */
+    private double iterate(MicroBench bench) throws Exception {
+        long deadline = System.nanoTime() + iterationTimeMs * 1000000L;
+        long operations = 0;
+        long start = System.nanoTime();
+        long now = start;
+        int value = 0;
+
+        while (now < deadline) {
+            // Check the clock every 16 operations to limit its overhead
+            for (int i = 0; i < 16; i++) {
+                Object result = bench.run();
+                value += (result == null) ? 0 : System.identityHashCode(result);
+            }
+
+            operations += 16;
+            now = System.nanoTime();
+        }
+
+        sink += value;
+        return operations * 1E9 / (now - start);
+    }
+
+    /**
+     * Returns the results collected.
+     * 
+     * @return The results collected.
+     */
+    public List<Result> getResults() {
+        return results;
+    }
+
+    /**
+     * Runs a benchmark, prints and collects its result.
+     * 
+     * @param bench
+     *            The benchmark to run.
+     * @return The result.
+     * @throws Exception
+     */
+    public Result run(MicroBench bench) throws Exception {
+        bench.setUp();
+
+        try {
+            for (int i = 0; i < warmupIterations; i++) {
+                iterate(bench);
+            }
+
+            double[] scores = new double[iterations];
+
+            for (int i = 0; i < iterations; i++) {
+                scores[i] = iterate(bench);
+            }
+
+            Result result = new Result(bench.getName(), scores);
+            this.results.add(result);
+            System.out.println(result);
+            return result;
+        } finally {
+            bench.tearDown();
+        }
+    }
+
+    /**
+     * Writes the results collected as a JSON array following the layout of the
+     * JMH result files.
+     * 
+     * @param writer
+     *            The target writer.
+     * @throws IOException
+     */
+    public void writeJson(Writer writer) throws IOException {
+        writer.write("[\n");
+
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            writer.write("    {\n");
+            writer.write("        \"benchmark\" : \"" + result.getName()
+                    + "\",\n");
+            writer.write("        \"mode\" : \"thrpt\",\n");
+            writer.write("        \"threads\" : 1,\n");
+            writer.write("        \"warmupIterations\" : " + warmupIterations
+                    + ",\n");
+            writer.write("        \"warmupTime\" : \"" + iterationTimeMs
+                    + " ms\",\n");
+            writer.write("        \"measurementIterations\" : " + iterations
+                    + ",\n");
+            writer.write("        \"measurementTime\" : \"" + iterationTimeMs
+                    + " ms\",\n");
+            writer.write("        \"primaryMetric\" : {\n");
+            writer.write("            \"score\" : " + toJson(result.getScore())
+                    + ",\n");
+            writer.write("            \"scoreError\" : "
+                    + toJson(result.getError()) + ",\n");
+            writer.write("            \"scoreUnit\" : \"ops/s\",\n");
+            writer.write("            \"rawData\" : [\n                [");
+
+            for (int j = 0; j < result.getScores().length; j++) {
+                writer.write(((j > 0) ? ", " : "")
+                        + toJson(result.getScores()[j]));
+            }
+
+            writer.write("]\n            ]\n        }\n");
+            writer.write((i < results.size() - 1) ? "    },\n" : "    }\n");
+        }
+
+        writer.write("]\n");
+        writer.flush();
+    }
+
+    /**
+     * Writes the results collected as JSON in the given file.
+     * 
+     * @param file
+     *            The target file.
+     * @throws IOException
+     */
+    public void writeJson(File file) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file),
+                "UTF-8");
+
+        try {
+            writeJson(writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Formats a number for JSON, where NaN isn't allowed.
+     * 
+     * @param value
+     *            The number to format.
+     * @return The formatted number.
+     */
+    private static String toJson(double value) {
+        return Double.isNaN(value) ? "\"NaN\"" : String.valueOf(value);
+    }
+
+}
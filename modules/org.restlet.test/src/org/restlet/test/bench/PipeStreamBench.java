@@ -0,0 +1,161 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.restlet.engine.io.PipeStream;
+
+/**
+ * Compares the throughput of the circular buffer based {@link PipeStream}
+ * with the former implementation based on a queue of boxed bytes.
+ * 
+ * @author Jerome Louvel
+ */
+public class PipeStreamBench {
+
+    /** Former pipe implementation, based on a queue of boxed bytes. */
+    private static class QueuePipe {
+
+        private final BlockingQueue<Integer> queue = new ArrayBlockingQueue<Integer>(
+                1024);
+
+        public InputStream getInputStream() {
+            return new InputStream() {
+                private boolean endReached = false;
+
+                @Override
+                public int read() throws IOException {
+                    try {
+                        if (this.endReached) {
+                            return -1;
+                        }
+
+                        Integer value = queue.poll(5, TimeUnit.SECONDS);
+
+                        if (value == null) {
+                            throw new IOException("Timeout");
+                        }
+
+                        this.endReached = (value == -1);
+                        return value.intValue();
+                    } catch (InterruptedException ie) {
+                        throw new IOException("Interrupted");
+                    }
+                }
+            };
+        }
+
+        public OutputStream getOutputStream() {
+            return new OutputStream() {
+                @Override
+                public void close() throws IOException {
+                    write(-1);
+                }
+
+                @Override
+                public void write(int b) throws IOException {
+                    try {
+                        if (!queue.offer((b == -1) ? -1 : (b & 0xff), 5,
+                                TimeUnit.SECONDS)) {
+                            throw new IOException("Timeout");
+                        }
+                    } catch (InterruptedException ie) {
+                        throw new IOException("Interrupted");
+                    }
+                }
+            };
+        }
+    }
+
+    private static final int SIZE = 32 * 1024 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        int size = (args.length > 0) ? Integer.parseInt(args[0]) : SIZE;
+
+        for (int i = 0; i < 3; i++) {
+            QueuePipe queuePipe = new QueuePipe();
+            report("Queue pipe", size, transfer(queuePipe.getInputStream(),
+                    queuePipe.getOutputStream(), size));
+
+            PipeStream pipeStream = new PipeStream();
+            report("Pipe stream", size, transfer(pipeStream.getInputStream(),
+                    pipeStream.getOutputStream(), size));
+        }
+    }
+
+    private static void report(String name, int size, long durationNs) {
+        double seconds = durationNs / 1E9;
+        System.out.println(name + ": " + (size / (1024 * 1024)) + " MB in "
+                + Math.round(seconds * 1000) + " ms ("
+                + Math.round(size / (1024 * 1024) / seconds) + " MB/s)");
+    }
+
+    private static long transfer(InputStream is, final OutputStream os,
+            final int size) throws Exception {
+        long start = System.nanoTime();
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                byte[] chunk = new byte[8192];
+
+                try {
+                    for (int written = 0; written < size; written += chunk.length) {
+                        os.write(chunk, 0, Math.min(chunk.length, size - written));
+                    }
+
+                    os.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        };
+        writer.start();
+
+        byte[] buffer = new byte[8192];
+
+        while (is.read(buffer) != -1) {
+            // Consume the content
+        }
+
+        writer.join();
+        return System.nanoTime() - start;
+    }
+
+}
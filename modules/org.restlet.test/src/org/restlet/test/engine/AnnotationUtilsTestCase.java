@@ -36,12 +36,15 @@ package org.restlet.test.engine;
 import java.util.List;
 
 import org.junit.Assert;
+import org.restlet.data.MediaType;
 import org.restlet.data.Method;
 import org.restlet.engine.resource.AnnotationInfo;
 import org.restlet.engine.resource.AnnotationUtils;
 import org.restlet.engine.resource.MethodAnnotationInfo;
 import org.restlet.resource.Get;
 import org.restlet.resource.Put;
+import org.restlet.service.ConverterService;
+import org.restlet.service.MetadataService;
 import org.restlet.test.RestletTestCase;
 
 /**
@@ -55,6 +58,13 @@ public class AnnotationUtilsTestCase extends RestletTestCase {
 
     }
 
+    public static interface ICustom {
+
+        @Get("cst")
+        String getCustom();
+
+    }
+
     public static interface IParent<S, T> {
 
         @Get
@@ -111,4 +121,21 @@ public class AnnotationUtilsTestCase extends RestletTestCase {
                 "Didn't find a method with IChild as the declaring class.",
                 true, found);
     }
+
+    public void testResponseVariantsWithModifiedMetadata() throws Exception {
+        MethodAnnotationInfo mai = new MethodAnnotationInfo(ICustom.class,
+                Method.GET, ICustom.class.getMethod("getCustom"), "cst");
+        MetadataService metadataService = new MetadataService();
+        ConverterService converterService = new ConverterService();
+        MediaType custom = new MediaType("application/x-custom");
+        assertFalse(custom.equals(mai
+                .getResponseVariants(metadataService, converterService)
+                .get(0).getMediaType()));
+
+        // The cached variants follow the extension mappings
+        metadataService.addExtension("cst", custom);
+        assertEquals(custom,
+                mai.getResponseVariants(metadataService, converterService)
+                        .get(0).getMediaType());
+    }
 }
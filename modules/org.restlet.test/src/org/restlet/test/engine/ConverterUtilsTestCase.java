@@ -0,0 +1,180 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.restlet.data.MediaType;
+import org.restlet.engine.Engine;
+import org.restlet.engine.converter.ConverterCache;
+import org.restlet.engine.converter.ConverterHelper;
+import org.restlet.engine.converter.ConverterUtils;
+import org.restlet.engine.converter.DefaultConverter;
+import org.restlet.engine.resource.VariantInfo;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.representation.Variant;
+import org.restlet.resource.Resource;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the converter selection cache of the ConverterUtils class.
+ * 
+ * @author Jerome Louvel
+ */
+public class ConverterUtilsTestCase extends RestletTestCase {
+
+    /** Converter preferring strings over the default converter. */
+    private static class StringConverter extends ConverterHelper {
+
+        @Override
+        public List<Class<?>> getObjectClasses(Variant source) {
+            return null;
+        }
+
+        @Override
+        public List<VariantInfo> getVariants(Class<?> source) {
+            return null;
+        }
+
+        @Override
+        public float score(Object source, Variant target, Resource resource) {
+            return (source instanceof String) ? 2.0F : -1.0F;
+        }
+
+        @Override
+        public <T> float score(Representation source, Class<T> target,
+                Resource resource) {
+            return String.class.equals(target) ? 2.0F : -1.0F;
+        }
+
+        @Override
+        public <T> T toObject(Representation source, Class<T> target,
+                Resource resource) throws IOException {
+            return null;
+        }
+
+        @Override
+        public Representation toRepresentation(Object source,
+                Variant target, Resource resource) throws IOException {
+            return null;
+        }
+    }
+
+    public void testCache() {
+        ConverterCache cache = ConverterUtils.getCache();
+        Variant variant = new Variant(MediaType.TEXT_PLAIN);
+        long hits = cache.getHits();
+        long misses = cache.getMisses();
+
+        ConverterHelper helper = ConverterUtils.getBestHelper("test",
+                variant, null);
+        assertTrue(helper instanceof DefaultConverter);
+        assertSame(helper, ConverterUtils.getBestHelper("other",
+                new Variant(MediaType.TEXT_PLAIN), null));
+        assertEquals(hits + 1, cache.getHits());
+        assertEquals(misses + 1, cache.getMisses());
+
+        // Registering a new converter invalidates the cache
+        Engine.getInstance().getRegisteredConverters()
+                .add(new StringConverter());
+        helper = ConverterUtils.getBestHelper("test", variant, null);
+        assertTrue(helper instanceof StringConverter);
+        assertEquals(misses + 2, cache.getMisses());
+
+        // The target class is part of the key
+        Representation source = new StringRepresentation("test");
+        helper = ConverterUtils.getBestHelper(source, String.class, null);
+        assertTrue(helper instanceof StringConverter);
+        helper = ConverterUtils.getBestHelper(source, Representation.class,
+                null);
+        assertTrue(helper instanceof DefaultConverter);
+
+        // Removing a converter via a sub-list also invalidates the cache
+        List<ConverterHelper> converters = Engine.getInstance()
+                .getRegisteredConverters();
+        int index = converters.size() - 1;
+        assertTrue(converters.get(index) instanceof StringConverter);
+        converters.subList(index, index + 1).clear();
+        helper = ConverterUtils.getBestHelper("test", variant, null);
+        assertTrue(helper instanceof DefaultConverter);
+    }
+
+    public void testDisabled() {
+        ConverterCache cache = ConverterUtils.getCache();
+        cache.setEnabled(false);
+
+        try {
+            long hits = cache.getHits();
+            Variant variant = new Variant(MediaType.TEXT_PLAIN);
+            ConverterUtils.getBestHelper("test", variant, null);
+            ConverterUtils.getBestHelper("test", variant, null);
+            assertEquals(hits, cache.getHits());
+            assertEquals(0, cache.getSize());
+        } finally {
+            cache.setEnabled(true);
+        }
+    }
+
+    public void testEviction() {
+        ConverterCache cache = ConverterUtils.getCache();
+        int maxSize = cache.getMaxSize();
+        cache.clear();
+        cache.setMaxSize(4);
+
+        try {
+            MediaType[] mediaTypes = new MediaType[] { MediaType.TEXT_PLAIN,
+                    MediaType.TEXT_HTML, MediaType.TEXT_XML,
+                    MediaType.TEXT_CSV, MediaType.TEXT_CSS };
+
+            for (MediaType mediaType : mediaTypes) {
+                ConverterUtils.getBestHelper("test", new Variant(mediaType),
+                        null);
+            }
+
+            // Only the oldest half was evicted
+            assertEquals(3, cache.getSize());
+            long hits = cache.getHits();
+            ConverterUtils.getBestHelper("test", new Variant(
+                    MediaType.TEXT_CSS), null);
+            ConverterUtils.getBestHelper("test", new Variant(
+                    MediaType.TEXT_CSV), null);
+            assertEquals(hits + 2, cache.getHits());
+        } finally {
+            cache.setMaxSize(maxSize);
+        }
+    }
+
+}
@@ -37,11 +37,24 @@ import junit.framework.Test;
 import junit.framework.TestSuite;
 
 import org.restlet.test.engine.connector.ConnectorsTestSuite;
+import org.restlet.test.engine.connector.FileTransferTestCase;
+import org.restlet.test.engine.connector.HelperConfigurationTestCase;
+import org.restlet.test.engine.connector.HostConnectionPoolTestCase;
 import org.restlet.test.engine.connector.HttpInboundRequestTestCase;
+import org.restlet.test.engine.connector.NetServerHelperTestCase;
+import org.restlet.test.engine.connector.SelectorLoopsTestCase;
 import org.restlet.test.engine.io.BioUtilsTestCase;
+import org.restlet.test.engine.io.BufferPoolTestCase;
 import org.restlet.test.engine.io.BufferTestCase;
+import org.restlet.test.engine.io.HeaderParserTestCase;
+import org.restlet.test.engine.io.PipeExecutorTestCase;
+import org.restlet.test.engine.io.PipeStreamTestCase;
 import org.restlet.test.engine.io.ReaderInputStreamTestCase;
+import org.restlet.test.engine.log.AccessLogWriterTestCase;
 import org.restlet.test.engine.util.Base64TestCase;
+import org.restlet.test.engine.util.CallTemplateTestCase;
+import org.restlet.test.engine.util.ParsedValueCacheTestCase;
+import org.restlet.test.engine.util.VirtualThreadScheduledExecutorTestCase;
 
 /**
  * Suite of unit tests for the Restlet Framework.
@@ -62,21 +75,35 @@ public class EngineTestSuite extends TestSuite {
     /** Constructor. */
     public EngineTestSuite() {
         super("Engine package");
+        addTestSuite(AccessLogWriterTestCase.class);
         addTestSuite(AlphaNumericComparatorTestCase.class);
         addTestSuite(AnnotationUtilsTestCase.class);
         addTestSuite(Base64TestCase.class);
+        addTestSuite(BufferPoolTestCase.class);
         addTestSuite(BufferTestCase.class);
         addTestSuite(BioUtilsTestCase.class);
+        addTestSuite(CallTemplateTestCase.class);
         addTestSuite(CookiesTestCase.class);
+        addTestSuite(FileTransferTestCase.class);
         addTestSuite(ContentTypeTestCase.class);
+        addTestSuite(ConverterUtilsTestCase.class);
         addTestSuite(HeaderTestCase.class);
+        addTestSuite(HeaderParserTestCase.class);
+        addTestSuite(HelperConfigurationTestCase.class);
+        addTestSuite(HostConnectionPoolTestCase.class);
         addTestSuite(HttpCallTestCase.class);
         addTestSuite(HttpInboundRequestTestCase.class);
         addTestSuite(ImmutableDateTestCase.class);
+        addTestSuite(NetServerHelperTestCase.class);
+        addTestSuite(ParsedValueCacheTestCase.class);
         addTestSuite(UnclosableInputStreamTestCase.class);
         addTestSuite(UnclosableOutputStreamTestCase.class);
+        addTestSuite(VirtualThreadScheduledExecutorTestCase.class);
+        addTestSuite(PipeExecutorTestCase.class);
+        addTestSuite(PipeStreamTestCase.class);
         addTestSuite(PreferencesTestCase.class);
         addTestSuite(ReaderInputStreamTestCase.class);
+        addTestSuite(SelectorLoopsTestCase.class);
 
         // Tests based on HTTP client connectors are not supported by the GAE
         // edition.
@@ -37,6 +37,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.restlet.data.ClientInfo;
+import org.restlet.data.Language;
 import org.restlet.data.MediaType;
 import org.restlet.data.Preference;
 import org.restlet.engine.header.PreferenceReader;
@@ -78,6 +80,62 @@ public class PreferencesTestCase extends RestletTestCase {
         }
     }
 
+    /**
+     * Tests that the preferences parsed from the same header are cached but not
+     * shared.
+     */
+    public void testCachedPreferences() {
+        String header = "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8";
+        ClientInfo clientInfo1 = new ClientInfo();
+        ClientInfo clientInfo2 = new ClientInfo();
+        PreferenceReader.addMediaTypes(header, clientInfo1);
+        PreferenceReader.addMediaTypes(new String(header), clientInfo2);
+
+        List<Preference<MediaType>> prefs1 = clientInfo1
+                .getAcceptedMediaTypes();
+        List<Preference<MediaType>> prefs2 = clientInfo2
+                .getAcceptedMediaTypes();
+        assertEquals(4, prefs1.size());
+        assertEquals(4, prefs2.size());
+
+        for (int i = 0; i < prefs1.size(); i++) {
+            assertNotSame(prefs1.get(i), prefs2.get(i));
+            assertSame(prefs1.get(i).getMetadata(), prefs2.get(i)
+                    .getMetadata());
+            assertEquals(prefs1.get(i).getQuality(), prefs2.get(i)
+                    .getQuality());
+        }
+
+        assertEquals(MediaType.APPLICATION_XML, prefs1.get(2).getMetadata());
+        assertEquals(0.9F, prefs1.get(2).getQuality());
+
+        // Updating a preference doesn't affect the next parsings
+        prefs1.get(0).setQuality(0.1F);
+        ClientInfo clientInfo3 = new ClientInfo();
+        PreferenceReader.addMediaTypes(header, clientInfo3);
+        assertEquals(1F, clientInfo3.getAcceptedMediaTypes().get(0)
+                .getQuality());
+
+        // Preferences with extension parameters are parsed each time
+        header = "text/html;q=0.7;ext1";
+        clientInfo1 = new ClientInfo();
+        clientInfo2 = new ClientInfo();
+        PreferenceReader.addMediaTypes(header, clientInfo1);
+        PreferenceReader.addMediaTypes(header, clientInfo2);
+        assertEquals(1, clientInfo1.getAcceptedMediaTypes().get(0)
+                .getParameters().size());
+        assertNotSame(clientInfo1.getAcceptedMediaTypes().get(0)
+                .getParameters(), clientInfo2.getAcceptedMediaTypes().get(0)
+                .getParameters());
+
+        // Cached languages
+        clientInfo1 = new ClientInfo();
+        PreferenceReader.addLanguages("fr-CA,en;q=0.5", clientInfo1);
+        assertEquals(2, clientInfo1.getAcceptedLanguages().size());
+        assertEquals(Language.valueOf("fr-CA"), clientInfo1
+                .getAcceptedLanguages().get(0).getMetadata());
+    }
+
     /**
      * Tests the preferences parsing.
      */
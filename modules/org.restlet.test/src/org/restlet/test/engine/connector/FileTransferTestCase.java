@@ -0,0 +1,151 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.connector;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Range;
+import org.restlet.data.Status;
+import org.restlet.engine.application.RangeRepresentation;
+import org.restlet.engine.connector.HttpClientHelper;
+import org.restlet.ext.nio.HttpServerHelper;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the direct transfer of file entities by the NIO server
+ * connector.
+ * 
+ * @author Jerome Louvel
+ */
+public class FileTransferTestCase extends RestletTestCase {
+
+    private File file;
+
+    private String content;
+
+    /**
+     * Gets the given range of the file from a server configured with the given
+     * transfer mode.
+     */
+    private String get(final Range range, String directTransfers)
+            throws Exception {
+        Server server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        FileRepresentation fr = new FileRepresentation(file,
+                                MediaType.TEXT_PLAIN);
+
+                        if (range == null) {
+                            response.setEntity(fr);
+                        } else {
+                            response.setEntity(new RangeRepresentation(fr,
+                                    range));
+                        }
+                    }
+                });
+        server.getContext().getParameters().add("directTransfers",
+                directTransfers);
+        HttpServerHelper serverHelper = new HttpServerHelper(server);
+        serverHelper.start();
+
+        Client client = new Client(new Context(), Protocol.HTTP);
+        HttpClientHelper clientHelper = new HttpClientHelper(client);
+        clientHelper.start();
+
+        try {
+            Request request = new Request(Method.GET, "http://localhost:"
+                    + serverHelper.getAttributes().get("ephemeralPort") + "/");
+            Response response = new Response(request);
+            clientHelper.handle(request, response);
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            return response.getEntity().getText();
+        } finally {
+            clientHelper.stop();
+            serverHelper.stop();
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < 100000; i++) {
+            sb.append(i % 10);
+        }
+
+        this.content = sb.toString();
+        this.file = File.createTempFile("transfer", ".txt");
+        FileOutputStream fos = new FileOutputStream(this.file);
+        fos.write(this.content.getBytes("US-ASCII"));
+        fos.close();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.file.delete();
+        this.file = null;
+        this.content = null;
+        super.tearDown();
+    }
+
+    public void testBufferedTransfer() throws Exception {
+        assertEquals(content.substring(100, 150), get(new Range(100, 50),
+                "false"));
+    }
+
+    public void testFile() throws Exception {
+        assertEquals(content, get(null, "true"));
+    }
+
+    public void testRange() throws Exception {
+        assertEquals(content.substring(100, 150), get(new Range(100, 50),
+                "true"));
+        assertEquals(content.substring(99990),
+                get(new Range(Range.INDEX_LAST, 10), "true"));
+    }
+
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.connector;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.engine.util.SystemUtils;
+import org.restlet.ext.nio.ConnectionHelperConfiguration;
+import org.restlet.ext.nio.HttpClientHelper;
+import org.restlet.ext.nio.HttpServerHelper;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the parameter snapshots of the NIO connector helpers.
+ * 
+ * @author Jerome Louvel
+ */
+public class HelperConfigurationTestCase extends RestletTestCase {
+
+    public void testDefaults() {
+        Server server = new Server(new Context(), Protocol.HTTP, 0);
+        HttpServerHelper helper = new HttpServerHelper(server);
+        ConnectionHelperConfiguration config = helper.getConfiguration();
+
+        assertEquals(16 * 1024, config.getInboundBufferSize());
+        assertEquals(32 * 1024, config.getOutboundBufferSize());
+        assertEquals(60000, config.getMaxIoIdleTimeMs());
+        assertEquals(-1, config.getMaxTotalConnections());
+        assertEquals("TCP", config.getTransport());
+        assertFalse(config.isControllerDaemon());
+        assertFalse(config.isDirectBuffers());
+        assertTrue(config.isDirectTransfers());
+        assertFalse(config.isTracing());
+        assertTrue(config.hasWorkerThreads());
+        assertTrue(config.isPersistingConnections());
+        assertTrue(config.isPooledConnection());
+        assertFalse(config.isVirtualThreads());
+    }
+
+    public void testReconfigure() {
+        Server server = new Server(new Context(), Protocol.HTTP, 0);
+        server.getContext().getParameters().add("inboundBufferSize", "1024");
+        server.getContext().getParameters().add("directBuffers", "true");
+        HttpServerHelper helper = new HttpServerHelper(server);
+        ConnectionHelperConfiguration config = helper.getConfiguration();
+
+        assertEquals(1024, config.getInboundBufferSize());
+        assertTrue(config.isDirectBuffers());
+
+        // The snapshot isn't affected by later changes
+        server.getContext().getParameters()
+                .set("inboundBufferSize", "2048");
+        server.getContext().getParameters().add("tracing", "true");
+        assertSame(config, helper.getConfiguration());
+        assertEquals(1024, helper.getConfiguration().getInboundBufferSize());
+        assertEquals(2048, helper.getInboundBufferSize());
+
+        helper.reconfigure();
+        assertNotSame(config, helper.getConfiguration());
+        assertEquals(2048, helper.getConfiguration().getInboundBufferSize());
+        assertTrue(helper.getConfiguration().isTracing());
+        assertFalse(helper.getConfiguration().isDirectBuffers());
+        assertFalse(helper.getConfiguration().isDirectTransfers());
+    }
+
+    public void testRoundTrip() throws Exception {
+        Server server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity("hello", MediaType.TEXT_PLAIN);
+                    }
+                });
+        server.getContext().getParameters().add("inboundBufferSize", "512");
+        server.getContext().getParameters().add("virtualThreads", "true");
+        HttpServerHelper serverHelper = new HttpServerHelper(server);
+        serverHelper.start();
+
+        Client client = new Client(new Context(), Protocol.HTTP);
+        HttpClientHelper clientHelper = new HttpClientHelper(client);
+        clientHelper.start();
+
+        try {
+            assertEquals(512, serverHelper.getConfiguration()
+                    .getInboundBufferSize());
+
+            // Falls back to platform worker threads when not supported
+            assertTrue(serverHelper.getConfiguration().isVirtualThreads());
+            assertEquals(
+                    SystemUtils.createVirtualThreadFactory("test-") != null,
+                    serverHelper.isVirtualWorkerService());
+
+            Request request = new Request(Method.GET, "http://localhost:"
+                    + serverHelper.getAttributes().get("ephemeralPort") + "/");
+            Response response = new Response(request);
+            clientHelper.handle(request, response);
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            assertEquals("hello", response.getEntity().getText());
+        } finally {
+            clientHelper.stop();
+            serverHelper.stop();
+        }
+    }
+
+}
@@ -0,0 +1,206 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.connector;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.ext.nio.HttpClientHelper;
+import org.restlet.ext.nio.HttpServerHelper;
+import org.restlet.ext.nio.internal.connection.HostConnectionPool;
+import org.restlet.ext.nio.internal.util.AddressCache;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the per host connection pools and the address cache of the NIO
+ * client connector.
+ * 
+ * @author Jerome Louvel
+ */
+public class HostConnectionPoolTestCase extends RestletTestCase {
+
+    private static final int REQUESTS = 5;
+
+    public void testAddressCache() throws Exception {
+        AddressCache cache = new AddressCache(60000);
+        InetSocketAddress address = cache.resolve("localhost", 8182);
+        assertFalse(address.isUnresolved());
+        assertEquals(8182, address.getPort());
+        assertSame(address, cache.resolve("localhost", 8182));
+        assertNotSame(address, cache.resolve("localhost", 8183));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    public void testAddressCacheDisabled() throws Exception {
+        AddressCache cache = new AddressCache(0);
+        InetSocketAddress address = cache.resolve("localhost", 8182);
+        assertNotSame(address, cache.resolve("localhost", 8182));
+        assertEquals(address, cache.resolve("localhost", 8182));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    public void testDetach() throws Exception {
+        HostConnectionPool<Client> pool = new HostConnectionPool<Client>(
+                new InetSocketAddress("localhost", 8182));
+        assertFalse(pool.isDetached());
+        assertTrue(pool.detach());
+        assertTrue(pool.isDetached());
+        assertTrue(pool.isEmpty());
+    }
+
+    public void testNonPersistent() throws Exception {
+        Server server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity("hello", MediaType.TEXT_PLAIN);
+                    }
+                });
+        HttpServerHelper serverHelper = new HttpServerHelper(server);
+        serverHelper.start();
+
+        Client client = new Client(new Context(), Protocol.HTTP);
+        client.getContext().getParameters()
+                .add("persistingConnections", "false");
+
+        // The closed connections are collected at each controller loop
+        client.getContext().getParameters().add("controllerSleepTimeMs", "50");
+        HttpClientHelper clientHelper = new HttpClientHelper(client);
+        clientHelper.start();
+
+        try {
+            for (int i = 0; i < REQUESTS; i++) {
+                Request request = new Request(Method.GET, "http://localhost:"
+                        + serverHelper.getAttributes().get("ephemeralPort")
+                        + "/");
+                Response response = new Response(request);
+                clientHelper.handle(request, response);
+                assertEquals(Status.SUCCESS_OK, response.getStatus());
+                assertEquals("hello", response.getEntity().getText());
+            }
+
+            // The pool is released once its last connection is closed
+            for (int i = 0; (i < 100)
+                    && !clientHelper.getHostConnectionPools().isEmpty(); i++) {
+                Thread.sleep(50);
+            }
+
+            assertTrue(clientHelper.getHostConnectionPools().isEmpty());
+
+            // And replaced by a new pool for the next connection
+            Request request = new Request(Method.GET, "http://localhost:"
+                    + serverHelper.getAttributes().get("ephemeralPort") + "/");
+            Response response = new Response(request);
+            clientHelper.handle(request, response);
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            assertEquals("hello", response.getEntity().getText());
+        } finally {
+            clientHelper.stop();
+            serverHelper.stop();
+        }
+
+        assertTrue(clientHelper.getHostConnectionPools().isEmpty());
+    }
+
+    public void testReuse() throws Exception {
+        Server server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity("hello", MediaType.TEXT_PLAIN);
+                    }
+                });
+        HttpServerHelper serverHelper = new HttpServerHelper(server);
+        serverHelper.start();
+
+        Client client = new Client(new Context(), Protocol.HTTP);
+        client.getContext().getParameters()
+                .add("addressCacheTtlMs", "60000");
+        HttpClientHelper clientHelper = new HttpClientHelper(client);
+        clientHelper.start();
+
+        try {
+            assertEquals(60000, clientHelper.getConfiguration()
+                    .getAddressCacheTtlMs());
+
+            for (int i = 0; i < REQUESTS; i++) {
+                Request request = new Request(Method.GET, "http://localhost:"
+                        + serverHelper.getAttributes().get("ephemeralPort")
+                        + "/");
+                Response response = new Response(request);
+                clientHelper.handle(request, response);
+                assertEquals(Status.SUCCESS_OK, response.getStatus());
+                assertEquals("hello", response.getEntity().getText());
+            }
+
+            // A single persistent connection was opened and reused
+            List<HostConnectionPool<Client>> pools = new ArrayList<HostConnectionPool<Client>>(
+                    clientHelper.getHostConnectionPools());
+            assertEquals(1, pools.size());
+            HostConnectionPool<Client> pool = pools.get(0);
+            assertEquals(1, pool.getCreatedCount());
+            assertEquals(1, pool.getConnectionCount());
+            assertEquals(REQUESTS - 1, pool.getReusedCount());
+            assertEquals(0, pool.getRejectedCount());
+
+            // The host address was only resolved once
+            assertEquals(1, clientHelper.getAddressCache().getMissCount());
+            assertEquals(REQUESTS - 1, clientHelper.getAddressCache()
+                    .getHitCount());
+        } finally {
+            clientHelper.stop();
+            serverHelper.stop();
+        }
+
+        assertTrue(clientHelper.getHostConnectionPools().isEmpty());
+    }
+
+}
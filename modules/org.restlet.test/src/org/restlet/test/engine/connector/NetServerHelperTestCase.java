@@ -0,0 +1,215 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.connector;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.engine.connector.HttpClientHelper;
+import org.restlet.engine.connector.HttpServerHelper;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the executor of the internal HTTP server connector.
+ * 
+ * @author Jerome Louvel
+ */
+public class NetServerHelperTestCase extends RestletTestCase {
+
+    /** Released to let the slow calls complete. */
+    private volatile CountDownLatch release;
+
+    /** Counted down when a slow call starts. */
+    private volatile CountDownLatch started;
+
+    /** The internal HTTP client helper. */
+    private HttpClientHelper clientHelper;
+
+    /** The internal HTTP server helper. */
+    private HttpServerHelper serverHelper;
+
+    /**
+     * Sends a GET request to the test server.
+     * 
+     * @param path
+     *            The path of the resource.
+     * @return The response.
+     */
+    private Response get(String path) {
+        Request request = new Request(Method.GET, "http://localhost:"
+                + this.serverHelper.getAttributes().get("ephemeralPort")
+                + path);
+        Response response = new Response(request);
+        this.clientHelper.handle(request, response);
+        return response;
+    }
+
+    /**
+     * Sends a GET request to the slow resource from another thread.
+     * 
+     * @return The thread sending the request.
+     */
+    private Thread getSlow() {
+        Thread result = new Thread() {
+            @Override
+            public void run() {
+                get("/slow");
+            }
+        };
+        result.start();
+        return result;
+    }
+
+    /**
+     * Starts the test server and client.
+     * 
+     * @param maxThreads
+     *            The maximum number of worker threads.
+     * @param maxQueued
+     *            The maximum number of queued calls.
+     */
+    private void start(int maxThreads, int maxQueued) throws Exception {
+        Server server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        if (request.getResourceRef().getPath()
+                                .equals("/slow")) {
+                            started.countDown();
+
+                            try {
+                                release.await(10, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+
+                        response.setEntity("hello", MediaType.TEXT_PLAIN);
+                    }
+                });
+        server.getContext().getParameters()
+                .add("maxThreads", Integer.toString(maxThreads));
+        server.getContext().getParameters()
+                .add("maxQueued", Integer.toString(maxQueued));
+        this.serverHelper = new HttpServerHelper(server);
+        this.serverHelper.start();
+
+        Client client = new Client(new Context(), Protocol.HTTP);
+        this.clientHelper = new HttpClientHelper(client);
+        this.clientHelper.start();
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.release = new CountDownLatch(1);
+        this.started = new CountDownLatch(1);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.release.countDown();
+
+        if (this.clientHelper != null) {
+            this.clientHelper.stop();
+        }
+
+        if (this.serverHelper != null) {
+            this.serverHelper.stop();
+        }
+
+        super.tearDown();
+    }
+
+    public void testDefaults() {
+        HttpServerHelper helper = new HttpServerHelper(new Server(
+                new Context(), Protocol.HTTP, 0));
+        assertEquals(1, helper.getMinThreads());
+        assertEquals(10, helper.getMaxThreads());
+        assertEquals(-1, helper.getMaxQueued());
+        assertFalse(helper.isVirtualThreads());
+        assertEquals(0, helper.getQueuedCount());
+        assertEquals(0, helper.getRejectedCount());
+    }
+
+    public void testRejection() throws Exception {
+        start(1, 0);
+        Thread slow = getSlow();
+        assertTrue(this.started.await(5, TimeUnit.SECONDS));
+
+        // The only worker thread is busy and there is no queue
+        Response response = get("/fast");
+        assertFalse(response.getStatus().isSuccess());
+        assertTrue(this.serverHelper.getRejectedCount() >= 1);
+
+        this.release.countDown();
+        slow.join(5000);
+
+        for (int i = 0; (i < 100) && (this.serverHelper.getActiveCount() > 0); i++) {
+            Thread.sleep(50);
+        }
+
+        // The server keeps accepting calls
+        response = get("/fast");
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals("hello", response.getEntity().getText());
+    }
+
+    public void testSlowCallDoesNotStall() throws Exception {
+        start(4, -1);
+        Thread slow = getSlow();
+        assertTrue(this.started.await(5, TimeUnit.SECONDS));
+
+        // Served by another worker thread while the slow call is blocked
+        Response response = get("/fast");
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals("hello", response.getEntity().getText());
+        assertTrue(this.serverHelper.getActiveCount() >= 1);
+        assertEquals(0, this.serverHelper.getRejectedCount());
+
+        this.release.countDown();
+        slow.join(5000);
+    }
+
+}
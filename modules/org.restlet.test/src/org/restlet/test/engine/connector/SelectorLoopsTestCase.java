@@ -0,0 +1,199 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.connector;
+
+import java.util.List;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.ext.nio.HttpClientHelper;
+import org.restlet.ext.nio.HttpServerHelper;
+import org.restlet.ext.nio.internal.controller.ConnectionController;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the selector loops and the acceptor thread of the NIO server
+ * connector.
+ * 
+ * @author Jerome Louvel
+ */
+public class SelectorLoopsTestCase extends RestletTestCase {
+
+    private static final int REQUESTS = 6;
+
+    /**
+     * Sends non persistent requests to a server configured with the given
+     * parameters and returns its selector loops.
+     */
+    private List<ConnectionController> roundTrip(String loops,
+            String assignment, String acceptor) throws Exception {
+        Server server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity("hello", MediaType.TEXT_PLAIN);
+                    }
+                });
+        server.getContext().getParameters().add("selectorLoops", loops);
+        server.getContext().getParameters()
+                .add("selectorAssignment", assignment);
+        server.getContext().getParameters().add("acceptorThread", acceptor);
+        HttpServerHelper serverHelper = new HttpServerHelper(server);
+        serverHelper.start();
+
+        Client client = new Client(new Context(), Protocol.HTTP);
+        client.getContext().getParameters()
+                .add("persistingConnections", "false");
+        HttpClientHelper clientHelper = new HttpClientHelper(client);
+        clientHelper.start();
+
+        try {
+            for (int i = 0; i < REQUESTS; i++) {
+                Request request = new Request(Method.GET, "http://localhost:"
+                        + serverHelper.getAttributes().get("ephemeralPort")
+                        + "/");
+                Response response = new Response(request);
+                clientHelper.handle(request, response);
+                assertEquals(Status.SUCCESS_OK, response.getStatus());
+                assertEquals("hello", response.getEntity().getText());
+            }
+
+            return serverHelper.getController().getSelectorLoops();
+        } finally {
+            clientHelper.stop();
+            serverHelper.stop();
+        }
+    }
+
+    public void testAcceptorThread() throws Exception {
+        List<ConnectionController> loops = roundTrip("2", "leastLoaded",
+                "true");
+        assertEquals(2, loops.size());
+
+        long selections = 0;
+
+        for (ConnectionController loop : loops) {
+            selections += loop.getSelectionCount();
+        }
+
+        assertTrue(selections > 0);
+    }
+
+    public void testPersistentConnections() throws Exception {
+        Server server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity("hello", MediaType.TEXT_PLAIN);
+                    }
+                });
+        server.getContext().getParameters().add("selectorLoops", "3");
+        server.getContext().getParameters()
+                .add("selectorAssignment", "roundRobin");
+        server.getContext().getParameters()
+                .add("controllerSleepTimeMs", "5000");
+        HttpServerHelper serverHelper = new HttpServerHelper(server);
+        serverHelper.start();
+        HttpClientHelper[] clientHelpers = new HttpClientHelper[3];
+
+        try {
+            long start = System.currentTimeMillis();
+
+            // Each client keeps its connection on a different selector loop
+            for (int i = 0; i < clientHelpers.length; i++) {
+                clientHelpers[i] = new HttpClientHelper(new Client(
+                        new Context(), Protocol.HTTP));
+                clientHelpers[i].start();
+
+                for (int j = 0; j < REQUESTS; j++) {
+                    Request request = new Request(Method.GET,
+                            "http://localhost:"
+                                    + serverHelper.getAttributes().get(
+                                            "ephemeralPort") + "/");
+                    Response response = new Response(request);
+                    clientHelpers[i].handle(request, response);
+                    assertEquals(Status.SUCCESS_OK, response.getStatus());
+                    assertEquals("hello", response.getEntity().getText());
+                }
+            }
+
+            // The requests read by the additional loops must not wait for
+            // the controller sleep time
+            assertTrue(System.currentTimeMillis() - start < 5000);
+
+            for (ConnectionController loop : serverHelper.getController()
+                    .getSelectorLoops()) {
+                assertEquals(1, loop.getConnectionCount());
+            }
+        } finally {
+            for (HttpClientHelper clientHelper : clientHelpers) {
+                if (clientHelper != null) {
+                    clientHelper.stop();
+                }
+            }
+
+            serverHelper.stop();
+        }
+    }
+
+    public void testRoundRobin() throws Exception {
+        List<ConnectionController> loops = roundTrip("3", "roundRobin",
+                "false");
+        assertEquals(3, loops.size());
+
+        // Each loop served two connections
+        for (ConnectionController loop : loops) {
+            assertTrue(loop.getSelectionCount() > 0);
+            assertTrue(loop.getSelectionLatencyNs() >= 0);
+            assertTrue(loop.getMaxSelectionLatencyNs() >= loop
+                    .getSelectionLatencyNs());
+        }
+    }
+
+    public void testSingleLoop() throws Exception {
+        List<ConnectionController> loops = roundTrip("1", "roundRobin",
+                "false");
+        assertEquals(1, loops.size());
+        assertTrue(loops.get(0).getSelectionCount() > 0);
+    }
+
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.io;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.ext.nio.HttpClientHelper;
+import org.restlet.ext.nio.HttpServerHelper;
+import org.restlet.ext.nio.internal.buffer.Buffer;
+import org.restlet.ext.nio.internal.buffer.BufferPool;
+import org.restlet.ext.nio.internal.buffer.BufferState;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the {@link BufferPool} class and pooled {@link Buffer}
+ * instances.
+ * 
+ * @author Jerome Louvel
+ */
+public class BufferPoolTestCase extends RestletTestCase {
+
+    public void testDirectArena() {
+        BufferPool pool = new BufferPool(1024, true, 64);
+        ByteBuffer slab = pool.checkout();
+
+        assertTrue(slab.isDirect());
+        assertEquals(1024, slab.capacity());
+        assertEquals(64, pool.getCreatedCount());
+        assertEquals(63, pool.getFreeCount());
+        assertEquals(1, pool.getInUseCount());
+
+        pool.checkin(slab);
+        assertEquals(64, pool.getFreeCount());
+        assertEquals(0, pool.getInUseCount());
+    }
+
+    public void testLimits() {
+        BufferPool pool = new BufferPool(128, false, 2);
+        ByteBuffer b1 = pool.checkout();
+        ByteBuffer b2 = pool.checkout();
+        ByteBuffer b3 = pool.checkout();
+        assertEquals(3, pool.getCreatedCount());
+        assertEquals(3, pool.getInUseCount());
+
+        b1.put((byte) 1);
+        pool.checkin(b1);
+        pool.checkin(b2);
+        pool.checkin(b3);
+        assertEquals(0, pool.getInUseCount());
+        assertEquals(2, pool.getFreeCount());
+        assertEquals(1, pool.getDiscardedCount());
+
+        // Reused slabs are cleared
+        ByteBuffer b4 = pool.checkout();
+        assertEquals(0, b4.position());
+        assertEquals(128, b4.limit());
+        assertEquals(3, pool.getCreatedCount());
+    }
+
+    public void testPooledBuffer() throws Exception {
+        BufferPool pool = new BufferPool(64, false, 8);
+        Buffer buffer = new Buffer(pool);
+
+        // Queries don't check out a byte buffer
+        assertTrue(buffer.isUnallocated());
+        assertTrue(buffer.isEmpty());
+        assertEquals(64, buffer.capacity());
+        assertEquals(64, buffer.remaining());
+        assertTrue(buffer.canFill());
+        assertFalse(buffer.couldDrain());
+        buffer.flip();
+        assertEquals(BufferState.FILLING, buffer.getState());
+        assertEquals(0, pool.getInUseCount());
+
+        buffer.fill("abcdef");
+        assertEquals(1, pool.getInUseCount());
+        buffer.flip();
+
+        // Can't be released while it still contains bytes
+        assertFalse(buffer.release());
+        assertEquals('a', buffer.drain());
+        assertFalse(buffer.release());
+
+        byte[] rest = new byte[5];
+        buffer.drain(rest, 0, 5);
+        assertTrue(Arrays.equals("bcdef".getBytes(), rest));
+        assertTrue(buffer.release());
+        assertTrue(buffer.isUnallocated());
+        assertEquals(0, pool.getInUseCount());
+        assertEquals(1, pool.getFreeCount());
+
+        // Reuses the free slab
+        buffer.fill("xyz");
+        buffer.flip();
+        StringBuilder sb = new StringBuilder();
+
+        while (buffer.hasRemaining()) {
+            sb.append((char) buffer.drain());
+        }
+
+        assertEquals("xyz", sb.toString());
+        assertEquals(1, pool.getCreatedCount());
+    }
+
+    public void testRoundTrip() throws Exception {
+        final String text = createText(8 * 1024);
+        Server server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        try {
+                            response.setEntity(request.getEntity().getText(),
+                                    MediaType.TEXT_PLAIN);
+                        } catch (Exception e) {
+                            response.setStatus(Status.SERVER_ERROR_INTERNAL, e);
+                        }
+                    }
+                });
+        server.getContext().getParameters().add("pooledBuffers", "true");
+        HttpServerHelper serverHelper = new HttpServerHelper(server);
+        serverHelper.start();
+
+        Client client = new Client(new Context(), Protocol.HTTP);
+        client.getContext().getParameters().add("pooledBuffers", "true");
+        client.getContext().getParameters().add("directBuffers", "true");
+        HttpClientHelper clientHelper = new HttpClientHelper(client);
+        clientHelper.start();
+
+        try {
+            for (int i = 0; i < 3; i++) {
+                Request request = new Request(Method.POST, "http://localhost:"
+                        + serverHelper.getAttributes().get("ephemeralPort")
+                        + "/", new StringRepresentation(text));
+                Response response = new Response(request);
+                clientHelper.handle(request, response);
+                assertEquals(Status.SUCCESS_OK, response.getStatus());
+                assertEquals(text, response.getEntity().getText());
+            }
+
+            assertFalse(serverHelper.getBufferPools().isEmpty());
+            assertFalse(clientHelper.getBufferPools().isEmpty());
+
+            for (BufferPool pool : clientHelper.getBufferPools()) {
+                assertTrue(pool.isDirect());
+            }
+        } finally {
+            clientHelper.stop();
+            serverHelper.stop();
+        }
+    }
+
+    private String createText(int size) {
+        StringBuilder sb = new StringBuilder(size);
+
+        for (int i = 0; i < size; i++) {
+            sb.append((char) ('a' + (i % 26)));
+        }
+
+        return sb.toString();
+    }
+
+}
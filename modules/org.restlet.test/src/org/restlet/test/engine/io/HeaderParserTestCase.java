@@ -0,0 +1,164 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.restlet.data.Header;
+import org.restlet.engine.header.HeaderConstants;
+import org.restlet.engine.header.HeaderReader;
+import org.restlet.ext.nio.internal.buffer.HeaderParser;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the {@link HeaderParser} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class HeaderParserTestCase extends RestletTestCase {
+
+    /**
+     * Wraps the ISO-8859-1 bytes of a text.
+     * 
+     * @param text
+     *            The text.
+     * @return The byte buffer.
+     */
+    private ByteBuffer bytes(String text) throws IOException {
+        return ByteBuffer.wrap(text.getBytes("ISO-8859-1"));
+    }
+
+    /**
+     * Parses a single header line, ended by CRLF.
+     * 
+     * @param line
+     *            The header line.
+     * @return The header parsed.
+     */
+    private Header parse(String line) throws IOException {
+        HeaderParser parser = new HeaderParser();
+        assertTrue(parser.parse(bytes(line + "\r\n")));
+        return parser.getHeader();
+    }
+
+    public void testEndOfHeaders() throws IOException {
+        HeaderParser parser = new HeaderParser();
+        ByteBuffer buffer = bytes("Host: localhost\r\n\r\nbody");
+        assertTrue(parser.parse(buffer));
+        assertEquals("localhost", parser.getHeader().getValue());
+        assertTrue(parser.parse(buffer));
+        assertTrue(parser.isLineRead());
+        assertNull(parser.getHeader());
+        assertFalse(parser.isLineRead());
+
+        // The entity bytes are left in the buffer
+        assertEquals(4, buffer.remaining());
+    }
+
+    public void testErrors() throws IOException {
+        try {
+            parse("Missing colon");
+            fail("The missing colon should be detected");
+        } catch (IOException e) {
+            // Expected
+        }
+
+        try {
+            new HeaderParser().parse(bytes("Host: localhost\rX"));
+            fail("The missing line feed should be detected");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    public void testKnownNames() throws IOException {
+        assertSame(HeaderConstants.HEADER_ACCEPT, parse("Accept: */*")
+                .getName());
+        assertSame(HeaderConstants.HEADER_CONTENT_TYPE,
+                parse("Content-Type: text/plain").getName());
+
+        // The case of the names is preserved
+        Header header = parse("content-type: text/plain");
+        assertEquals("content-type", header.getName());
+        assertEquals("X-Custom", parse("X-Custom: value").getName());
+    }
+
+    public void testSameAsHeaderReader() throws IOException {
+        String[] lines = {
+                "Host: www.example.com:8080",
+                "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8",
+                "Accept-Language:fr-FR,fr;q=0.8",
+                "User-Agent:    curl/7.38.0", "X-Trailing: value  ",
+                "Cookie: a=1; b=\"x:y\"", "X-Latin: caf\u00e9" };
+
+        for (String line : lines) {
+            Header expected = HeaderReader.readHeader(line);
+            Header actual = parse(line);
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getValue(), actual.getValue());
+            assertEquals(expected, actual);
+        }
+
+        assertEquals("", parse("X-Empty:").getValue());
+        assertEquals("", parse("X-Empty:   ").getValue());
+    }
+
+    public void testSplitLines() throws IOException {
+        String text = "Content-Type: application/json; charset=UTF-8\r\n"
+                + "Content-Length: 42\r\n\r\n";
+        HeaderParser parser = new HeaderParser();
+        StringBuilder parsed = new StringBuilder();
+
+        // Feed the parser one byte at a time
+        for (int i = 0; i < text.length(); i++) {
+            if (parser.parse(bytes(text.substring(i, i + 1)))) {
+                Header header = parser.getHeader();
+                parsed.append((header == null) ? "END" : header.getName()
+                        + "=" + header.getValue() + "|");
+            }
+        }
+
+        assertEquals(
+                "Content-Type=application/json; charset=UTF-8|Content-Length=42|END",
+                parsed.toString());
+    }
+
+    public void testValueUpdate() throws IOException {
+        Header header = parse("Connection: keep-alive");
+        header.setValue("close");
+        assertEquals("close", header.getValue());
+    }
+
+}
@@ -0,0 +1,210 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.restlet.data.MediaType;
+import org.restlet.engine.io.IoUtils;
+import org.restlet.engine.io.PipeExecutor;
+import org.restlet.representation.OutputRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the PipeExecutor class.
+ * 
+ * @author Jerome Louvel
+ */
+public class PipeExecutorTestCase extends RestletTestCase {
+
+    public void testCounters() throws Exception {
+        PipeExecutor executor = new PipeExecutor(1, 1, false);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(2);
+
+        try {
+            executor.execute(new Runnable() {
+                public void run() {
+                    started.countDown();
+
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        // Ignore
+                    }
+
+                    done.countDown();
+                }
+            });
+            executor.execute(new Runnable() {
+                public void run() {
+                    done.countDown();
+                }
+            });
+
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertEquals(1, executor.getActiveCount());
+            assertEquals(1, executor.getQueuedCount());
+
+            release.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+
+            while (executor.getCompletedCount() < 2) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(0, executor.getActiveCount());
+            assertEquals(0, executor.getQueuedCount());
+            assertEquals(0, executor.getRejectedCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testFailFast() throws Exception {
+        PipeExecutor executor = new PipeExecutor(1, 0, false);
+        final CountDownLatch release = new CountDownLatch(1);
+        assertEquals(0, executor.getAcquireTimeout());
+
+        try {
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        // Ignore
+                    }
+                }
+            });
+
+            // The saturated executor doesn't block the calling thread
+            try {
+                executor.execute(new Runnable() {
+                    public void run() {
+                    }
+                });
+                fail("The task should have been rejected");
+            } catch (RejectedExecutionException e) {
+                // Expected
+            }
+
+            assertEquals(1, executor.getRejectedCount());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    public void testNestedConversion() throws Exception {
+        // A single pooled thread, held by the outer conversion
+        PipeExecutor executor = new PipeExecutor(1, false);
+        final Representation inner = new OutputRepresentation(
+                MediaType.TEXT_PLAIN) {
+            @Override
+            public void write(OutputStream outputStream) throws IOException {
+                outputStream.write("hello".getBytes());
+            }
+        };
+        Representation outer = new OutputRepresentation(MediaType.TEXT_PLAIN) {
+            @Override
+            public void write(OutputStream outputStream) throws IOException {
+                IoUtils.copy(inner.getStream(), outputStream);
+            }
+        };
+
+        IoUtils.setPipeExecutor(executor);
+
+        try {
+            assertFalse(executor.isBounded());
+            assertEquals("hello", IoUtils.toString(outer.getStream()));
+            assertEquals(1, executor.getOverflowCount());
+            assertEquals(0, executor.getRejectedCount());
+        } finally {
+            IoUtils.setPipeExecutor(null);
+        }
+    }
+
+    public void testSaturation() throws Exception {
+        PipeExecutor executor = new PipeExecutor(1, 0, false, 100L);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Representation rep = new OutputRepresentation(MediaType.TEXT_PLAIN) {
+            @Override
+            public void write(OutputStream outputStream) throws IOException {
+                outputStream.write("hello".getBytes());
+            }
+        };
+
+        IoUtils.setPipeExecutor(executor);
+
+        try {
+            executor.execute(new Runnable() {
+                public void run() {
+                    started.countDown();
+
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        // Ignore
+                    }
+                }
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // The only slot is taken, the conversion is rejected
+            try {
+                rep.getStream();
+                fail("The conversion should have been rejected");
+            } catch (IOException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+
+            assertEquals(1, executor.getRejectedCount());
+
+            // The conversions are accepted again once the slot is released
+            release.countDown();
+            assertEquals("hello", IoUtils.toString(IoUtils.getStream(rep)));
+        } finally {
+            release.countDown();
+            IoUtils.setPipeExecutor(null);
+        }
+    }
+
+}
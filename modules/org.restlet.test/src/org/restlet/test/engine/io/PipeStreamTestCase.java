@@ -0,0 +1,126 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.restlet.engine.io.PipeStream;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the PipeStream class.
+ * 
+ * @author Jerome Louvel
+ */
+public class PipeStreamTestCase extends RestletTestCase {
+
+    private void testTransfer(int capacity, int size, final int chunkSize)
+            throws Exception {
+        final byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+
+        PipeStream pipe = new PipeStream(capacity);
+        final OutputStream os = pipe.getOutputStream();
+        final IOException[] errors = new IOException[1];
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < content.length; i += chunkSize) {
+                        int len = Math.min(chunkSize, content.length - i);
+
+                        if (len == 1) {
+                            os.write(content[i]);
+                        } else {
+                            os.write(content, i, len);
+                        }
+                    }
+
+                    os.close();
+                } catch (IOException e) {
+                    errors[0] = e;
+                }
+            }
+        };
+        writer.start();
+
+        InputStream is = pipe.getInputStream();
+        byte[] buffer = new byte[chunkSize + 3];
+        int position = 0;
+        int read;
+
+        while ((read = is.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                assertEquals(content[position++], buffer[i]);
+            }
+        }
+
+        writer.join();
+        assertNull(errors[0]);
+        assertEquals(content.length, position);
+        assertEquals(-1, is.read());
+    }
+
+    public void testBulkTransfer() throws Exception {
+        testTransfer(8192, 4 * 1024 * 1024, 5000);
+    }
+
+    public void testSingleByteTransfer() throws Exception {
+        testTransfer(16, 1000, 1);
+    }
+
+    public void testWrapAround() throws Exception {
+        testTransfer(7, 10000, 5);
+    }
+
+    public void testReaderClosed() throws IOException {
+        PipeStream pipe = new PipeStream(4);
+        OutputStream os = pipe.getOutputStream();
+        InputStream is = pipe.getInputStream();
+        os.write(new byte[] { 1, 2 });
+        assertEquals(1, is.read());
+        is.close();
+
+        try {
+            os.write(new byte[] { 3, 4, 5, 6, 7 });
+            fail("Writing into a pipe closed by its reader should fail");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+}
@@ -0,0 +1,315 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.Method;
+import org.restlet.engine.io.IoUtils;
+import org.restlet.engine.log.AccessLogEvent;
+import org.restlet.engine.log.AccessLogFileHandler;
+import org.restlet.engine.log.AccessLogWriter;
+import org.restlet.engine.log.LogFilter;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.service.LogService;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the asynchronous access log writer.
+ * 
+ * @author Jerome Louvel
+ */
+public class AccessLogWriterTestCase extends RestletTestCase {
+
+    /**
+     * Handler recording the logged lines, optionally waiting for a latch.
+     */
+    private static class RecordingHandler extends Handler {
+
+        private final List<String> lines = new CopyOnWriteArrayList<String>();
+
+        private volatile CountDownLatch latch;
+
+        private volatile int records;
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void publish(LogRecord record) {
+            try {
+                if (latch != null) {
+                    latch.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            records++;
+
+            for (String line : record.getMessage().split("\n")) {
+                lines.add(line);
+            }
+        }
+    }
+
+    private RecordingHandler handler;
+
+    private Logger logger;
+
+    private Response createResponse(String path) {
+        Request request = new Request(Method.GET, "http://localhost" + path
+                + "?q=1");
+        request.getClientInfo().setAddress("10.0.0.1");
+        request.getClientInfo().setAgent("TestAgent");
+        request.getAttributes().put("org.restlet.startTime",
+                System.currentTimeMillis());
+        Response response = new Response(request);
+        response.setEntity(new StringRepresentation("hello"));
+        return response;
+    }
+
+    private void log(AccessLogWriter writer, LogService logService,
+            String path) {
+        AccessLogEvent event = writer.claim();
+
+        if (event != null) {
+            logService.captureResponseLogEvent(event, createResponse(path), 5);
+            writer.publish(event);
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        handler = new RecordingHandler();
+        logger = Logger.getLogger(AccessLogWriterTestCase.class.getName()
+                + "." + getName());
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        logger.removeHandler(handler);
+        super.tearDown();
+    }
+
+    public void testRecords() throws Exception {
+        LogService logService = new LogService();
+        AccessLogWriter writer = new AccessLogWriter(logger, 1024, true);
+        writer.start();
+
+        for (int i = 0; i < 1000; i++) {
+            log(writer, logService, "/item" + i);
+        }
+
+        writer.stop();
+        assertEquals(1000, writer.getWrittenCount());
+        assertEquals(0, writer.getDroppedCount());
+        assertEquals(1000, handler.lines.size());
+        assertEquals(1000, handler.records);
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(handler.lines.get(i).contains("\t/item" + i + "\tq=1\t"));
+        }
+    }
+
+    public void testBlocking() throws Exception {
+        LogService logService = new LogService();
+        AccessLogWriter writer = new AccessLogWriter(logger, 4, true);
+        writer.start();
+
+        for (int i = 0; i < 100; i++) {
+            log(writer, logService, "/item" + i);
+        }
+
+        writer.stop();
+        assertEquals(100, handler.lines.size());
+        assertEquals(0, writer.getDroppedCount());
+    }
+
+    public void testDeferredFlushes() throws Exception {
+        File file = File.createTempFile("restlet-access", ".log");
+        AccessLogFileHandler fileHandler = new AccessLogFileHandler(
+                file.getPath());
+
+        try {
+            AccessLogFileHandler.deferFlushes();
+            fileHandler.publish(new LogRecord(Level.INFO, "line"));
+            assertEquals(0, file.length());
+            AccessLogFileHandler.flushDeferred();
+            assertEquals(5, file.length());
+
+            // Flushed on each record otherwise
+            fileHandler.publish(new LogRecord(Level.INFO, "line"));
+            assertEquals(10, file.length());
+        } finally {
+            fileHandler.close();
+            file.delete();
+        }
+    }
+
+    public void testDropping() throws Exception {
+        LogService logService = new LogService();
+        AccessLogWriter writer = new AccessLogWriter(logger, 4, false);
+        handler.latch = new CountDownLatch(1);
+        writer.start();
+
+        for (int i = 0; i < 100; i++) {
+            log(writer, logService, "/item" + i);
+        }
+
+        handler.latch.countDown();
+        writer.stop();
+        assertTrue(writer.getDroppedCount() > 0);
+        assertEquals(100, writer.getDroppedCount() + writer.getWrittenCount());
+        assertEquals(writer.getWrittenCount(), handler.lines.size());
+    }
+
+    public void testFileHandler() throws Exception {
+        File file = File.createTempFile("restlet-access", ".log");
+        AccessLogFileHandler fileHandler = new AccessLogFileHandler(
+                file.getPath());
+        logger.addHandler(fileHandler);
+
+        try {
+            LogService logService = new LogService();
+            AccessLogWriter writer = new AccessLogWriter(logger, 1024, true);
+            writer.start();
+
+            for (int i = 0; i < 1000; i++) {
+                log(writer, logService, "/item" + i);
+            }
+
+            writer.stop();
+            String[] lines = IoUtils.toString(new FileInputStream(file))
+                    .split("\n");
+            assertEquals(1000, lines.length);
+            assertTrue(lines[999].contains("\t/item999\t"));
+        } finally {
+            logger.removeHandler(fileHandler);
+            fileHandler.close();
+            file.delete();
+        }
+    }
+
+    public void testFormat() throws Exception {
+        LogService logService = new LogService();
+        Response response = createResponse("/format");
+        String expected = logService.getResponseLogMessage(response, 5);
+
+        AccessLogWriter writer = new AccessLogWriter(logger, 16, false);
+        writer.start();
+        AccessLogEvent event = writer.claim();
+        logService.captureResponseLogEvent(event, response, 5);
+        writer.publish(event);
+        writer.stop();
+
+        // Ignore the date and time which may differ
+        String actual = handler.lines.get(0);
+        assertEquals(expected.substring(expected.indexOf('\t',
+                expected.indexOf('\t') + 1)), actual.substring(actual.indexOf(
+                '\t', actual.indexOf('\t') + 1)));
+    }
+
+    public void testLatePublication() throws Exception {
+        LogService logService = new LogService();
+        AccessLogWriter writer = new AccessLogWriter(logger, 16, false);
+        writer.start();
+        AccessLogEvent event = writer.claim();
+        writer.stop();
+
+        // Published after the writer thread stopped
+        logService.captureResponseLogEvent(event, createResponse("/late"), 5);
+        writer.publish(event);
+        assertEquals(1, writer.getWrittenCount());
+        assertEquals(1, handler.lines.size());
+        assertTrue(handler.lines.get(0).contains("\t/late\t"));
+        assertNull(writer.claim());
+    }
+
+    public void testLogFilter() throws Exception {
+        LogService logService = new LogService();
+        logService.setLoggerName(logger.getName());
+        logService.setAsynchronous(true);
+        logService.start();
+        LogFilter filter = new LogFilter(new Context(), logService);
+        filter.setNext(new Restlet() {
+            @Override
+            public void handle(Request request, Response response) {
+                response.setEntity(new StringRepresentation("hello"));
+            }
+        });
+
+        for (int i = 0; i < 10; i++) {
+            Request request = new Request(Method.GET, "http://localhost/f"
+                    + i);
+            filter.handle(request, new Response(request));
+        }
+
+        logService.stop();
+        assertEquals(10, handler.lines.size());
+        assertTrue(handler.lines.get(9).contains("\t/f9\t"));
+
+        // The writer is restarted with the service
+        logService.start();
+        AccessLogWriter writer = logService.createAccessLogWriter(logger);
+        assertTrue(writer.isRunning());
+        Request request = new Request(Method.GET, "http://localhost/f10");
+        filter.handle(request, new Response(request));
+        logService.stop();
+        assertFalse(writer.isRunning());
+        assertEquals(11, writer.getWrittenCount());
+        assertTrue(handler.lines.get(10).contains("\t/f10\t"));
+    }
+
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.util;
+
+import java.util.Date;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.ChallengeResponse;
+import org.restlet.data.ChallengeScheme;
+import org.restlet.data.Language;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Reference;
+import org.restlet.data.Status;
+import org.restlet.data.Tag;
+import org.restlet.engine.util.CallTemplate;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.routing.Template;
+import org.restlet.routing.Variable;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the compiled call templates.
+ * 
+ * @author Jerome Louvel
+ */
+public class CallTemplateTestCase extends RestletTestCase {
+
+    private Request request;
+
+    private Response response;
+
+    private void assertSameFormat(Template template) {
+        assertEquals(template.format(request, response), new CallTemplate(
+                template).format(request, response));
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        request = new Request(Method.POST,
+                "http://www.example.com:8080/users/jlouvel?page=2#top");
+        request.setRootRef(new Reference("http://www.example.com:8080/"));
+        request.setHostRef("http://www.example.com:8080");
+        request.setReferrerRef("http://www.example.org/search?q=restlet");
+        request.getClientInfo().setAddress("10.0.0.1");
+        request.getClientInfo().setAgent("TestAgent/1.0");
+        request.setChallengeResponse(new ChallengeResponse(
+                ChallengeScheme.HTTP_BASIC, "jlouvel", "secret"));
+        StringRepresentation entity = new StringRepresentation("request",
+                MediaType.TEXT_PLAIN, Language.FRENCH);
+        entity.setTag(new Tag("req"));
+        request.setEntity(entity);
+        request.getAttributes().put("user", "jlouvel");
+
+        response = new Response(request);
+        response.setStatus(Status.SUCCESS_CREATED);
+        response.setLocationRef("http://www.example.com:8080/users/jlouvel/1");
+        response.getServerInfo().setAddress("10.0.0.2");
+        response.getServerInfo().setPort(8080);
+        entity = new StringRepresentation("response", MediaType.TEXT_HTML,
+                Language.ENGLISH);
+        entity.setModificationDate(new Date(1000000000000L));
+        response.setEntity(entity);
+    }
+
+    public void testAttributes() {
+        assertSameFormat(new Template("{user} {unknown} {rp}"));
+        assertEquals("jlouvel  /users/jlouvel", new CallTemplate(
+                new Template("{user} {unknown} {rp}")).format(request,
+                response));
+    }
+
+    public void testDefaultValues() {
+        Template template = new Template("{unknown}|{rq}|{other}");
+        template.getDefaultVariable().setDefaultValue("-");
+        template.getVariables().put("other",
+                new Variable(Variable.TYPE_ALL, "none", false, false));
+        assertSameFormat(template);
+        assertEquals("-|page=2|none", new CallTemplate(template).format(
+                request, response));
+    }
+
+    public void testEncoding() {
+        Template template = new Template("{rq}/{fi}");
+        template.setEncodingVariables(true);
+        assertSameFormat(template);
+    }
+
+    public void testInvalidPattern() {
+        assertSameFormat(new Template("a}b{c d}{}{m}"));
+    }
+
+    public void testVariables() {
+        assertSameFormat(new Template(
+                "{c} {cia} {ciua} {cig} {cri} {crs} {ecs} {ee} {eed} {el} {emd} {emt} {es} {et}"));
+        assertSameFormat(new Template(
+                "{fi} {fh} {fp} {fq} {ha} {hi} {m} {oi} {p} {ri} {ra} {re} {rf} {rh} {rp} {rq} {rr} {rbi} {rbp} {rbbi}"));
+        assertSameFormat(new Template(
+                "{ECS} {EE} {EED} {EL} {EMD} {EMT} {ES} {ET} {Ri} {Rp} {S} {SIA} {SIG} {SIP}"));
+        assertEquals("POST 201 10.0.0.1 jlouvel en text/html", new CallTemplate(
+                new Template("{m} {S} {cia} {cri} {EL} {EMT}")).format(request,
+                response));
+    }
+
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.util;
+
+import org.restlet.data.CharacterSet;
+import org.restlet.data.Language;
+import org.restlet.data.MediaType;
+import org.restlet.engine.header.ContentType;
+import org.restlet.engine.util.ParsedValueCache;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the cache of parsed values.
+ * 
+ * @author Jerome Louvel
+ */
+public class ParsedValueCacheTestCase extends RestletTestCase {
+
+    public void testBounds() {
+        ParsedValueCache<String> cache = new ParsedValueCache<String>(2, 5);
+        assertEquals(2, cache.getMaxSize());
+        assertEquals(5, cache.getMaxTextLength());
+
+        cache.put("a", "A");
+        cache.put("b", "B");
+        assertEquals(2, cache.size());
+
+        // The cache is cleared when full
+        cache.put("c", "C");
+        assertEquals(1, cache.size());
+        assertNull(cache.get("a"));
+        assertEquals("C", cache.get("c"));
+
+        // Long texts aren't cached
+        assertEquals("LONG", cache.put("123456", "LONG"));
+        assertNull(cache.get("123456"));
+
+        // Null texts and values aren't cached
+        assertNull(cache.get(null));
+        assertEquals("N", cache.put(null, "N"));
+        assertNull(cache.put("d", null));
+        assertEquals(1, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    public void testContentType() {
+        String header = "application/vnd.example+json; charset=UTF-8";
+        ContentType contentType = ContentType.read(header);
+        assertSame(contentType, ContentType.read(new String(header)));
+        assertEquals(new MediaType("application/vnd.example+json"),
+                contentType.getMediaType());
+        assertEquals(CharacterSet.UTF_8, contentType.getCharacterSet());
+        assertEquals(CharacterSet.UTF_8, ContentType.readCharacterSet(header));
+    }
+
+    public void testPut() {
+        ParsedValueCache<String> cache = new ParsedValueCache<String>(10);
+        String value = new String("value");
+        assertSame(value, cache.put("text", value));
+
+        // The first cached value is shared
+        assertSame(value, cache.put("text", new String("value")));
+        assertSame(value, cache.get("text"));
+    }
+
+    public void testValueOf() {
+        MediaType mediaType = MediaType.valueOf("application/vnd.example+xml");
+        assertSame(mediaType, MediaType.valueOf(new String(
+                "application/vnd.example+xml")));
+        assertSame(MediaType.TEXT_HTML, MediaType.valueOf("text/html"));
+
+        Language language = Language.valueOf("fr-BE");
+        assertSame(language, Language.valueOf(new String("fr-BE")));
+        assertSame(Language.FRENCH_FRANCE, Language.valueOf("fr-FR"));
+
+        CharacterSet characterSet = CharacterSet.valueOf("x-example");
+        assertSame(characterSet, CharacterSet.valueOf(new String("x-example")));
+        assertSame(CharacterSet.UTF_8, CharacterSet.valueOf("utf-8"));
+        assertNull(CharacterSet.valueOf(null));
+        assertNull(MediaType.valueOf(""));
+    }
+
+}
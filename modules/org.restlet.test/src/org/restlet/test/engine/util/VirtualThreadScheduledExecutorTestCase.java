@@ -0,0 +1,145 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.util;
+
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.restlet.Context;
+import org.restlet.engine.util.SystemUtils;
+import org.restlet.engine.util.VirtualThreadScheduledExecutor;
+import org.restlet.service.TaskService;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the {@link VirtualThreadScheduledExecutor} class and the
+ * virtual threads mode of the {@link TaskService}.
+ * 
+ * @author Jerome Louvel
+ */
+public class VirtualThreadScheduledExecutorTestCase extends RestletTestCase {
+
+    /** Thread factory naming its threads with the given prefix. */
+    private static ThreadFactory createFactory(final String name) {
+        return new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread result = new Thread(r, name);
+                result.setDaemon(true);
+                return result;
+            }
+        };
+    }
+
+    /** Callable returning the name of the running thread. */
+    private static final Callable<String> THREAD_NAME = new Callable<String>() {
+        public String call() throws Exception {
+            return Thread.currentThread().getName();
+        }
+    };
+
+    /**
+     * Callable indicating if the running thread is a virtual thread, the
+     * Thread#isVirtual() method being only available since Java 21.
+     */
+    private static final Callable<Boolean> THREAD_VIRTUAL = new Callable<Boolean>() {
+        public Boolean call() throws Exception {
+            try {
+                return (Boolean) Thread.class.getMethod("isVirtual").invoke(
+                        Thread.currentThread());
+            } catch (NoSuchMethodException e) {
+                return Boolean.FALSE;
+            }
+        }
+    };
+
+    public void testRouting() throws Exception {
+        // Platform threads stand in for virtual threads on older JVMs
+        VirtualThreadScheduledExecutor executor = new VirtualThreadScheduledExecutor(1,
+                createFactory("scheduler"), createFactory("virtual"));
+
+        try {
+            assertEquals("virtual", executor.submit(THREAD_NAME).get());
+            assertEquals("scheduler",
+                    executor.schedule(THREAD_NAME, 1, TimeUnit.MILLISECONDS)
+                            .get());
+            assertEquals("virtual",
+                    executor.invokeAny(Collections.singletonList(THREAD_NAME)));
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(executor.isTerminated());
+    }
+
+    public void testTaskService() throws Exception {
+        TaskService taskService = new TaskService(1);
+        Context context = new Context();
+        context.getParameters().add("virtualThreads", "true");
+        taskService.setContext(context);
+        assertTrue(taskService.isVirtualThreads());
+        taskService.setShutdownAllowed(true);
+
+        try {
+            // Falls back to platform threads when not supported
+            assertEquals(
+                    SystemUtils.createVirtualThreadFactory("test-") != null,
+                    taskService.submit(THREAD_VIRTUAL).get().booleanValue());
+            assertNotNull(taskService.schedule(THREAD_NAME, 1,
+                    TimeUnit.MILLISECONDS).get());
+        } finally {
+            taskService.stop();
+        }
+    }
+
+    public void testVirtualThreadsProperty() {
+        TaskService taskService = new TaskService();
+        assertFalse(taskService.isVirtualThreads());
+        taskService.setVirtualThreads(true);
+        assertTrue(taskService.isVirtualThreads());
+
+        ScheduledExecutorService executor = VirtualThreadScheduledExecutor
+                .create(1, createFactory("scheduler"), "virtual-");
+        assertEquals(SystemUtils.createVirtualThreadFactory("test-") != null,
+                executor != null);
+
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+}
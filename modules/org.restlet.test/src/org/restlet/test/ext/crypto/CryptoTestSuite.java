@@ -51,6 +51,7 @@ public class CryptoTestSuite extends TestCase {
         result.addTestSuite(HttpAwsS3HostNameTestCase.class);
         result.addTestSuite(HttpAwsS3SigningTestCase.class);
         result.addTestSuite(HttpAwsS3VerifierTestCase.class);
+        result.addTestSuite(ServerNonceStoreTestCase.class);
         return result;
     }
 
@@ -0,0 +1,222 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.ext.crypto;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.ChallengeResponse;
+import org.restlet.data.ChallengeScheme;
+import org.restlet.data.Method;
+import org.restlet.data.Reference;
+import org.restlet.engine.security.AuthenticatorUtils;
+import org.restlet.ext.crypto.DigestAuthenticator;
+import org.restlet.ext.crypto.DigestUtils;
+import org.restlet.ext.crypto.ServerNonceStore;
+import org.restlet.ext.crypto.internal.CryptoUtils;
+import org.restlet.ext.crypto.internal.HttpDigestHelper;
+import org.restlet.security.MapVerifier;
+import org.restlet.security.Verifier;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the {@link ServerNonceStore} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class ServerNonceStoreTestCase extends RestletTestCase {
+
+    /**
+     * Verifies a digest request signed with the given nonce and nonce count.
+     * 
+     * @param authenticator
+     *            The digest authenticator.
+     * @param nonce
+     *            The server nonce.
+     * @param nc
+     *            The nonce count, or 0 to send a request without "qop"
+     *            directive.
+     * @return The verification result.
+     */
+    private int verify(DigestAuthenticator authenticator, String nonce, int nc) {
+        String uri = "/protected";
+        String cnonce = "0a4f113b";
+        String a1 = DigestUtils.toHttpDigest("scott", "tiger".toCharArray(),
+                authenticator.getRealm());
+        String a2 = DigestUtils.toMd5("GET:" + uri);
+        ChallengeResponse cr = new ChallengeResponse(
+                ChallengeScheme.HTTP_DIGEST);
+
+        if (nc > 0) {
+            cr.setSecret(DigestUtils.toMd5(a1 + ":" + nonce + ":"
+                    + AuthenticatorUtils.formatNonceCount(nc) + ":" + cnonce
+                    + ":auth:" + a2));
+            cr.setServerNounceCount(nc);
+            cr.setClientNonce(cnonce);
+            cr.setQuality("auth");
+        } else {
+            cr.setSecret(DigestUtils.toMd5(a1 + ":" + nonce + ":" + a2));
+        }
+
+        cr.setIdentifier("scott");
+        cr.setServerNonce(nonce);
+        cr.setDigestRef(new Reference(uri));
+
+        Request request = new Request(Method.GET, "http://localhost" + uri);
+        request.setChallengeResponse(cr);
+        return authenticator.getVerifier().verify(request,
+                new Response(request));
+    }
+
+    public void testDigestAuthenticator() {
+        DigestAuthenticator authenticator = new DigestAuthenticator(
+                new Context(), "realm", "key");
+        MapVerifier verifier = new MapVerifier();
+        verifier.getLocalSecrets().put("scott", "tiger".toCharArray());
+        authenticator.setWrappedVerifier(verifier);
+
+        // Without a store, the nonce counts aren't tracked
+        String nonce = authenticator.generateServerNonce();
+        assertEquals(Verifier.RESULT_VALID, verify(authenticator, nonce, 1));
+        assertEquals(Verifier.RESULT_VALID, verify(authenticator, nonce, 1));
+
+        ServerNonceStore store = new ServerNonceStore();
+        authenticator.setServerNonceStore(store);
+        assertEquals(Verifier.RESULT_STALE, verify(authenticator, nonce, 2));
+
+        nonce = authenticator.generateServerNonce();
+        assertFalse(nonce.equals(authenticator.generateServerNonce()));
+        assertEquals(Verifier.RESULT_VALID, verify(authenticator, nonce, 1));
+        assertEquals(Verifier.RESULT_VALID, verify(authenticator, nonce, 2));
+        assertEquals(Verifier.RESULT_INVALID, verify(authenticator, nonce, 2));
+        assertEquals(1, store.getReplayCount());
+
+        // Without "qop" directive, a nonce is only accepted once
+        nonce = authenticator.generateServerNonce();
+        assertEquals(Verifier.RESULT_VALID, verify(authenticator, nonce, 0));
+        assertEquals(Verifier.RESULT_STALE, verify(authenticator, nonce, 0));
+        assertEquals(2, store.getReplayCount());
+    }
+
+    public void testEviction() {
+        ServerNonceStore store = new ServerNonceStore(60000L, 3);
+
+        for (int i = 0; i < 10; i++) {
+            store.add("nonce" + i);
+        }
+
+        assertEquals(3, store.getSize());
+        assertEquals(7, store.getEvictionCount());
+        assertEquals(Verifier.RESULT_VALID, store.verify("nonce9", 1));
+    }
+
+    public void testEvictionOrder() {
+        ServerNonceStore store = new ServerNonceStore(60000L, 3);
+        store.add("used");
+        assertEquals(Verifier.RESULT_VALID, store.verify("used", 1));
+
+        // The nonces never used are evicted first
+        for (int i = 0; i < 100; i++) {
+            store.add("nonce" + i);
+        }
+
+        assertEquals(3, store.getSize());
+        assertEquals(98, store.getEvictionCount());
+        assertEquals(Verifier.RESULT_VALID, store.verify("used", 2));
+        assertEquals(Verifier.RESULT_STALE, store.verify("nonce97", 1));
+        assertEquals(Verifier.RESULT_VALID, store.verify("nonce98", 1));
+
+        // Then arbitrary ones
+        assertEquals(Verifier.RESULT_VALID, store.verify("nonce99", 0));
+        store.add("other");
+        assertEquals(3, store.getSize());
+        assertEquals(99, store.getEvictionCount());
+    }
+
+    public void testExpiry() throws Exception {
+        ServerNonceStore store = new ServerNonceStore(50L, 100);
+        store.add("a");
+        store.add("b");
+        Thread.sleep(100);
+        assertEquals(Verifier.RESULT_STALE, store.verify("a", 1));
+        assertEquals(1, store.getSize());
+        assertEquals(1, store.sweep());
+        assertEquals(0, store.getSize());
+    }
+
+    public void testNonceCounts() {
+        ServerNonceStore store = new ServerNonceStore();
+        store.add("a");
+        assertEquals(Verifier.RESULT_STALE, store.verify("b", 1));
+        assertEquals(Verifier.RESULT_VALID, store.verify("a", 1));
+        assertEquals(Verifier.RESULT_INVALID, store.verify("a", 1));
+
+        // Out of order nonce counts are accepted once
+        assertEquals(Verifier.RESULT_VALID, store.verify("a", 5));
+        assertEquals(Verifier.RESULT_VALID, store.verify("a", 3));
+        assertEquals(Verifier.RESULT_VALID, store.verify("a", 2));
+        assertEquals(Verifier.RESULT_INVALID, store.verify("a", 3));
+        assertEquals(Verifier.RESULT_VALID, store.verify("a", 4));
+        assertEquals(Verifier.RESULT_INVALID, store.verify("a", 5));
+
+        // Too old nonce counts are rejected
+        assertEquals(Verifier.RESULT_VALID, store.verify("a", 100));
+        assertEquals(Verifier.RESULT_INVALID, store.verify("a", 6));
+        assertEquals(Verifier.RESULT_VALID, store.verify("a", 99));
+        assertEquals(4, store.getReplayCount());
+
+        // Without nonce count, a nonce is only accepted once
+        assertEquals(Verifier.RESULT_STALE, store.verify("a", 0));
+        store.add("b");
+        assertEquals(Verifier.RESULT_VALID, store.verify("b", 0));
+        assertEquals(Verifier.RESULT_STALE, store.verify("b", 0));
+        assertEquals(Verifier.RESULT_STALE, store.verify("b", 0));
+        assertEquals(7, store.getReplayCount());
+    }
+
+    public void testNonceFormats() throws Exception {
+        String legacy = CryptoUtils.makeNonce("key");
+        String sequenced = CryptoUtils.makeNonce("key", 42);
+        assertTrue(HttpDigestHelper.isNonceValid(legacy, "key", 60000L));
+        assertTrue(HttpDigestHelper.isNonceValid(sequenced, "key", 60000L));
+
+        try {
+            HttpDigestHelper.isNonceValid(sequenced, "other", 60000L);
+            fail("The nonce shouldn't match another key");
+        } catch (Exception e) {
+            // Expected
+        }
+    }
+
+}
@@ -0,0 +1,247 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.ext.jdbc;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.restlet.data.MediaType;
+import org.restlet.ext.jdbc.JdbcResult;
+import org.restlet.ext.jdbc.ResultSetRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the {@link ResultSetRepresentation} class, based on result
+ * sets backed by dynamic proxies.
+ * 
+ * @author Jerome Louvel
+ */
+public class ResultSetRepresentationTestCase extends RestletTestCase {
+
+    /** The calls received by the proxied connection. */
+    private List<String> connectionCalls;
+
+    /**
+     * Creates a dynamic proxy of the given interface.
+     */
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(
+                ResultSetRepresentationTestCase.class.getClassLoader(),
+                new Class<?>[] { type }, handler));
+    }
+
+    /**
+     * Creates a representation of the given rows, read from a statement whose
+     * connection has the given auto commit mode.
+     */
+    private ResultSetRepresentation createRepresentation(
+            MediaType mediaType, final boolean autoCommit,
+            final String[] labels, final int[] types, final String[][] rows) {
+        final ResultSetMetaData metaData = proxy(ResultSetMetaData.class,
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method,
+                            Object[] args) {
+                        if ("getColumnCount".equals(method.getName())) {
+                            return labels.length;
+                        } else if ("getColumnLabel".equals(method.getName())) {
+                            return labels[(Integer) args[0] - 1];
+                        } else if ("getColumnType".equals(method.getName())) {
+                            return types[(Integer) args[0] - 1];
+                        }
+
+                        throw new UnsupportedOperationException(method
+                                .getName());
+                    }
+                });
+
+        final ResultSet resultSet = proxy(ResultSet.class,
+                new InvocationHandler() {
+                    private int row = -1;
+
+                    public Object invoke(Object proxy, Method method,
+                            Object[] args) throws SQLException {
+                        if ("getMetaData".equals(method.getName())) {
+                            return metaData;
+                        } else if ("next".equals(method.getName())) {
+                            return ++row < rows.length;
+                        }
+
+                        String value = rows[row][(Integer) args[0] - 1];
+
+                        if ("getString".equals(method.getName())) {
+                            if ("error".equals(value)) {
+                                throw new SQLException("Broken row");
+                            }
+
+                            return value;
+                        } else if ("getBoolean".equals(method.getName())) {
+                            return Boolean.parseBoolean(value);
+                        }
+
+                        throw new UnsupportedOperationException(method
+                                .getName());
+                    }
+                });
+
+        final Connection connection = proxy(Connection.class,
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method,
+                            Object[] args) {
+                        connectionCalls.add(method.getName());
+                        return "getAutoCommit".equals(method.getName()) ? Boolean
+                                .valueOf(autoCommit) : null;
+                    }
+                });
+
+        Statement statement = proxy(Statement.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("getResultSet".equals(method.getName())) {
+                    return resultSet;
+                } else if ("getConnection".equals(method.getName())) {
+                    return connection;
+                }
+
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+
+        return new ResultSetRepresentation(new JdbcResult(statement),
+                mediaType);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        connectionCalls = new CopyOnWriteArrayList<String>();
+    }
+
+    public void testCsv() throws Exception {
+        ResultSetRepresentation representation = createRepresentation(
+                MediaType.TEXT_CSV, true, new String[] { "id", "first,last" },
+                new int[] { Types.INTEGER, Types.VARCHAR }, new String[][] {
+                        { "1", "a,b" }, { "2", "say \"hi\"\r\nbye" },
+                        { "3", null } });
+        StringWriter writer = new StringWriter();
+        representation.write(writer);
+        assertEquals("id,\"first,last\"\r\n1,\"a,b\"\r\n"
+                + "2,\"say \"\"hi\"\"\r\nbye\"\r\n3,\r\n", writer.toString());
+        assertNull(representation.getJdbcResult());
+        assertEquals("close", connectionCalls.get(connectionCalls.size() - 1));
+    }
+
+    public void testJson() throws Exception {
+        ResultSetRepresentation representation = createRepresentation(
+                MediaType.APPLICATION_JSON, true, new String[] { "id",
+                        "na\"me", "active" }, new int[] { Types.INTEGER,
+                        Types.VARCHAR, Types.BIT }, new String[][] {
+                        { "1", "a\"b\\c\n\t\001", "true" },
+                        { "NaN", null, "false" } });
+        StringWriter writer = new StringWriter();
+        representation.write(writer);
+        assertEquals("[{\"id\":1,\"na\\\"me\":\"a\\\"b\\\\c\\n\\t\\u0001\","
+                + "\"active\":true},{\"id\":\"NaN\",\"na\\\"me\":null,"
+                + "\"active\":false}]", writer.toString());
+    }
+
+    public void testTransaction() throws Exception {
+        String[] labels = new String[] { "id" };
+        int[] types = new int[] { Types.INTEGER };
+
+        // Committed once written
+        ResultSetRepresentation representation = createRepresentation(
+                MediaType.TEXT_CSV, false, labels, types,
+                new String[][] { { "1" } });
+        representation.write(new StringWriter());
+        assertTrue(connectionCalls.contains("commit"));
+        assertFalse(connectionCalls.contains("rollback"));
+        assertEquals("close", connectionCalls.get(connectionCalls.size() - 1));
+
+        // Rolled back when the rows can't be written
+        connectionCalls.clear();
+        representation = createRepresentation(MediaType.TEXT_CSV, false,
+                labels, types, new String[][] { { "error" } });
+
+        try {
+            representation.write(new StringWriter());
+            fail("The SQL exception should be rethrown");
+        } catch (IOException ioe) {
+            // Expected
+        }
+
+        assertTrue(connectionCalls.contains("rollback"));
+        assertFalse(connectionCalls.contains("commit"));
+        assertEquals("close", connectionCalls.get(connectionCalls.size() - 1));
+
+        // Committed when released without being written
+        connectionCalls.clear();
+        representation = createRepresentation(MediaType.TEXT_CSV, false,
+                labels, types, new String[][] { { "1" } });
+        representation.release();
+        assertTrue(connectionCalls.contains("commit"));
+
+        // Left alone in auto commit mode
+        connectionCalls.clear();
+        representation = createRepresentation(MediaType.TEXT_CSV, true,
+                labels, types, new String[][] { { "1" } });
+        representation.release();
+        assertFalse(connectionCalls.contains("commit"));
+        assertFalse(connectionCalls.contains("rollback"));
+    }
+
+    public void testXml() throws Exception {
+        ResultSetRepresentation representation = createRepresentation(
+                MediaType.TEXT_XML, true, new String[] { "a<b", "c" },
+                new int[] { Types.VARCHAR, Types.VARCHAR }, new String[][] {
+                        { "x & \"y\" <z>", null }, { null, "]]>" } });
+        StringWriter writer = new StringWriter();
+        representation.write(writer);
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<resultSet>"
+                + "\n<row><column name=\"a&lt;b\">x &amp; &quot;y&quot; "
+                + "&lt;z&gt;</column></row>"
+                + "\n<row><column name=\"c\">]]&gt;</column></row>"
+                + "\n</resultSet>\n", writer.toString());
+    }
+
+}
@@ -33,8 +33,18 @@
 
 package org.restlet.test.representation;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
+import org.restlet.data.MediaType;
 import org.restlet.data.Range;
 import org.restlet.engine.application.RangeRepresentation;
+import org.restlet.engine.io.IoUtils;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.representation.Representation;
 import org.restlet.representation.StringRepresentation;
 import org.restlet.test.RestletTestCase;
 
@@ -56,6 +66,33 @@ public class RangeRepresentationTestCase extends RestletTestCase {
         assertEquals("34567", rr.getText());
     }
 
+    public void testFileChannel() throws Exception {
+        File file = File.createTempFile("range", ".txt");
+        file.deleteOnExit();
+        FileOutputStream fos = new FileOutputStream(file);
+        fos.write("1234567890".getBytes("US-ASCII"));
+        fos.close();
+
+        FileRepresentation fr = new FileRepresentation(file,
+                MediaType.TEXT_PLAIN);
+        assertEquals("1234567890", write(fr));
+        assertEquals("34567",
+                write(new RangeRepresentation(fr, new Range(2, 5))));
+        assertEquals("67890",
+                write(new RangeRepresentation(fr, new Range(5, 10000))));
+        assertEquals("890",
+                write(new RangeRepresentation(fr, new Range(Range.INDEX_LAST,
+                        3))));
+
+        RangeRepresentation rr = new RangeRepresentation(fr, new Range(2, 5));
+        FileChannel fc = IoUtils.getTransferChannel(rr);
+        assertEquals(2, fc.position());
+        fc.close();
+        assertNull(IoUtils.getTransferChannel(new RangeRepresentation(
+                new StringRepresentation("1234567890"), new Range(2, 5))));
+        file.delete();
+    }
+
     public void testSize() throws Exception {
         StringRepresentation sr = new StringRepresentation("1234567890");
         RangeRepresentation rr = new RangeRepresentation(sr);
@@ -67,4 +104,13 @@ public class RangeRepresentationTestCase extends RestletTestCase {
         assertEquals("67890", rr.getText());
     }
 
+    /**
+     * Writes a representation to a byte channel and returns the written text.
+     */
+    private String write(Representation representation) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        representation.write(Channels.newChannel(baos));
+        return baos.toString("US-ASCII");
+    }
+
 }
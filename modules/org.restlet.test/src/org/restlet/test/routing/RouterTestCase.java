@@ -0,0 +1,137 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.routing;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.Method;
+import org.restlet.data.Reference;
+import org.restlet.engine.util.RouteIndex;
+import org.restlet.routing.Route;
+import org.restlet.routing.Router;
+import org.restlet.routing.Template;
+import org.restlet.test.MockRestlet;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the indexed routing modes of the {@link Router} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class RouterTestCase extends RestletTestCase {
+
+    private static final String[] PATTERNS = { "/users", "/users/{id}",
+            "/users/{id}/orders", "/users/{id}/orders/{orderId}",
+            "/orders/{id}", "/orders", "/static", "/{any}", "/a+b", "",
+            "/users/me" };
+
+    private static final String[] URIS = { "/users", "/users/",
+            "/users/123", "/users/me", "/users/123/orders",
+            "/users/123/orders/456", "/orders", "/orders/1", "/static/css",
+            "/unknown", "/aab", "/a+b", "/", "", "/users?q=1" };
+
+    private Router createRouter(int routingMode, int matchingMode) {
+        Router result = new Router();
+        result.setRoutingMode(routingMode);
+
+        for (String pattern : PATTERNS) {
+            result.attach(pattern, new MockRestlet(null), matchingMode);
+        }
+
+        return result;
+    }
+
+    private Route getNext(Router router, String uri) {
+        Reference baseRef = new Reference("http://localhost/app");
+        Request request = new Request(Method.GET, new Reference(baseRef,
+                "http://localhost/app" + uri));
+        request.getResourceRef().setBaseRef(baseRef);
+        return (Route) router.getNext(request, new Response(request));
+    }
+
+    private void testEquivalence(int linearMode, int indexedMode) {
+        int[] matchingModes = { Template.MODE_EQUALS,
+                Template.MODE_STARTS_WITH };
+
+        for (int matchingMode : matchingModes) {
+            Router linear = createRouter(linearMode, matchingMode);
+            Router indexed = createRouter(indexedMode, matchingMode);
+
+            for (String uri : URIS) {
+                Route expected = getNext(linear, uri);
+                Route actual = getNext(indexed, uri);
+
+                if (expected == null) {
+                    assertNull(uri, actual);
+                } else {
+                    assertNotNull(uri, actual);
+                    assertEquals(uri, linear.getRoutes().indexOf(expected),
+                            indexed.getRoutes().indexOf(actual));
+                }
+            }
+        }
+    }
+
+    public void testIndexedBestMatch() {
+        testEquivalence(Router.MODE_BEST_MATCH, Router.MODE_INDEXED_BEST_MATCH);
+    }
+
+    public void testIndexedFirstMatch() {
+        testEquivalence(Router.MODE_FIRST_MATCH,
+                Router.MODE_INDEXED_FIRST_MATCH);
+    }
+
+    public void testIndexUpdate() {
+        Router router = new Router();
+        router.setRoutingMode(Router.MODE_INDEXED_FIRST_MATCH);
+        router.attach("/users", new MockRestlet(null));
+        assertNull(getNext(router, "/orders"));
+
+        Route orders = router.attach("/orders", new MockRestlet(null));
+        assertSame(orders, getNext(router, "/orders"));
+
+        router.getRoutes().remove(orders);
+        assertNull(getNext(router, "/orders"));
+    }
+
+    public void testLiteralPrefix() {
+        assertEquals("", RouteIndex.getLiteralPrefix(null));
+        assertEquals("", RouteIndex.getLiteralPrefix(""));
+        assertEquals("/users", RouteIndex.getLiteralPrefix("/users"));
+        assertEquals("/users/", RouteIndex.getLiteralPrefix("/users/{id}"));
+        assertEquals("", RouteIndex.getLiteralPrefix("{any}"));
+        assertEquals("/", RouteIndex.getLiteralPrefix("/a+b"));
+    }
+
+}
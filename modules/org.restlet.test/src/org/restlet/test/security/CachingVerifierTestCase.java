@@ -0,0 +1,207 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.security;
+
+import java.security.Principal;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.ChallengeResponse;
+import org.restlet.data.ChallengeScheme;
+import org.restlet.data.Method;
+import org.restlet.security.CachingVerifier;
+import org.restlet.security.MapVerifier;
+import org.restlet.security.Verifier;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Suite of unit tests for the {@link CachingVerifier} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class CachingVerifierTestCase extends RestletTestCase {
+
+    /** Map verifier counting the verifications and adding a principal. */
+    private static class CountingVerifier extends MapVerifier {
+
+        private volatile int count;
+
+        @Override
+        public int verify(Request request, Response response) {
+            int result = super.verify(request, response);
+
+            if (result == RESULT_VALID) {
+                request.getClientInfo().getPrincipals().add(new Principal() {
+                    public String getName() {
+                        return "principal";
+                    }
+                });
+            }
+
+            return result;
+        }
+
+        @Override
+        public int verify(String identifier, char[] secret) {
+            this.count++;
+            return super.verify(identifier, secret);
+        }
+    }
+
+    private CachingVerifier verifier;
+
+    private CountingVerifier wrappedVerifier;
+
+    /**
+     * Verifies the given credentials.
+     * 
+     * @param scheme
+     *            The challenge scheme.
+     * @param identifier
+     *            The user identifier.
+     * @param secret
+     *            The user secret.
+     * @param expectedResult
+     *            The expected verification result.
+     * @return The request verified.
+     */
+    private Request verify(ChallengeScheme scheme, String identifier,
+            String secret, int expectedResult) {
+        Request request = new Request(Method.GET, "http://localhost/");
+        request.setChallengeResponse(new ChallengeResponse(scheme, identifier,
+                secret));
+        assertEquals(expectedResult,
+                this.verifier.verify(request, new Response(request)));
+        return request;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.wrappedVerifier = new CountingVerifier();
+        this.wrappedVerifier.getLocalSecrets().put("scott",
+                "tiger".toCharArray());
+        this.wrappedVerifier.getLocalSecrets().put("bob",
+                "secret".toCharArray());
+        this.verifier = new CachingVerifier(this.wrappedVerifier, 60000, 3);
+    }
+
+    public void testCache() {
+        Request request = verify(ChallengeScheme.HTTP_BASIC, "scott",
+                "tiger", Verifier.RESULT_VALID);
+        assertEquals("scott", request.getClientInfo().getUser()
+                .getIdentifier());
+        assertEquals(1, request.getClientInfo().getPrincipals().size());
+
+        // The second verification is served from the cache
+        request = verify(ChallengeScheme.HTTP_BASIC, "scott", "tiger",
+                Verifier.RESULT_VALID);
+        assertEquals(1, this.wrappedVerifier.count);
+        assertEquals("scott", request.getClientInfo().getUser()
+                .getIdentifier());
+        assertEquals(1, request.getClientInfo().getPrincipals().size());
+
+        // Invalid secrets are cached separately
+        verify(ChallengeScheme.HTTP_BASIC, "scott", "lion",
+                Verifier.RESULT_INVALID);
+        request = verify(ChallengeScheme.HTTP_BASIC, "scott", "lion",
+                Verifier.RESULT_INVALID);
+        assertNull(request.getClientInfo().getUser());
+        assertEquals(2, this.wrappedVerifier.count);
+        assertEquals(2, this.verifier.getHitCount());
+        assertEquals(2, this.verifier.getMissCount());
+        assertEquals(2, this.verifier.getSize());
+    }
+
+    public void testEviction() {
+        verify(ChallengeScheme.HTTP_BASIC, "scott", "tiger",
+                Verifier.RESULT_VALID);
+        verify(ChallengeScheme.HTTP_BASIC, "bob", "secret",
+                Verifier.RESULT_VALID);
+        verify(ChallengeScheme.HTTP_BASIC, "scott", "lion",
+                Verifier.RESULT_INVALID);
+        verify(ChallengeScheme.HTTP_BASIC, "bob", "lion",
+                Verifier.RESULT_INVALID);
+        assertEquals(3, this.verifier.getSize());
+        assertEquals(1, this.verifier.getEvictionCount());
+
+        // Expired entries are evicted
+        this.verifier.clear();
+        this.verifier.setTimeToLive(0);
+        verify(ChallengeScheme.HTTP_BASIC, "scott", "tiger",
+                Verifier.RESULT_VALID);
+        verify(ChallengeScheme.HTTP_BASIC, "scott", "tiger",
+                Verifier.RESULT_VALID);
+        assertEquals(6, this.wrappedVerifier.count);
+        assertEquals(2, this.verifier.getEvictionCount());
+        assertEquals(0, this.verifier.getHitCount());
+    }
+
+    public void testInvalidate() {
+        verify(ChallengeScheme.HTTP_BASIC, "scott", "tiger",
+                Verifier.RESULT_VALID);
+        verify(ChallengeScheme.HTTP_BASIC, "bob", "secret",
+                Verifier.RESULT_VALID);
+
+        // The secret changes
+        this.wrappedVerifier.getLocalSecrets().put("scott",
+                "lion".toCharArray());
+        verify(ChallengeScheme.HTTP_BASIC, "scott", "tiger",
+                Verifier.RESULT_VALID);
+        this.verifier.invalidate("scott");
+        assertEquals(1, this.verifier.getSize());
+        verify(ChallengeScheme.HTTP_BASIC, "scott", "tiger",
+                Verifier.RESULT_INVALID);
+        verify(ChallengeScheme.HTTP_BASIC, "scott", "lion",
+                Verifier.RESULT_VALID);
+        verify(ChallengeScheme.HTTP_BASIC, "bob", "secret",
+                Verifier.RESULT_VALID);
+        assertEquals(4, this.wrappedVerifier.count);
+    }
+
+    public void testNotCached() {
+        verify(ChallengeScheme.HTTP_DIGEST, "scott", "tiger",
+                Verifier.RESULT_VALID);
+        verify(ChallengeScheme.HTTP_DIGEST, "scott", "tiger",
+                Verifier.RESULT_VALID);
+        assertEquals(2, this.wrappedVerifier.count);
+        assertEquals(0, this.verifier.getSize());
+
+        Request request = new Request(Method.GET, "http://localhost/");
+        assertEquals(Verifier.RESULT_MISSING,
+                this.verifier.verify(request, new Response(request)));
+        assertEquals(0, this.verifier.getSize());
+    }
+
+}
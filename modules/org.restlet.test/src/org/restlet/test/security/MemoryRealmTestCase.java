@@ -0,0 +1,223 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.security;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.restlet.Application;
+import org.restlet.data.ClientInfo;
+import org.restlet.engine.security.RoleMapping;
+import org.restlet.security.Group;
+import org.restlet.security.MemoryRealm;
+import org.restlet.security.Role;
+import org.restlet.security.User;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Suite of unit tests for the {@link MemoryRealm} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class MemoryRealmTestCase extends RestletTestCase {
+
+    private Application application;
+
+    private Group developers;
+
+    private Role developer;
+
+    private MemoryRealm realm;
+
+    private Role reviewer;
+
+    private Role staff;
+
+    private Group staffGroup;
+
+    /**
+     * Enroles the user with the given identifier.
+     * 
+     * @param identifier
+     *            The user identifier.
+     * @return The enroled client info.
+     */
+    private ClientInfo enrole(String identifier) {
+        ClientInfo result = new ClientInfo();
+        result.setUser(new User(identifier));
+        this.realm.getEnroler().enrole(result);
+        return result;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.application = new Application();
+        this.developer = new Role(this.application, "developer", null);
+        this.reviewer = new Role(this.application, "reviewer", null);
+        this.staff = new Role(this.application, "staff", null);
+
+        this.realm = new MemoryRealm();
+        User alice = new User("alice", "secret".toCharArray());
+        this.realm.getUsers().add(alice);
+        this.realm.getUsers().add(new User("bob", "secret".toCharArray()));
+
+        this.staffGroup = new Group("staff", null);
+        this.developers = new Group("developers", null);
+        this.staffGroup.getMemberGroups().add(this.developers);
+        this.developers.getMemberUsers().add(alice);
+        this.realm.getRootGroups().add(this.staffGroup);
+
+        this.realm.map(this.staffGroup, this.staff);
+        this.realm.map(this.developers, this.developer);
+        this.realm.map(alice, this.reviewer);
+    }
+
+    public void testEnrole() {
+        ClientInfo clientInfo = enrole("alice");
+        assertEquals(3, clientInfo.getRoles().size());
+        assertTrue(clientInfo.getRoles().contains(this.developer));
+        assertTrue(clientInfo.getRoles().contains(this.reviewer));
+        assertTrue(clientInfo.getRoles().contains(this.staff));
+
+        assertTrue(enrole("bob").getRoles().isEmpty());
+        assertTrue(enrole("carol").getRoles().isEmpty());
+    }
+
+    public void testFindGroups() {
+        User alice = this.realm.findUser("alice");
+        Set<Group> groups = this.realm.findGroups(alice);
+        assertEquals(2, groups.size());
+        assertTrue(groups.contains(this.developers));
+        assertTrue(groups.contains(this.staffGroup));
+
+        // The ancestors of a group not inheriting roles are ignored
+        this.developers.setInheritingRoles(false);
+        groups = this.realm.findGroups(alice);
+        assertEquals(1, groups.size());
+        assertTrue(groups.contains(this.developers));
+        assertEquals(2, this.realm.findGroups(alice, false).size());
+        assertFalse(enrole("alice").getRoles().contains(this.staff));
+    }
+
+    public void testFindRoles() {
+        User alice = this.realm.findUser("alice");
+        assertEquals(1, this.realm.findRoles(alice).size());
+        assertTrue(this.realm.findRoles(alice).contains(this.reviewer));
+        assertEquals(2, this.realm.findRoles(this.realm.findGroups(alice))
+                .size());
+        assertEquals(1, this.realm.findRoles(this.application, alice).size());
+        assertEquals(1,
+                this.realm.findRoles(this.application, this.developers).size());
+        assertTrue(this.realm.findRoles(new Application(), alice).isEmpty());
+        assertTrue(this.realm.findRoles(new Application(),
+                this.realm.findGroups(alice)).isEmpty());
+    }
+
+    public void testFindUser() {
+        User alice = this.realm.findUser("alice");
+        assertNotNull(alice);
+        assertEquals("alice", alice.getIdentifier());
+        assertNull(this.realm.findUser("carol"));
+        assertNull(this.realm.findUser(null));
+
+        // The first user with a given identifier is found
+        this.realm.getUsers().add(new User("alice"));
+        assertSame(alice, this.realm.findUser("alice"));
+
+        alice.setIdentifier("carol");
+        assertSame(alice, this.realm.findUser("carol"));
+        assertNotSame(alice, this.realm.findUser("alice"));
+    }
+
+    public void testMappingModifications() {
+        AtomicInteger version = new AtomicInteger();
+        User alice = this.realm.findUser("alice");
+        RoleMapping mapping = new RoleMapping(alice, this.reviewer);
+        mapping.getModelVersions().register(version);
+
+        // The mappings modified in place increment the model versions
+        mapping.setSource(this.realm.findUser("bob"));
+        assertEquals(1, version.get());
+        mapping.setTarget(this.staff);
+        assertEquals(2, version.get());
+    }
+
+    public void testModifications() {
+        User bob = this.realm.findUser("bob");
+        this.developers.getMemberUsers().add(bob);
+        assertEquals(2, enrole("bob").getRoles().size());
+
+        this.realm.unmap(this.developers, this.developer);
+        assertEquals(1, enrole("bob").getRoles().size());
+        assertTrue(enrole("bob").getRoles().contains(this.staff));
+
+        this.realm.getRootGroups().clear();
+        assertTrue(enrole("bob").getRoles().isEmpty());
+        assertEquals(1, enrole("alice").getRoles().size());
+
+        this.realm.getUsers().remove(bob);
+        assertNull(this.realm.findUser("bob"));
+
+        // The modifications via a sub-list are tracked as well
+        this.realm.getUsers().subList(0, 1).clear();
+        assertNull(this.realm.findUser("alice"));
+    }
+
+    public void testNestedModifications() {
+        User alice = this.realm.findUser("alice");
+        assertEquals(3, enrole("alice").getRoles().size());
+
+        // The groups indexed track the modifications of their new members
+        Group reviewers = new Group("reviewers", null);
+        this.developers.getMemberGroups().add(reviewers);
+        User carol = new User("carol");
+        reviewers.getMemberUsers().add(carol);
+        this.realm.getUsers().add(carol);
+        assertEquals(2, enrole("carol").getRoles().size());
+
+        reviewers.setInheritingRoles(false);
+        assertTrue(enrole("carol").getRoles().isEmpty());
+
+        // A user shared by several realms is tracked by each of them
+        MemoryRealm other = new MemoryRealm();
+        other.getUsers().add(alice);
+        assertSame(alice, other.findUser("alice"));
+        alice.setIdentifier("dave");
+        assertSame(alice, other.findUser("dave"));
+        assertSame(alice, this.realm.findUser("dave"));
+        assertNull(this.realm.findUser("alice"));
+    }
+
+}
@@ -0,0 +1,365 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.restlet.Application;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.CacheDirective;
+import org.restlet.data.ChallengeResponse;
+import org.restlet.data.ChallengeScheme;
+import org.restlet.data.Dimension;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Preference;
+import org.restlet.data.Status;
+import org.restlet.data.Tag;
+import org.restlet.engine.application.CacheEntry;
+import org.restlet.engine.application.CacheFilter;
+import org.restlet.engine.application.ResponseCache;
+import org.restlet.engine.io.IoUtils;
+import org.restlet.representation.InputRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the cache service.
+ * 
+ * @author Jerome Louvel
+ */
+public class CacheServiceTestCase extends RestletTestCase {
+
+    /**
+     * Restlet counting its calls and returning the request URI as entity.
+     */
+    private static class OriginRestlet extends Restlet {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private final List<CacheDirective> directives = new CopyOnWriteArrayList<CacheDirective>();
+
+        private volatile Tag tag;
+
+        @Override
+        public void handle(Request request, Response response) {
+            calls.incrementAndGet();
+
+            if (!request.getMethod().isSafe()) {
+                response.setStatus(Status.SUCCESS_NO_CONTENT);
+            } else if ((tag != null)
+                    && request.getConditions().getNoneMatch().contains(tag)) {
+                response.setStatus(Status.REDIRECTION_NOT_MODIFIED);
+            } else {
+                MediaType mediaType = request.getClientInfo()
+                        .getAcceptedMediaTypes().isEmpty() ? MediaType.TEXT_PLAIN
+                        : request.getClientInfo().getAcceptedMediaTypes()
+                                .get(0).getMetadata();
+                StringRepresentation entity = new StringRepresentation(request
+                        .getResourceRef().getPath() + " as " + mediaType,
+                        mediaType);
+                entity.setTag(tag);
+                response.setEntity(entity);
+                response.getDimensions().add(Dimension.MEDIA_TYPE);
+            }
+
+            response.getCacheDirectives().addAll(directives);
+        }
+    }
+
+    private ResponseCache cache;
+
+    private CacheFilter filter;
+
+    private OriginRestlet origin;
+
+    private Response get(String uri) throws Exception {
+        return handle(new Request(Method.GET, uri));
+    }
+
+    private Response get(String uri, String identifier, String secret)
+            throws Exception {
+        Request request = new Request(Method.GET, uri);
+        request.setChallengeResponse(new ChallengeResponse(
+                ChallengeScheme.HTTP_BASIC, identifier, secret));
+        return handle(request);
+    }
+
+    private Response handle(Request request) {
+        Response response = new Response(request);
+        filter.handle(request, response);
+        return response;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        origin = new OriginRestlet();
+        cache = new ResponseCache();
+        filter = new CacheFilter(null, origin, cache, true);
+    }
+
+    public void testApplication() throws Exception {
+        Application application = new Application();
+        application.getCacheService().setEnabled(true);
+        application.setInboundRoot(origin);
+        origin.directives.add(CacheDirective.maxAge(60));
+        application.start();
+
+        try {
+            for (int i = 0; i < 3; i++) {
+                Request request = new Request(Method.GET,
+                        "http://localhost/app");
+                Response response = new Response(request);
+                application.handle(request, response);
+                assertEquals(Status.SUCCESS_OK, response.getStatus());
+                assertEquals("/app as text/plain", response.getEntityAsText());
+            }
+
+            assertEquals(1, origin.calls.get());
+            assertEquals(2, application.getCacheService().getServerCache()
+                    .getHitCount());
+        } finally {
+            application.stop();
+        }
+    }
+
+    public void testAuthorization() throws Exception {
+        origin = new OriginRestlet() {
+            @Override
+            public void handle(Request request, Response response) {
+                super.handle(request, response);
+                response.getDimensions().add(Dimension.AUTHORIZATION);
+            }
+        };
+        filter = new CacheFilter(null, origin, cache, true);
+        origin.directives.add(CacheDirective.publicInfo());
+        origin.directives.add(CacheDirective.maxAge(60));
+        get("http://localhost/a", "scott", "tiger");
+        get("http://localhost/a", "scott", "tiger");
+        assertEquals(1, origin.calls.get());
+        assertEquals(1, cache.getHitCount());
+
+        // The stored response isn't served with other secrets
+        get("http://localhost/a", "scott", "forged");
+        assertEquals(2, origin.calls.get());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    public void testBrokenEntity() throws Exception {
+        filter = new CacheFilter(null, new Restlet() {
+            @Override
+            public void handle(Request request, Response response) {
+                InputStream broken = new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Broken entity");
+                    }
+                };
+                response.setEntity(new InputRepresentation(
+                        new SequenceInputStream(new ByteArrayInputStream(
+                                "abc".getBytes()), broken),
+                        MediaType.TEXT_PLAIN));
+                response.getCacheDirectives().add(CacheDirective.maxAge(60));
+            }
+        }, cache, true);
+
+        // The response is passed through without being stored
+        Response response = get("http://localhost/a");
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals(0, cache.getEntryCount());
+        InputStream stream = response.getEntity().getStream();
+        assertEquals('a', stream.read());
+        assertEquals('b', stream.read());
+        assertEquals('c', stream.read());
+
+        try {
+            stream.read();
+            fail("The failure of the entity should be preserved");
+        } catch (IOException ioe) {
+            // Expected
+        }
+    }
+
+    public void testConditionalHit() throws Exception {
+        origin.directives.add(CacheDirective.maxAge(60));
+        origin.tag = new Tag("v1");
+        get("http://localhost/a").getEntityAsText();
+
+        Request request = new Request(Method.GET, "http://localhost/a");
+        request.getConditions().setNoneMatch(Arrays.asList(new Tag("v1")));
+        Response response = handle(request);
+        assertEquals(Status.REDIRECTION_NOT_MODIFIED, response.getStatus());
+        assertEquals(1, origin.calls.get());
+    }
+
+    public void testFreshHit() throws Exception {
+        origin.directives.add(CacheDirective.maxAge(60));
+        assertEquals("/a as text/plain", get("http://localhost/a")
+                .getEntityAsText());
+        Response response = get("http://localhost/a");
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals("/a as text/plain", response.getEntityAsText());
+        assertEquals(1, origin.calls.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRatio(), 0.001);
+    }
+
+    public void testInvalidation() throws Exception {
+        origin.directives.add(CacheDirective.maxAge(60));
+        get("http://localhost/a");
+        handle(new Request(Method.PUT, "http://localhost/a",
+                new StringRepresentation("new")));
+        assertEquals(0, cache.getEntryCount());
+        get("http://localhost/a");
+        assertEquals(3, origin.calls.get());
+    }
+
+    public void testNoStore() throws Exception {
+        origin.directives.add(CacheDirective.noStore());
+        get("http://localhost/a");
+        get("http://localhost/a");
+        assertEquals(2, origin.calls.get());
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    public void testOverflow() throws Exception {
+        File directory = new File(System.getProperty("java.io.tmpdir"),
+                "restlet-cache-test");
+        directory.mkdirs();
+
+        try {
+            cache = new ResponseCache(1, 1024, 1024, directory, 1024);
+            filter = new CacheFilter(null, origin, cache, true);
+            origin.directives.add(CacheDirective.maxAge(60));
+            get("http://localhost/a");
+            get("http://localhost/b");
+            assertEquals(2, cache.getEntryCount());
+            assertTrue(cache.getOverflowSize() > 0);
+
+            assertEquals("/a as text/plain", get("http://localhost/a")
+                    .getEntityAsText());
+            assertEquals(2, origin.calls.get());
+            assertEquals(1, cache.getHitCount());
+        } finally {
+            cache.clear();
+            IoUtils.delete(directory, true);
+        }
+    }
+
+    public void testPrivate() throws Exception {
+        origin.directives.add(CacheDirective.privateInfo());
+        origin.directives.add(CacheDirective.maxAge(60));
+        get("http://localhost/a");
+        get("http://localhost/a");
+        assertEquals(2, origin.calls.get());
+
+        filter = new CacheFilter(null, origin, cache, false);
+        get("http://localhost/a");
+        get("http://localhost/a");
+        assertEquals(3, origin.calls.get());
+    }
+
+    public void testRemovedEntry() throws Exception {
+        // Simulates an entry removed between the lookup and the serving
+        cache = new ResponseCache() {
+            @Override
+            public synchronized Representation toRepresentation(
+                    CacheEntry entry) {
+                return null;
+            }
+        };
+        filter = new CacheFilter(null, origin, cache, true);
+        origin.directives.add(CacheDirective.maxAge(60));
+        get("http://localhost/a");
+        Response response = get("http://localhost/a");
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals("/a as text/plain", response.getEntityAsText());
+        assertEquals(2, origin.calls.get());
+        assertEquals(0, cache.getHitCount());
+
+        // Also when the entry is revalidated
+        origin.directives.clear();
+        origin.tag = new Tag("v1");
+        get("http://localhost/b");
+        response = get("http://localhost/b");
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals("/b as text/plain", response.getEntityAsText());
+        assertEquals(5, origin.calls.get());
+        assertEquals(0, cache.getRevalidationCount());
+    }
+
+    public void testRevalidation() throws Exception {
+        origin.tag = new Tag("v1");
+        get("http://localhost/a");
+        Response response = get("http://localhost/a");
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals("/a as text/plain", response.getEntityAsText());
+        assertEquals(2, origin.calls.get());
+        assertEquals(1, cache.getRevalidationCount());
+    }
+
+    public void testVary() throws Exception {
+        origin.directives.add(CacheDirective.maxAge(60));
+
+        for (int i = 0; i < 2; i++) {
+            for (MediaType mediaType : Arrays.asList(MediaType.TEXT_PLAIN,
+                    MediaType.TEXT_HTML)) {
+                Request request = new Request(Method.GET, "http://localhost/a");
+                request.getClientInfo().getAcceptedMediaTypes()
+                        .add(new Preference<MediaType>(mediaType));
+                Response response = handle(request);
+                assertEquals("/a as " + mediaType, response.getEntityAsText());
+                assertTrue(response.getDimensions().contains(
+                        Dimension.MEDIA_TYPE));
+            }
+        }
+
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(2, cache.getHitCount());
+    }
+
+}
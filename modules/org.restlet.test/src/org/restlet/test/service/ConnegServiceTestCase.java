@@ -37,6 +37,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.restlet.Request;
+import org.restlet.data.Language;
 import org.restlet.data.MediaType;
 import org.restlet.data.Preference;
 import org.restlet.representation.Variant;
@@ -51,6 +52,96 @@ import org.restlet.test.RestletTestCase;
  */
 public class ConnegServiceTestCase extends RestletTestCase {
 
+    /**
+     * Returns a list of variants for the given media types.
+     * 
+     * @param mediaTypes
+     *            The media types.
+     * @return The list of variants.
+     */
+    private List<Variant> getVariants(MediaType... mediaTypes) {
+        List<Variant> result = new ArrayList<Variant>();
+
+        for (MediaType mediaType : mediaTypes) {
+            result.add(new Variant(mediaType));
+        }
+
+        return result;
+    }
+
+    public void testCache() {
+        MetadataService metadataService = new MetadataService();
+        ConnegService connegService = new ConnegService();
+
+        Request request = new Request();
+        request.getClientInfo().getAcceptedMediaTypes()
+                .add(new Preference<MediaType>(MediaType.APPLICATION_JSON));
+
+        List<Variant> variants = getVariants(MediaType.APPLICATION_XML,
+                MediaType.APPLICATION_JSON);
+        Variant preferredVariant = connegService.getPreferredVariant(
+                variants, request, metadataService);
+        assertSame(variants.get(1), preferredVariant);
+        assertEquals(0, connegService.getCache().getHits());
+        assertEquals(1, connegService.getCache().getSize());
+
+        // Same preferences and candidates, the position is reused
+        variants = getVariants(MediaType.APPLICATION_XML,
+                MediaType.APPLICATION_JSON);
+        preferredVariant = connegService.getPreferredVariant(variants,
+                request, metadataService);
+        assertSame(variants.get(1), preferredVariant);
+        assertEquals(1, connegService.getCache().getHits());
+
+        // Different candidates
+        variants = getVariants(MediaType.APPLICATION_JSON,
+                MediaType.APPLICATION_XML);
+        preferredVariant = connegService.getPreferredVariant(variants,
+                request, metadataService);
+        assertSame(variants.get(0), preferredVariant);
+        assertEquals(1, connegService.getCache().getHits());
+
+        // Different preferences
+        request.getClientInfo().getAcceptedMediaTypes().clear();
+        request.getClientInfo().getAcceptedMediaTypes()
+                .add(new Preference<MediaType>(MediaType.APPLICATION_XML));
+        preferredVariant = connegService.getPreferredVariant(variants,
+                request, metadataService);
+        assertSame(variants.get(1), preferredVariant);
+
+        // Different default language in flexible mode
+        variants = getVariants(MediaType.TEXT_PLAIN, MediaType.TEXT_PLAIN);
+        variants.get(0).getLanguages().add(Language.ENGLISH);
+        variants.get(1).getLanguages().add(Language.FRENCH);
+        request.getClientInfo().getAcceptedMediaTypes().clear();
+        metadataService.setDefaultLanguage(Language.FRENCH);
+        preferredVariant = connegService.getPreferredVariant(variants,
+                request, metadataService);
+        assertSame(variants.get(1), preferredVariant);
+        metadataService.setDefaultLanguage(Language.ENGLISH);
+        preferredVariant = connegService.getPreferredVariant(variants,
+                request, metadataService);
+        assertSame(variants.get(0), preferredVariant);
+
+        // No preferred variant in strict mode
+        connegService.setStrict(true);
+        request.getClientInfo().getAcceptedMediaTypes()
+                .add(new Preference<MediaType>(MediaType.IMAGE_PNG));
+        assertNull(connegService.getPreferredVariant(variants, request,
+                metadataService));
+        long hits = connegService.getCache().getHits();
+        assertNull(connegService.getPreferredVariant(variants, request,
+                metadataService));
+        assertEquals(hits + 1, connegService.getCache().getHits());
+
+        // Disabled cache
+        connegService.getCache().setEnabled(false);
+        assertEquals(0, connegService.getCache().getSize());
+        assertNull(connegService.getPreferredVariant(variants, request,
+                metadataService));
+        assertEquals(0, connegService.getCache().getSize());
+    }
+
     public void testStrict() {
         List<Variant> variants = new ArrayList<Variant>();
         Variant variant = new Variant(MediaType.APPLICATION_XML);
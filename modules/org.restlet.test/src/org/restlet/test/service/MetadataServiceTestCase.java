@@ -33,6 +33,10 @@
 
 package org.restlet.test.service;
 
+import java.util.List;
+import java.util.Locale;
+
+import org.restlet.data.Language;
 import org.restlet.data.MediaType;
 import org.restlet.service.MetadataService;
 import org.restlet.test.RestletTestCase;
@@ -44,6 +48,75 @@ import org.restlet.test.RestletTestCase;
  */
 public class MetadataServiceTestCase extends RestletTestCase {
 
+    public void testAddExtension() {
+        MetadataService ms = new MetadataService();
+        MediaType custom = new MediaType("application/x-custom");
+        assertNull(ms.getMediaType("cst"));
+        assertNull(ms.getExtension(custom));
+
+        ms.addExtension("cst", custom);
+        assertEquals(custom, ms.getMediaType("cst"));
+        assertEquals("cst", ms.getExtension(custom));
+
+        // The preferred mapping comes first
+        ms.addExtension("xml", custom, true);
+        assertEquals(custom, ms.getMediaType("xml"));
+        assertEquals("xml", ms.getExtension(custom));
+
+        List<MediaType> mediaTypes = ms.getAllMediaTypes("xml");
+        assertEquals(3, mediaTypes.size());
+        assertEquals(custom, mediaTypes.get(0));
+        assertEquals(MediaType.TEXT_XML, mediaTypes.get(1));
+        assertEquals(MediaType.APPLICATION_XML, mediaTypes.get(2));
+    }
+
+    public void testCaseInsensitive() {
+        MetadataService ms = new MetadataService();
+        assertEquals(MediaType.TEXT_HTML, ms.getMediaType("html"));
+        assertEquals(MediaType.TEXT_HTML, ms.getMediaType("HTML"));
+        assertEquals(MediaType.TEXT_HTML, ms.getMediaType("Html"));
+        assertEquals(Language.FRENCH, ms.getLanguage("FR"));
+        assertEquals(2, ms.getAllMediaTypes("XML").size());
+
+        ms.addExtension("MyExt", MediaType.TEXT_PLAIN);
+        assertEquals(MediaType.TEXT_PLAIN, ms.getMediaType("myext"));
+        assertEquals(MediaType.TEXT_PLAIN, ms.getMediaType("MYEXT"));
+
+        // Whatever the default locale, such as the Turkish dotless i
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+
+        try {
+            assertEquals(MediaType.IMAGE_TIFF, ms.getMediaType("TIFF"));
+            ms.addExtension("MIDI", MediaType.AUDIO_MIDI);
+            assertEquals(MediaType.AUDIO_MIDI, ms.getMediaType("midi"));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    public void testClearExtensions() {
+        MetadataService ms = new MetadataService();
+        assertNotNull(ms.getMediaType("txt"));
+        assertEquals("txt", ms.getExtension(MediaType.TEXT_PLAIN));
+
+        ms.clearExtensions();
+        assertNull(ms.getMediaType("txt"));
+        assertNull(ms.getAllMetadata("txt"));
+        assertNull(ms.getExtension(MediaType.TEXT_PLAIN));
+        assertTrue(ms.getAllExtensionNames().isEmpty());
+    }
+
+    public void testLanguageOrMediaType() {
+        MetadataService ms = new MetadataService();
+
+        // Only the first mapping of an extension is considered
+        assertNull(ms.getLanguage("txt"));
+        assertEquals(MediaType.TEXT_PLAIN, ms.getMetadata("txt"));
+        assertNull(ms.getAllLanguages("txt"));
+        assertEquals(1, ms.getAllMediaTypes("txt").size());
+    }
+
     public void testStrict() {
         MetadataService ms = new MetadataService();
         MediaType ma = ms.getMediaType("ma");
@@ -42,6 +42,7 @@ public class ServiceTestSuite {
         TestSuite suite = new TestSuite("Service package");
 
         // $JUnit-BEGIN$
+        suite.addTestSuite(CacheServiceTestCase.class);
         suite.addTestSuite(ConnegServiceTestCase.class);
         suite.addTestSuite(MetadataServiceTestCase.class);
         // [ifndef jee]
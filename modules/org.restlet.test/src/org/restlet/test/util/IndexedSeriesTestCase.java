@@ -0,0 +1,130 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.restlet.data.Header;
+import org.restlet.engine.header.HeaderConstants;
+import org.restlet.test.RestletTestCase;
+import org.restlet.util.IndexedSeries;
+import org.restlet.util.Series;
+
+/**
+ * Test case for the {@link IndexedSeries} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class IndexedSeriesTestCase extends RestletTestCase {
+
+    private Series<Header> headers;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.headers = new IndexedSeries<Header>(Header.class);
+        this.headers.add("Content-Type", "text/plain");
+        this.headers.add("x-custom", "a");
+        this.headers.add("X-Custom", "b");
+        this.headers.add("Accept", "*/*");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.headers = null;
+        super.tearDown();
+    }
+
+    public void testCreateEntry() {
+        Header header = this.headers.createEntry(new String("Content-Type"),
+                "text/html");
+        assertSame(HeaderConstants.HEADER_CONTENT_TYPE, header.getName());
+        header = this.headers.createEntry("content-type", "text/html");
+        assertEquals("content-type", header.getName());
+    }
+
+    public void testGetFirst() {
+        assertEquals("text/plain",
+                this.headers.getFirstValue("content-type", true));
+        assertNull(this.headers.getFirstValue("content-type"));
+        assertEquals("a", this.headers.getFirstValue("X-CUSTOM", true));
+        assertEquals("b", this.headers.getFirstValue("X-Custom"));
+        assertNull(this.headers.getFirst("Missing", true));
+    }
+
+    public void testGetValues() {
+        assertEquals("a,b", this.headers.getValues("x-custom"));
+        assertEquals("b", this.headers.getValues("X-Custom", ",", false));
+        assertTrue(Arrays.equals(new String[] { "a", "b" },
+                this.headers.getValuesArray("X-CUSTOM", true)));
+        assertEquals(1, this.headers.subList("x-custom").size());
+    }
+
+    public void testModifications() {
+        this.headers.add(0, new Header("X-Custom", "c"));
+        assertEquals("c,a,b", this.headers.getValues("x-custom"));
+
+        this.headers.remove(0);
+        assertEquals("a,b", this.headers.getValues("x-custom"));
+
+        for (Iterator<Header> iter = this.headers.iterator(); iter.hasNext();) {
+            if ("a".equals(iter.next().getValue())) {
+                iter.remove();
+            }
+        }
+
+        assertEquals("b", this.headers.getValues("x-custom"));
+
+        assertTrue(this.headers.removeAll("X-CUSTOM", true));
+        assertFalse(this.headers.removeAll("X-CUSTOM", true));
+        assertNull(this.headers.getFirst("x-custom", true));
+
+        this.headers.set("accept", "text/html", true);
+        assertEquals("text/html", this.headers.getFirstValue("Accept"));
+        assertEquals(2, this.headers.size());
+
+        this.headers.set("Age", "10");
+        assertEquals("10", this.headers.getFirstValue("age", true));
+
+        assertTrue(this.headers.removeFirst("age", true));
+        assertNull(this.headers.getFirst("Age"));
+
+        this.headers.clear();
+        assertNull(this.headers.getFirst("Accept"));
+        this.headers.add("Accept", "*/*");
+        assertEquals("*/*", this.headers.getFirstValue("ACCEPT", true));
+    }
+
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.restlet.test.RestletTestCase;
+import org.restlet.util.VersionedWrapperList;
+
+/**
+ * Unit tests for the {@link VersionedWrapperList} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class VersionedWrapperListTestCase extends RestletTestCase {
+
+    public void testSubList() {
+        VersionedWrapperList<String> list = new VersionedWrapperList<String>();
+        list.addAll(Arrays.asList("a", "b", "c", "d"));
+        int version = list.getVersion();
+
+        // The view is modifiable and its modifications are tracked
+        List<String> view = list.subList(1, 3);
+        view.set(0, "x");
+        assertEquals("x", list.get(1));
+        assertTrue(list.getVersion() > version);
+
+        version = list.getVersion();
+        view.remove("c");
+        assertEquals(Arrays.asList("a", "x", "d"), list);
+        assertTrue(list.getVersion() > version);
+    }
+
+    public void testVersion() {
+        VersionedWrapperList<String> list = new VersionedWrapperList<String>();
+        int version = list.getVersion();
+        list.add("a");
+        assertTrue(list.getVersion() > version);
+
+        version = list.getVersion();
+        list.get(0);
+        list.contains("a");
+        assertEquals(version, list.getVersion());
+
+        list.set(0, "b");
+        assertTrue(list.getVersion() > version);
+
+        version = list.getVersion();
+        list.clear();
+        assertTrue(list.getVersion() > version);
+    }
+
+}
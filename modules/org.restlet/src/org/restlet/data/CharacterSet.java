@@ -39,6 +39,11 @@ package org.restlet.data;
  * @author Jerome Louvel
  */
 public final class CharacterSet extends Metadata {
+    // [ifndef gwt] member
+    /** The character sets parsed by {@link #valueOf(String)}, keyed by name. */
+    private static final org.restlet.engine.util.ParsedValueCache<CharacterSet> PARSED_CHARACTER_SETS = new org.restlet.engine.util.ParsedValueCache<CharacterSet>(
+            256);
+
     /** All character sets acceptable. */
     public static final CharacterSet ALL = new CharacterSet("*",
             "All character sets");
@@ -225,13 +230,25 @@ public final class CharacterSet extends Metadata {
 
     /**
      * Returns the character set associated to a name. If an existing constant
-     * exists then it is returned, otherwise a new instance is created.
+     * exists then it is returned, otherwise a new instance is created. The
+     * instances are cached, so that parsing the same name again returns the
+     * same instance.
      * 
      * @param name
      *            The name.
      * @return The associated character set.
      */
     public static CharacterSet valueOf(String name) {
+        // [ifndef gwt]
+        CharacterSet cached = PARSED_CHARACTER_SETS.get(name);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        String text = name;
+        // [enddef]
+
         CharacterSet result = null;
         name = getIanaName(name);
 
@@ -253,6 +270,9 @@ public final class CharacterSet extends Metadata {
             } else {
                 result = new CharacterSet(name);
             }
+
+            // [ifndef gwt] instruction
+            result = PARSED_CHARACTER_SETS.put(text, result);
         }
 
         return result;
@@ -45,6 +45,11 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * @author Jerome Louvel
  */
 public final class Language extends Metadata {
+    // [ifndef gwt] member
+    /** The languages parsed by {@link #valueOf(String)}, keyed by name. */
+    private static final org.restlet.engine.util.ParsedValueCache<Language> PARSED_LANGUAGES = new org.restlet.engine.util.ParsedValueCache<Language>(
+            256);
+
     /** All languages acceptable. */
     public static final Language ALL = new Language("*", "All languages");
 
@@ -82,13 +87,23 @@ public final class Language extends Metadata {
 
     /**
      * Returns the language associated to a name. If an existing constant exists
-     * then it is returned, otherwise a new instance is created.
+     * then it is returned, otherwise a new instance is created. The instances
+     * are cached, so that parsing the same name again returns the same
+     * instance.
      * 
      * @param name
      *            The name.
      * @return The associated language.
      */
     public static Language valueOf(final String name) {
+        // [ifndef gwt]
+        Language cached = PARSED_LANGUAGES.get(name);
+
+        if (cached != null) {
+            return cached;
+        }
+        // [enddef]
+
         Language result = null;
 
         if ((name != null) && !name.equals("")) {
@@ -107,6 +122,9 @@ public final class Language extends Metadata {
             } else {
                 result = new Language(name);
             }
+
+            // [ifndef gwt] instruction
+            result = PARSED_LANGUAGES.put(name, result);
         }
 
         return result;
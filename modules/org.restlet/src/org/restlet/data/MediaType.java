@@ -65,6 +65,14 @@ public final class MediaType extends Metadata {
      */
     private static volatile Map<String, MediaType> _types = null;
 
+    // [ifndef gwt] member
+    /**
+     * The media types parsed by {@link #valueOf(String)}, keyed by name.<br>
+     * Keep the underscore for the ordering.
+     */
+    private static final org.restlet.engine.util.ParsedValueCache<MediaType> _parsedTypes = new org.restlet.engine.util.ParsedValueCache<MediaType>(
+            512);
+
     public static final MediaType ALL = register("*/*", "All media");
 
     public static final MediaType APPLICATION_ALL = register("application/*",
@@ -854,7 +862,9 @@ public final class MediaType extends Metadata {
 
     /**
      * Returns the media type associated to a name. If an existing constant
-     * exists then it is returned, otherwise a new instance is created.
+     * exists then it is returned, otherwise a new instance is created. The
+     * instances created are cached, so that parsing the same name again
+     * returns the same instance.
      * 
      * @param name
      *            The name.
@@ -865,8 +875,17 @@ public final class MediaType extends Metadata {
 
         if ((name != null) && !name.equals("")) {
             result = getTypes().get(name);
+
             if (result == null) {
-                result = new MediaType(name);
+                // [ifndef gwt]
+                result = _parsedTypes.get(name);
+
+                if (result == null) {
+                    result = _parsedTypes.put(name, new MediaType(name));
+                }
+                // [enddef]
+                // [ifdef gwt] instruction uncomment
+                // result = new MediaType(name);
             }
         }
 
@@ -240,7 +240,8 @@ public abstract class ServerCall extends Call {
                         .getLanguages());
             } else if (header.getName().equalsIgnoreCase(
                     HeaderConstants.HEADER_CONTENT_TYPE)) {
-                ContentType contentType = new ContentType(header.getValue());
+                ContentType contentType = ContentType.read(header
+                        .getValue());
                 result.setMediaType(contentType.getMediaType());
                 result.setCharacterSet(contentType.getCharacterSet());
             } else if (header.getName().equalsIgnoreCase(
@@ -0,0 +1,352 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.restlet.data.CacheDirective;
+import org.restlet.data.CharacterSet;
+import org.restlet.data.Dimension;
+import org.restlet.data.Disposition;
+import org.restlet.data.Encoding;
+import org.restlet.data.Language;
+import org.restlet.data.MediaType;
+import org.restlet.data.Tag;
+import org.restlet.representation.ByteArrayRepresentation;
+import org.restlet.representation.Representation;
+
+// [excludes gwt]
+/**
+ * Response entity stored by a {@link ResponseCache}. The content is kept in
+ * memory or in an overflow file, while the metadata always stays in memory.
+ * 
+ * @author Jerome Louvel
+ */
+public class CacheEntry {
+
+    /** The cache directives of the response. */
+    private volatile List<CacheDirective> cacheDirectives;
+
+    /** The character set of the entity. */
+    private final CharacterSet characterSet;
+
+    /** The content of the entity or null if it overflowed to a file. */
+    private volatile byte[] content;
+
+    /** The dimensions varying the response. */
+    private final Set<Dimension> dimensions;
+
+    /** The disposition of the entity. */
+    private final Disposition disposition;
+
+    /** The encodings of the entity. */
+    private final List<Encoding> encodings;
+
+    /** The expiration date of the entity. */
+    private volatile Date expirationDate;
+
+    /** The time until which the entry is fresh, in milliseconds. */
+    private volatile long freshUntil;
+
+    /** The key of the entry in the cache. */
+    private final String key;
+
+    /** The languages of the entity. */
+    private final List<Language> languages;
+
+    /** The media type of the entity. */
+    private final MediaType mediaType;
+
+    /** The modification date of the entity. */
+    private final Date modificationDate;
+
+    /** The overflow file holding the content or null. */
+    private volatile File overflowFile;
+
+    /** The size of the content in bytes. */
+    private final long size;
+
+    /** The time when the response was stored or last revalidated. */
+    private volatile long storedTime;
+
+    /** The tag of the entity. */
+    private final Tag tag;
+
+    /** The URI of the cached resource, without fragment. */
+    private final String uri;
+
+    /**
+     * Constructor.
+     * 
+     * @param key
+     *            The key of the entry in the cache.
+     * @param uri
+     *            The URI of the cached resource, without fragment.
+     * @param entity
+     *            The entity providing the metadata.
+     * @param content
+     *            The content of the entity.
+     * @param dimensions
+     *            The dimensions varying the response.
+     */
+    public CacheEntry(String key, String uri, Representation entity,
+            byte[] content, Set<Dimension> dimensions) {
+        this.key = key;
+        this.uri = uri;
+        this.content = content;
+        this.size = content.length;
+        this.dimensions = new HashSet<Dimension>(dimensions);
+        this.characterSet = entity.getCharacterSet();
+        this.disposition = entity.getDisposition();
+        this.encodings = new ArrayList<Encoding>(entity.getEncodings());
+        this.expirationDate = entity.getExpirationDate();
+        this.languages = new ArrayList<Language>(entity.getLanguages());
+        this.mediaType = entity.getMediaType();
+        this.modificationDate = entity.getModificationDate();
+        this.tag = entity.getTag();
+        this.cacheDirectives = new ArrayList<CacheDirective>();
+    }
+
+    /**
+     * Returns the age of the entry in seconds.
+     * 
+     * @param time
+     *            The current time in milliseconds.
+     * @return The age of the entry in seconds.
+     */
+    public int getAge(long time) {
+        return (int) Math.max(0, (time - this.storedTime) / 1000L);
+    }
+
+    /**
+     * Returns the cache directives of the response.
+     * 
+     * @return The cache directives of the response.
+     */
+    public List<CacheDirective> getCacheDirectives() {
+        return cacheDirectives;
+    }
+
+    /**
+     * Returns the content of the entity or null if it overflowed to a file.
+     * 
+     * @return The content of the entity or null.
+     */
+    public byte[] getContent() {
+        return content;
+    }
+
+    /**
+     * Returns the dimensions varying the response.
+     * 
+     * @return The dimensions varying the response.
+     */
+    public Set<Dimension> getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Returns the time until which the entry is fresh, in milliseconds.
+     * 
+     * @return The time until which the entry is fresh.
+     */
+    public long getFreshUntil() {
+        return freshUntil;
+    }
+
+    /**
+     * Returns the key of the entry in the cache.
+     * 
+     * @return The key of the entry in the cache.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the modification date of the entity.
+     * 
+     * @return The modification date of the entity.
+     */
+    public Date getModificationDate() {
+        return modificationDate;
+    }
+
+    /**
+     * Returns the overflow file holding the content or null.
+     * 
+     * @return The overflow file holding the content or null.
+     */
+    public File getOverflowFile() {
+        return overflowFile;
+    }
+
+    /**
+     * Returns the size of the content in bytes.
+     * 
+     * @return The size of the content in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the tag of the entity.
+     * 
+     * @return The tag of the entity.
+     */
+    public Tag getTag() {
+        return tag;
+    }
+
+    /**
+     * Returns the URI of the cached resource, without fragment.
+     * 
+     * @return The URI of the cached resource.
+     */
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * Indicates if the entity has a tag or a modification date allowing a
+     * conditional revalidation.
+     * 
+     * @return True if the entry can be revalidated.
+     */
+    public boolean hasValidators() {
+        return (this.tag != null) || (this.modificationDate != null);
+    }
+
+    /**
+     * Indicates if the entry is fresh at the given time.
+     * 
+     * @param time
+     *            The current time in milliseconds.
+     * @return True if the entry is fresh.
+     */
+    public boolean isFresh(long time) {
+        return time < this.freshUntil;
+    }
+
+    /**
+     * Sets the cache directives of the response.
+     * 
+     * @param cacheDirectives
+     *            The cache directives of the response.
+     */
+    public void setCacheDirectives(List<CacheDirective> cacheDirectives) {
+        this.cacheDirectives = cacheDirectives;
+    }
+
+    /**
+     * Sets the content of the entity.
+     * 
+     * @param content
+     *            The content of the entity or null if it overflowed to a file.
+     */
+    public void setContent(byte[] content) {
+        this.content = content;
+    }
+
+    /**
+     * Sets the expiration date of the entity.
+     * 
+     * @param expirationDate
+     *            The expiration date of the entity.
+     */
+    public void setExpirationDate(Date expirationDate) {
+        this.expirationDate = expirationDate;
+    }
+
+    /**
+     * Sets the time until which the entry is fresh, in milliseconds.
+     * 
+     * @param freshUntil
+     *            The time until which the entry is fresh.
+     */
+    public void setFreshUntil(long freshUntil) {
+        this.freshUntil = freshUntil;
+    }
+
+    /**
+     * Sets the overflow file holding the content.
+     * 
+     * @param overflowFile
+     *            The overflow file holding the content or null.
+     */
+    public void setOverflowFile(File overflowFile) {
+        this.overflowFile = overflowFile;
+    }
+
+    /**
+     * Sets the time when the response was stored or last revalidated.
+     * 
+     * @param storedTime
+     *            The time in milliseconds.
+     */
+    public void setStoredTime(long storedTime) {
+        this.storedTime = storedTime;
+    }
+
+    /**
+     * Returns a new representation of the cached entity. The content must be
+     * in memory.
+     * 
+     * @return A new representation of the cached entity.
+     */
+    public Representation toRepresentation() {
+        Representation result = new ByteArrayRepresentation(this.content,
+                this.mediaType, this.size);
+        result.setCharacterSet(this.characterSet);
+        result.setDisposition(this.disposition);
+        result.getEncodings().addAll(this.encodings);
+        result.setExpirationDate(this.expirationDate);
+        result.getLanguages().addAll(this.languages);
+        result.setModificationDate(this.modificationDate);
+        result.setTag(this.tag);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return this.key + " (" + this.size + " bytes)";
+    }
+
+}
@@ -0,0 +1,558 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Level;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.CacheDirective;
+import org.restlet.data.Conditions;
+import org.restlet.data.Dimension;
+import org.restlet.data.Method;
+import org.restlet.data.Status;
+import org.restlet.engine.header.HeaderConstants;
+import org.restlet.representation.InputRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.routing.Filter;
+
+// [excludes gwt]
+/**
+ * Filter serving the responses to GET requests from a {@link ResponseCache}
+ * while they are fresh, and revalidating them with conditional requests when
+ * they are stale and have a tag or a modification date. The "Cache-Control"
+ * directives of the requests and of the responses are honored, as well as the
+ * dimensions varying the responses. Successful requests with an unsafe method
+ * invalidate the entries of their target URI.<br>
+ * <br>
+ * A shared cache, on the server side, doesn't store private responses or
+ * responses to authenticated requests unless they are marked as public, and
+ * prefers the "s-maxage" directive to the "max-age" one.
+ * 
+ * @author Jerome Louvel
+ */
+public class CacheFilter extends Filter {
+
+    /** The store of cached responses. */
+    private final ResponseCache cache;
+
+    /** Indicates if the cache is shared between several users. */
+    private final boolean shared;
+
+    /**
+     * Constructor.
+     * 
+     * @param context
+     *            The context.
+     * @param cache
+     *            The store of cached responses.
+     * @param shared
+     *            Indicates if the cache is shared between several users.
+     */
+    public CacheFilter(Context context, ResponseCache cache, boolean shared) {
+        this(context, null, cache, shared);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param context
+     *            The context.
+     * @param next
+     *            The next Restlet.
+     * @param cache
+     *            The store of cached responses.
+     * @param shared
+     *            Indicates if the cache is shared between several users.
+     */
+    public CacheFilter(Context context, Restlet next, ResponseCache cache,
+            boolean shared) {
+        super(context, next);
+        this.cache = cache;
+        this.shared = shared;
+    }
+
+    @Override
+    protected int doHandle(Request request, Response response) {
+        if (!Method.GET.equals(request.getMethod())
+                || hasDirective(request.getCacheDirectives(),
+                        HeaderConstants.CACHE_NO_STORE)) {
+            int result = super.doHandle(request, response);
+
+            if (!request.getMethod().isSafe()
+                    && response.getStatus().isSuccess()) {
+                getCache().remove(getCache().getUri(request));
+            }
+
+            return result;
+        }
+
+        String key = getCache().getKey(request);
+        CacheEntry entry = getCache().get(key);
+        long now = System.currentTimeMillis();
+        boolean revalidate = hasDirective(request.getCacheDirectives(),
+                HeaderConstants.CACHE_NO_CACHE)
+                || (getMaxAge(request.getCacheDirectives(),
+                        HeaderConstants.CACHE_MAX_AGE) == 0);
+
+        if ((entry != null) && !revalidate && entry.isFresh(now)) {
+            if (serve(request, response, entry, now)) {
+                getCache().onHit(entry);
+            } else {
+                // The entry was removed in the meantime
+                miss(request, response, now);
+            }
+        } else if ((entry != null) && entry.hasValidators()) {
+            Conditions conditions = new Conditions();
+
+            if (entry.getTag() != null) {
+                conditions.setNoneMatch(Arrays.asList(entry.getTag()));
+            } else {
+                conditions.setModifiedSince(entry.getModificationDate());
+            }
+
+            forward(request, response, conditions);
+
+            if (Status.REDIRECTION_NOT_MODIFIED.equals(response.getStatus())) {
+                entry.setCacheDirectives(new ArrayList<CacheDirective>(
+                        response.getCacheDirectives()));
+
+                if (response.isEntityAvailable()
+                        && (response.getEntity().getExpirationDate() != null)) {
+                    entry.setExpirationDate(response.getEntity()
+                            .getExpirationDate());
+                }
+
+                entry.setStoredTime(now);
+                entry.setFreshUntil(now + getFreshness(response, now));
+
+                if (serve(request, response, entry, now)) {
+                    getCache().onRevalidation(entry);
+                } else {
+                    // The entry was removed in the meantime
+                    response.setStatus(Status.SUCCESS_OK);
+                    response.getCacheDirectives().clear();
+                    response.getDimensions().clear();
+                    miss(request, response, now);
+                }
+            } else {
+                getCache().remove(entry.getUri());
+                getCache().onMiss();
+                store(request, response, now);
+                check(request, response);
+            }
+        } else {
+            miss(request, response, now);
+        }
+
+        return CONTINUE;
+    }
+
+    /**
+     * Checks the conditions of the original request against the response
+     * entity, after a forwarded request whose conditions were replaced.
+     * 
+     * @param request
+     *            The request.
+     * @param response
+     *            The response.
+     */
+    private void check(Request request, Response response) {
+        if (request.getConditions().hasSome()
+                && Status.SUCCESS_OK.equals(response.getStatus())) {
+            Status status = request.getConditions().getStatus(
+                    request.getMethod(), response.getEntity());
+
+            if (status != null) {
+                response.setStatus(status);
+
+                if (status.isError()) {
+                    response.setEntity(null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forwards the request to the next Restlet with the given conditions
+     * instead of the original ones, restored afterwards.
+     * 
+     * @param request
+     *            The request.
+     * @param response
+     *            The response.
+     * @param conditions
+     *            The conditions of the forwarded request.
+     */
+    private void forward(Request request, Response response,
+            Conditions conditions) {
+        Conditions original = request.getConditions();
+        request.setConditions(conditions);
+
+        try {
+            super.doHandle(request, response);
+        } finally {
+            request.setConditions(original);
+        }
+    }
+
+    /**
+     * Returns the store of cached responses.
+     * 
+     * @return The store of cached responses.
+     */
+    public ResponseCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Returns the freshness lifetime of a response in milliseconds, based on
+     * its cache directives, its age and its expiration date.
+     * 
+     * @param response
+     *            The response.
+     * @param now
+     *            The current time in milliseconds.
+     * @return The freshness lifetime in milliseconds.
+     */
+    protected long getFreshness(Response response, long now) {
+        List<CacheDirective> directives = response.getCacheDirectives();
+        long result = 0;
+
+        if (!hasDirective(directives, HeaderConstants.CACHE_NO_CACHE)) {
+            int maxAge = isShared() ? getMaxAge(directives,
+                    HeaderConstants.CACHE_SHARED_MAX_AGE) : -1;
+
+            if (maxAge < 0) {
+                maxAge = getMaxAge(directives, HeaderConstants.CACHE_MAX_AGE);
+            }
+
+            if (maxAge >= 0) {
+                result = maxAge * 1000L;
+            } else if (response.isEntityAvailable()
+                    && (response.getEntity().getExpirationDate() != null)) {
+                Date expiration = response.getEntity().getExpirationDate();
+                result = expiration.getTime() - now;
+            }
+
+            if (response.getAge() > 0) {
+                result -= response.getAge() * 1000L;
+            }
+        }
+
+        return Math.max(0, result);
+    }
+
+    /**
+     * Returns the number of seconds of a max age directive or -1.
+     * 
+     * @param directives
+     *            The cache directives.
+     * @param name
+     *            The name of the directive.
+     * @return The number of seconds of the directive or -1.
+     */
+    private int getMaxAge(List<CacheDirective> directives, String name) {
+        int result = -1;
+
+        for (CacheDirective directive : directives) {
+            if (name.equals(directive.getName())
+                    && (directive.getValue() != null)) {
+                try {
+                    result = Integer.parseInt(directive.getValue().trim());
+                } catch (NumberFormatException nfe) {
+                    getLogger().fine(
+                            "Invalid \"" + name + "\" cache directive: "
+                                    + directive.getValue());
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Indicates if a given cache directive is present.
+     * 
+     * @param directives
+     *            The cache directives.
+     * @param name
+     *            The name of the directive.
+     * @return True if the directive is present.
+     */
+    private boolean hasDirective(List<CacheDirective> directives, String name) {
+        for (CacheDirective directive : directives) {
+            if (name.equals(directive.getName())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Indicates if the cache is shared between several users.
+     * 
+     * @return True if the cache is shared between several users.
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * Indicates if a response can be stored.
+     * 
+     * @param request
+     *            The request.
+     * @param response
+     *            The response.
+     * @param freshness
+     *            The freshness lifetime of the response in milliseconds.
+     * @return True if the response can be stored.
+     */
+    protected boolean isStorable(Request request, Response response,
+            long freshness) {
+        List<CacheDirective> directives = response.getCacheDirectives();
+        boolean result = Status.SUCCESS_OK.equals(response.getStatus())
+                && response.isEntityAvailable()
+                && !hasDirective(directives, HeaderConstants.CACHE_NO_STORE)
+                && ((freshness > 0) || (response.getEntity().getTag() != null) || (response
+                        .getEntity().getModificationDate() != null));
+
+        if (result) {
+            for (Dimension dimension : response.getDimensions()) {
+                if ((dimension == Dimension.UNSPECIFIED)
+                        || (dimension == Dimension.TIME)
+                        || (dimension == Dimension.CLIENT_ADDRESS)) {
+                    result = false;
+                }
+            }
+        }
+
+        if (result && isShared()) {
+            result = !hasDirective(directives, HeaderConstants.CACHE_PRIVATE)
+                    && ((request.getChallengeResponse() == null) || hasDirective(
+                            directives, HeaderConstants.CACHE_PUBLIC));
+        }
+
+        return result;
+    }
+
+    /**
+     * Forwards the request without conditions, then stores the response if
+     * possible and checks the original conditions against it.
+     * 
+     * @param request
+     *            The request.
+     * @param response
+     *            The response.
+     * @param now
+     *            The current time in milliseconds.
+     */
+    private void miss(Request request, Response response, long now) {
+        forward(request, response, new Conditions());
+        getCache().onMiss();
+        store(request, response, now);
+        check(request, response);
+    }
+
+    /**
+     * Reads the content of a response entity, up to the maximum entry size.
+     * When the entity is larger or can't be fully read, the response entity
+     * is replaced by an equivalent one that streams the bytes already read
+     * followed by the remaining ones, and null is returned.
+     * 
+     * @param response
+     *            The response.
+     * @return The content of the entity or null.
+     * @throws IOException
+     */
+    private byte[] read(Response response) throws IOException {
+        Representation entity = response.getEntity();
+        long maxEntrySize = getCache().getMaxEntrySize();
+
+        if (entity.hasKnownSize() && (entity.getSize() > maxEntrySize)) {
+            return null;
+        }
+
+        InputStream is = entity.getStream();
+
+        if (is == null) {
+            return null;
+        }
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(
+                entity.hasKnownSize() ? (int) entity.getSize() : 8192);
+        byte[] buffer = new byte[8192];
+        int read;
+
+        try {
+            while ((baos.size() <= maxEntrySize)
+                    && ((read = is.read(buffer)) >= 0)) {
+                baos.write(buffer, 0, read);
+            }
+        } catch (IOException ioe) {
+            // Let the consumer of the response face the same failure
+            getLogger().log(Level.FINE,
+                    "Unable to read the entity to store in the cache", ioe);
+            replaceEntity(response, entity, baos.toByteArray(), is);
+            return null;
+        }
+
+        if (baos.size() > maxEntrySize) {
+            // Too large, hand back the consumed bytes with the remaining ones
+            replaceEntity(response, entity, baos.toByteArray(), is);
+            return null;
+        }
+
+        try {
+            is.close();
+        } catch (IOException ioe) {
+            getLogger().log(Level.FINE,
+                    "Unable to close the entity stored in the cache", ioe);
+        }
+
+        return baos.toByteArray();
+    }
+
+    /**
+     * Replaces the entity of the response, partially consumed, by one
+     * returning the consumed bytes followed by the remaining ones.
+     * 
+     * @param response
+     *            The response.
+     * @param entity
+     *            The original entity.
+     * @param consumed
+     *            The bytes already consumed.
+     * @param remaining
+     *            The stream of the remaining bytes.
+     */
+    private void replaceEntity(Response response, Representation entity,
+            byte[] consumed, InputStream remaining) {
+        InputRepresentation replacement = new InputRepresentation(
+                new SequenceInputStream(new ByteArrayInputStream(consumed),
+                        remaining), entity.getMediaType());
+        replacement.setCharacterSet(entity.getCharacterSet());
+        replacement.setDisposition(entity.getDisposition());
+        replacement.setEncodings(entity.getEncodings());
+        replacement.setExpirationDate(entity.getExpirationDate());
+        replacement.setLanguages(entity.getLanguages());
+        replacement.setModificationDate(entity.getModificationDate());
+        replacement.setTag(entity.getTag());
+        response.setEntity(replacement);
+    }
+
+    /**
+     * Serves a cached entry, checking the conditions of the request.
+     * 
+     * @param request
+     *            The request.
+     * @param response
+     *            The response.
+     * @param entry
+     *            The cached entry.
+     * @param now
+     *            The current time in milliseconds.
+     * @return False if the entry was removed from the cache in the meantime.
+     */
+    private boolean serve(Request request, Response response,
+            CacheEntry entry, long now) {
+        Representation entity = getCache().toRepresentation(entry);
+
+        if (entity == null) {
+            return false;
+        }
+
+        response.setStatus(Status.SUCCESS_OK);
+        response.setEntity(entity);
+        response.setAge(entry.getAge(now));
+        response.setCacheDirectives(new ArrayList<CacheDirective>(entry
+                .getCacheDirectives()));
+        response.setDimensions(entry.getDimensions());
+        check(request, response);
+        return true;
+    }
+
+    /**
+     * Stores the response if possible. When the entity is read, the response
+     * entity is replaced by a copy served from the stored content.
+     * 
+     * @param request
+     *            The request.
+     * @param response
+     *            The response.
+     * @param now
+     *            The current time in milliseconds.
+     */
+    private void store(Request request, Response response, long now) {
+        long freshness = getFreshness(response, now);
+
+        if (isStorable(request, response, freshness)) {
+            try {
+                byte[] content = read(response);
+
+                if (content != null) {
+                    String uri = getCache().getUri(request);
+                    CacheEntry entry = new CacheEntry(getCache().getKey(
+                            request, uri, response.getDimensions()), uri,
+                            response.getEntity(), content,
+                            response.getDimensions());
+                    entry.setCacheDirectives(new ArrayList<CacheDirective>(
+                            response.getCacheDirectives()));
+                    entry.setStoredTime(now);
+                    entry.setFreshUntil(now + freshness);
+                    response.setEntity(entry.toRepresentation());
+                    getCache().put(entry, response.getDimensions());
+                }
+            } catch (IOException ioe) {
+                // Pass the response through without caching it
+                getLogger().log(Level.WARNING,
+                        "Unable to store the response in the cache", ioe);
+            }
+        }
+    }
+
+}
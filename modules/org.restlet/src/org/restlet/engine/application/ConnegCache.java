@@ -0,0 +1,351 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.restlet.Request;
+import org.restlet.data.ClientInfo;
+import org.restlet.data.Metadata;
+import org.restlet.data.Preference;
+import org.restlet.data.Reference;
+import org.restlet.engine.resource.MethodAnnotationInfo;
+import org.restlet.engine.resource.VariantInfo;
+import org.restlet.representation.Variant;
+import org.restlet.service.MetadataService;
+
+// [excludes gwt]
+/**
+ * Cache of the variants selected by the {@link Conneg} algorithms. The
+ * selections are keyed by the normalized client preferences (accepted media
+ * types, languages, character sets and encodings) and by the metadata of the
+ * candidate variants, so that the common negotiation case becomes a lookup.
+ * The position of the preferred variant in the list of candidates is cached,
+ * as the variant instances usually differ from one request to another.<br>
+ * <br>
+ * The key also captures the other inputs of the scoring: the strict mode, the
+ * default metadata of the {@link MetadataService} in flexible mode, the query
+ * constraints of the annotated variants and their affinity with the input
+ * entity. When the maximum size is reached, the cache is cleared.
+ * 
+ * @author Jerome Louvel
+ */
+public class ConnegCache {
+
+    /** Key of a cached selection. */
+    private static final class Key {
+
+        private final int hashCode;
+
+        private final List<Object> values;
+
+        private Key(List<Object> values) {
+            this.values = values;
+            this.hashCode = values.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (object == this) {
+                return true;
+            } else if (!(object instanceof Key)) {
+                return false;
+            }
+
+            Key that = (Key) object;
+            return (this.hashCode == that.hashCode)
+                    && this.values.equals(that.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+
+    /**
+     * Adds the metadata and qualities of a list of preferences to the key
+     * values.
+     * 
+     * @param values
+     *            The key values to update.
+     * @param preferences
+     *            The preferences to add.
+     */
+    private static void addPreferences(List<Object> values,
+            List<? extends Preference<? extends Metadata>> preferences) {
+        values.add(preferences.size());
+
+        for (Preference<? extends Metadata> preference : preferences) {
+            values.add(preference.getMetadata());
+            values.add(preference.getQuality());
+        }
+    }
+
+    /**
+     * Returns a copy of a list of metadata, suitable for a cache key.
+     * 
+     * @param metadata
+     *            The list of metadata to copy.
+     * @return The copied list.
+     */
+    private static List<? extends Metadata> copy(
+            List<? extends Metadata> metadata) {
+        return metadata.isEmpty() ? Collections.<Metadata> emptyList()
+                : new ArrayList<Metadata>(metadata);
+    }
+
+    /**
+     * Returns the cache key for the negotiation of the preferred variant.
+     * 
+     * @param variants
+     *            The candidate variants.
+     * @param request
+     *            The request including client preferences.
+     * @param metadataService
+     *            The metadata service used to get default metadata values.
+     * @param strict
+     *            True if the strict conneg algorithm is used.
+     * @return The cache key.
+     */
+    public static Object getKey(List<? extends Variant> variants,
+            Request request, MetadataService metadataService, boolean strict) {
+        List<Object> values = new ArrayList<Object>(
+                16 + (variants.size() * 7));
+        values.add(strict);
+
+        if (!strict && (metadataService != null)) {
+            values.add(metadataService.getDefaultLanguage());
+            values.add(metadataService.getDefaultMediaType());
+            values.add(metadataService.getDefaultCharacterSet());
+            values.add(metadataService.getDefaultEncoding());
+        }
+
+        ClientInfo clientInfo = request.getClientInfo();
+
+        if (clientInfo != null) {
+            addPreferences(values, clientInfo.getAcceptedMediaTypes());
+            addPreferences(values, clientInfo.getAcceptedLanguages());
+            addPreferences(values, clientInfo.getAcceptedCharacterSets());
+            addPreferences(values, clientInfo.getAcceptedEncodings());
+        }
+
+        // The query only matters for the annotations declaring constraints
+        Reference resourceRef = request.getResourceRef();
+        String query = (resourceRef == null) ? null : resourceRef.getQuery();
+        boolean queryConstrained = false;
+        values.add(query != null);
+        values.add(variants.size());
+
+        for (Variant variant : variants) {
+            values.add(variant.getMediaType());
+            values.add(variant.getCharacterSet());
+            values.add(copy(variant.getLanguages()));
+            values.add(copy(variant.getEncodings()));
+
+            if (variant instanceof VariantInfo) {
+                VariantInfo variantInfo = (VariantInfo) variant;
+                MethodAnnotationInfo annotationInfo = variantInfo
+                        .getAnnotationInfo();
+                values.add(variantInfo.getInputScore());
+
+                if (annotationInfo == null) {
+                    values.add(Boolean.FALSE);
+                } else {
+                    values.add(annotationInfo.getQuery());
+                    queryConstrained = queryConstrained
+                            || (annotationInfo.getQuery() != null);
+                }
+            } else {
+                values.add(null);
+                values.add(Boolean.FALSE);
+            }
+        }
+
+        if (queryConstrained) {
+            values.add(query);
+        }
+
+        return new Key(values);
+    }
+
+    /** Indicates if the cache is enabled. */
+    private volatile boolean enabled;
+
+    /** The number of lookups that found a cached selection. */
+    private final AtomicLong hits;
+
+    /** The maximum number of cached selections. */
+    private volatile int maxSize;
+
+    /** The number of lookups that didn't find a cached selection. */
+    private final AtomicLong misses;
+
+    /** The cached positions of the preferred variants. */
+    private final ConcurrentMap<Key, Integer> selections;
+
+    /**
+     * Constructor. The cache is enabled by default and holds up to 1024
+     * selections.
+     */
+    public ConnegCache() {
+        this.enabled = true;
+        this.maxSize = 1024;
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.selections = new ConcurrentHashMap<Key, Integer>();
+    }
+
+    /**
+     * Clears the cached selections.
+     */
+    public void clear() {
+        this.selections.clear();
+    }
+
+    /**
+     * Returns the cached position of the preferred variant for the given key,
+     * -1 if no variant was preferred, or null if the selection isn't cached.
+     * 
+     * @param key
+     *            The cache key.
+     * @return The cached position or null.
+     */
+    public Integer get(Object key) {
+        Integer result = isEnabled() ? this.selections.get(key) : null;
+
+        if (result == null) {
+            this.misses.incrementAndGet();
+        } else {
+            this.hits.incrementAndGet();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of lookups that found a cached selection.
+     * 
+     * @return The number of cache hits.
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Returns the maximum number of cached selections. When reached, the cache
+     * is cleared.
+     * 
+     * @return The maximum number of cached selections.
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Returns the number of lookups that didn't find a cached selection.
+     * 
+     * @return The number of cache misses.
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Returns the number of cached selections.
+     * 
+     * @return The number of cached selections.
+     */
+    public int getSize() {
+        return this.selections.size();
+    }
+
+    /**
+     * Indicates if the cache is enabled.
+     * 
+     * @return True if the cache is enabled.
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Caches the position of the preferred variant for the given key.
+     * 
+     * @param key
+     *            The cache key.
+     * @param index
+     *            The position of the preferred variant, or -1 if no variant
+     *            was preferred.
+     */
+    public void put(Object key, int index) {
+        if (isEnabled()) {
+            if (this.selections.size() >= getMaxSize()) {
+                this.selections.clear();
+            }
+
+            this.selections.put((Key) key, index);
+        }
+    }
+
+    /**
+     * Indicates if the cache is enabled. Disabling the cache clears it.
+     * 
+     * @param enabled
+     *            True if the cache is enabled.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     * Sets the maximum number of cached selections.
+     * 
+     * @param maxSize
+     *            The maximum number of cached selections.
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+}
@@ -250,7 +250,7 @@ public class EncodeRepresentation extends WrapperRepresentation {
     @Override
     public InputStream getStream() throws IOException {
         if (canEncode()) {
-            return IoUtils.getStream(this);
+            return IoUtils.getInputStream(this);
         } else {
             return getWrappedRepresentation().getStream();
         }
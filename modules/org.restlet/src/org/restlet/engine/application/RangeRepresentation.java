@@ -37,6 +37,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.nio.channels.FileChannel;
 import java.nio.channels.WritableByteChannel;
 
 import org.restlet.data.Range;
@@ -149,9 +150,21 @@ public class RangeRepresentation extends WrapperRepresentation {
 
     @Override
     public void write(WritableByteChannel writableChannel) throws IOException {
-        OutputStream os = IoUtils.getStream(writableChannel);
-        write(os);
-        os.flush();
+        FileChannel fileChannel = IoUtils.getTransferChannel(this);
+
+        if (fileChannel != null) {
+            // Directly transfer the range from the wrapped file
+            try {
+                IoUtils.copy(fileChannel, fileChannel.position(),
+                        getAvailableSize(), writableChannel);
+            } finally {
+                fileChannel.close();
+            }
+        } else {
+            OutputStream os = IoUtils.getStream(writableChannel);
+            write(os);
+            os.flush();
+        }
     }
 
 }
@@ -0,0 +1,705 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.data.ChallengeResponse;
+import org.restlet.data.ClientInfo;
+import org.restlet.data.Dimension;
+import org.restlet.engine.header.PreferenceWriter;
+import org.restlet.engine.util.Base64;
+import org.restlet.representation.Representation;
+
+// [excludes gwt]
+/**
+ * Bounded store of cached response entities used by the {@link CacheFilter}.
+ * Entries are kept in memory in a least recently used order, bounded by a
+ * maximum number of entries and a maximum number of bytes. When an overflow
+ * directory is set, the entries evicted from memory are written to files,
+ * themselves bounded by a maximum number of bytes, and loaded back into memory
+ * when accessed again.<br>
+ * <br>
+ * The cache also gathers statistics about the hits, revalidations and misses
+ * as well as about the bytes served and stored.
+ * 
+ * @author Jerome Louvel
+ */
+public class ResponseCache {
+
+    /** The number of bytes of content stored in memory. */
+    private volatile long memorySize;
+
+    /** The entries whose content is in memory, in access order. */
+    private final LinkedHashMap<String, CacheEntry> memoryEntries;
+
+    /** The maximum number of entries in memory. */
+    private final int maxEntries;
+
+    /** The maximum size of a single entry in bytes. */
+    private final long maxEntrySize;
+
+    /** The maximum number of bytes of content stored in memory. */
+    private final long maxMemorySize;
+
+    /** The maximum number of bytes of content stored in overflow files. */
+    private final long maxOverflowSize;
+
+    /** The directory of the overflow files or null. */
+    private final File overflowDirectory;
+
+    /** The entries whose content overflowed to a file, in access order. */
+    private final LinkedHashMap<String, CacheEntry> overflowEntries;
+
+    /** The sequence used to name the overflow files. */
+    private final AtomicLong overflowSequence;
+
+    /** The number of bytes of content stored in overflow files. */
+    private volatile long overflowSize;
+
+    /** The number of responses served without contacting the origin. */
+    private final AtomicLong hitCount;
+
+    /** The number of responses forwarded and fully received. */
+    private final AtomicLong missCount;
+
+    /** The number of responses served after a successful revalidation. */
+    private final AtomicLong revalidationCount;
+
+    /** The number of bytes of content served from the cache. */
+    private final AtomicLong servedBytes;
+
+    /** The dimensions varying the responses of each cached URI. */
+    private final Map<String, Set<Dimension>> variations;
+
+    /** The salt of the credentials hashes. */
+    private final byte[] salt;
+
+    /**
+     * Constructor. Keeps up to 1000 entries and 16 MB in memory, 1 MB at most
+     * per entry, without overflow directory.
+     */
+    public ResponseCache() {
+        this(1000, 16 * 1024 * 1024, 1024 * 1024, null, 0);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param maxEntries
+     *            The maximum number of entries in memory.
+     * @param maxMemorySize
+     *            The maximum number of bytes of content stored in memory.
+     * @param maxEntrySize
+     *            The maximum size of a single entry in bytes.
+     * @param overflowDirectory
+     *            The directory of the overflow files or null.
+     * @param maxOverflowSize
+     *            The maximum number of bytes of content stored in overflow
+     *            files.
+     */
+    public ResponseCache(int maxEntries, long maxMemorySize,
+            long maxEntrySize, File overflowDirectory, long maxOverflowSize) {
+        this.maxEntries = maxEntries;
+        this.maxMemorySize = maxMemorySize;
+        this.maxEntrySize = maxEntrySize;
+        this.overflowDirectory = overflowDirectory;
+        this.maxOverflowSize = maxOverflowSize;
+        this.memoryEntries = new LinkedHashMap<String, CacheEntry>(16, 0.75f,
+                true);
+        this.overflowEntries = new LinkedHashMap<String, CacheEntry>(16,
+                0.75f, true);
+        this.overflowSequence = new AtomicLong();
+        this.variations = new ConcurrentHashMap<String, Set<Dimension>>();
+        this.hitCount = new AtomicLong();
+        this.missCount = new AtomicLong();
+        this.revalidationCount = new AtomicLong();
+        this.servedBytes = new AtomicLong();
+        this.salt = new byte[16];
+        new SecureRandom().nextBytes(this.salt);
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    public synchronized void clear() {
+        for (CacheEntry entry : this.overflowEntries.values()) {
+            deleteOverflow(entry);
+        }
+
+        this.memoryEntries.clear();
+        this.overflowEntries.clear();
+        this.variations.clear();
+        this.memorySize = 0;
+        this.overflowSize = 0;
+    }
+
+    /**
+     * Deletes the overflow file of an entry.
+     * 
+     * @param entry
+     *            The entry.
+     */
+    private void deleteOverflow(CacheEntry entry) {
+        if ((entry.getOverflowFile() != null)
+                && !entry.getOverflowFile().delete()) {
+            Context.getCurrentLogger().fine(
+                    "Unable to delete the cache overflow file "
+                            + entry.getOverflowFile());
+        }
+
+        entry.setOverflowFile(null);
+    }
+
+    /**
+     * Evicts the least recently used entries until the memory bounds are
+     * respected, moving them to overflow files if possible.
+     */
+    private void evict() {
+        Iterator<CacheEntry> iter = this.memoryEntries.values().iterator();
+
+        while (iter.hasNext()
+                && ((this.memoryEntries.size() > this.maxEntries) || (this.memorySize > this.maxMemorySize))) {
+            CacheEntry entry = iter.next();
+            iter.remove();
+            this.memorySize -= entry.getSize();
+
+            if (isOverflowing() && (entry.getSize() <= this.maxOverflowSize)) {
+                overflow(entry);
+            }
+        }
+
+        iter = this.overflowEntries.values().iterator();
+
+        while (iter.hasNext() && (this.overflowSize > this.maxOverflowSize)) {
+            CacheEntry entry = iter.next();
+            iter.remove();
+            this.overflowSize -= entry.getSize();
+            deleteOverflow(entry);
+        }
+    }
+
+    /**
+     * Returns the entry stored under the given key or null. An entry found in
+     * an overflow file is loaded back into memory.
+     * 
+     * @param key
+     *            The key of the entry.
+     * @return The entry or null.
+     */
+    public synchronized CacheEntry get(String key) {
+        CacheEntry result = this.memoryEntries.get(key);
+
+        if ((result == null) && (key != null)) {
+            result = this.overflowEntries.remove(key);
+
+            if (result != null) {
+                this.overflowSize -= result.getSize();
+
+                if (load(result)) {
+                    this.memoryEntries.put(key, result);
+                    this.memorySize += result.getSize();
+                    evict();
+                } else {
+                    result = null;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the key of the full credentials of a request, including a
+     * salted SHA-256 hash of the secret and of the raw value. As the cache is
+     * consulted before the authentication, this prevents a request with a
+     * known identifier but a wrong secret from getting a stored response.
+     * 
+     * @param challengeResponse
+     *            The credentials of the request.
+     * @return The key of the credentials.
+     */
+    private String getCredentialsKey(ChallengeResponse challengeResponse) {
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(
+                    "The SHA-256 algorithm isn't available", e);
+        }
+
+        Charset utf8 = Charset.forName("UTF-8");
+        digest.update(this.salt);
+
+        if (challengeResponse.getSecret() != null) {
+            ByteBuffer secretBytes = utf8.encode(CharBuffer
+                    .wrap(challengeResponse.getSecret()));
+
+            try {
+                digest.update(secretBytes.duplicate());
+            } finally {
+                if (secretBytes.hasArray()) {
+                    Arrays.fill(secretBytes.array(), (byte) 0);
+                }
+            }
+        }
+
+        digest.update((byte) '\n');
+
+        if (challengeResponse.getRawValue() != null) {
+            digest.update(challengeResponse.getRawValue().getBytes(utf8));
+        }
+
+        return challengeResponse.getScheme() + " "
+                + challengeResponse.getIdentifier() + " "
+                + Base64.encode(digest.digest(), false);
+    }
+
+    /**
+     * Returns the number of entries, in memory or in overflow files.
+     * 
+     * @return The number of entries.
+     */
+    public synchronized int getEntryCount() {
+        return this.memoryEntries.size() + this.overflowEntries.size();
+    }
+
+    /**
+     * Returns the number of responses served without contacting the origin.
+     * 
+     * @return The number of hits.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the ratio of the responses served from the cache, with or
+     * without revalidation, to all the cacheable requests.
+     * 
+     * @return The hit ratio between 0 and 1.
+     */
+    public double getHitRatio() {
+        long served = getHitCount() + getRevalidationCount();
+        long total = served + getMissCount();
+        return (total == 0) ? 0 : ((double) served / total);
+    }
+
+    /**
+     * Returns the key of the entry matching the request, taking the
+     * dimensions varying the responses into account.
+     * 
+     * @param request
+     *            The request.
+     * @return The key of the entry.
+     */
+    public String getKey(Request request) {
+        String uri = getUri(request);
+        return getKey(request, uri, this.variations.get(uri));
+    }
+
+    /**
+     * Returns the key of the entry matching the request, for the given
+     * dimensions varying the responses.
+     * 
+     * @param request
+     *            The request.
+     * @param uri
+     *            The URI of the cached resource.
+     * @param dimensions
+     *            The dimensions varying the responses or null.
+     * @return The key of the entry.
+     */
+    protected String getKey(Request request, String uri,
+            Set<Dimension> dimensions) {
+        if ((dimensions == null) || dimensions.isEmpty()) {
+            return uri;
+        }
+
+        StringBuilder sb = new StringBuilder(uri);
+        ClientInfo clientInfo = request.getClientInfo();
+
+        for (Dimension dimension : Dimension.values()) {
+            if (dimensions.contains(dimension)) {
+                sb.append('\n');
+
+                switch (dimension) {
+                case AUTHORIZATION:
+                    if (request.getChallengeResponse() != null) {
+                        sb.append(getCredentialsKey(request
+                                .getChallengeResponse()));
+                    }
+                    break;
+                case CHARACTER_SET:
+                    sb.append(PreferenceWriter.write(clientInfo
+                            .getAcceptedCharacterSets()));
+                    break;
+                case CLIENT_AGENT:
+                    sb.append(clientInfo.getAgent());
+                    break;
+                case ENCODING:
+                    sb.append(PreferenceWriter.write(clientInfo
+                            .getAcceptedEncodings()));
+                    break;
+                case LANGUAGE:
+                    sb.append(PreferenceWriter.write(clientInfo
+                            .getAcceptedLanguages()));
+                    break;
+                case MEDIA_TYPE:
+                    sb.append(PreferenceWriter.write(clientInfo
+                            .getAcceptedMediaTypes()));
+                    break;
+                default:
+                    sb.append(dimension);
+                    break;
+                }
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns the maximum size of a single entry in bytes.
+     * 
+     * @return The maximum size of a single entry in bytes.
+     */
+    public long getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    /**
+     * Returns the number of bytes of content stored in memory.
+     * 
+     * @return The number of bytes of content stored in memory.
+     */
+    public long getMemorySize() {
+        return memorySize;
+    }
+
+    /**
+     * Returns the number of responses forwarded and fully received.
+     * 
+     * @return The number of misses.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of bytes of content stored in overflow files.
+     * 
+     * @return The number of bytes of content stored in overflow files.
+     */
+    public long getOverflowSize() {
+        return overflowSize;
+    }
+
+    /**
+     * Returns the number of responses served after a successful
+     * revalidation.
+     * 
+     * @return The number of revalidations.
+     */
+    public long getRevalidationCount() {
+        return revalidationCount.get();
+    }
+
+    /**
+     * Returns the number of bytes of content served from the cache.
+     * 
+     * @return The number of bytes of content served from the cache.
+     */
+    public long getServedBytes() {
+        return servedBytes.get();
+    }
+
+    /**
+     * Returns the URI of the cached resource targeted by the request, without
+     * fragment.
+     * 
+     * @param request
+     *            The request.
+     * @return The URI of the cached resource.
+     */
+    public String getUri(Request request) {
+        return request.getResourceRef().toString(true, false);
+    }
+
+    /**
+     * Indicates if the entries evicted from memory overflow to files.
+     * 
+     * @return True if the entries evicted from memory overflow to files.
+     */
+    public boolean isOverflowing() {
+        return (this.overflowDirectory != null) && (this.maxOverflowSize > 0);
+    }
+
+    /**
+     * Loads the content of an entry from its overflow file.
+     * 
+     * @param entry
+     *            The entry.
+     * @return True if the content was loaded.
+     */
+    private boolean load(CacheEntry entry) {
+        boolean result = false;
+
+        try {
+            byte[] content = new byte[(int) entry.getSize()];
+            InputStream is = new FileInputStream(entry.getOverflowFile());
+
+            try {
+                int offset = 0;
+                int read = 0;
+
+                while ((offset < content.length) && (read >= 0)) {
+                    read = is.read(content, offset, content.length - offset);
+                    offset += Math.max(read, 0);
+                }
+
+                result = (offset == content.length);
+            } finally {
+                is.close();
+            }
+
+            if (result) {
+                entry.setContent(content);
+            }
+        } catch (IOException ioe) {
+            Context.getCurrentLogger().log(Level.FINE,
+                    "Unable to load the cache overflow file", ioe);
+        }
+
+        deleteOverflow(entry);
+        return result;
+    }
+
+    /**
+     * Records a response served without contacting the origin.
+     * 
+     * @param entry
+     *            The entry served.
+     */
+    public void onHit(CacheEntry entry) {
+        this.hitCount.incrementAndGet();
+        this.servedBytes.addAndGet(entry.getSize());
+    }
+
+    /**
+     * Records a response forwarded and fully received.
+     */
+    public void onMiss() {
+        this.missCount.incrementAndGet();
+    }
+
+    /**
+     * Records a response served after a successful revalidation.
+     * 
+     * @param entry
+     *            The entry served.
+     */
+    public void onRevalidation(CacheEntry entry) {
+        this.revalidationCount.incrementAndGet();
+        this.servedBytes.addAndGet(entry.getSize());
+    }
+
+    /**
+     * Writes the content of an entry to an overflow file and releases it from
+     * memory.
+     * 
+     * @param entry
+     *            The entry.
+     */
+    private void overflow(CacheEntry entry) {
+        try {
+            File file = new File(this.overflowDirectory, "restlet-cache-"
+                    + this.overflowSequence.incrementAndGet() + ".tmp");
+            OutputStream os = new FileOutputStream(file);
+
+            try {
+                os.write(entry.getContent());
+            } finally {
+                os.close();
+            }
+
+            entry.setOverflowFile(file);
+            entry.setContent(null);
+            this.overflowEntries.put(entry.getKey(), entry);
+            this.overflowSize += entry.getSize();
+        } catch (IOException ioe) {
+            Context.getCurrentLogger().log(Level.FINE,
+                    "Unable to write the cache overflow file", ioe);
+        }
+    }
+
+    /**
+     * Stores an entry, replacing any entry with the same key, and records the
+     * dimensions varying the responses of its URI. Entries larger than the
+     * maximum entry size are ignored.
+     * 
+     * @param entry
+     *            The entry to store.
+     * @param dimensions
+     *            The dimensions varying the responses of the URI.
+     */
+    public synchronized void put(CacheEntry entry, Set<Dimension> dimensions) {
+        if ((entry.getSize() <= this.maxEntrySize)
+                && (entry.getSize() <= this.maxMemorySize)) {
+            Set<Dimension> previous = this.variations.put(entry.getUri(),
+                    new HashSet<Dimension>(dimensions));
+
+            if ((previous != null) && !previous.equals(dimensions)) {
+                // The variants stored with other dimensions can't be found
+                remove(entry.getUri());
+                this.variations.put(entry.getUri(), new HashSet<Dimension>(
+                        dimensions));
+            }
+
+            remove(this.memoryEntries, entry.getKey());
+            remove(this.overflowEntries, entry.getKey());
+            this.memoryEntries.put(entry.getKey(), entry);
+            this.memorySize += entry.getSize();
+            evict();
+        }
+    }
+
+    /**
+     * Removes an entry from the given map and updates the stored sizes.
+     * 
+     * @param entries
+     *            The map of entries.
+     * @param key
+     *            The key of the entry.
+     */
+    private void remove(Map<String, CacheEntry> entries, String key) {
+        CacheEntry entry = entries.remove(key);
+
+        if (entry != null) {
+            if (entries == this.memoryEntries) {
+                this.memorySize -= entry.getSize();
+            } else {
+                this.overflowSize -= entry.getSize();
+                deleteOverflow(entry);
+            }
+        }
+    }
+
+    /**
+     * Removes all the entries of a URI, whatever their variations.
+     * 
+     * @param uri
+     *            The URI of the cached resource.
+     */
+    public synchronized void remove(String uri) {
+        this.variations.remove(uri);
+        removeVariants(this.memoryEntries, uri);
+        removeVariants(this.overflowEntries, uri);
+    }
+
+    /**
+     * Removes from the given map all the entries of a URI.
+     * 
+     * @param entries
+     *            The map of entries.
+     * @param uri
+     *            The URI of the cached resource.
+     */
+    private void removeVariants(Map<String, CacheEntry> entries, String uri) {
+        for (Iterator<String> iter = new HashSet<String>(entries.keySet())
+                .iterator(); iter.hasNext();) {
+            String key = iter.next();
+
+            if (key.equals(uri) || key.startsWith(uri + '\n')) {
+                remove(entries, key);
+            }
+        }
+    }
+
+    /**
+     * Returns a new representation of a cached entry, loading its content
+     * back into memory if it overflowed to a file in the meantime.
+     * 
+     * @param entry
+     *            The cached entry.
+     * @return A new representation of the cached entry or null.
+     */
+    public synchronized Representation toRepresentation(CacheEntry entry) {
+        CacheEntry current = entry;
+
+        if (current.getContent() == null) {
+            current = get(entry.getKey());
+        }
+
+        return (current == null) ? null : current.toRepresentation();
+    }
+
+    /**
+     * Returns a summary of the cache statistics.
+     * 
+     * @return A summary of the cache statistics.
+     */
+    public String toStatistics() {
+        return getEntryCount() + " entries, " + getHitCount() + " hit(s), "
+                + getRevalidationCount() + " revalidation(s), "
+                + getMissCount() + " miss(es), hit ratio "
+                + Math.round(getHitRatio() * 100) + "%, " + getServedBytes()
+                + " bytes served, " + getMemorySize() + " bytes in memory, "
+                + getOverflowSize() + " bytes in overflow files";
+    }
+
+}
@@ -652,6 +652,14 @@ public class ComponentXmlParser {
                             getComponent().getLogService().setIdentityCheck(
                                     getBoolean(item, true));
                         }
+
+                        item = childNode.getAttributes().getNamedItem(
+                                "asynchronous");
+
+                        if (item != null) {
+                            getComponent().getLogService().setAsynchronous(
+                                    getBoolean(item, false));
+                        }
                     } else if ("statusService".equals(childNode.getNodeName())) {
                         Node item = childNode.getAttributes().getNamedItem(
                                 "contactEmail");
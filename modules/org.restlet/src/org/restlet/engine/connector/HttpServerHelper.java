@@ -74,7 +74,8 @@ public class HttpServerHelper extends NetServerHelper {
                         httpExchange));
             }
         });
-        server.setExecutor(null); // creates a default executor
+        setExecutor(createExecutor());
+        server.setExecutor(getExecutor());
         server.start();
 
         setConfidential(false);
@@ -86,5 +87,6 @@ public class HttpServerHelper extends NetServerHelper {
     public synchronized void stop() throws Exception {
         super.stop();
         this.server.stop(0);
+        stopExecutor();
     }
 }
@@ -135,7 +135,8 @@ public class HttpsServerHelper extends NetServerHelper {
                         httpExchange));
             }
         });
-        server.setExecutor(null); // creates a default executor
+        setExecutor(createExecutor());
+        server.setExecutor(getExecutor());
         server.start();
 
         setConfidential(false);
@@ -147,6 +148,7 @@ public class HttpsServerHelper extends NetServerHelper {
     public synchronized void stop() throws Exception {
         super.stop();
         this.server.stop(0);
+        stopExecutor();
     }
 
 }
@@ -34,9 +34,22 @@
 package org.restlet.engine.connector;
 
 import java.net.InetSocketAddress;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
 
 import org.restlet.Server;
 import org.restlet.engine.adapter.HttpServerHelper;
+import org.restlet.engine.log.LoggingThreadFactory;
+import org.restlet.engine.util.SystemUtils;
 
 /**
  * Abstract Internal web server connector based on com.sun.net.httpserver
@@ -49,6 +62,45 @@ import org.restlet.engine.adapter.HttpServerHelper;
  * <th>Default value</th>
  * <th>Description</th>
  * </tr>
+ * <tr>
+ * <td>minThreads</td>
+ * <td>int</td>
+ * <td>1</td>
+ * <td>Minimum number of worker threads waiting to service calls, even if they
+ * are idle.</td>
+ * </tr>
+ * <tr>
+ * <td>maxThreads</td>
+ * <td>int</td>
+ * <td>10</td>
+ * <td>Maximum number of worker threads that can service calls. If this number
+ * is reached then additional calls are queued if the "maxQueued" value hasn't
+ * been reached.</td>
+ * </tr>
+ * <tr>
+ * <td>maxQueued</td>
+ * <td>int</td>
+ * <td>-1</td>
+ * <td>Maximum number of calls that can be queued if there aren't any worker
+ * thread available to service them. If the value is '0', then no queue is used
+ * and calls are rejected if no worker thread is immediately available. If the
+ * value is '-1', then an unbounded queue is used and calls are never rejected.
+ * The connection of a rejected call is closed.</td>
+ * </tr>
+ * <tr>
+ * <td>maxThreadIdleTimeMs</td>
+ * <td>int</td>
+ * <td>300 000</td>
+ * <td>Time for an idle thread to wait for an operation before being collected.</td>
+ * </tr>
+ * <tr>
+ * <td>virtualThreads</td>
+ * <td>boolean</td>
+ * <td>false</td>
+ * <td>Indicates if each call should run on its own virtual thread when
+ * supported by the Java Runtime Environment. In this case, the "minThreads",
+ * "maxThreads" and "maxQueued" parameters are ignored.</td>
+ * </tr>
  * </table>
  * 
  * @author Jerome Louvel
@@ -64,6 +116,12 @@ public abstract class NetServerHelper extends HttpServerHelper {
      */
     private volatile InetSocketAddress address;
 
+    /** The executor of the calls. */
+    private volatile ThreadPoolExecutor executor;
+
+    /** The number of rejected calls. */
+    private final AtomicLong rejectedCount;
+
     /**
      * Constructor.
      * 
@@ -72,6 +130,97 @@ public abstract class NetServerHelper extends HttpServerHelper {
      */
     public NetServerHelper(Server server) {
         super(server);
+        this.rejectedCount = new AtomicLong();
+    }
+
+    /**
+     * Creates the executor of the calls, either a bounded pool of worker
+     * threads or a virtual thread per call.
+     * 
+     * @return The executor of the calls.
+     */
+    protected ThreadPoolExecutor createExecutor() {
+        int minThreads = getMinThreads();
+        int maxThreads = Math.max(minThreads, getMaxThreads());
+        int maxQueued = getMaxQueued();
+        ThreadPoolExecutor result = null;
+        ThreadFactory virtualThreadFactory = null;
+
+        if (isVirtualThreads()) {
+            virtualThreadFactory = SystemUtils
+                    .createVirtualThreadFactory("Restlet-Server-Worker-");
+        }
+
+        if (virtualThreadFactory != null) {
+            // No core thread and no keep alive, so each call gets its own
+            // virtual thread
+            result = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0L,
+                    TimeUnit.MILLISECONDS, new SynchronousQueue<Runnable>(),
+                    virtualThreadFactory);
+        } else {
+            if (isVirtualThreads()) {
+                getLogger().fine(
+                        "Virtual threads aren't supported by this JVM. "
+                                + "Using platform worker threads instead.");
+            }
+
+            BlockingQueue<Runnable> queue = null;
+
+            if (maxQueued == 0) {
+                queue = new SynchronousQueue<Runnable>();
+            } else if (maxQueued < 0) {
+                queue = new LinkedBlockingQueue<Runnable>();
+            } else {
+                queue = new ArrayBlockingQueue<Runnable>(maxQueued);
+            }
+
+            if (maxQueued < 0) {
+                // An unbounded queue never lets the pool grow beyond its
+                // core threads, so all threads are core threads that can
+                // time out
+                result = new ThreadPoolExecutor(maxThreads, maxThreads,
+                        getMaxThreadIdleTimeMs(), TimeUnit.MILLISECONDS,
+                        queue, new LoggingThreadFactory(getLogger(), true));
+                result.allowCoreThreadTimeOut(true);
+            } else {
+                result = new ThreadPoolExecutor(minThreads, maxThreads,
+                        getMaxThreadIdleTimeMs(), TimeUnit.MILLISECONDS,
+                        queue, new LoggingThreadFactory(getLogger(), true));
+            }
+
+            // Ensure that a minimum number of threads are started
+            for (int i = 0; i < minThreads; i++) {
+                result.prestartCoreThread();
+            }
+        }
+
+        result.setRejectedExecutionHandler(new RejectedExecutionHandler() {
+            public void rejectedExecution(Runnable r,
+                    ThreadPoolExecutor executor) {
+                rejectedCount.incrementAndGet();
+                getLogger().warning(
+                        "Unable to run the call, the connection is closed. "
+                                + "Active threads: "
+                                + executor.getActiveCount()
+                                + ", queued calls: "
+                                + executor.getQueue().size());
+
+                // Lets the internal server close the connection
+                throw new RejectedExecutionException("Call rejected");
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Returns the approximate number of worker threads servicing calls.
+     * 
+     * @return The approximate number of worker threads servicing calls.
+     */
+    public int getActiveCount() {
+        ThreadPoolExecutor executor = getExecutor();
+        return (executor == null) ? 0 : executor.getActiveCount();
     }
 
     /**
@@ -83,6 +232,82 @@ public abstract class NetServerHelper extends HttpServerHelper {
         return this.address;
     }
 
+    /**
+     * Returns the executor of the calls.
+     * 
+     * @return The executor of the calls.
+     */
+    protected ThreadPoolExecutor getExecutor() {
+        return this.executor;
+    }
+
+    /**
+     * Returns the maximum number of calls that can be queued if there aren't
+     * any worker thread available to service them. If the value is '0', then
+     * no queue is used and calls are rejected if no worker thread is
+     * immediately available. If the value is '-1', then an unbounded queue is
+     * used and calls are never rejected.
+     * 
+     * @return The maximum number of calls that can be queued.
+     */
+    public int getMaxQueued() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxQueued", "-1"));
+    }
+
+    /**
+     * Returns the time for an idle thread to wait for an operation before
+     * being collected.
+     * 
+     * @return The time for an idle thread to wait for an operation before
+     *         being collected.
+     */
+    public int getMaxThreadIdleTimeMs() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxThreadIdleTimeMs", "300000"));
+    }
+
+    /**
+     * Returns the maximum number of worker threads that can service calls.
+     * 
+     * @return The maximum number of worker threads that can service calls.
+     */
+    public int getMaxThreads() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxThreads", "10"));
+    }
+
+    /**
+     * Returns the minimum number of worker threads waiting to service calls,
+     * even if they are idle.
+     * 
+     * @return The minimum number of worker threads.
+     */
+    public int getMinThreads() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "minThreads", "1"));
+    }
+
+    /**
+     * Returns the number of calls waiting for a worker thread.
+     * 
+     * @return The number of calls waiting for a worker thread.
+     */
+    public int getQueuedCount() {
+        ThreadPoolExecutor executor = getExecutor();
+        return (executor == null) ? 0 : executor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of calls rejected because no worker thread was
+     * available and the queue was full.
+     * 
+     * @return The number of rejected calls.
+     */
+    public long getRejectedCount() {
+        return this.rejectedCount.get();
+    }
+
     /**
      * Indicates if this service is acting in HTTP or HTTPS mode.
      * 
@@ -92,6 +317,17 @@ public abstract class NetServerHelper extends HttpServerHelper {
         return this.confidential;
     }
 
+    /**
+     * Indicates if each call should run on its own virtual thread when
+     * supported by the Java Runtime Environment.
+     * 
+     * @return True if each call should run on its own virtual thread.
+     */
+    public boolean isVirtualThreads() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "virtualThreads", "false"));
+    }
+
     /**
      * Indicates if this service is acting in HTTP or HTTPS mode.
      * 
@@ -102,6 +338,16 @@ public abstract class NetServerHelper extends HttpServerHelper {
         this.confidential = confidential;
     }
 
+    /**
+     * Sets the executor of the calls.
+     * 
+     * @param executor
+     *            The executor of the calls.
+     */
+    protected void setExecutor(ThreadPoolExecutor executor) {
+        this.executor = executor;
+    }
+
     /**
      * Sets the socket address this server is listening to.
      * 
@@ -125,4 +371,24 @@ public abstract class NetServerHelper extends HttpServerHelper {
         getLogger().info("Stopping the internal server");
     }
 
+    /**
+     * Shuts down the executor of the calls, once the server is stopped.
+     */
+    protected void stopExecutor() {
+        ThreadPoolExecutor executor = getExecutor();
+
+        if (executor != null) {
+            executor.shutdown();
+
+            if (getLogger().isLoggable(Level.FINE)) {
+                getLogger().fine(
+                        "Internal server executor stopped. Completed calls: "
+                                + executor.getCompletedTaskCount()
+                                + ", rejected calls: " + getRejectedCount());
+            }
+
+            setExecutor(null);
+        }
+    }
+
 }
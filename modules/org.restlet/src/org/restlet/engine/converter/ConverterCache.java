@@ -0,0 +1,407 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.converter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.restlet.data.CharacterSet;
+import org.restlet.data.Encoding;
+import org.restlet.data.Language;
+import org.restlet.data.MediaType;
+import org.restlet.engine.util.SystemUtils;
+import org.restlet.representation.ObjectRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.representation.Variant;
+
+/**
+ * Cache of the best converter helpers selected by {@link ConverterUtils}. The
+ * selections are keyed by the source class and the target variant metadata
+ * when converting objects to representations, and by the source class, the
+ * source variant metadata and the target class when converting
+ * representations to objects.<br>
+ * <br>
+ * The cache is cleared when the list of registered converters changes. It
+ * assumes that the score of a converter helper only depends on the classes and
+ * metadata of the source and target. Converter helpers that depend on other
+ * factors, such as the parent resource or the source content, require the
+ * cache to be disabled via {@link #setEnabled(boolean)}.<br>
+ * <br>
+ * When the maximum size is reached, the oldest half of the selections, in
+ * insertion order, is evicted. The most recent selections are kept, so a set
+ * of conversions slightly larger than the maximum size still mostly hits the
+ * cache.
+ * 
+ * @author Jerome Louvel
+ */
+public class ConverterCache {
+
+    /** Key of a cached selection. */
+    private static final class Key {
+
+        private final CharacterSet characterSet;
+
+        private final List<Encoding> encodings;
+
+        private final int hashCode;
+
+        private final List<Language> languages;
+
+        private final MediaType mediaType;
+
+        private final boolean objectBinary;
+
+        private final boolean objectXml;
+
+        private final Class<?> sourceClass;
+
+        private final Class<?> targetClass;
+
+        private final boolean toObject;
+
+        private Key(Class<?> sourceClass, Variant variant,
+                Class<?> targetClass, boolean toObject) {
+            this.sourceClass = sourceClass;
+            this.targetClass = targetClass;
+            this.toObject = toObject;
+            this.objectBinary = ObjectRepresentation.VARIANT_OBJECT_BINARY_SUPPORTED;
+            this.objectXml = ObjectRepresentation.VARIANT_OBJECT_XML_SUPPORTED;
+
+            if (variant != null) {
+                this.mediaType = variant.getMediaType();
+                this.characterSet = variant.getCharacterSet();
+                this.languages = new ArrayList<Language>(
+                        variant.getLanguages());
+                this.encodings = new ArrayList<Encoding>(
+                        variant.getEncodings());
+            } else {
+                this.mediaType = null;
+                this.characterSet = null;
+                this.languages = null;
+                this.encodings = null;
+            }
+
+            this.hashCode = SystemUtils.hashCode(sourceClass, targetClass,
+                    toObject, this.objectBinary, this.objectXml,
+                    this.mediaType, this.characterSet, this.languages,
+                    this.encodings);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (object == this) {
+                return true;
+            } else if (!(object instanceof Key)) {
+                return false;
+            }
+
+            Key that = (Key) object;
+            return (this.hashCode == that.hashCode)
+                    && (this.toObject == that.toObject)
+                    && (this.objectBinary == that.objectBinary)
+                    && (this.objectXml == that.objectXml)
+                    && (this.sourceClass == that.sourceClass)
+                    && (this.targetClass == that.targetClass)
+                    && SystemUtils.equals(this.mediaType, that.mediaType)
+                    && SystemUtils.equals(this.characterSet,
+                            that.characterSet)
+                    && SystemUtils.equals(this.languages, that.languages)
+                    && SystemUtils.equals(this.encodings, that.encodings);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+
+    /** The cached selections along with the converters version. */
+    private static final class State {
+
+        private final List<ConverterHelper> converters;
+
+        private final ConcurrentMap<Key, ConverterHelper> helpers;
+
+        private final Queue<Key> insertionOrder;
+
+        private final int version;
+
+        private State(List<ConverterHelper> converters, int version) {
+            this.converters = converters;
+            this.version = version;
+            this.helpers = new ConcurrentHashMap<Key, ConverterHelper>();
+            this.insertionOrder = new ConcurrentLinkedQueue<Key>();
+        }
+    }
+
+    /**
+     * Returns the cache key for the conversion of a representation to an
+     * object.
+     * 
+     * @param source
+     *            The source representation.
+     * @param target
+     *            The target class.
+     * @return The cache key.
+     */
+    public static Object getKey(Representation source, Class<?> target) {
+        return new Key((source == null) ? null : source.getClass(), source,
+                target, true);
+    }
+
+    /**
+     * Returns the cache key for the conversion of an object to a
+     * representation.
+     * 
+     * @param source
+     *            The source object.
+     * @param target
+     *            The target variant.
+     * @return The cache key.
+     */
+    public static Object getKey(Object source, Variant target) {
+        return new Key((source == null) ? null : source.getClass(), target,
+                null, false);
+    }
+
+    /** Indicates if the cache is enabled. */
+    private volatile boolean enabled;
+
+    /** The number of lookups that found a cached selection. */
+    private final AtomicLong hits;
+
+    /** The maximum number of cached selections. */
+    private volatile int maxSize;
+
+    /** The number of lookups that didn't find a cached selection. */
+    private final AtomicLong misses;
+
+    /** The current cached selections. */
+    private volatile State state;
+
+    /**
+     * Constructor. The cache is enabled by default and holds up to 1024
+     * selections.
+     */
+    public ConverterCache() {
+        this.enabled = true;
+        this.maxSize = 1024;
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.state = null;
+    }
+
+    /**
+     * Clears the cached selections.
+     */
+    public void clear() {
+        this.state = null;
+    }
+
+    /**
+     * Evicts the oldest selections of the given state until its size is at
+     * most the given size.
+     * 
+     * @param current
+     *            The state to shrink.
+     * @param size
+     *            The size to reach.
+     */
+    private void evict(State current, int size) {
+        Key oldest = null;
+
+        while ((current.helpers.size() > size)
+                && ((oldest = current.insertionOrder.poll()) != null)) {
+            current.helpers.remove(oldest);
+        }
+    }
+
+    /**
+     * Returns the cached converter helper for the given key.
+     * 
+     * @param converters
+     *            The current list of registered converters.
+     * @param key
+     *            The cache key.
+     * @return The cached converter helper or null.
+     */
+    public ConverterHelper get(List<ConverterHelper> converters, Object key) {
+        ConverterHelper result = null;
+        State current = getState(converters);
+
+        if (current != null) {
+            result = current.helpers.get(key);
+        }
+
+        if (result == null) {
+            this.misses.incrementAndGet();
+        } else {
+            this.hits.incrementAndGet();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of lookups that found a cached selection.
+     * 
+     * @return The number of cache hits.
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Returns the maximum number of cached selections. When reached, the
+     * oldest half of the selections is evicted.
+     * 
+     * @return The maximum number of cached selections.
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Returns the number of lookups that didn't find a cached selection.
+     * 
+     * @return The number of cache misses.
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Returns the number of cached selections.
+     * 
+     * @return The number of cached selections.
+     */
+    public int getSize() {
+        State current = this.state;
+        return (current == null) ? 0 : current.helpers.size();
+    }
+
+    /**
+     * Returns the state matching the given list of converters, or null if the
+     * list can't be tracked or if the cache is disabled. If the list has
+     * changed, a new empty state is created.
+     * 
+     * @param converters
+     *            The current list of registered converters.
+     * @return The matching state or null.
+     */
+    private State getState(List<ConverterHelper> converters) {
+        State result = null;
+
+        if (isEnabled() && (converters instanceof ConverterList)) {
+            int version = ((ConverterList) converters).getVersion();
+            result = this.state;
+
+            if ((result == null) || (result.converters != converters)
+                    || (result.version != version)) {
+                this.state = result = new State(converters, version);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Indicates if the cache is enabled.
+     * 
+     * @return True if the cache is enabled.
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Caches the selected converter helper for the given key. The selection is
+     * ignored if the list of registered converters changed since the last
+     * lookup.
+     * 
+     * @param converters
+     *            The list of registered converters used for the selection.
+     * @param key
+     *            The cache key.
+     * @param helper
+     *            The selected converter helper.
+     */
+    public void put(List<ConverterHelper> converters, Object key,
+            ConverterHelper helper) {
+        State current = this.state;
+
+        if ((helper != null) && (current != null)
+                && (current.converters == converters)
+                && (current.version == ((ConverterList) converters)
+                        .getVersion())) {
+            if (current.helpers.size() >= getMaxSize()) {
+                evict(current, getMaxSize() / 2);
+            }
+
+            if (current.helpers.putIfAbsent((Key) key, helper) == null) {
+                current.insertionOrder.offer((Key) key);
+            }
+        }
+    }
+
+    /**
+     * Indicates if the cache is enabled. Disabling the cache clears it.
+     * 
+     * @param enabled
+     *            True if the cache is enabled.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     * Sets the maximum number of cached selections.
+     * 
+     * @param maxSize
+     *            The maximum number of cached selections.
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+}
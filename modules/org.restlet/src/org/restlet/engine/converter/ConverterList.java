@@ -0,0 +1,70 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.converter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.restlet.util.VersionedWrapperList;
+
+/**
+ * Modifiable list of converter helpers keeping track of its structural
+ * modifications. This allows caches of converter selections such as
+ * {@link ConverterCache} to detect when they become stale.<br>
+ * <br>
+ * Note that structural changes to this list are thread-safe, using an
+ * underlying {@link CopyOnWriteArrayList}.
+ * 
+ * @author Jerome Louvel
+ */
+public class ConverterList extends VersionedWrapperList<ConverterHelper> {
+
+    /**
+     * Constructor.
+     */
+    public ConverterList() {
+        super(new CopyOnWriteArrayList<ConverterHelper>());
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param delegate
+     *            The delegate list.
+     */
+    public ConverterList(List<ConverterHelper> delegate) {
+        super(new CopyOnWriteArrayList<ConverterHelper>(delegate));
+    }
+
+}
@@ -51,6 +51,9 @@ import org.restlet.resource.Resource;
  */
 public class ConverterUtils {
 
+    /** The cache of the best converter helpers. */
+    private static final ConverterCache cache = new ConverterCache();
+
     /**
      * Returns the best converter helper matching the given parameters.
      * 
@@ -64,27 +67,38 @@ public class ConverterUtils {
      */
     public static ConverterHelper getBestHelper(Object source, Variant target,
             Resource resource) {
-        ConverterHelper result = null;
-        float bestScore = -1.0F;
-        float currentScore;
-
-        for (ConverterHelper ch : Engine.getInstance()
-                .getRegisteredConverters()) {
-            if (ch != null) {
-                try {
-                    currentScore = ch.score(source, target, resource);
-
-                    if (currentScore > bestScore) {
-                        bestScore = currentScore;
-                        result = ch;
+        List<ConverterHelper> converters = Engine.getInstance()
+                .getRegisteredConverters();
+        Object key = ConverterCache.getKey(source, target);
+        ConverterHelper result = getCache().get(converters, key);
+
+        if (result == null) {
+            float bestScore = -1.0F;
+            float currentScore;
+            boolean cacheable = true;
+
+            for (ConverterHelper ch : converters) {
+                if (ch != null) {
+                    try {
+                        currentScore = ch.score(source, target, resource);
+
+                        if (currentScore > bestScore) {
+                            bestScore = currentScore;
+                            result = ch;
+                        }
+                    } catch (Exception e) {
+                        cacheable = false;
+                        Context.getCurrentLogger().log(
+                                Level.SEVERE,
+                                "Unable get the score of the " + ch
+                                        + " converter helper.", e);
                     }
-                } catch (Exception e) {
-                    Context.getCurrentLogger().log(
-                            Level.SEVERE,
-                            "Unable get the score of the " + ch
-                                    + " converter helper.", e);
                 }
             }
+
+            if (cacheable) {
+                getCache().put(converters, key, result);
+            }
         }
 
         return result;
@@ -105,25 +119,42 @@ public class ConverterUtils {
      */
     public static <T> ConverterHelper getBestHelper(Representation source,
             Class<T> target, Resource resource) {
-        ConverterHelper result = null;
-        float bestScore = -1.0F;
-        float currentScore;
+        List<ConverterHelper> converters = Engine.getInstance()
+                .getRegisteredConverters();
+        Object key = ConverterCache.getKey(source, target);
+        ConverterHelper result = getCache().get(converters, key);
 
-        for (ConverterHelper ch : Engine.getInstance()
-                .getRegisteredConverters()) {
-            if (ch != null) {
-                currentScore = ch.score(source, target, resource);
+        if (result == null) {
+            float bestScore = -1.0F;
+            float currentScore;
+
+            for (ConverterHelper ch : converters) {
+                if (ch != null) {
+                    currentScore = ch.score(source, target, resource);
 
-                if (currentScore > bestScore) {
-                    bestScore = currentScore;
-                    result = ch;
+                    if (currentScore > bestScore) {
+                        bestScore = currentScore;
+                        result = ch;
+                    }
                 }
             }
+
+            getCache().put(converters, key, result);
         }
 
         return result;
     }
 
+    /**
+     * Returns the cache of the best converter helpers, keyed by the source and
+     * target types and metadata.
+     * 
+     * @return The cache of the best converter helpers.
+     */
+    public static ConverterCache getCache() {
+        return cache;
+    }
+
     /**
      * Returns the list of variants that can be converted from a given object
      * class.
@@ -46,6 +46,34 @@ import org.restlet.representation.Representation;
  */
 public class ContentType {
 
+    // [ifndef gwt] member
+    /** The content types parsed by {@link #read(String)}, keyed by header. */
+    private static final org.restlet.engine.util.ParsedValueCache<ContentType> PARSED_CONTENT_TYPES = new org.restlet.engine.util.ParsedValueCache<ContentType>(
+            256);
+
+    /**
+     * Parses the given content type header. As content types are immutable,
+     * the parsed instances are cached and shared.
+     * 
+     * @param contentType
+     *            The content type header to parse.
+     * @return The content type.
+     */
+    public static ContentType read(String contentType) {
+        // [ifndef gwt]
+        ContentType result = PARSED_CONTENT_TYPES.get(contentType);
+
+        if (result == null) {
+            result = PARSED_CONTENT_TYPES.put(contentType, new ContentType(
+                    contentType));
+        }
+
+        return result;
+        // [enddef]
+        // [ifdef gwt] instruction uncomment
+        // return new ContentType(contentType);
+    }
+
     /**
      * Parses the given content type header and returns the character set.
      * 
@@ -54,7 +82,7 @@ public class ContentType {
      * @return The character set.
      */
     public static CharacterSet readCharacterSet(String contentType) {
-        return new ContentType(contentType).getCharacterSet();
+        return read(contentType).getCharacterSet();
     }
 
     /**
@@ -65,7 +93,7 @@ public class ContentType {
      * @return The media type.
      */
     public static MediaType readMediaType(String contentType) {
-        return new ContentType(contentType).getMediaType();
+        return read(contentType).getMediaType();
     }
 
     /**
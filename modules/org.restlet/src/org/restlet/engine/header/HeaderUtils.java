@@ -631,7 +631,8 @@ public class HeaderUtils {
                     .getAttributes().get(HeaderConstants.ATTRIBUTE_HEADERS);
             if (extensionHeaders == null) {
                 // [ifndef gwt] instruction
-                extensionHeaders = new Series<Header>(Header.class);
+                extensionHeaders = new org.restlet.util.IndexedSeries<Header>(
+                        Header.class);
                 // [ifdef gwt] instruction uncomment
                 // extensionHeaders = new
                 // org.restlet.engine.util.HeaderSeries();
@@ -793,7 +794,8 @@ public class HeaderUtils {
             for (Header header : headers) {
                 if (header.getName().equalsIgnoreCase(
                         HeaderConstants.HEADER_CONTENT_TYPE)) {
-                    ContentType contentType = new ContentType(header.getValue());
+                    ContentType contentType = ContentType.read(header
+                            .getValue());
                     result.setMediaType(contentType.getMediaType());
 
                     if ((result.getCharacterSet() == null)
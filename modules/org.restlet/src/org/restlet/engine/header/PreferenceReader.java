@@ -40,7 +40,10 @@ import static org.restlet.engine.header.HeaderUtils.isText;
 import static org.restlet.engine.header.HeaderUtils.isTokenChar;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
 import org.restlet.data.CharacterSet;
 import org.restlet.data.ClientInfo;
@@ -71,6 +74,14 @@ public class PreferenceReader<T extends Metadata> extends
 
     public static final int TYPE_PATCH = 5;
 
+    // [ifndef gwt] member
+    /**
+     * The preferences parsed by the static methods, keyed by type and header
+     * value.
+     */
+    private static final org.restlet.engine.util.ParsedValueCache<List<Preference<Metadata>>> PARSED_PREFERENCES = new org.restlet.engine.util.ParsedValueCache<List<Preference<Metadata>>>(
+            512);
+
     /**
      * Parses character set preferences from a header.
      * 
@@ -89,10 +100,9 @@ public class PreferenceReader<T extends Metadata> extends
                 clientInfo.getAcceptedCharacterSets().add(
                         new Preference<CharacterSet>(CharacterSet.ISO_8859_1));
             } else {
-                PreferenceReader pr = new PreferenceReader(
-                        PreferenceReader.TYPE_CHARACTER_SET,
-                        acceptCharsetHeader);
-                pr.addValues(clientInfo.getAcceptedCharacterSets());
+                addPreferences(PreferenceReader.TYPE_CHARACTER_SET,
+                        acceptCharsetHeader,
+                        (Collection) clientInfo.getAcceptedCharacterSets());
             }
         } else {
             clientInfo.getAcceptedCharacterSets().add(
@@ -112,9 +122,9 @@ public class PreferenceReader<T extends Metadata> extends
     public static void addEncodings(String acceptEncodingHeader,
             ClientInfo clientInfo) {
         if (acceptEncodingHeader != null) {
-            PreferenceReader pr = new PreferenceReader(
-                    PreferenceReader.TYPE_ENCODING, acceptEncodingHeader);
-            pr.addValues(clientInfo.getAcceptedEncodings());
+            addPreferences(PreferenceReader.TYPE_ENCODING,
+                    acceptEncodingHeader,
+                    (Collection) clientInfo.getAcceptedEncodings());
         } else {
             clientInfo.getAcceptedEncodings().add(
                     new Preference(Encoding.IDENTITY));
@@ -133,9 +143,9 @@ public class PreferenceReader<T extends Metadata> extends
     public static void addLanguages(String acceptLanguageHeader,
             ClientInfo clientInfo) {
         if (acceptLanguageHeader != null) {
-            PreferenceReader pr = new PreferenceReader(
-                    PreferenceReader.TYPE_LANGUAGE, acceptLanguageHeader);
-            pr.addValues(clientInfo.getAcceptedLanguages());
+            addPreferences(PreferenceReader.TYPE_LANGUAGE,
+                    acceptLanguageHeader,
+                    (Collection) clientInfo.getAcceptedLanguages());
         } else {
             clientInfo.getAcceptedLanguages().add(new Preference(Language.ALL));
         }
@@ -153,9 +163,9 @@ public class PreferenceReader<T extends Metadata> extends
     public static void addMediaTypes(String acceptMediaTypeHeader,
             ClientInfo clientInfo) {
         if (acceptMediaTypeHeader != null) {
-            PreferenceReader pr = new PreferenceReader(
-                    PreferenceReader.TYPE_MEDIA_TYPE, acceptMediaTypeHeader);
-            pr.addValues(clientInfo.getAcceptedMediaTypes());
+            addPreferences(PreferenceReader.TYPE_MEDIA_TYPE,
+                    acceptMediaTypeHeader,
+                    (Collection) clientInfo.getAcceptedMediaTypes());
         } else {
             clientInfo.getAcceptedMediaTypes().add(
                     new Preference(MediaType.ALL));
@@ -174,10 +184,52 @@ public class PreferenceReader<T extends Metadata> extends
     public static void addPatches(String acceptPatchHeader,
             ClientInfo clientInfo) {
         if (acceptPatchHeader != null) {
-            PreferenceReader pr = new PreferenceReader(
-                    PreferenceReader.TYPE_PATCH, acceptPatchHeader);
-            pr.addValues(clientInfo.getAcceptedPatches());
+            addPreferences(PreferenceReader.TYPE_PATCH, acceptPatchHeader,
+                    (Collection) clientInfo.getAcceptedPatches());
+        }
+    }
+
+    /**
+     * Parses preferences from a header and adds them to a list. As the
+     * preferences are mutable, the parsed ones are cached and copies are added
+     * to the list. The preferences with parameters other than the quality
+     * aren't cached.
+     * 
+     * @param type
+     *            The type of metadata read.
+     * @param header
+     *            The header to parse.
+     * @param values
+     *            The list of preferences to update.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static void addPreferences(int type, String header,
+            Collection<Preference<Metadata>> values) {
+        // [ifndef gwt]
+        String key = type + header;
+        List<Preference<Metadata>> parsed = PARSED_PREFERENCES.get(key);
+
+        if (parsed == null) {
+            parsed = new ArrayList<Preference<Metadata>>();
+            new PreferenceReader(type, header).addValues(parsed);
+
+            for (Preference<Metadata> preference : parsed) {
+                if (!preference.getParameters().isEmpty()) {
+                    values.addAll(parsed);
+                    return;
+                }
+            }
+
+            parsed = PARSED_PREFERENCES.put(key, parsed);
+        }
+
+        for (Preference<Metadata> preference : parsed) {
+            values.add(new Preference<Metadata>(preference.getMetadata(),
+                    preference.getQuality()));
         }
+        // [enddef]
+        // [ifdef gwt] instruction uncomment
+        // new PreferenceReader(type, header).addValues(values);
     }
 
     /**
@@ -43,20 +43,24 @@ import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channel;
 import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 
 import org.restlet.Context;
 import org.restlet.data.CharacterSet;
 import org.restlet.data.Range;
 import org.restlet.engine.Edition;
-import org.restlet.engine.Engine;
+import org.restlet.engine.application.RangeRepresentation;
+import org.restlet.representation.FileRepresentation;
 import org.restlet.representation.Representation;
 
 /**
@@ -87,6 +91,80 @@ public class IoUtils {
     public final static int TIMEOUT_MS = getProperty(
             "org.restlet.engine.io.timeoutMs", 60000);
 
+    // [ifndef gwt] member
+    /** The executor of the pipe conversions, lazily created. */
+    private static volatile PipeExecutor pipeExecutor;
+
+    // [ifndef gwt] method
+    /**
+     * Transfers a region of a file channel to a writable channel, relying on
+     * the {@link FileChannel#transferTo(long, long, WritableByteChannel)}
+     * method so that the operating system can copy the bytes without going
+     * through the JVM heap. If the target channel is non-blocking and stops
+     * accepting bytes, the rest of the region is copied using an intermediary
+     * buffer. The file channel isn't closed.
+     * 
+     * @param fileChannel
+     *            The source file channel.
+     * @param position
+     *            The position of the first byte to transfer.
+     * @param count
+     *            The maximum number of bytes to transfer.
+     * @param writableChannel
+     *            The writable channel.
+     * @return The number of bytes transferred.
+     * @throws IOException
+     */
+    public static long copy(FileChannel fileChannel, long position,
+            long count, WritableByteChannel writableChannel)
+            throws IOException {
+        long result = 0;
+
+        if ((fileChannel != null) && (writableChannel != null)) {
+            long remaining = Math.min(count, fileChannel.size() - position);
+            long transferred = 0;
+
+            while ((remaining > 0) && (transferred >= 0)) {
+                transferred = fileChannel.transferTo(position + result,
+                        remaining, writableChannel);
+
+                if (transferred > 0) {
+                    result += transferred;
+                    remaining -= transferred;
+                } else {
+                    // The target doesn't accept more bytes for now
+                    transferred = -1;
+                }
+            }
+
+            if (remaining > 0) {
+                OutputStream os = getStream(writableChannel);
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                int bytesRead = 0;
+
+                while ((remaining > 0) && (bytesRead >= 0)) {
+                    buffer.clear();
+
+                    if (remaining < buffer.capacity()) {
+                        buffer.limit((int) remaining);
+                    }
+
+                    bytesRead = fileChannel.read(buffer, position + result);
+
+                    if (bytesRead > 0) {
+                        os.write(buffer.array(), 0, bytesRead);
+                        result += bytesRead;
+                        remaining -= bytesRead;
+                    }
+                }
+
+                os.flush();
+            }
+        }
+
+        return result;
+    }
+
     // [ifndef gwt] method
     /**
      * Copies an input stream to an output stream. When the reading is done, the
@@ -272,6 +350,78 @@ public class IoUtils {
         return result;
     }
 
+    // [ifndef gwt] method
+    /**
+     * Executes a pipe conversion task. If the current context has an executor
+     * service, it is used, otherwise the task is submitted to the shared pipe
+     * executor. In this case, the "pipeAcquireTimeoutMs" parameter of the
+     * current context, if any, overrides the acquire timeout of a bounded
+     * executor.
+     * 
+     * @param task
+     *            The conversion task.
+     * @see #getPipeExecutor()
+     * @see PipeExecutor#getAcquireTimeout()
+     */
+    private static void execute(Runnable task) {
+        org.restlet.Context context = org.restlet.Context.getCurrent();
+
+        if (context != null && context.getExecutorService() != null) {
+            context.getExecutorService().execute(task);
+        } else {
+            PipeExecutor executor = getPipeExecutor();
+            long acquireTimeout = executor.getAcquireTimeout();
+
+            if ((context != null) && executor.isBounded()) {
+                String value = context.getParameters().getFirstValue(
+                        "pipeAcquireTimeoutMs");
+
+                if (value != null) {
+                    try {
+                        acquireTimeout = Long.parseLong(value);
+                    } catch (NumberFormatException nfe) {
+                        context.getLogger().warning(
+                                "Invalid \"pipeAcquireTimeoutMs\" parameter: "
+                                        + value);
+                    }
+                }
+            }
+
+            executor.execute(task, acquireTimeout);
+        }
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Executes a pipe conversion task. If the conversion is rejected by a
+     * saturated executor, the given ends of the pipe are closed and the
+     * rejection is reported as an IOException.
+     * 
+     * @param task
+     *            The conversion task.
+     * @param pipeEnds
+     *            The ends of the pipe to close if the task is rejected.
+     * @throws IOException
+     *             If the conversion was rejected.
+     */
+    private static void execute(Runnable task, java.io.Closeable... pipeEnds)
+            throws IOException {
+        try {
+            execute(task);
+        } catch (RejectedExecutionException ree) {
+            for (java.io.Closeable pipeEnd : pipeEnds) {
+                try {
+                    pipeEnd.close();
+                } catch (IOException ioe) {
+                    Context.getCurrentLogger().log(Level.FINE,
+                            "Error while closing the pipe.", ioe);
+                }
+            }
+
+            throw new IOException(ree.getMessage(), ree);
+        }
+    }
+
     // [ifndef gwt] method
     /**
      * Exhaust the content of the representation by reading it and silently
@@ -416,15 +566,7 @@ public class IoUtils {
                 }
             };
 
-            org.restlet.Context context = org.restlet.Context.getCurrent();
-
-            if (context != null && context.getExecutorService() != null) {
-                context.getExecutorService().execute(task);
-            } else {
-                Engine.createThreadWithLocalVariables(task, "Restlet-IoUtils")
-                        .start();
-            }
-
+            execute(task, pipe.sink(), pipe.source());
             result = pipe.source();
             // [enddef]
         } else {
@@ -435,6 +577,78 @@ public class IoUtils {
         return result;
     }
 
+    // [ifndef gwt] method
+    /**
+     * Returns an input stream based on the given representation's content and
+     * its write(OutputStream) method, like {@link #getStream(Representation)}
+     * but reporting the rejection of the pipe conversion by a saturated
+     * executor as an IOException.
+     * 
+     * @param representation
+     *            the representation to get the {@link java.io.OutputStream}
+     *            from.
+     * @return A stream with the representation's content.
+     * @throws IOException
+     *             If the pipe conversion couldn't be started by a saturated
+     *             executor.
+     */
+    public static InputStream getInputStream(Representation representation)
+            throws IOException {
+        try {
+            return getStream(representation);
+        } catch (RejectedExecutionException ree) {
+            throw new IOException(ree.getMessage(), ree);
+        }
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Returns the shared executor of the pipe conversions, used when the
+     * current context has no executor service. Creates a new instance if no one
+     * has been set, configured by the "org.restlet.engine.io.pipeMaxThreads"
+     * (defaults to "64") and "org.restlet.engine.io.pipeVirtualThreads"
+     * (defaults to "false") system properties. By default, the executor is
+     * unbounded, the conversions beyond the pooled threads running on new
+     * threads. Setting the "org.restlet.engine.io.pipeBounded" system property
+     * to "true" makes it reject the conversions when saturated, bounded by the
+     * "org.restlet.engine.io.pipeMaxQueued" (defaults to "64") and
+     * "org.restlet.engine.io.pipeAcquireTimeoutMs" (defaults to "0", the
+     * conversions being rejected right away) system properties.
+     * 
+     * @return The shared executor of the pipe conversions.
+     */
+    public static PipeExecutor getPipeExecutor() {
+        // Lazy initialization with double-check.
+        PipeExecutor pe = pipeExecutor;
+
+        if (pe == null) {
+            synchronized (IoUtils.class) {
+                pe = pipeExecutor;
+
+                if (pe == null) {
+                    int maxThreads = getProperty(
+                            "org.restlet.engine.io.pipeMaxThreads", 64);
+                    boolean virtualThreads = Boolean
+                            .getBoolean("org.restlet.engine.io.pipeVirtualThreads");
+
+                    if (Boolean.getBoolean("org.restlet.engine.io.pipeBounded")) {
+                        pe = new PipeExecutor(maxThreads, getProperty(
+                                "org.restlet.engine.io.pipeMaxQueued", 64),
+                                virtualThreads, getProperty(
+                                        "org.restlet.engine.io.pipeAcquireTimeoutMs",
+                                        0));
+                    } else {
+                        pe = new PipeExecutor(maxThreads, virtualThreads);
+                    }
+
+                    pipeExecutor = pe;
+                }
+            }
+        }
+
+        return pe;
+    }
+
     private static int getProperty(String name, int defaultValue) {
         int result = defaultValue;
 
@@ -514,15 +728,7 @@ public class IoUtils {
                 }
             };
 
-            org.restlet.Context context = org.restlet.Context.getCurrent();
-
-            if (context != null && context.getExecutorService() != null) {
-                context.getExecutorService().execute(task);
-            } else {
-                Engine.createThreadWithLocalVariables(task, "Restlet-IoUtils")
-                        .start();
-            }
-
+            execute(task, pipedReader);
             result = pipedReader;
             // [enddef]
         } else {
@@ -603,6 +809,10 @@ public class IoUtils {
      *            the representation to get the {@link java.io.OutputStream}
      *            from.
      * @return A stream with the representation's content.
+     * @throws RejectedExecutionException
+     *             If the pipe conversion couldn't be started by a saturated
+     *             executor. The pipe is closed before.
+     * @see #getInputStream(Representation)
      */
     public static InputStream getStream(final Representation representation) {
         InputStream result = null;
@@ -639,13 +849,17 @@ public class IoUtils {
                 }
             };
 
-            org.restlet.Context context = org.restlet.Context.getCurrent();
+            try {
+                execute(task);
+            } catch (RejectedExecutionException ree) {
+                try {
+                    os.close();
+                } catch (IOException ioe) {
+                    Context.getCurrentLogger().log(Level.FINE,
+                            "Error while closing the pipe.", ioe);
+                }
 
-            if (context != null && context.getExecutorService() != null) {
-                context.getExecutorService().execute(task);
-            } else {
-                Engine.createThreadWithLocalVariables(task, "Restlet-IoUtils")
-                        .start();
+                throw ree;
             }
 
             result = pipe.getInputStream();
@@ -708,6 +922,68 @@ public class IoUtils {
         return result;
     }
 
+    // [ifndef gwt] method
+    /**
+     * Returns a file channel positioned at the first byte of the
+     * representation's content that must be written, or null if the content
+     * isn't directly backed by a file. This is the case of file
+     * representations without range and of {@link RangeRepresentation}
+     * instances wrapping them. The number of bytes to write is returned by
+     * {@link Representation#getAvailableSize()}. The channel must be closed by
+     * the caller.
+     * 
+     * @param representation
+     *            The representation to write.
+     * @return The file channel positioned at the first byte to write or null.
+     * @throws IOException
+     */
+    public static FileChannel getTransferChannel(Representation representation)
+            throws IOException {
+        FileChannel result = null;
+        Representation source = representation;
+
+        if (representation instanceof RangeRepresentation) {
+            source = ((RangeRepresentation) representation)
+                    .getWrappedRepresentation();
+        }
+
+        if ((source instanceof FileRepresentation)
+                && (source.getRange() == null) && source.isAvailable()
+                && representation.hasKnownSize()) {
+            result = ((FileRepresentation) source).getChannel();
+
+            if (representation.getRange() != null) {
+                result.position(getTransferIndex(representation.getRange(),
+                        representation.getSize()));
+            }
+        }
+
+        return result;
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Returns the index of the first byte of a range inside a content of a
+     * given total size.
+     * 
+     * @param range
+     *            The range to satisfy.
+     * @param totalSize
+     *            The total size of the content.
+     * @return The index of the first byte of the range.
+     */
+    private static long getTransferIndex(Range range, long totalSize) {
+        long result = 0;
+
+        if (range.getIndex() != Range.INDEX_LAST) {
+            result = range.getIndex();
+        } else if (range.getSize() != Range.SIZE_MAX) {
+            result = Math.max(0, totalSize - range.getSize());
+        }
+
+        return result;
+    }
+
     // [ifndef gwt] method
     /**
      * Returns a writer to the given output stream, using the given character
@@ -780,6 +1056,27 @@ public class IoUtils {
 
     }
 
+    // [ifndef gwt] method
+    /**
+     * Sets the shared executor of the pipe conversions. The previous executor,
+     * if any, is shut down.
+     * 
+     * @param executor
+     *            The shared executor of the pipe conversions.
+     */
+    public static void setPipeExecutor(PipeExecutor executor) {
+        PipeExecutor previous;
+
+        synchronized (IoUtils.class) {
+            previous = pipeExecutor;
+            pipeExecutor = executor;
+        }
+
+        if ((previous != null) && (previous != executor)) {
+            previous.shutdown();
+        }
+    }
+
     // [ifndef gwt] method
     /**
      * Converts a char array into a byte array using the default character set.
@@ -0,0 +1,479 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.io;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.restlet.Application;
+import org.restlet.Context;
+import org.restlet.Response;
+import org.restlet.engine.Engine;
+import org.restlet.engine.util.ContextualRunnable;
+import org.restlet.engine.util.SystemUtils;
+import org.restlet.routing.VirtualHost;
+
+// [excludes gwt]
+/**
+ * Executor running the writer side of the pipes created by {@link IoUtils} to
+ * convert a representation's write methods into streams, channels or readers.
+ * It reuses the threads of a pool instead of creating a new thread for each
+ * conversion.<br>
+ * <br>
+ * By default, the executor is unbounded: up to "maxThreads" conversions run on
+ * the pooled threads and the additional ones run on a new thread each, as
+ * before the executor was introduced. A conversion never waits for a pooled
+ * thread, so nested conversions, such as an encoded output representation,
+ * can't deadlock.<br>
+ * <br>
+ * The bounds are opt-in: when the executor is bounded, at most "maxThreads"
+ * conversions run concurrently and at most "maxQueued" additional conversions
+ * wait for a thread. When the executor is saturated, the conversion is
+ * rejected with a {@link RejectedExecutionException}, right away or after an
+ * acquire timeout. Note that in this mode, a conversion started by another
+ * conversion can wait for a thread held by its parent, so the bounds must
+ * account for the nesting of the conversions.<br>
+ * <br>
+ * On Java 21 and later, the conversions can alternatively run on virtual
+ * threads, each conversion getting its own thread, still within the same
+ * bounds.<br>
+ * <br>
+ * As with threads created via
+ * {@link Engine#createThreadWithLocalVariables(Runnable, String)}, the Restlet
+ * thread local variables of the calling thread are copied to the thread
+ * running the task.
+ * 
+ * @author Jerome Louvel
+ */
+public class PipeExecutor implements Executor {
+
+    /** The maximum time waited for a slot, in milliseconds. */
+    private final long acquireTimeout;
+
+    /** The number of conversions currently running. */
+    private final AtomicInteger activeCount;
+
+    /** Indicates if the conversions are rejected when saturated. */
+    private final boolean bounded;
+
+    /** The number of conversions completed. */
+    private final AtomicLong completedCount;
+
+    /** The pool of platform threads, or null if virtual threads are used. */
+    private final ThreadPoolExecutor pool;
+
+    /** The maximum number of concurrent conversions. */
+    private final int maxThreads;
+
+    /** The maximum number of conversions waiting for a thread. */
+    private final int maxQueued;
+
+    /** The permits of conversions either running or queued. */
+    private final Semaphore permits;
+
+    /** The number of conversions run on a new thread as the pool was busy. */
+    private final AtomicLong overflowCount;
+
+    /** The number of conversions waiting for a thread. */
+    private final AtomicInteger queuedCount;
+
+    /** The number of conversions rejected. */
+    private final AtomicLong rejectedCount;
+
+    /** The virtual thread factory, or null if platform threads are used. */
+    private final ThreadFactory virtualThreadFactory;
+
+    /**
+     * Constructor of an unbounded executor. The conversions beyond the maximum
+     * number of pooled threads run on a new thread each.
+     * 
+     * @param maxThreads
+     *            The maximum number of pooled threads.
+     * @param virtualThreads
+     *            Indicates if virtual threads should be used when supported
+     *            by the Java Runtime Environment.
+     */
+    public PipeExecutor(int maxThreads, boolean virtualThreads) {
+        this(false, maxThreads, 0, virtualThreads, 0L);
+    }
+
+    /**
+     * Constructor of a bounded executor. The conversions are rejected without
+     * waiting when the executor is saturated.
+     * 
+     * @param maxThreads
+     *            The maximum number of concurrent conversions.
+     * @param maxQueued
+     *            The maximum number of conversions waiting for a thread.
+     * @param virtualThreads
+     *            Indicates if virtual threads should be used when supported
+     *            by the Java Runtime Environment.
+     */
+    public PipeExecutor(int maxThreads, int maxQueued, boolean virtualThreads) {
+        this(maxThreads, maxQueued, virtualThreads, 0L);
+    }
+
+    /**
+     * Constructor of a bounded executor.
+     * 
+     * @param maxThreads
+     *            The maximum number of concurrent conversions.
+     * @param maxQueued
+     *            The maximum number of conversions waiting for a thread.
+     * @param virtualThreads
+     *            Indicates if virtual threads should be used when supported
+     *            by the Java Runtime Environment.
+     * @param acquireTimeout
+     *            The maximum time waited for a slot when the executor is
+     *            saturated, in milliseconds, or 0 to reject the conversions
+     *            right away.
+     */
+    public PipeExecutor(int maxThreads, int maxQueued, boolean virtualThreads,
+            long acquireTimeout) {
+        this(true, maxThreads, maxQueued, virtualThreads, acquireTimeout);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param bounded
+     *            Indicates if the conversions are rejected when saturated.
+     * @param maxThreads
+     *            The maximum number of pooled threads.
+     * @param maxQueued
+     *            The maximum number of conversions waiting for a thread.
+     * @param virtualThreads
+     *            Indicates if virtual threads should be used when supported
+     *            by the Java Runtime Environment.
+     * @param acquireTimeout
+     *            The maximum time waited for a slot when the executor is
+     *            saturated, in milliseconds.
+     */
+    private PipeExecutor(boolean bounded, int maxThreads, int maxQueued,
+            boolean virtualThreads, long acquireTimeout) {
+        this.bounded = bounded;
+        this.acquireTimeout = acquireTimeout;
+        this.maxThreads = maxThreads;
+        this.maxQueued = maxQueued;
+        this.activeCount = new AtomicInteger();
+        this.queuedCount = new AtomicInteger();
+        this.completedCount = new AtomicLong();
+        this.overflowCount = new AtomicLong();
+        this.rejectedCount = new AtomicLong();
+        this.permits = new Semaphore(maxThreads + maxQueued, true);
+        this.virtualThreadFactory = virtualThreads ? SystemUtils
+                .createVirtualThreadFactory("Restlet-IoUtils-") : null;
+
+        if (this.virtualThreadFactory == null) {
+            if (virtualThreads) {
+                Context.getCurrentLogger().fine(
+                        "Virtual threads aren't supported by this JVM. "
+                                + "Using platform threads instead.");
+            }
+
+            this.pool = new ThreadPoolExecutor(maxThreads, maxThreads, 60L,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactory() {
+                        private final AtomicInteger count = new AtomicInteger();
+
+                        public Thread newThread(Runnable runnable) {
+                            Thread result = new Thread(runnable,
+                                    "Restlet-IoUtils-"
+                                            + count.incrementAndGet());
+                            result.setDaemon(true);
+                            return result;
+                        }
+                    });
+            this.pool.allowCoreThreadTimeOut(true);
+        } else {
+            this.pool = null;
+        }
+    }
+
+    /**
+     * Executes the given conversion task. When the executor is bounded, waits
+     * for a slot up to the acquire timeout if the maximum number of running
+     * and queued conversions has been reached.
+     * 
+     * @param task
+     *            The conversion task.
+     * @throws RejectedExecutionException
+     *             If the executor is bounded and no slot became available
+     *             before the timeout or if the calling thread was interrupted.
+     * @see #getAcquireTimeout()
+     */
+    public void execute(Runnable task) {
+        execute(task, getAcquireTimeout());
+    }
+
+    /**
+     * Executes the given conversion task. When the executor is bounded, waits
+     * for a slot up to the given timeout if the maximum number of running and
+     * queued conversions has been reached. Otherwise, the timeout is ignored
+     * and the task runs on a new thread if all the pooled threads are busy.
+     * 
+     * @param task
+     *            The conversion task.
+     * @param acquireTimeout
+     *            The maximum time waited for a slot, in milliseconds, or 0 to
+     *            reject the conversion right away.
+     * @throws RejectedExecutionException
+     *             If the executor is bounded and no slot became available
+     *             before the timeout or if the calling thread was interrupted.
+     */
+    public void execute(Runnable task, long acquireTimeout) {
+        boolean acquired = false;
+
+        if (isBounded()) {
+            try {
+                acquired = this.permits.tryAcquire(acquireTimeout,
+                        TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else {
+            acquired = this.permits.tryAcquire();
+        }
+
+        if (!acquired) {
+            if (isBounded()) {
+                this.rejectedCount.incrementAndGet();
+                throw new RejectedExecutionException(
+                        "Unable to start the pipe conversion, the executor is saturated ("
+                                + getActiveCount() + " active, "
+                                + getQueuedCount() + " queued)");
+            }
+
+            // Never wait for a pooled thread, it could be held by the
+            // conversion waiting for this one
+            this.overflowCount.incrementAndGet();
+
+            if (this.virtualThreadFactory != null) {
+                this.virtualThreadFactory.newThread(wrap(task, false)).start();
+            } else {
+                Thread thread = new Thread(wrap(task, false), "Restlet-IoUtils");
+                thread.setDaemon(true);
+                thread.start();
+            }
+
+            return;
+        }
+
+        this.queuedCount.incrementAndGet();
+
+        try {
+            if (this.pool != null) {
+                this.pool.execute(wrap(task, true));
+            } else {
+                this.virtualThreadFactory.newThread(wrap(task, true)).start();
+            }
+        } catch (RuntimeException e) {
+            this.queuedCount.decrementAndGet();
+            this.rejectedCount.incrementAndGet();
+            this.permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the maximum time waited for a slot when the executor is
+     * saturated, in milliseconds. Zero means that the conversions are rejected
+     * right away.
+     * 
+     * @return The maximum time waited for a slot.
+     */
+    public long getAcquireTimeout() {
+        return this.acquireTimeout;
+    }
+
+    /**
+     * Returns the number of conversions currently running.
+     * 
+     * @return The number of conversions currently running.
+     */
+    public int getActiveCount() {
+        return this.activeCount.get();
+    }
+
+    /**
+     * Returns the number of conversions completed since the creation of the
+     * executor.
+     * 
+     * @return The number of conversions completed.
+     */
+    public long getCompletedCount() {
+        return this.completedCount.get();
+    }
+
+    /**
+     * Returns the maximum number of conversions waiting for a thread.
+     * 
+     * @return The maximum number of conversions waiting for a thread.
+     */
+    public int getMaxQueued() {
+        return this.maxQueued;
+    }
+
+    /**
+     * Returns the maximum number of pooled threads, which is the maximum
+     * number of concurrent conversions if the executor is bounded.
+     * 
+     * @return The maximum number of pooled threads.
+     */
+    public int getMaxThreads() {
+        return this.maxThreads;
+    }
+
+    /**
+     * Returns the number of conversions run on a new thread because all the
+     * pooled threads were busy. Always zero for a bounded executor.
+     * 
+     * @return The number of conversions run on a new thread.
+     */
+    public long getOverflowCount() {
+        return this.overflowCount.get();
+    }
+
+    /**
+     * Returns the number of conversions waiting for a thread.
+     * 
+     * @return The number of conversions waiting for a thread.
+     */
+    public int getQueuedCount() {
+        return this.queuedCount.get();
+    }
+
+    /**
+     * Returns the number of conversions rejected because the executor was
+     * saturated.
+     * 
+     * @return The number of conversions rejected.
+     */
+    public long getRejectedCount() {
+        return this.rejectedCount.get();
+    }
+
+    /**
+     * Indicates if the executor is bounded, rejecting the conversions when
+     * saturated instead of running them on new threads.
+     * 
+     * @return True if the executor is bounded.
+     */
+    public boolean isBounded() {
+        return this.bounded;
+    }
+
+    /**
+     * Indicates if the conversions run on virtual threads.
+     * 
+     * @return True if the conversions run on virtual threads.
+     */
+    public boolean isVirtualThreads() {
+        return this.virtualThreadFactory != null;
+    }
+
+    /**
+     * Shuts down the pool of platform threads. Running and queued conversions
+     * are completed but no new conversion is accepted.
+     */
+    public void shutdown() {
+        if (this.pool != null) {
+            this.pool.shutdown();
+        }
+    }
+
+    /**
+     * Wraps a conversion task to copy the Restlet thread local variables of
+     * the calling thread and to update the counters.
+     * 
+     * @param task
+     *            The conversion task.
+     * @param pooled
+     *            Indicates if the task holds a slot of the pooled threads.
+     * @return The wrapped task.
+     */
+    private Runnable wrap(final Runnable task, final boolean pooled) {
+        // Save the thread local variables
+        final Application currentApplication = Application.getCurrent();
+        final Context currentContext = Context.getCurrent();
+        final Integer currentVirtualHost = VirtualHost.getCurrent();
+        final Response currentResponse = Response.getCurrent();
+
+        return new Runnable() {
+            public void run() {
+                if (pooled) {
+                    queuedCount.decrementAndGet();
+                }
+
+                activeCount.incrementAndGet();
+
+                // Copy the thread local variables
+                Response.setCurrent(currentResponse);
+                Context.setCurrent(currentContext);
+                VirtualHost.setCurrent(currentVirtualHost);
+                Application.setCurrent(currentApplication);
+                ClassLoader tccl = Thread.currentThread()
+                        .getContextClassLoader();
+
+                try {
+                    if (task instanceof ContextualRunnable) {
+                        Thread.currentThread().setContextClassLoader(
+                                ((ContextualRunnable) task)
+                                        .getContextClassLoader());
+                    }
+
+                    // Run the conversion task
+                    task.run();
+                } finally {
+                    Engine.clearThreadLocalVariables();
+                    Thread.currentThread().setContextClassLoader(tccl);
+                    activeCount.decrementAndGet();
+                    completedCount.incrementAndGet();
+
+                    if (pooled) {
+                        permits.release();
+                    }
+                }
+            }
+        };
+    }
+
+}
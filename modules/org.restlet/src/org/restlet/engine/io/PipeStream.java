@@ -36,28 +36,88 @@ package org.restlet.engine.io;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 // [excludes gwt]
 /**
  * Pipe stream that pipes output streams into input streams. Implementation
- * based on a shared synchronized queue.
+ * based on a shared circular byte buffer, allowing bulk reads and writes
+ * between the writer and the reader threads without boxing each byte.
  * 
  * @author Jerome Louvel
  */
 public class PipeStream {
 
-    /** The queue timeout. */
+    /** The timeout in seconds of blocking reads and writes. */
     private static final long QUEUE_TIMEOUT = 5;
 
-    /** The supporting synchronized queue. */
-    private final BlockingQueue<Integer> queue;
+    /** The circular byte buffer. */
+    private final byte[] buffer;
+
+    /** The number of bytes available for reading in the buffer. */
+    private int count;
+
+    /** Indicates if the input stream was closed by the reader. */
+    private boolean readerClosed;
+
+    /** The index of the next byte to read in the buffer. */
+    private int readIndex;
+
+    /** Indicates if the output stream was closed by the writer. */
+    private boolean writerClosed;
 
     /** Constructor. */
     public PipeStream() {
-        this.queue = new ArrayBlockingQueue<Integer>(1024);
+        this(IoUtils.BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param capacity
+     *            The capacity of the circular buffer in bytes.
+     */
+    public PipeStream(int capacity) {
+        this.buffer = new byte[capacity];
+        this.count = 0;
+        this.readIndex = 0;
+        this.readerClosed = false;
+        this.writerClosed = false;
+    }
+
+    /**
+     * Waits on the pipe's monitor until it is notified or until the timeout
+     * has been exceeded. Must be invoked while holding the monitor.
+     * 
+     * @param deadline
+     *            The deadline in nanoseconds, based on {@link System#nanoTime()}.
+     * @param message
+     *            The message of the exception thrown in case of timeout.
+     * @throws IOException
+     */
+    private void await(long deadline, String message) throws IOException {
+        long remaining = deadline - System.nanoTime();
+
+        if (remaining <= 0) {
+            throw new IOException(message);
+        }
+
+        try {
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException(
+                    "Interruption occurred while waiting on the pipe");
+        }
+    }
+
+    /**
+     * Returns the deadline for a blocking operation started now.
+     * 
+     * @return The deadline in nanoseconds.
+     */
+    private long getDeadline() {
+        return System.nanoTime() + TimeUnit.SECONDS.toNanos(QUEUE_TIMEOUT);
     }
 
     /**
@@ -67,29 +127,39 @@ public class PipeStream {
      */
     public InputStream getInputStream() {
         return new InputStream() {
-            private boolean endReached = false;
+            /** Scratch array of single byte reads, used by the reader only. */
+            private final byte[] single = new byte[1];
+
+            @Override
+            public int available() throws IOException {
+                synchronized (PipeStream.this) {
+                    return count;
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                synchronized (PipeStream.this) {
+                    readerClosed = true;
+                    PipeStream.this.notifyAll();
+                }
+            }
 
             @Override
             public int read() throws IOException {
-                try {
-                    if (this.endReached) {
-                        return -1;
-                    }
-
-                    final Integer value = queue.poll(QUEUE_TIMEOUT,
-                            TimeUnit.SECONDS);
-                    this.endReached = (value == -1);
-
-                    if (value == null) {
-                        throw new IOException(
-                                "Timeout while reading from the queue-based input stream");
-                    } else {
-                        return value.intValue();
-                    }
-                } catch (InterruptedException ie) {
-                    throw new IOException(
-                            "Interruption occurred while writing in the queue");
+                return (PipeStream.this.read(this.single, 0, 1) == -1) ? -1
+                        : (this.single[0] & 0xff);
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if ((off < 0) || (len < 0) || (len > b.length - off)) {
+                    throw new IndexOutOfBoundsException();
+                } else if (len == 0) {
+                    return 0;
                 }
+
+                return PipeStream.this.read(b, off, len);
             }
         };
     }
@@ -101,32 +171,115 @@ public class PipeStream {
      */
     public OutputStream getOutputStream() {
         return new OutputStream() {
+            /** Scratch array of single byte writes, used by the writer only. */
+            private final byte[] single = new byte[1];
+
             @Override
-            public void write(int b) throws IOException {
-                try {
-                    if (!queue.offer(b & 0xff, QUEUE_TIMEOUT, TimeUnit.SECONDS)) {
-                        throw new IOException(
-                                "Timeout while writing to the queue-based output stream");
-                    }
-                } catch (InterruptedException ie) {
-                    throw new IOException(
-                            "Interruption occurred while writing in the queue");
+            public void close() throws IOException {
+                synchronized (PipeStream.this) {
+                    writerClosed = true;
+                    PipeStream.this.notifyAll();
                 }
             }
 
             @Override
-            public void close() throws IOException {
-                try {
-                    if (!queue.offer(-1, QUEUE_TIMEOUT, TimeUnit.SECONDS)) {
-                        throw new IOException(
-                                "Timeout while writing to the queue-based output stream");
-                    }
-                } catch (InterruptedException ie) {
-                    throw new IOException(
-                            "Interruption occurred while writing in the queue");
+            public void write(byte[] b, int off, int len) throws IOException {
+                if ((off < 0) || (len < 0) || (len > b.length - off)) {
+                    throw new IndexOutOfBoundsException();
                 }
+
+                PipeStream.this.write(b, off, len);
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                this.single[0] = (byte) b;
+                PipeStream.this.write(this.single, 0, 1);
             }
         };
     }
 
+    /**
+     * Reads bytes from the pipe, blocking until at least one byte is available
+     * or the writer closed the pipe.
+     * 
+     * @param b
+     *            The target byte array.
+     * @param off
+     *            The start offset in the target array.
+     * @param len
+     *            The maximum number of bytes to read.
+     * @return The number of bytes read or -1 if the end of the pipe is
+     *         reached.
+     * @throws IOException
+     */
+    private synchronized int read(byte[] b, int off, int len)
+            throws IOException {
+        long deadline = 0L;
+
+        while (this.count == 0) {
+            if (this.writerClosed) {
+                return -1;
+            }
+
+            if (deadline == 0L) {
+                deadline = getDeadline();
+            }
+
+            await(deadline, "Timeout while reading from the pipe");
+        }
+
+        int result = Math.min(len, this.count);
+        int first = Math.min(result, this.buffer.length - this.readIndex);
+        System.arraycopy(this.buffer, this.readIndex, b, off, first);
+        System.arraycopy(this.buffer, 0, b, off + first, result - first);
+        this.readIndex = (this.readIndex + result) % this.buffer.length;
+        this.count -= result;
+        notifyAll();
+        return result;
+    }
+
+    /**
+     * Writes bytes into the pipe, blocking while the buffer is full.
+     * 
+     * @param b
+     *            The source byte array.
+     * @param off
+     *            The start offset in the source array.
+     * @param len
+     *            The number of bytes to write.
+     * @throws IOException
+     */
+    private synchronized void write(byte[] b, int off, int len)
+            throws IOException {
+        long deadline = 0L;
+
+        while (len > 0) {
+            if (this.writerClosed) {
+                throw new IOException("The pipe's output stream is closed");
+            } else if (this.readerClosed) {
+                throw new IOException("The pipe's input stream is closed");
+            } else if (this.count == this.buffer.length) {
+                if (deadline == 0L) {
+                    deadline = getDeadline();
+                }
+
+                await(deadline, "Timeout while writing to the pipe");
+            } else {
+                int writeIndex = (this.readIndex + this.count)
+                        % this.buffer.length;
+                int written = Math.min(len, this.buffer.length - this.count);
+                int first = Math.min(written, this.buffer.length - writeIndex);
+                System.arraycopy(b, off, this.buffer, writeIndex, first);
+                System.arraycopy(b, off + first, this.buffer, 0, written
+                        - first);
+                this.count += written;
+                off += written;
+                len -= written;
+                deadline = 0L;
+                notifyAll();
+            }
+        }
+    }
+
 }
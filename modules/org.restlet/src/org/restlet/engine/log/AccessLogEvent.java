@@ -0,0 +1,284 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.log;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.Method;
+import org.restlet.data.Status;
+
+/**
+ * Compact access log event, captured on the calling thread and formatted later
+ * by the {@link AccessLogWriter}. Instances are reusable slots of the writer's
+ * ring buffer, so they only hold references to the values of the call and
+ * don't format anything at capture time. A preformatted message can be set
+ * instead when a custom log format is used.<br>
+ * <br>
+ * The fields aren't volatile as they are safely published to the writer's
+ * thread by the volatile sequence number written after them.
+ * 
+ * @author Jerome Louvel
+ */
+public class AccessLogEvent {
+
+    /** The client agent name. */
+    private String agent;
+
+    /** The sequence number under which the event was claimed. */
+    long claimed;
+
+    /** The client IP address. */
+    private String clientAddress;
+
+    /** The call duration in milliseconds. */
+    private int duration;
+
+    /** The host reference. */
+    private String hostRef;
+
+    /** The preformatted message or null. */
+    private String message;
+
+    /** The method name. */
+    private String method;
+
+    /** The resource reference path. */
+    private String path;
+
+    /** The sequence number under which the event was published. */
+    volatile long published;
+
+    /** The resource reference query. */
+    private String query;
+
+    /** The received size or -1 if unknown. */
+    private long receivedSize;
+
+    /** The referrer reference. */
+    private String referrer;
+
+    /** The sent size or -1 if unknown. */
+    private long sentSize;
+
+    /** The server IP address. */
+    private String serverAddress;
+
+    /** The server port. */
+    private int serverPort;
+
+    /** The status code or -1. */
+    private int status;
+
+    /** The time of the call in milliseconds. */
+    private long time;
+
+    /** The remote user identifier. */
+    private String user;
+
+    /**
+     * Constructor.
+     */
+    public AccessLogEvent() {
+        this.published = -1;
+        clear();
+    }
+
+    /**
+     * Appends a value or "-" if it is null.
+     * 
+     * @param sb
+     *            The target builder.
+     * @param value
+     *            The value to append.
+     */
+    private void append(StringBuilder sb, String value) {
+        sb.append((value == null) ? "-" : value);
+    }
+
+    /**
+     * Appends the formatted event, without the date and time of the call, to
+     * the given builder. The fields follow the default format of the
+     * {@link org.restlet.service.LogService}.
+     * 
+     * @param sb
+     *            The target builder.
+     */
+    public void appendTo(StringBuilder sb) {
+        append(sb, this.clientAddress);
+        sb.append('\t');
+        append(sb, this.user);
+        sb.append('\t');
+        append(sb, this.serverAddress);
+        sb.append('\t');
+
+        sb.append(this.serverPort);
+        sb.append('\t');
+        append(sb, this.method);
+        sb.append('\t');
+        append(sb, this.path);
+        sb.append('\t');
+        append(sb, this.query);
+        sb.append('\t');
+
+        if (this.status == -1) {
+            sb.append('-');
+        } else {
+            sb.append(this.status);
+        }
+
+        sb.append('\t');
+
+        if (this.sentSize == -1) {
+            sb.append('-');
+        } else {
+            sb.append(this.sentSize);
+        }
+
+        sb.append('\t');
+
+        if (this.receivedSize == -1) {
+            sb.append('-');
+        } else {
+            sb.append(this.receivedSize);
+        }
+
+        sb.append('\t');
+        sb.append(this.duration);
+        sb.append('\t');
+        append(sb, this.hostRef);
+        sb.append('\t');
+        append(sb, this.agent);
+        sb.append('\t');
+        append(sb, this.referrer);
+    }
+
+    /**
+     * Captures the values of a call to log with the default format.
+     * 
+     * @param response
+     *            The response to log.
+     * @param duration
+     *            The call duration in milliseconds.
+     * @param user
+     *            The remote user identifier or null.
+     */
+    public void capture(Response response, int duration, String user) {
+        Request request = response.getRequest();
+        this.time = System.currentTimeMillis();
+        this.clientAddress = request.getClientInfo().getUpstreamAddress();
+        this.user = user;
+        this.serverAddress = response.getServerInfo().getAddress();
+        this.serverPort = response.getServerInfo().getPort();
+        this.method = (request.getMethod() == null) ? null : request
+                .getMethod().getName();
+
+        if (request.getResourceRef() != null) {
+            this.path = request.getResourceRef().getPath();
+            this.query = request.getResourceRef().getQuery();
+        }
+
+        this.status = (response.getStatus() == null) ? -1 : response
+                .getStatus().getCode();
+
+        if (!response.isEntityAvailable()
+                || Status.REDIRECTION_NOT_MODIFIED.equals(response.getStatus())
+                || Status.SUCCESS_NO_CONTENT.equals(response.getStatus())
+                || Method.HEAD.equals(request.getMethod())) {
+            this.sentSize = 0;
+        } else {
+            this.sentSize = response.getEntity().getSize();
+        }
+
+        this.receivedSize = (request.getEntity() == null) ? 0 : request
+                .getEntity().getSize();
+        this.duration = duration;
+        this.hostRef = (request.getHostRef() == null) ? null : request
+                .getHostRef().toString();
+        this.agent = request.getClientInfo().getAgent();
+        this.referrer = (request.getReferrerRef() == null) ? null : request
+                .getReferrerRef().getIdentifier();
+    }
+
+    /**
+     * Releases the references held by the event.
+     */
+    public void clear() {
+        this.agent = null;
+        this.clientAddress = null;
+        this.duration = 0;
+        this.hostRef = null;
+        this.message = null;
+        this.method = null;
+        this.path = null;
+        this.query = null;
+        this.receivedSize = 0;
+        this.referrer = null;
+        this.sentSize = 0;
+        this.serverAddress = null;
+        this.serverPort = -1;
+        this.status = -1;
+        this.time = 0;
+        this.user = null;
+    }
+
+    /**
+     * Returns the preformatted message or null.
+     * 
+     * @return The preformatted message or null.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the time of the call in milliseconds.
+     * 
+     * @return The time of the call in milliseconds.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Sets the preformatted message.
+     * 
+     * @param message
+     *            The preformatted message.
+     */
+    public void setMessage(String message) {
+        this.message = message;
+        this.time = System.currentTimeMillis();
+    }
+
+}
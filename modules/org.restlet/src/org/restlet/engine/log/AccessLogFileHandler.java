@@ -34,15 +34,51 @@
 package org.restlet.engine.log;
 
 import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * Log file handler that uses the {@link AccessLogFormatter} by default. Also
  * useful in configuration files to differentiate from the
- * {@link java.util.logging.FileHandler}.
+ * {@link java.util.logging.FileHandler}.<br>
+ * <br>
+ * While a thread defers the flushes, such as the {@link AccessLogWriter}
+ * writing a batch of records, the records published by this thread are only
+ * flushed once at the end of the batch.
  * 
  * @author Jerome Louvel
  */
 public class AccessLogFileHandler extends java.util.logging.FileHandler {
+
+    /** The handlers whose flush is deferred by the current thread. */
+    private static final ThreadLocal<Set<AccessLogFileHandler>> DEFERRED_FLUSHES = new ThreadLocal<Set<AccessLogFileHandler>>();
+
+    /**
+     * Defers the flushes of the handlers by the current thread until
+     * {@link #flushDeferred()} is called.
+     */
+    public static void deferFlushes() {
+        if (DEFERRED_FLUSHES.get() == null) {
+            DEFERRED_FLUSHES.set(new LinkedHashSet<AccessLogFileHandler>());
+        }
+    }
+
+    /**
+     * Flushes the handlers whose flush was deferred by the current thread,
+     * and stops deferring the flushes.
+     */
+    public static void flushDeferred() {
+        Set<AccessLogFileHandler> handlers = DEFERRED_FLUSHES.get();
+
+        if (handlers != null) {
+            DEFERRED_FLUSHES.remove();
+
+            for (AccessLogFileHandler handler : handlers) {
+                handler.flush();
+            }
+        }
+    }
+
     /**
      * Constructor.
      * 
@@ -122,6 +158,21 @@ public class AccessLogFileHandler extends java.util.logging.FileHandler {
         init();
     }
 
+    /**
+     * Flushes the output stream, unless the current thread defers the
+     * flushes.
+     */
+    @Override
+    public void flush() {
+        Set<AccessLogFileHandler> handlers = DEFERRED_FLUSHES.get();
+
+        if (handlers == null) {
+            super.flush();
+        } else {
+            handlers.add(this);
+        }
+    }
+
     /**
      * Initialization code common to all constructors.
      */
@@ -0,0 +1,397 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Asynchronous writer of access log events. The calling threads claim a slot
+ * in a bounded ring buffer without locking, fill it and publish it. A single
+ * background thread, parked while no event is published, formats the
+ * published events, caching the date and time prefix of the current second,
+ * and logs each of them as a record of the access logger. The events are
+ * written by batches, the {@link AccessLogFileHandler} instances being flushed
+ * once per batch instead of once per record. The rolling of the files is left
+ * to the handlers of this logger, such as the {@link AccessLogFileHandler}
+ * with a size limit and a count of files.<br>
+ * <br>
+ * When the ring buffer is full, the events are either dropped and counted, or
+ * the calling threads wait for free slots, depending on the blocking mode. The
+ * events published while the writer stops are written by the stopping thread
+ * or by the publishing one.
+ * 
+ * @author Jerome Louvel
+ */
+public class AccessLogWriter implements Runnable {
+
+    /** The maximum number of events written before flushing the handlers. */
+    private static final int BATCH_SIZE = 256;
+
+    /** The nanoseconds to park while waiting for free slots. */
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** Indicates if the callers wait for free slots instead of dropping. */
+    private final boolean blocking;
+
+    /** The date and time prefix of the cached second. */
+    private String datePrefix;
+
+    /** The cached second, in milliseconds since the epoch. */
+    private long dateSecond;
+
+    /** The number of dropped events. */
+    private final AtomicLong droppedCount;
+
+    /** The sequence number of the next event to consume. */
+    private final AtomicLong head;
+
+    /** The access logger. */
+    private final Logger logger;
+
+    /** The mask to compute the slot indexes. */
+    private final int mask;
+
+    /** Indicates if the writer is running. */
+    private volatile boolean running;
+
+    /** The ring buffer of events. */
+    private final AccessLogEvent[] slots;
+
+    /** The sequence number of the next event to claim. */
+    private final AtomicLong tail;
+
+    /** The background thread, cleared when it stops consuming the events. */
+    private final AtomicReference<Thread> thread;
+
+    /** Indicates if the background thread is parked waiting for events. */
+    private volatile boolean waiting;
+
+    /** The number of written events. */
+    private final AtomicLong writtenCount;
+
+    /**
+     * Constructor.
+     * 
+     * @param logger
+     *            The access logger.
+     * @param capacity
+     *            The capacity of the ring buffer, rounded up to a power of
+     *            two.
+     * @param blocking
+     *            Indicates if the callers wait for free slots instead of
+     *            dropping events.
+     */
+    public AccessLogWriter(Logger logger, int capacity, boolean blocking) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.logger = logger;
+        this.blocking = blocking;
+        this.mask = size - 1;
+        this.slots = new AccessLogEvent[size];
+
+        for (int i = 0; i < size; i++) {
+            this.slots[i] = new AccessLogEvent();
+        }
+
+        this.head = new AtomicLong();
+        this.tail = new AtomicLong();
+        this.droppedCount = new AtomicLong();
+        this.writtenCount = new AtomicLong();
+        this.thread = new AtomicReference<Thread>();
+        this.dateSecond = -1;
+    }
+
+    /**
+     * Appends the date and time prefix of the given time, computed once per
+     * second.
+     * 
+     * @param sb
+     *            The target builder.
+     * @param time
+     *            The time in milliseconds.
+     */
+    private void appendDate(StringBuilder sb, long time) {
+        long second = time - (time % 1000L);
+
+        if (second != this.dateSecond) {
+            this.datePrefix = String.format("%tF\t%tT\t", second, second);
+            this.dateSecond = second;
+        }
+
+        sb.append(this.datePrefix);
+    }
+
+    /**
+     * Claims a free slot of the ring buffer. The returned event must be filled
+     * and then published with {@link #publish(AccessLogEvent)}.
+     * 
+     * @return The claimed event or null if it must be dropped.
+     */
+    public AccessLogEvent claim() {
+        for (;;) {
+            long sequence = this.tail.get();
+
+            if (!this.running) {
+                this.droppedCount.incrementAndGet();
+                return null;
+            } else if (sequence - this.head.get() >= this.slots.length) {
+                if (!this.blocking) {
+                    this.droppedCount.incrementAndGet();
+                    return null;
+                }
+
+                LockSupport.parkNanos(PARK_NANOS);
+            } else if (this.tail.compareAndSet(sequence, sequence + 1)) {
+                AccessLogEvent result = this.slots[(int) (sequence & this.mask)];
+                result.claimed = sequence;
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Writes the published events once the background thread stopped
+     * consuming them.
+     */
+    private void drain() {
+        // Serializes the stopping and the late publishing threads
+        synchronized (this.slots) {
+            StringBuilder sb = new StringBuilder(128);
+
+            while (writeBatch(sb) > 0) {
+            }
+        }
+    }
+
+    /**
+     * Returns the number of dropped events.
+     * 
+     * @return The number of dropped events.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Returns the number of events waiting to be written.
+     * 
+     * @return The number of events waiting to be written.
+     */
+    public int getPendingCount() {
+        return (int) (this.tail.get() - this.head.get());
+    }
+
+    /**
+     * Returns the number of written events.
+     * 
+     * @return The number of written events.
+     */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * Indicates if the writer is running.
+     * 
+     * @return True if the writer is running.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Indicates if the next event to consume is published.
+     * 
+     * @return True if the next event to consume is published.
+     */
+    private boolean isPublished() {
+        long sequence = this.head.get();
+        AccessLogEvent event = this.slots[(int) (sequence & this.mask)];
+        return (sequence < this.tail.get()) && (event.published == sequence);
+    }
+
+    /**
+     * Publishes an event previously claimed, making it visible to the writer
+     * thread. The parked writer thread is unparked, and if it already stopped
+     * consuming the events, the event is written by the calling thread.
+     * 
+     * @param event
+     *            The claimed event.
+     */
+    public void publish(AccessLogEvent event) {
+        event.published = event.claimed;
+
+        if (this.waiting) {
+            LockSupport.unpark(this.thread.get());
+        } else if (this.thread.get() == null) {
+            drain();
+        }
+    }
+
+    /**
+     * Formats and logs the published events until the writer is stopped, then
+     * writes the events published in the meantime.
+     */
+    public void run() {
+        StringBuilder sb = new StringBuilder(128);
+
+        try {
+            while (this.running) {
+                if (writeBatch(sb) == 0) {
+                    this.waiting = true;
+
+                    // Check again as the publishing thread may have missed
+                    // the flag
+                    if (this.running && !isPublished()) {
+                        LockSupport.park(this);
+                    }
+
+                    this.waiting = false;
+                }
+            }
+        } finally {
+            if (this.thread.compareAndSet(Thread.currentThread(), null)) {
+                drain();
+            }
+        }
+    }
+
+    /**
+     * Starts the background thread.
+     */
+    public synchronized void start() {
+        if (!this.running) {
+            Thread t = new LoggingThreadFactory(this.logger, true)
+                    .newThread(this);
+            t.setName("Restlet-AccessLogWriter");
+            this.thread.set(t);
+            this.running = true;
+            t.start();
+        }
+    }
+
+    /**
+     * Stops the background thread after writing the pending events.
+     */
+    public synchronized void stop() {
+        if (this.running) {
+            this.running = false;
+            Thread t = this.thread.get();
+
+            if (t != null) {
+                LockSupport.unpark(t);
+
+                try {
+                    t.join(TimeUnit.SECONDS.toMillis(5));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Logs a formatted event as a single record.
+     * 
+     * @param message
+     *            The formatted event.
+     */
+    private void write(String message) {
+        try {
+            this.logger.log(Level.INFO, message);
+            this.writtenCount.incrementAndGet();
+        } catch (RuntimeException re) {
+            this.droppedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Formats and logs the published events, up to the batch size, then
+     * flushes the handlers of the access logger that support deferred
+     * flushes.
+     * 
+     * @param sb
+     *            The builder reused to format the events.
+     * @return The number of events written.
+     */
+    private int writeBatch(StringBuilder sb) {
+        int result = 0;
+        AccessLogFileHandler.deferFlushes();
+
+        try {
+            while ((result < BATCH_SIZE) && writeNext(sb)) {
+                result++;
+            }
+        } finally {
+            AccessLogFileHandler.flushDeferred();
+        }
+
+        return result;
+    }
+
+    /**
+     * Formats and logs the next event if it is published.
+     * 
+     * @param sb
+     *            The builder reused to format the events.
+     * @return True if an event was written.
+     */
+    private boolean writeNext(StringBuilder sb) {
+        long sequence = this.head.get();
+        AccessLogEvent event = this.slots[(int) (sequence & this.mask)];
+
+        if ((sequence >= this.tail.get()) || (event.published != sequence)) {
+            return false;
+        }
+
+        String message = event.getMessage();
+
+        if (message == null) {
+            sb.setLength(0);
+            appendDate(sb, event.getTime());
+            event.appendTo(sb);
+            message = sb.toString();
+        }
+
+        event.clear();
+        this.head.lazySet(sequence + 1);
+        write(message);
+        return true;
+    }
+
+}
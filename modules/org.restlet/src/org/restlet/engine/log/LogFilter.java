@@ -61,6 +61,9 @@ public class LogFilter extends Filter {
     /** The log service logger. */
     private volatile Logger logLogger;
 
+    /** The asynchronous writer or null. */
+    private volatile AccessLogWriter logWriter;
+
     /**
      * Constructor.
      * 
@@ -86,11 +89,17 @@ public class LogFilter extends Filter {
                 this.logLogger = Engine.getLogger(LogUtils
                         .getBestClassName(logService.getClass()));
             }
+
+            if (logService.isAsynchronous()) {
+                this.logWriter = logService
+                        .createAccessLogWriter(this.logLogger);
+            }
         }
     }
 
     /**
-     * Allows filtering after processing by the next Restlet. Logs the call.
+     * Allows filtering after processing by the next Restlet. Logs the call,
+     * or captures it for the asynchronous writer if it is running.
      * 
      * @param request
      *            The request to handle.
@@ -103,8 +112,23 @@ public class LogFilter extends Filter {
             long startTime = (Long) request.getAttributes().get(
                     "org.restlet.startTime");
             int duration = (int) (System.currentTimeMillis() - startTime);
-            this.logLogger.log(Level.INFO,
-                    this.logService.getResponseLogMessage(response, duration));
+            AccessLogWriter writer = this.logWriter;
+
+            if ((writer != null) && writer.isRunning()) {
+                AccessLogEvent event = writer.claim();
+
+                if (event != null) {
+                    try {
+                        this.logService.captureResponseLogEvent(event,
+                                response, duration);
+                    } finally {
+                        writer.publish(event);
+                    }
+                }
+            } else {
+                this.logLogger.log(Level.INFO, this.logService
+                        .getResponseLogMessage(response, duration));
+            }
         }
     }
 
@@ -35,6 +35,7 @@ package org.restlet.engine.resource;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -46,6 +47,8 @@ import org.restlet.data.MediaType;
 import org.restlet.data.Metadata;
 import org.restlet.data.Method;
 import org.restlet.data.Parameter;
+import org.restlet.engine.Engine;
+import org.restlet.engine.converter.ConverterList;
 import org.restlet.representation.Representation;
 import org.restlet.representation.Variant;
 import org.restlet.service.MetadataService;
@@ -58,6 +61,99 @@ import org.restlet.service.MetadataService;
  */
 public class MethodAnnotationInfo extends AnnotationInfo {
 
+    /** Variants computed for a given pair of services. */
+    private static final class CachedVariants {
+
+        private final org.restlet.service.ConverterService converterService;
+
+        private final int convertersVersion;
+
+        private final MetadataService metadataService;
+
+        private final int metadataVersion;
+
+        private final List<Variant> variants;
+
+        private CachedVariants(MetadataService metadataService,
+                int metadataVersion,
+                org.restlet.service.ConverterService converterService,
+                int convertersVersion, List<Variant> variants) {
+            this.metadataService = metadataService;
+            this.metadataVersion = metadataVersion;
+            this.converterService = converterService;
+            this.convertersVersion = convertersVersion;
+            this.variants = variants;
+        }
+
+        private boolean matches(MetadataService metadataService,
+                int metadataVersion,
+                org.restlet.service.ConverterService converterService,
+                int convertersVersion) {
+            return (this.metadataService == metadataService)
+                    && (this.metadataVersion == metadataVersion)
+                    && (this.converterService == converterService)
+                    && (this.convertersVersion == convertersVersion);
+        }
+    }
+
+    /**
+     * Returns the version of the list of registered converters, or -1 if it
+     * can't be tracked.
+     * 
+     * @return The version of the list of registered converters.
+     */
+    private static int getConvertersVersion() {
+        List<?> converters = Engine.getInstance().getRegisteredConverters();
+        return (converters instanceof ConverterList) ? ((ConverterList) converters)
+                .getVersion() : -1;
+    }
+
+    /**
+     * Returns the version of the extension mappings of a metadata service, or
+     * -1 if none is given.
+     * 
+     * @param metadataService
+     *            The metadata service.
+     * @return The version of the extension mappings.
+     */
+    private static int getMetadataVersion(MetadataService metadataService) {
+        return (metadataService == null) ? -1 : metadataService.getVersion();
+    }
+
+    /**
+     * Caches a list of variants computed for a pair of services. The variants
+     * lists are initialized as the cached instances are shared by the threads
+     * and must not be modified.
+     * 
+     * @param metadataService
+     *            The metadata service used.
+     * @param metadataVersion
+     *            The version of the extension mappings used.
+     * @param converterService
+     *            The converter service used.
+     * @param convertersVersion
+     *            The version of the list of registered converters.
+     * @param variants
+     *            The variants to cache.
+     * @return The cached variants.
+     */
+    private static CachedVariants toCache(MetadataService metadataService,
+            int metadataVersion,
+            org.restlet.service.ConverterService converterService,
+            int convertersVersion, List<Variant> variants) {
+        if (variants != null) {
+            for (Variant variant : variants) {
+                variant.getLanguages();
+                variant.getEncodings();
+            }
+
+            variants = Collections.unmodifiableList(variants);
+        }
+
+        return new CachedVariants(metadataService, metadataVersion,
+                converterService, convertersVersion, variants);
+    }
+
     /** The input part of the annotation value. */
     private final String input;
 
@@ -67,6 +163,12 @@ public class MethodAnnotationInfo extends AnnotationInfo {
     /** The optional query part of the annotation value. */
     private final String query;
 
+    /** The request variants computed for the last pair of services. */
+    private volatile CachedVariants requestVariants;
+
+    /** The response variants computed for the last pair of services. */
+    private volatile CachedVariants responseVariants;
+
     /** The matching Restlet method. */
     final Method restletMethod;
 
@@ -210,7 +312,10 @@ public class MethodAnnotationInfo extends AnnotationInfo {
 
     // [ifndef gwt] method
     /**
-     * Returns a list of request variants based on the annotation value.
+     * Returns a list of request variants based on the annotation value. The
+     * list is computed once for a given pair of services, version of their
+     * extension mappings and list of registered converters, then shared, so
+     * it can't be modified.
      * 
      * @param metadataService
      *            The metadata service to use.
@@ -221,6 +326,16 @@ public class MethodAnnotationInfo extends AnnotationInfo {
     public List<Variant> getRequestVariants(MetadataService metadataService,
             org.restlet.service.ConverterService converterService)
             throws IOException {
+        int metadataVersion = getMetadataVersion(metadataService);
+        int convertersVersion = getConvertersVersion();
+        CachedVariants cached = this.requestVariants;
+
+        if ((cached != null)
+                && cached.matches(metadataService, metadataVersion,
+                        converterService, convertersVersion)) {
+            return cached.variants;
+        }
+
         List<Variant> result = null;
         Class<?>[] classes = getJavaInputTypes();
 
@@ -237,12 +352,22 @@ public class MethodAnnotationInfo extends AnnotationInfo {
             }
         }
 
+        if (convertersVersion != -1) {
+            cached = toCache(metadataService, metadataVersion,
+                    converterService, convertersVersion, result);
+            this.requestVariants = cached;
+            result = cached.variants;
+        }
+
         return result;
     }
 
     // [ifndef gwt] method
     /**
-     * Returns a list of response variants based on the annotation value.
+     * Returns a list of response variants based on the annotation value. The
+     * list is computed once for a given pair of services, version of their
+     * extension mappings and list of registered converters, then shared, so
+     * it can't be modified.
      * 
      * @param metadataService
      *            The metadata service to use.
@@ -255,6 +380,16 @@ public class MethodAnnotationInfo extends AnnotationInfo {
     public List<Variant> getResponseVariants(MetadataService metadataService,
             org.restlet.service.ConverterService converterService)
             throws IOException {
+        int metadataVersion = getMetadataVersion(metadataService);
+        int convertersVersion = getConvertersVersion();
+        CachedVariants cached = this.responseVariants;
+
+        if ((cached != null)
+                && cached.matches(metadataService, metadataVersion,
+                        converterService, convertersVersion)) {
+            return cached.variants;
+        }
+
         List<Variant> result = null;
 
         if ((getJavaOutputType() != null)
@@ -268,6 +403,13 @@ public class MethodAnnotationInfo extends AnnotationInfo {
             }
         }
 
+        if (convertersVersion != -1) {
+            cached = toCache(metadataService, metadataVersion,
+                    converterService, convertersVersion, result);
+            this.responseVariants = cached;
+            result = cached.variants;
+        }
+
         return result;
     }
 
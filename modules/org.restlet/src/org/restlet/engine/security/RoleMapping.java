@@ -44,6 +44,9 @@ import org.restlet.security.User;
  */
 public class RoleMapping {
 
+    /** The versions of the security models containing the mapping. */
+    private final SecurityModelVersions modelVersions;
+
     /**
      * The source of the mapping. It must be an instance of one of these
      * classes: {@link User} or {@link Group}.
@@ -68,8 +71,19 @@ public class RoleMapping {
      */
     public RoleMapping(Object source, Role target) {
         super();
+        this.modelVersions = new SecurityModelVersions();
         this.source = source;
         this.target = target;
+        this.modelVersions.touch();
+    }
+
+    /**
+     * Returns the versions of the security models containing the mapping.
+     * 
+     * @return The versions of the security models containing the mapping.
+     */
+    public SecurityModelVersions getModelVersions() {
+        return modelVersions;
     }
 
     public Object getSource() {
@@ -82,10 +96,12 @@ public class RoleMapping {
 
     public void setSource(Object source) {
         this.source = source;
+        this.modelVersions.touch();
     }
 
     public void setTarget(Role target) {
         this.target = target;
+        this.modelVersions.touch();
     }
 
 }
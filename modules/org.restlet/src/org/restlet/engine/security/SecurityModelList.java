@@ -0,0 +1,72 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.security;
+
+import org.restlet.util.VersionedWrapperList;
+
+/**
+ * Thread-safe list of the elements of a security model, such as the users and
+ * groups of a {@link org.restlet.security.MemoryRealm} or the members of a
+ * {@link org.restlet.security.Group}. Each modification, including the ones
+ * made via a sub-list, increments the versions of the security models
+ * containing the owner of the list.
+ * 
+ * @author Jerome Louvel
+ * @param <E>
+ *            The type of the list elements.
+ */
+public class SecurityModelList<E> extends VersionedWrapperList<E> {
+
+    /** The versions of the security models containing the owner of the list. */
+    private final SecurityModelVersions modelVersions;
+
+    /**
+     * Constructor.
+     * 
+     * @param modelVersions
+     *            The versions of the security models containing the owner of
+     *            the list.
+     */
+    public SecurityModelList(SecurityModelVersions modelVersions) {
+        super();
+        this.modelVersions = modelVersions;
+    }
+
+    @Override
+    protected void modified() {
+        super.modified();
+        this.modelVersions.touch();
+    }
+
+}
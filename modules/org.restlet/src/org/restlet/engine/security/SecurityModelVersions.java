@@ -0,0 +1,80 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.security;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Versions of the security models containing an element, such as a user, a
+ * group or a role mapping. The {@link org.restlet.security.MemoryRealm}
+ * instances register the version of their model with the elements they index,
+ * and each modification of an element increments the registered versions so
+ * that the indexes can detect that they must be rebuilt.
+ * 
+ * @author Jerome Louvel
+ */
+public class SecurityModelVersions {
+
+    /** The registered versions. */
+    private final Set<AtomicInteger> versions;
+
+    /**
+     * Constructor.
+     */
+    public SecurityModelVersions() {
+        this.versions = new CopyOnWriteArraySet<AtomicInteger>();
+    }
+
+    /**
+     * Registers the version of a security model containing the element.
+     * 
+     * @param version
+     *            The version to increment on each modification.
+     */
+    public void register(AtomicInteger version) {
+        this.versions.add(version);
+    }
+
+    /**
+     * Increments the registered versions after a modification of the element.
+     */
+    public void touch() {
+        for (AtomicInteger version : this.versions) {
+            version.incrementAndGet();
+        }
+    }
+
+}
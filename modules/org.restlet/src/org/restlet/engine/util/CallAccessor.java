@@ -0,0 +1,531 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.util;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.ChallengeResponse;
+import org.restlet.data.Metadata;
+import org.restlet.data.Reference;
+import org.restlet.representation.Representation;
+
+/**
+ * Accessor of a request or response property, bound once to a variable name
+ * of the {@link CallResolver}. Resolving the same variable again doesn't need
+ * to compare its name with the known ones.
+ * 
+ * @author Jerome Louvel
+ */
+public abstract class CallAccessor {
+
+    /**
+     * Accessor of an entity property of the request or of the response.
+     */
+    private static class EntityAccessor extends CallAccessor {
+
+        /** The character set name. */
+        static final int CHARACTER_SET = 0;
+
+        /** The encoding names. */
+        static final int ENCODINGS = 1;
+
+        /** The expiration date. */
+        static final int EXPIRATION_DATE = 2;
+
+        /** The language names. */
+        static final int LANGUAGES = 3;
+
+        /** The media type name. */
+        static final int MEDIA_TYPE = 4;
+
+        /** The modification date. */
+        static final int MODIFICATION_DATE = 5;
+
+        /** The size. */
+        static final int SIZE = 6;
+
+        /** The tag name. */
+        static final int TAG = 7;
+
+        /** The accessed property. */
+        private final int property;
+
+        /** Indicates if the response entity is accessed. */
+        private final boolean response;
+
+        /**
+         * Constructor.
+         * 
+         * @param response
+         *            Indicates if the response entity is accessed.
+         * @param property
+         *            The accessed property.
+         */
+        EntityAccessor(boolean response, int property) {
+            this.response = response;
+            this.property = property;
+        }
+
+        /**
+         * Returns the names of a list of metadata, separated by commas.
+         * 
+         * @param metadata
+         *            The list of metadata.
+         * @return The names or null if the list is empty.
+         */
+        private String getNames(List<? extends Metadata> metadata) {
+            if (metadata.isEmpty()) {
+                return null;
+            }
+
+            StringBuilder value = new StringBuilder();
+
+            for (int i = 0; i < metadata.size(); i++) {
+                if (i > 0) {
+                    value.append(", ");
+                }
+
+                value.append(metadata.get(i).getName());
+            }
+
+            return value.toString();
+        }
+
+        @Override
+        public Object get(Request request, Response response) {
+            Representation entity = null;
+
+            if (this.response) {
+                entity = (response == null) ? null : response.getEntity();
+            } else {
+                entity = (request == null) ? null : request.getEntity();
+            }
+
+            if (entity == null) {
+                return null;
+            }
+
+            switch (this.property) {
+            case CHARACTER_SET:
+                return (entity.getCharacterSet() == null) ? null : entity
+                        .getCharacterSet().getName();
+            case ENCODINGS:
+                return getNames(entity.getEncodings());
+            case EXPIRATION_DATE:
+                return (entity.getExpirationDate() == null) ? null
+                        : DateUtils.format(entity.getExpirationDate(),
+                                DateUtils.FORMAT_RFC_1123.get(0));
+            case LANGUAGES:
+                return getNames(entity.getLanguages());
+            case MEDIA_TYPE:
+                return (entity.getMediaType() == null) ? null : entity
+                        .getMediaType().getName();
+            case MODIFICATION_DATE:
+                return (entity.getModificationDate() == null) ? null
+                        : DateUtils.format(entity.getModificationDate(),
+                                DateUtils.FORMAT_RFC_1123.get(0));
+            case SIZE:
+                return (entity.getSize() == -1) ? null : Long.toString(entity
+                        .getSize());
+            case TAG:
+                return (entity.getTag() == null) ? null : entity.getTag()
+                        .getName();
+            default:
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Accessor of a simple property of the request or of the response.
+     */
+    private static class PropertyAccessor extends CallAccessor {
+
+        /** The request confidentiality. */
+        static final int CONFIDENTIAL = 0;
+
+        /** The client address. */
+        static final int CLIENT_ADDRESS = 1;
+
+        /** The client upstream address. */
+        static final int CLIENT_UPSTREAM_ADDRESS = 2;
+
+        /** The client agent. */
+        static final int CLIENT_AGENT = 3;
+
+        /** The challenge response identifier. */
+        static final int CHALLENGE_IDENTIFIER = 4;
+
+        /** The challenge response scheme. */
+        static final int CHALLENGE_SCHEME = 5;
+
+        /** The current date. */
+        static final int DATE = 6;
+
+        /** The method name. */
+        static final int METHOD = 7;
+
+        /** The protocol name. */
+        static final int PROTOCOL = 8;
+
+        /** The status code. */
+        static final int STATUS = 9;
+
+        /** The server address. */
+        static final int SERVER_ADDRESS = 10;
+
+        /** The server agent. */
+        static final int SERVER_AGENT = 11;
+
+        /** The server port. */
+        static final int SERVER_PORT = 12;
+
+        /** The accessed property. */
+        private final int property;
+
+        /**
+         * Constructor.
+         * 
+         * @param property
+         *            The accessed property.
+         */
+        PropertyAccessor(int property) {
+            this.property = property;
+        }
+
+        @Override
+        public Object get(Request request, Response response) {
+            if (this.property < STATUS) {
+                if (request == null) {
+                    return null;
+                }
+
+                switch (this.property) {
+                case CONFIDENTIAL:
+                    return Boolean.toString(request.isConfidential());
+                case CLIENT_ADDRESS:
+                    return request.getClientInfo().getAddress();
+                case CLIENT_UPSTREAM_ADDRESS:
+                    return request.getClientInfo().getUpstreamAddress();
+                case CLIENT_AGENT:
+                    return request.getClientInfo().getAgent();
+                case CHALLENGE_IDENTIFIER: {
+                    ChallengeResponse cr = request.getChallengeResponse();
+                    return (cr == null) ? null : cr.getIdentifier();
+                }
+                case CHALLENGE_SCHEME: {
+                    ChallengeResponse cr = request.getChallengeResponse();
+                    return ((cr == null) || (cr.getScheme() == null)) ? null
+                            : cr.getScheme().getTechnicalName();
+                }
+                case DATE:
+                    return DateUtils.format(new Date(),
+                            DateUtils.FORMAT_RFC_1123.get(0));
+                case METHOD:
+                    return (request.getMethod() == null) ? null : request
+                            .getMethod().getName();
+                case PROTOCOL:
+                    return (request.getProtocol() == null) ? null : request
+                            .getProtocol().getName();
+                default:
+                    return null;
+                }
+            } else if (response == null) {
+                return null;
+            }
+
+            switch (this.property) {
+            case STATUS:
+                return (response.getStatus() == null) ? null : Integer
+                        .toString(response.getStatus().getCode());
+            case SERVER_ADDRESS:
+                return response.getServerInfo().getAddress();
+            case SERVER_AGENT:
+                return response.getServerInfo().getAgent();
+            case SERVER_PORT:
+                return (response.getServerInfo().getPort() == -1) ? null
+                        : Integer.toString(response.getServerInfo().getPort());
+            default:
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Accessor of a part of a request or response reference.
+     */
+    private static class ReferenceAccessor extends CallAccessor {
+
+        /** The host reference of the request. */
+        static final int HOST = 0;
+
+        /** The location reference of the response. */
+        static final int LOCATION = 1;
+
+        /** The referrer reference of the request. */
+        static final int REFERRER = 2;
+
+        /** The resource reference of the request. */
+        static final int RESOURCE = 3;
+
+        /** The root reference of the request. */
+        static final int ROOT = 4;
+
+        /** The number of base references to follow. */
+        private final int depth;
+
+        /** The reference part, or 0 if unknown. */
+        private final char part;
+
+        /** The accessed reference. */
+        private final int source;
+
+        /**
+         * Constructor.
+         * 
+         * @param source
+         *            The accessed reference.
+         * @param partName
+         *            The variable sub-part name.
+         */
+        ReferenceAccessor(int source, String partName) {
+            int depth = 0;
+
+            while ((depth < partName.length())
+                    && (partName.charAt(depth) == 'b')) {
+                depth++;
+            }
+
+            this.source = source;
+            this.depth = depth;
+            this.part = (partName.length() == depth + 1) ? partName
+                    .charAt(depth) : 0;
+        }
+
+        @Override
+        public Object get(Request request, Response response) {
+            Reference reference = null;
+
+            if (this.source == LOCATION) {
+                reference = (response == null) ? null : response
+                        .getLocationRef();
+            } else if (request != null) {
+                switch (this.source) {
+                case HOST:
+                    reference = request.getHostRef();
+                    break;
+                case REFERRER:
+                    reference = request.getReferrerRef();
+                    break;
+                case RESOURCE:
+                    reference = request.getResourceRef();
+                    break;
+                case ROOT:
+                    reference = request.getRootRef();
+                    break;
+                }
+            }
+
+            for (int i = 0; (reference != null) && (i < this.depth); i++) {
+                reference = reference.getBaseRef();
+            }
+
+            if (reference == null) {
+                return null;
+            }
+
+            switch (this.part) {
+            case 'a':
+                return reference.getAuthority();
+            case 'e':
+                return reference.getRelativePart();
+            case 'f':
+                return reference.getFragment();
+            case 'h':
+                return reference.getHostIdentifier();
+            case 'i':
+                return reference.getIdentifier();
+            case 'p':
+                return reference.getPath();
+            case 'q':
+                return reference.getQuery();
+            case 'r':
+                return reference.getRemainingPart();
+            default:
+                return null;
+            }
+        }
+    }
+
+    /** The maximum number of cached accessors. */
+    private static final int MAX_ACCESSORS = 1024;
+
+    /** The accessor of unknown variables. */
+    private static final CallAccessor NONE = new CallAccessor() {
+        @Override
+        public Object get(Request request, Response response) {
+            return null;
+        }
+    };
+
+    /** The accessors bound to variable names. */
+    private static final Map<String, CallAccessor> accessors = new ConcurrentHashMap<String, CallAccessor>();
+
+    /**
+     * Creates the accessor bound to a variable name.
+     * 
+     * @param variableName
+     *            The variable name.
+     * @return The accessor or null if the variable is unknown.
+     */
+    private static CallAccessor create(String variableName) {
+        if (variableName.equals("c")) {
+            return new PropertyAccessor(PropertyAccessor.CONFIDENTIAL);
+        } else if (variableName.equals("cia")) {
+            return new PropertyAccessor(PropertyAccessor.CLIENT_ADDRESS);
+        } else if (variableName.equals("ciua")) {
+            return new PropertyAccessor(
+                    PropertyAccessor.CLIENT_UPSTREAM_ADDRESS);
+        } else if (variableName.equals("cig")) {
+            return new PropertyAccessor(PropertyAccessor.CLIENT_AGENT);
+        } else if (variableName.equals("cri")) {
+            return new PropertyAccessor(PropertyAccessor.CHALLENGE_IDENTIFIER);
+        } else if (variableName.equals("crs")) {
+            return new PropertyAccessor(PropertyAccessor.CHALLENGE_SCHEME);
+        } else if (variableName.equals("d")) {
+            return new PropertyAccessor(PropertyAccessor.DATE);
+        } else if (variableName.startsWith("f")) {
+            return new ReferenceAccessor(ReferenceAccessor.REFERRER,
+                    variableName.substring(1));
+        } else if (variableName.startsWith("h")) {
+            return new ReferenceAccessor(ReferenceAccessor.HOST,
+                    variableName.substring(1));
+        } else if (variableName.equals("m")) {
+            return new PropertyAccessor(PropertyAccessor.METHOD);
+        } else if (variableName.startsWith("o")) {
+            return new ReferenceAccessor(ReferenceAccessor.ROOT,
+                    variableName.substring(1));
+        } else if (variableName.equals("p")) {
+            return new PropertyAccessor(PropertyAccessor.PROTOCOL);
+        } else if (variableName.startsWith("r")) {
+            return new ReferenceAccessor(ReferenceAccessor.RESOURCE,
+                    variableName.substring(1));
+        } else if (variableName.startsWith("R")) {
+            return new ReferenceAccessor(ReferenceAccessor.LOCATION,
+                    variableName.substring(1));
+        } else if (variableName.equals("S")) {
+            return new PropertyAccessor(PropertyAccessor.STATUS);
+        } else if (variableName.equals("SIA")) {
+            return new PropertyAccessor(PropertyAccessor.SERVER_ADDRESS);
+        } else if (variableName.equals("SIG")) {
+            return new PropertyAccessor(PropertyAccessor.SERVER_AGENT);
+        } else if (variableName.equals("SIP")) {
+            return new PropertyAccessor(PropertyAccessor.SERVER_PORT);
+        }
+
+        // Entity variables, "e" prefixed for the request entity and "E"
+        // prefixed for the response entity
+        boolean response = variableName.startsWith("E");
+
+        if (response || variableName.startsWith("e")) {
+            String name = variableName.substring(1);
+
+            if (name.equals(response ? "CS" : "cs")) {
+                return new EntityAccessor(response,
+                        EntityAccessor.CHARACTER_SET);
+            } else if (name.equals(response ? "E" : "e")) {
+                return new EntityAccessor(response, EntityAccessor.ENCODINGS);
+            } else if (name.equals(response ? "ED" : "ed")) {
+                return new EntityAccessor(response,
+                        EntityAccessor.EXPIRATION_DATE);
+            } else if (name.equals(response ? "L" : "l")) {
+                return new EntityAccessor(response, EntityAccessor.LANGUAGES);
+            } else if (name.equals(response ? "MD" : "md")) {
+                return new EntityAccessor(response,
+                        EntityAccessor.MODIFICATION_DATE);
+            } else if (name.equals(response ? "MT" : "mt")) {
+                return new EntityAccessor(response, EntityAccessor.MEDIA_TYPE);
+            } else if (name.equals(response ? "S" : "s")) {
+                return new EntityAccessor(response, EntityAccessor.SIZE);
+            } else if (name.equals(response ? "T" : "t")) {
+                return new EntityAccessor(response, EntityAccessor.TAG);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the accessor bound to a variable name, creating it on first
+     * access.
+     * 
+     * @param variableName
+     *            The variable name.
+     * @return The accessor, never null.
+     */
+    public static CallAccessor get(String variableName) {
+        CallAccessor result = accessors.get(variableName);
+
+        if (result == null) {
+            result = create(variableName);
+
+            if (result == null) {
+                result = NONE;
+            }
+
+            if (accessors.size() < MAX_ACCESSORS) {
+                accessors.put(variableName, result);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the value of the property for the given call.
+     * 
+     * @param request
+     *            The request or null.
+     * @param response
+     *            The response or null.
+     * @return The value of the property or null.
+     */
+    public abstract Object get(Request request, Response response);
+
+}
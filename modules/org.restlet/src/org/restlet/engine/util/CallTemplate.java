@@ -0,0 +1,279 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.Reference;
+import org.restlet.routing.Template;
+import org.restlet.routing.Variable;
+
+/**
+ * Template compiled once into literal and variable segments, formatting calls
+ * without parsing the pattern again. Each variable is bound to its
+ * {@link CallAccessor}, so the formatting only needs to check the call
+ * attributes and invoke the bound accessors. The result is the same as the one
+ * of {@link Template#format(Request, Response)} for the pattern, variables and
+ * encoding mode of the template when compiled.
+ * 
+ * @author Jerome Louvel
+ */
+public class CallTemplate {
+
+    /**
+     * Segment of a compiled template.
+     */
+    private abstract static class Segment {
+
+        /**
+         * Appends the formatted segment.
+         * 
+         * @param sb
+         *            The target builder.
+         * @param request
+         *            The request to use as a model.
+         * @param response
+         *            The response to use as a model.
+         */
+        abstract void append(StringBuilder sb, Request request,
+                Response response);
+    }
+
+    /**
+     * Literal segment of a compiled template.
+     */
+    private static class LiteralSegment extends Segment {
+
+        /** The literal text. */
+        private final String text;
+
+        /**
+         * Constructor.
+         * 
+         * @param text
+         *            The literal text.
+         */
+        LiteralSegment(String text) {
+            this.text = text;
+        }
+
+        @Override
+        void append(StringBuilder sb, Request request, Response response) {
+            sb.append(this.text);
+        }
+    }
+
+    /**
+     * Variable segment of a compiled template.
+     */
+    private static class VariableSegment extends Segment {
+
+        /** The accessor bound to the variable name. */
+        private final CallAccessor accessor;
+
+        /** The default variable of the template or null. */
+        private final Variable defaultVariable;
+
+        /** Indicates if the template encodes the variable values. */
+        private final boolean encodingVariables;
+
+        /** The variable name. */
+        private final String name;
+
+        /** The template variable or null. */
+        private final Variable variable;
+
+        /**
+         * Constructor.
+         * 
+         * @param name
+         *            The variable name.
+         * @param variable
+         *            The template variable or null.
+         * @param defaultVariable
+         *            The default variable of the template or null.
+         * @param encodingVariables
+         *            Indicates if the template encodes the variable values.
+         */
+        VariableSegment(String name, Variable variable,
+                Variable defaultVariable, boolean encodingVariables) {
+            this.name = name;
+            this.variable = variable;
+            this.defaultVariable = defaultVariable;
+            this.encodingVariables = encodingVariables;
+            this.accessor = CallAccessor.get(name);
+        }
+
+        @Override
+        void append(StringBuilder sb, Request request, Response response) {
+            Object value = CallResolver.resolve(request, response, this.name,
+                    this.accessor);
+            Variable var = this.variable;
+
+            // Use the default values instead
+            if (value == null) {
+                if (var == null) {
+                    var = this.defaultVariable;
+                }
+
+                if (var != null) {
+                    value = var.getDefaultValue();
+                }
+            }
+
+            String string = (value == null) ? null : value.toString();
+
+            if (this.encodingVariables) {
+                sb.append((var != null) ? var.encode(string) : Reference
+                        .encode(string));
+            } else if ((var != null) && var.isEncodingOnFormat()) {
+                sb.append(Reference.encode(string));
+            } else {
+                sb.append(string);
+            }
+        }
+    }
+
+    /** The compiled segments. */
+    private final Segment[] segments;
+
+    /** The compiled template. */
+    private final Template template;
+
+    /**
+     * Constructor.
+     * 
+     * @param template
+     *            The template to compile.
+     */
+    public CallTemplate(Template template) {
+        this.template = template;
+        this.segments = compile(template);
+    }
+
+    /**
+     * Compiles a template into segments, logging the pattern errors once.
+     * 
+     * @param template
+     *            The template to compile.
+     * @return The compiled segments.
+     */
+    private Segment[] compile(Template template) {
+        List<Segment> result = new ArrayList<Segment>();
+        String pattern = template.getPattern();
+        StringBuilder literal = new StringBuilder();
+        StringBuilder varBuffer = null;
+        boolean inVariable = false;
+
+        for (int i = 0; i < pattern.length(); i++) {
+            char next = pattern.charAt(i);
+
+            if (inVariable) {
+                if (Reference.isUnreserved(next)) {
+                    varBuffer.append(next);
+                } else if (next == '}') {
+                    if (varBuffer.length() == 0) {
+                        template.getLogger().warning(
+                                "Empty pattern variables are not allowed : "
+                                        + pattern);
+                    } else {
+                        if (literal.length() > 0) {
+                            result.add(new LiteralSegment(literal.toString()));
+                            literal.setLength(0);
+                        }
+
+                        String name = varBuffer.toString();
+                        result.add(new VariableSegment(name, template
+                                .getVariables().get(name), template
+                                .getDefaultVariable(), template
+                                .isEncodingVariables()));
+                    }
+
+                    inVariable = false;
+                } else {
+                    template.getLogger().warning(
+                            "An invalid character was detected inside a pattern variable : "
+                                    + pattern);
+                }
+            } else if (next == '{') {
+                inVariable = true;
+                varBuffer = new StringBuilder();
+            } else if (next == '}') {
+                template.getLogger().warning(
+                        "An invalid character was detected inside a pattern variable : "
+                                + pattern);
+            } else {
+                literal.append(next);
+            }
+        }
+
+        if (literal.length() > 0) {
+            result.add(new LiteralSegment(literal.toString()));
+        }
+
+        return result.toArray(new Segment[result.size()]);
+    }
+
+    /**
+     * Creates a formatted string based on the given request and response.
+     * 
+     * @param request
+     *            The request to use as a model.
+     * @param response
+     *            The response to use as a model.
+     * @return The formatted string.
+     */
+    public String format(Request request, Response response) {
+        StringBuilder sb = new StringBuilder(64);
+
+        for (Segment segment : this.segments) {
+            segment.append(sb, request, response);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns the compiled template.
+     * 
+     * @return The compiled template.
+     */
+    public Template getTemplate() {
+        return template;
+    }
+
+}
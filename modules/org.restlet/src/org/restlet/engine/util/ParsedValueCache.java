@@ -0,0 +1,164 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// [excludes gwt]
+/**
+ * Bounded and concurrent cache of the values parsed from texts such as header
+ * values, keyed by the exact text parsed. The cached values must be immutable
+ * or never modified by their users, as they are shared by all the threads.<br>
+ * <br>
+ * When the maximum number of entries is reached, the cache is cleared. A flow
+ * of distinct texts can then only lead to more parsing, while the texts
+ * repeated by a population of clients are quickly cached again. Texts longer
+ * than the maximum text length aren't cached.
+ * 
+ * @author Jerome Louvel
+ * @param <V>
+ *            The type of the parsed values.
+ */
+public class ParsedValueCache<V> {
+
+    /** The maximum number of entries. */
+    private final int maxSize;
+
+    /** The maximum length of the cached texts. */
+    private final int maxTextLength;
+
+    /** The parsed values keyed by text. */
+    private final ConcurrentMap<String, V> values;
+
+    /**
+     * Constructor. Texts longer than 1024 characters aren't cached.
+     * 
+     * @param maxSize
+     *            The maximum number of entries.
+     */
+    public ParsedValueCache(int maxSize) {
+        this(maxSize, 1024);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param maxSize
+     *            The maximum number of entries.
+     * @param maxTextLength
+     *            The maximum length of the cached texts.
+     */
+    public ParsedValueCache(int maxSize, int maxTextLength) {
+        this.maxSize = maxSize;
+        this.maxTextLength = maxTextLength;
+        this.values = new ConcurrentHashMap<String, V>();
+    }
+
+    /**
+     * Clears the cache.
+     */
+    public void clear() {
+        this.values.clear();
+    }
+
+    /**
+     * Returns the value parsed from a given text, or null if it isn't cached.
+     * 
+     * @param text
+     *            The parsed text.
+     * @return The cached value or null.
+     */
+    public V get(String text) {
+        return (text == null) ? null : this.values.get(text);
+    }
+
+    /**
+     * Returns the maximum number of entries.
+     * 
+     * @return The maximum number of entries.
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Returns the maximum length of the cached texts.
+     * 
+     * @return The maximum length of the cached texts.
+     */
+    public int getMaxTextLength() {
+        return this.maxTextLength;
+    }
+
+    /**
+     * Caches the value parsed from a given text. If another thread has cached
+     * a value for the same text in the meantime, this value is returned
+     * instead so that the instances are shared.
+     * 
+     * @param text
+     *            The parsed text.
+     * @param value
+     *            The parsed value.
+     * @return The cached value.
+     */
+    public V put(String text, V value) {
+        V result = value;
+
+        if ((text != null) && (value != null)
+                && (text.length() <= this.maxTextLength)) {
+            if (this.values.size() >= this.maxSize) {
+                this.values.clear();
+            }
+
+            V previous = this.values.putIfAbsent(text, value);
+
+            if (previous != null) {
+                result = previous;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of cached values.
+     * 
+     * @return The number of cached values.
+     */
+    public int size() {
+        return this.values.size();
+    }
+
+}
@@ -0,0 +1,365 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.util;
+
+import java.util.BitSet;
+import java.util.List;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.Reference;
+import org.restlet.routing.Route;
+import org.restlet.routing.Template;
+import org.restlet.routing.TemplateRoute;
+
+/**
+ * Prefix index over a list of routes, used to avoid scoring every route of a
+ * router on each call. For each {@link TemplateRoute}, the literal part of its
+ * URI pattern located before the first variable is inserted in a character
+ * trie. When a call is received, the trie is walked using the remaining part
+ * of the resource reference and only the routes whose literal prefix was
+ * traversed are kept as candidates. Those candidates are then scored as usual,
+ * via the regular expression of their template, so the scores and the
+ * selection semantics are the same as for a linear scan.<br>
+ * <br>
+ * Routes that can't be indexed, such as custom {@link Route} subclasses or
+ * template routes overriding the scoring logic, are always considered as
+ * candidates.<br>
+ * <br>
+ * Note that the index is a snapshot of the routes and of their URI patterns at
+ * creation time. Changes made to the patterns after that point won't be taken
+ * into account, similar to the way {@link Template} compiles its regular
+ * expression.
+ * 
+ * @author Jerome Louvel
+ */
+public class RouteIndex {
+
+    /** Node of the character trie. */
+    private static class Node {
+
+        /** The child nodes, parallel to the keys array. */
+        private Node[] children = new Node[0];
+
+        /** The characters leading to each child node. */
+        private char[] keys = new char[0];
+
+        /** The indexes of the routes whose literal prefix ends on this node. */
+        private int[] routes = new int[0];
+
+        /**
+         * Adds a route index to this node.
+         * 
+         * @param index
+         *            The route index.
+         */
+        private void addRoute(int index) {
+            int[] newRoutes = new int[this.routes.length + 1];
+            System.arraycopy(this.routes, 0, newRoutes, 0, this.routes.length);
+            newRoutes[this.routes.length] = index;
+            this.routes = newRoutes;
+        }
+
+        /**
+         * Returns the child node for the given character.
+         * 
+         * @param key
+         *            The character.
+         * @return The child node or null.
+         */
+        private Node getChild(char key) {
+            for (int i = 0; i < this.keys.length; i++) {
+                if (this.keys[i] == key) {
+                    return this.children[i];
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Returns the child node for the given character, creating it if
+         * needed.
+         * 
+         * @param key
+         *            The character.
+         * @return The child node.
+         */
+        private Node getOrCreateChild(char key) {
+            Node result = getChild(key);
+
+            if (result == null) {
+                int length = this.keys.length;
+                char[] newKeys = new char[length + 1];
+                Node[] newChildren = new Node[length + 1];
+                System.arraycopy(this.keys, 0, newKeys, 0, length);
+                System.arraycopy(this.children, 0, newChildren, 0, length);
+                result = new Node();
+                newKeys[length] = key;
+                newChildren[length] = result;
+                this.keys = newKeys;
+                this.children = newChildren;
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Returns the literal prefix of a URI pattern, that is the part that must
+     * be matched character by character by the regular expression built by
+     * {@link Template}. The prefix stops before the first variable or the
+     * first character not quoted by the template and therefore interpreted by
+     * the regular expression engine.
+     * 
+     * @param pattern
+     *            The URI pattern.
+     * @return The literal prefix.
+     */
+    public static String getLiteralPrefix(String pattern) {
+        if (pattern == null) {
+            return "";
+        }
+
+        int end = 0;
+
+        while ((end < pattern.length()) && (pattern.charAt(end) != '{')
+                && (pattern.charAt(end) != '}')
+                && (pattern.charAt(end) != '+')) {
+            end++;
+        }
+
+        if ((end > 0) && (end < pattern.length())
+                && (pattern.charAt(end) == '+')) {
+            // The '+' character quantifies the previous one
+            end--;
+        }
+
+        return pattern.substring(0, end);
+    }
+
+    /**
+     * Indicates if a route can be indexed, meaning that its score can only be
+     * greater than zero if its template's literal prefix matches the beginning
+     * of the remaining part of the resource reference.
+     * 
+     * @param route
+     *            The route to test.
+     * @return True if the route can be indexed.
+     */
+    private static boolean isIndexable(Route route) {
+        boolean result = false;
+
+        if ((route instanceof TemplateRoute)
+                && (((TemplateRoute) route).getTemplate() != null)) {
+            try {
+                Template template = ((TemplateRoute) route).getTemplate();
+                result = (route.getClass()
+                        .getMethod("score", Request.class, Response.class)
+                        .getDeclaringClass() == TemplateRoute.class)
+                        && (template.getClass()
+                                .getMethod("match", String.class)
+                                .getDeclaringClass() == Template.class);
+            } catch (NoSuchMethodException e) {
+                result = false;
+            }
+        }
+
+        return result;
+    }
+
+    /** The indexed routes. */
+    private final Route[] routes;
+
+    /** The root node of the trie. */
+    private final Node root;
+
+    /** The version of the list of routes indexed. */
+    private final int version;
+
+    /**
+     * Constructor.
+     * 
+     * @param routes
+     *            The list of routes to index.
+     * @param version
+     *            The version of the list of routes, used to detect changes.
+     */
+    public RouteIndex(List<Route> routes, int version) {
+        this.version = version;
+        this.routes = routes.toArray(new Route[routes.size()]);
+        this.root = new Node();
+
+        for (int i = 0; i < this.routes.length; i++) {
+            Route route = this.routes[i];
+            Node node = this.root;
+
+            if (isIndexable(route)) {
+                String prefix = getLiteralPrefix(((TemplateRoute) route)
+                        .getTemplate().getPattern());
+
+                for (int j = 0; j < prefix.length(); j++) {
+                    node = node.getOrCreateChild(prefix.charAt(j));
+                }
+            }
+
+            node.addRoute(i);
+        }
+    }
+
+    /**
+     * Collects the candidate routes whose literal prefix matches the beginning
+     * of the given remaining part.
+     * 
+     * @param remainingPart
+     *            The remaining part of the resource reference.
+     * @param candidates
+     *            The set of candidate route indexes to update.
+     */
+    private void collect(String remainingPart, BitSet candidates) {
+        Node node = this.root;
+
+        for (int i = 0; node != null; i++) {
+            for (int index : node.routes) {
+                candidates.set(index);
+            }
+
+            node = (i < remainingPart.length()) ? node.getChild(remainingPart
+                    .charAt(i)) : null;
+        }
+    }
+
+    /**
+     * Returns the best route match for a given call. Has the same semantics as
+     * {@link org.restlet.util.RouteList#getBest(Request, Response, float)}.
+     * 
+     * @param request
+     *            The request to score.
+     * @param response
+     *            The response to score.
+     * @param requiredScore
+     *            The minimum score required to have a match.
+     * @return The best route match or null.
+     */
+    public Route getBest(Request request, Response response, float requiredScore) {
+        Route result = null;
+        float bestScore = 0F;
+        float score;
+        BitSet candidates = getCandidates(request);
+
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates
+                .nextSetBit(i + 1)) {
+            score = this.routes[i].score(request, response);
+
+            if ((score > bestScore) && (score >= requiredScore)) {
+                bestScore = score;
+                result = this.routes[i];
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the set of candidate route indexes for a given request.
+     * 
+     * @param request
+     *            The request to route.
+     * @return The set of candidate route indexes.
+     */
+    private BitSet getCandidates(Request request) {
+        BitSet result = new BitSet(this.routes.length);
+        Reference resourceRef = (request == null) ? null : request
+                .getResourceRef();
+
+        if (resourceRef != null) {
+            // The routes may match with or without the query string
+            String remainingPart = resourceRef.getRemainingPart(false, false);
+
+            if (remainingPart != null) {
+                collect(remainingPart, result);
+            }
+
+            if (resourceRef.hasQuery()) {
+                remainingPart = resourceRef.getRemainingPart(false, true);
+
+                if (remainingPart != null) {
+                    collect(remainingPart, result);
+                }
+            }
+        } else {
+            // Only the routes not depending on the URI can match
+            collect("", result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the first route match for a given call. Has the same semantics
+     * as {@link org.restlet.util.RouteList#getFirst(Request, Response, float)}.
+     * 
+     * @param request
+     *            The request to score.
+     * @param response
+     *            The response to score.
+     * @param requiredScore
+     *            The minimum score required to have a match.
+     * @return The first route match or null.
+     */
+    public Route getFirst(Request request, Response response,
+            float requiredScore) {
+        BitSet candidates = getCandidates(request);
+
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates
+                .nextSetBit(i + 1)) {
+            if (this.routes[i].score(request, response) >= requiredScore) {
+                return this.routes[i];
+            }
+        }
+
+        // No match found
+        return null;
+    }
+
+    /**
+     * Returns the version of the list of routes indexed.
+     * 
+     * @return The version of the list of routes indexed.
+     */
+    public int getVersion() {
+        return this.version;
+    }
+
+}
@@ -40,6 +40,36 @@ package org.restlet.engine.util;
  */
 public class SystemUtils {
 
+    // [ifndef gwt] method
+    /**
+     * Creates a thread factory producing virtual threads, available since Java
+     * 21. Reflection is used so that the code can still run on earlier
+     * versions.
+     * 
+     * @param name
+     *            The prefix of the thread names, followed by a counter.
+     * @return The virtual thread factory or null if virtual threads aren't
+     *         supported by the current Java Runtime Environment.
+     */
+    public static java.util.concurrent.ThreadFactory createVirtualThreadFactory(
+            String name) {
+        java.util.concurrent.ThreadFactory result = null;
+
+        try {
+            Class<?> builderClass = Class
+                    .forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class)
+                    .invoke(builder, name, 0L);
+            result = (java.util.concurrent.ThreadFactory) builderClass
+                    .getMethod("factory").invoke(builder);
+        } catch (Exception e) {
+            result = null;
+        }
+
+        return result;
+    }
+
     /**
      * Indicates if both fields are equal. For this to be true, they must either
      * be both null or return true to the {@link Object#equals(Object)} method.
@@ -0,0 +1,170 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduled executor service running its immediate tasks on virtual threads,
+ * one per task, while delayed and periodic tasks keep the semantics of a
+ * {@link ScheduledThreadPoolExecutor} backed by a small pool of platform
+ * threads. Tasks submitted via {@link #execute(Runnable)}, the submit methods
+ * and the invoke methods are run on virtual threads.
+ * 
+ * @author Jerome Louvel
+ * @see SystemUtils#createVirtualThreadFactory(String)
+ */
+public class VirtualThreadScheduledExecutor extends
+        ScheduledThreadPoolExecutor {
+
+    /**
+     * Creates a new scheduled executor service if virtual threads are
+     * supported by the current Java Runtime Environment.
+     * 
+     * @param corePoolSize
+     *            The number of platform threads running the scheduled tasks.
+     * @param threadFactory
+     *            The factory of the platform threads.
+     * @param name
+     *            The prefix of the virtual thread names.
+     * @return The new executor service or null if virtual threads aren't
+     *         supported.
+     */
+    public static VirtualThreadScheduledExecutor create(int corePoolSize,
+            ThreadFactory threadFactory, String name) {
+        ThreadFactory virtualThreadFactory = SystemUtils
+                .createVirtualThreadFactory(name);
+        return (virtualThreadFactory == null) ? null
+                : new VirtualThreadScheduledExecutor(corePoolSize,
+                        threadFactory, virtualThreadFactory);
+    }
+
+    /** The service starting a new virtual thread for each task. */
+    private final ThreadPoolExecutor virtualService;
+
+    /**
+     * Constructor.
+     * 
+     * @param corePoolSize
+     *            The number of platform threads running the scheduled tasks.
+     * @param threadFactory
+     *            The factory of the platform threads.
+     * @param virtualThreadFactory
+     *            The factory of the virtual threads.
+     */
+    public VirtualThreadScheduledExecutor(int corePoolSize,
+            ThreadFactory threadFactory, ThreadFactory virtualThreadFactory) {
+        super(corePoolSize, threadFactory);
+
+        // No core thread and no keep alive, so each task gets its own thread
+        this.virtualService = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0L,
+                TimeUnit.MILLISECONDS, new SynchronousQueue<Runnable>(),
+                virtualThreadFactory);
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        return super.awaitTermination(timeout, unit)
+                && this.virtualService.awaitTermination(
+                        deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        this.virtualService.execute(command);
+    }
+
+    /**
+     * Returns the number of tasks currently running on virtual threads.
+     * 
+     * @return The number of tasks currently running on virtual threads.
+     */
+    public int getVirtualActiveCount() {
+        return this.virtualService.getActiveCount();
+    }
+
+    /**
+     * Returns the service starting a new virtual thread for each task.
+     * 
+     * @return The service starting a new virtual thread for each task.
+     */
+    protected ExecutorService getVirtualService() {
+        return this.virtualService;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return super.isTerminated() && this.virtualService.isTerminated();
+    }
+
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        this.virtualService.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> result = new ArrayList<Runnable>(super.shutdownNow());
+        result.addAll(this.virtualService.shutdownNow());
+        return result;
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        return this.virtualService.submit(task);
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        return this.virtualService.submit(task);
+    }
+
+    @Override
+    public <T> Future<T> submit(Runnable task, T result) {
+        return this.virtualService.submit(task, result);
+    }
+
+}
@@ -279,7 +279,13 @@ public class FileRepresentation extends Representation {
      */
     @Override
     public void write(WritableByteChannel writableChannel) throws IOException {
-        IoUtils.copy(getChannel(), writableChannel);
+        FileChannel fileChannel = getChannel();
+
+        try {
+            IoUtils.copy(fileChannel, 0, fileChannel.size(), writableChannel);
+        } finally {
+            fileChannel.close();
+        }
     }
 
     @Override
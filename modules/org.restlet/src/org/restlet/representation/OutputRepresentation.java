@@ -87,7 +87,7 @@ public abstract class OutputRepresentation extends StreamRepresentation {
      */
     @Override
     public InputStream getStream() throws IOException {
-        return IoUtils.getStream(this);
+        return IoUtils.getInputStream(this);
     }
 
 }
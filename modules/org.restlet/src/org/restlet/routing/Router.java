@@ -101,6 +101,28 @@ public class Router extends Restlet {
      */
     public static final int MODE_FIRST_MATCH = 2;
 
+    /**
+     * Each call will be routed to the route with the best score, if the
+     * required score is reached, like with {@link #MODE_BEST_MATCH}. However,
+     * only the routes whose URI pattern starts with a literal prefix matching
+     * the remaining part of the resource URI are scored. This is recommended
+     * for routers with a large number of routes. See
+     * {@link RouteList#getBestIndexed(Request, Response, float)} method for
+     * implementation details.
+     */
+    public static final int MODE_INDEXED_BEST_MATCH = 7;
+
+    /**
+     * Each call is routed to the first route if the required score is reached,
+     * like with {@link #MODE_FIRST_MATCH}. However, only the routes whose URI
+     * pattern starts with a literal prefix matching the remaining part of the
+     * resource URI are scored. This is recommended for routers with a large
+     * number of routes. See
+     * {@link RouteList#getFirstIndexed(Request, Response, float)} method for
+     * implementation details.
+     */
+    public static final int MODE_INDEXED_FIRST_MATCH = 8;
+
     /**
      * Each call will be routed to the last route if the required score is
      * reached. If the required score is not reached, then the route is skipped
@@ -550,6 +572,16 @@ public class Router extends Restlet {
                             getRequiredScore());
                     break;
 
+                case MODE_INDEXED_BEST_MATCH:
+                    result = getRoutes().getBestIndexed(request, response,
+                            getRequiredScore());
+                    break;
+
+                case MODE_INDEXED_FIRST_MATCH:
+                    result = getRoutes().getFirstIndexed(request, response,
+                            getRequiredScore());
+                    break;
+
                 case MODE_LAST_MATCH:
                     result = getRoutes().getLast(request, response,
                             getRequiredScore());
@@ -0,0 +1,455 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.security;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.ChallengeResponse;
+import org.restlet.data.ChallengeScheme;
+import org.restlet.data.ClientInfo;
+import org.restlet.engine.util.Base64;
+
+/**
+ * Verifier caching the results of a wrapped verifier, typically one whose
+ * verifications are expensive, such as a verifier looking up the credentials
+ * in a directory or a database, or hashing the secrets. The results are cached
+ * for each pair of identifier and secret, the secret being only kept as a
+ * salted SHA-256 hash. The user and the principals set by the wrapped verifier
+ * in the {@link ClientInfo} are cached with the valid results and set again on
+ * the requests served from the cache, so they must not be modified by the
+ * applications.<br>
+ * <br>
+ * Only the valid and invalid results are cached, during a given time to live.
+ * When the maximum number of entries is reached, the expired entries are
+ * evicted first, then arbitrary ones. The entries of a given identifier can be
+ * explicitly invalidated, for example when its secret changes.<br>
+ * <br>
+ * By default, only the credentials of the HTTP Basic scheme are cached, as the
+ * secrets of the other schemes usually depend on the request or on a server
+ * nonce. See the {@link #isCacheable(ChallengeResponse)} method.
+ * 
+ * @author Jerome Louvel
+ */
+public class CachingVerifier implements Verifier {
+
+    /** A cached verification result. */
+    private static final class Entry {
+
+        /** The expiration time, in milliseconds. */
+        private final long expirationTime;
+
+        /** The identifier verified. */
+        private final String identifier;
+
+        /** The principals added by the wrapped verifier. */
+        private final List<Principal> principals;
+
+        /** The result of the verification. */
+        private final int result;
+
+        /** The user set by the wrapped verifier. */
+        private final User user;
+
+        private Entry(String identifier, int result, User user,
+                List<Principal> principals, long expirationTime) {
+            this.identifier = identifier;
+            this.result = result;
+            this.user = user;
+            this.principals = principals;
+            this.expirationTime = expirationTime;
+        }
+    }
+
+    /** The character set used to hash the secrets. */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** The cached results, keyed by identifier and secret hash. */
+    private final ConcurrentMap<String, Entry> entries;
+
+    /** The number of cached results evicted before being invalidated. */
+    private final AtomicLong evictionCount;
+
+    /** The number of verifications served from the cache. */
+    private final AtomicLong hitCount;
+
+    /** The maximum number of cached results. */
+    private volatile int maxSize;
+
+    /** The number of verifications delegated to the wrapped verifier. */
+    private final AtomicLong missCount;
+
+    /** The salt of the secret hashes. */
+    private final byte[] salt;
+
+    /** The time to live of the cached results, in milliseconds. */
+    private volatile long timeToLive;
+
+    /** The wrapped verifier. */
+    private volatile Verifier wrappedVerifier;
+
+    /**
+     * Constructor. The results are cached for one minute and up to 1024
+     * results are cached.
+     * 
+     * @param wrappedVerifier
+     *            The wrapped verifier.
+     */
+    public CachingVerifier(Verifier wrappedVerifier) {
+        this(wrappedVerifier, 60000L, 1024);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param wrappedVerifier
+     *            The wrapped verifier.
+     * @param timeToLive
+     *            The time to live of the cached results, in milliseconds.
+     * @param maxSize
+     *            The maximum number of cached results.
+     */
+    public CachingVerifier(Verifier wrappedVerifier, long timeToLive,
+            int maxSize) {
+        this.wrappedVerifier = wrappedVerifier;
+        this.timeToLive = timeToLive;
+        this.maxSize = maxSize;
+        this.entries = new ConcurrentHashMap<String, Entry>();
+        this.evictionCount = new AtomicLong();
+        this.hitCount = new AtomicLong();
+        this.missCount = new AtomicLong();
+        this.salt = new byte[16];
+        new SecureRandom().nextBytes(this.salt);
+    }
+
+    /**
+     * Removes all the cached results.
+     */
+    public void clear() {
+        this.entries.clear();
+    }
+
+    /**
+     * Evicts the expired entries, then arbitrary ones until the cache has room
+     * for a new entry.
+     * 
+     * @param now
+     *            The current time, in milliseconds.
+     */
+    private void evict(long now) {
+        for (Iterator<Entry> iter = this.entries.values().iterator(); iter
+                .hasNext();) {
+            if (iter.next().expirationTime <= now) {
+                iter.remove();
+                this.evictionCount.incrementAndGet();
+            }
+        }
+
+        for (Iterator<Entry> iter = this.entries.values().iterator(); iter
+                .hasNext() && (this.entries.size() >= getMaxSize());) {
+            iter.next();
+            iter.remove();
+            this.evictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of cached results evicted because they expired or
+     * because the maximum size was reached.
+     * 
+     * @return The number of evicted results.
+     */
+    public long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+    /**
+     * Returns the number of verifications served from the cache.
+     * 
+     * @return The number of cache hits.
+     */
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    /**
+     * Returns the cache key of the given credentials.
+     * 
+     * @param scheme
+     *            The challenge scheme.
+     * @param identifier
+     *            The user identifier.
+     * @param secret
+     *            The secret provided by the user.
+     * @return The cache key.
+     */
+    private String getKey(ChallengeScheme scheme, String identifier,
+            char[] secret) {
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(
+                    "The SHA-256 algorithm isn't available", e);
+        }
+
+        digest.update(this.salt);
+        ByteBuffer secretBytes = UTF_8.encode(CharBuffer.wrap(secret));
+
+        try {
+            digest.update(secretBytes.duplicate());
+        } finally {
+            if (secretBytes.hasArray()) {
+                Arrays.fill(secretBytes.array(), (byte) 0);
+            }
+        }
+
+        return scheme.getName() + ' ' + identifier + ' '
+                + Base64.encode(digest.digest(), false);
+    }
+
+    /**
+     * Returns the maximum number of cached results.
+     * 
+     * @return The maximum number of cached results.
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Returns the number of verifications delegated to the wrapped verifier.
+     * 
+     * @return The number of cache misses.
+     */
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    /**
+     * Returns the number of cached results, including the expired ones not
+     * evicted yet.
+     * 
+     * @return The number of cached results.
+     */
+    public int getSize() {
+        return this.entries.size();
+    }
+
+    /**
+     * Returns the time to live of the cached results, in milliseconds.
+     * 
+     * @return The time to live of the cached results.
+     */
+    public long getTimeToLive() {
+        return this.timeToLive;
+    }
+
+    /**
+     * Returns the wrapped verifier.
+     * 
+     * @return The wrapped verifier.
+     */
+    public Verifier getWrappedVerifier() {
+        return this.wrappedVerifier;
+    }
+
+    /**
+     * Invalidates the cached results of a given identifier.
+     * 
+     * @param identifier
+     *            The user identifier.
+     */
+    public void invalidate(String identifier) {
+        for (Iterator<Entry> iter = this.entries.values().iterator(); iter
+                .hasNext();) {
+            if (iter.next().identifier.equals(identifier)) {
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Indicates if the verification of the given credentials can be cached. By
+     * default, returns true for the credentials of the HTTP Basic scheme with
+     * an identifier and a secret. Schemes whose secrets are signatures of the
+     * request or depend on a server nonce must not be cached, as a replayed
+     * request would then be accepted.
+     * 
+     * @param challengeResponse
+     *            The credentials provided.
+     * @return True if the verification can be cached.
+     */
+    protected boolean isCacheable(ChallengeResponse challengeResponse) {
+        return ChallengeScheme.HTTP_BASIC
+                .equals(challengeResponse.getScheme())
+                && (challengeResponse.getIdentifier() != null)
+                && (challengeResponse.getSecret() != null)
+                && (challengeResponse.getServerNonce() == null);
+    }
+
+    /**
+     * Sets the maximum number of cached results.
+     * 
+     * @param maxSize
+     *            The maximum number of cached results.
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Sets the time to live of the cached results, in milliseconds. Only
+     * applies to the results cached afterwards.
+     * 
+     * @param timeToLive
+     *            The time to live of the cached results.
+     */
+    public void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Sets the wrapped verifier. Clears the cached results.
+     * 
+     * @param wrappedVerifier
+     *            The wrapped verifier.
+     */
+    public void setWrappedVerifier(Verifier wrappedVerifier) {
+        this.wrappedVerifier = wrappedVerifier;
+        clear();
+    }
+
+    /**
+     * Verifies the credentials of the request, using the cached result of the
+     * same credentials if available, or the wrapped verifier otherwise.
+     * 
+     * @param request
+     *            The request sent.
+     * @param response
+     *            The response to update.
+     * @return Result of the verification based on the RESULT_* constants.
+     */
+    public int verify(Request request, Response response) {
+        ChallengeResponse challengeResponse = request.getChallengeResponse();
+
+        if ((challengeResponse == null) || !isCacheable(challengeResponse)) {
+            this.missCount.incrementAndGet();
+            return getWrappedVerifier().verify(request, response);
+        }
+
+        String identifier = challengeResponse.getIdentifier();
+        String key = getKey(challengeResponse.getScheme(), identifier,
+                challengeResponse.getSecret());
+        long now = System.currentTimeMillis();
+        Entry entry = this.entries.get(key);
+
+        if ((entry != null) && (entry.expirationTime <= now)) {
+            if (this.entries.remove(key, entry)) {
+                this.evictionCount.incrementAndGet();
+            }
+
+            entry = null;
+        }
+
+        if (entry != null) {
+            this.hitCount.incrementAndGet();
+            ClientInfo clientInfo = request.getClientInfo();
+
+            if (entry.user != null) {
+                clientInfo.setUser(entry.user);
+            }
+
+            for (Principal principal : entry.principals) {
+                if (!clientInfo.getPrincipals().contains(principal)) {
+                    clientInfo.getPrincipals().add(principal);
+                }
+            }
+
+            return entry.result;
+        }
+
+        // Delegate to the wrapped verifier and record its changes
+        this.missCount.incrementAndGet();
+        ClientInfo clientInfo = request.getClientInfo();
+        List<Principal> principals = new ArrayList<Principal>(
+                clientInfo.getPrincipals());
+        int result = getWrappedVerifier().verify(request, response);
+
+        if ((result == RESULT_VALID) || (result == RESULT_INVALID)) {
+            List<Principal> addedPrincipals = Collections.emptyList();
+            User user = null;
+
+            if (result == RESULT_VALID) {
+                user = clientInfo.getUser();
+
+                for (Principal principal : clientInfo.getPrincipals()) {
+                    if (!principals.contains(principal)) {
+                        if (addedPrincipals.isEmpty()) {
+                            addedPrincipals = new ArrayList<Principal>();
+                        }
+
+                        addedPrincipals.add(principal);
+                    }
+                }
+            }
+
+            if (this.entries.size() >= getMaxSize()) {
+                evict(now);
+            }
+
+            this.entries.put(key, new Entry(identifier, result, user,
+                    addedPrincipals, now + getTimeToLive()));
+        }
+
+        return result;
+    }
+
+}
@@ -34,7 +34,9 @@
 package org.restlet.security;
 
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.restlet.engine.security.SecurityModelList;
+import org.restlet.engine.security.SecurityModelVersions;
 
 /**
  * Group that contains member groups and users.
@@ -58,6 +60,9 @@ public class Group {
     /** The modifiable list of members user references. */
     private final List<User> memberUsers;
 
+    /** The versions of the security models containing the group. */
+    private final SecurityModelVersions modelVersions;
+
     /** The display name. */
     private volatile String name;
 
@@ -95,8 +100,9 @@ public class Group {
         this.name = name;
         this.description = description;
         this.inheritingRoles = inheritingRoles;
-        this.memberGroups = new CopyOnWriteArrayList<Group>();
-        this.memberUsers = new CopyOnWriteArrayList<User>();
+        this.modelVersions = new SecurityModelVersions();
+        this.memberGroups = new SecurityModelList<Group>(this.modelVersions);
+        this.memberUsers = new SecurityModelList<User>(this.modelVersions);
     }
 
     /**
@@ -121,6 +127,15 @@ public class Group {
         return memberUsers;
     }
 
+    /**
+     * Returns the versions of the security models containing the group.
+     * 
+     * @return The versions of the security models containing the group.
+     */
+    SecurityModelVersions getModelVersions() {
+        return modelVersions;
+    }
+
     /**
      * Returns the display name.
      * 
@@ -159,6 +174,7 @@ public class Group {
      */
     public void setInheritingRoles(boolean inheritingRoles) {
         this.inheritingRoles = inheritingRoles;
+        this.modelVersions.touch();
     }
 
     /**
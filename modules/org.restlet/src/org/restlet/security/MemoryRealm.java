@@ -34,20 +34,35 @@
 package org.restlet.security;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.restlet.Application;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.ClientInfo;
 import org.restlet.engine.security.RoleMapping;
+import org.restlet.engine.security.SecurityModelList;
+import org.restlet.engine.security.SecurityModelVersions;
 
 /**
  * Security realm based on a memory model. The model is composed of root groups,
- * users and mapping to associated roles.
+ * users and mapping to associated roles.<br>
+ * <br>
+ * The lookups of users, groups and roles are served by an immutable index of
+ * the model: users by identifier, inherited groups by user, roles by mapped
+ * user or group, and the roles enroled for each user. The index is atomically
+ * replaced by a new one, rebuilt on the next lookup, after any modification of
+ * the model of this realm, including the memberships of the groups, the user
+ * identifiers and the sources or targets of the role mappings. The users,
+ * groups and role mappings indexed increment a version of the model owned by
+ * the realm when they are modified, so that a lookup only compares this
+ * version with the one of the index.
  * 
  * @author Jerome Louvel
  */
@@ -59,27 +74,189 @@ public class MemoryRealm extends Realm {
     private class DefaultEnroler implements Enroler {
 
         public void enrole(ClientInfo clientInfo) {
-            User user = findUser(clientInfo.getUser().getIdentifier());
+            Index index = getIndex();
+            User user = index.users.get(clientInfo.getUser().getIdentifier());
 
             if (user != null) {
-                // Find all the inherited groups of this user
-                Set<Group> userGroups = findGroups(user);
+                // Add the roles specific to this user and the roles common to
+                // the members of its inherited groups
+                clientInfo.getRoles().addAll(index.roles.get(user));
+            }
+        }
+    }
+
+    /**
+     * Immutable index of the security model.
+     */
+    private static final class Index {
+
+        /** The inheritable groups of each member user. */
+        private final Map<User, Set<Group>> groups;
+
+        /** The roles enroled for each user, directly or via its groups. */
+        private final Map<User, Set<Role>> roles;
+
+        /** The roles mapped to each user or group. */
+        private final Map<Object, List<Role>> sourceRoles;
+
+        /** The users by identifier. */
+        private final Map<String, User> users;
+
+        /** The version of the security model indexed. */
+        private final int version;
+
+        /**
+         * Constructor. The version of the security model is registered with
+         * the users, groups and role mappings indexed, before reading them.
+         * 
+         * @param users
+         *            The users.
+         * @param rootGroups
+         *            The root groups.
+         * @param roleMappings
+         *            The role mappings.
+         * @param modelVersion
+         *            The version of the security model.
+         */
+        private Index(List<User> users, List<Group> rootGroups,
+                List<RoleMapping> roleMappings, AtomicInteger modelVersion) {
+            this.version = modelVersion.get();
+            this.users = new HashMap<String, User>();
+
+            for (User user : users) {
+                user.getModelVersions().register(modelVersion);
+
+                // The first user with a given identifier is found first
+                if ((user.getIdentifier() != null)
+                        && !this.users.containsKey(user.getIdentifier())) {
+                    this.users.put(user.getIdentifier(), user);
+                }
+            }
+
+            this.groups = new HashMap<User, Set<Group>>();
+
+            for (Group group : rootGroups) {
+                addGroups(this.groups, group, new ArrayList<Group>(),
+                        modelVersion);
+            }
+
+            this.sourceRoles = new HashMap<Object, List<Role>>();
+
+            for (RoleMapping mapping : roleMappings) {
+                mapping.getModelVersions().register(modelVersion);
+                Object source = mapping.getSource();
+                List<Role> mappedRoles = this.sourceRoles.get(source);
+
+                if (mappedRoles == null) {
+                    mappedRoles = new ArrayList<Role>();
+                    this.sourceRoles.put(source, mappedRoles);
+                }
+
+                mappedRoles.add(mapping.getTarget());
+            }
+
+            this.roles = new HashMap<User, Set<Role>>();
 
-                // Add roles specific to this user
-                Set<Role> userRoles = findRoles(user);
+            for (User user : this.users.values()) {
+                Set<Role> userRoles = new HashSet<Role>();
+                addRoles(userRoles, null, user);
 
-                for (Role role : userRoles) {
-                    clientInfo.getRoles().add(role);
+                for (Group group : getGroups(user)) {
+                    addRoles(userRoles, null, group);
                 }
 
-                // Add roles common to group members
-                Set<Role> groupRoles = findRoles(userGroups);
+                this.roles.put(user, Collections.unmodifiableSet(userRoles));
+            }
+        }
 
-                for (Role role : groupRoles) {
-                    clientInfo.getRoles().add(role);
+        /**
+         * Recursively adds the groups of all the member users. The ancestor
+         * groups are added while they have their "inheritRoles" property
+         * enabled, like
+         * {@link MemoryRealm#findGroups(User, boolean)} does for a single
+         * user.
+         * 
+         * @param userGroups
+         *            The groups of each user to update.
+         * @param currentGroup
+         *            The current group to inspect.
+         * @param stack
+         *            The stack of ancestor groups.
+         * @param modelVersion
+         *            The version of the security model to register.
+         */
+        private static void addGroups(Map<User, Set<Group>> userGroups,
+                Group currentGroup, List<Group> stack,
+                AtomicInteger modelVersion) {
+            if ((currentGroup != null) && !stack.contains(currentGroup)) {
+                currentGroup.getModelVersions().register(modelVersion);
+                stack.add(currentGroup);
+
+                for (User user : currentGroup.getMemberUsers()) {
+                    user.getModelVersions().register(modelVersion);
+                    Set<Group> groups = userGroups.get(user);
+
+                    if (groups == null) {
+                        groups = new HashSet<Group>();
+                        userGroups.put(user, groups);
+                    }
+
+                    groups.add(currentGroup);
+
+                    // Add the ancestor groups as well
+                    boolean inherit = currentGroup.isInheritingRoles();
+                    Group group;
+
+                    for (int i = stack.size() - 2; inherit && (i >= 0); i--) {
+                        group = stack.get(i);
+                        groups.add(group);
+                        inherit = group.isInheritingRoles();
+                    }
+                }
+
+                for (Group group : currentGroup.getMemberGroups()) {
+                    addGroups(userGroups, group, stack, modelVersion);
                 }
             }
         }
+
+        /**
+         * Adds the roles mapped to a user or a group.
+         * 
+         * @param roles
+         *            The set of roles to update.
+         * @param application
+         *            The parent application of the roles to add, or null to
+         *            add the roles of all applications.
+         * @param source
+         *            The mapped user or group.
+         */
+        private void addRoles(Set<Role> roles, Application application,
+                Object source) {
+            List<Role> mappedRoles = (source == null) ? null
+                    : this.sourceRoles.get(source);
+
+            if (mappedRoles != null) {
+                for (Role role : mappedRoles) {
+                    if ((application == null)
+                            || (role.getApplication() == application)) {
+                        roles.add(role);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the inheritable groups of a member user.
+         * 
+         * @param user
+         *            The member user.
+         * @return The groups of the user.
+         */
+        private Set<Group> getGroups(User user) {
+            Set<Group> result = this.groups.get(user);
+            return (result == null) ? Collections.<Group> emptySet() : result;
+        }
     }
 
     /**
@@ -120,6 +297,12 @@ public class MemoryRealm extends Realm {
         }
     }
 
+    /** The current index of the security model. */
+    private volatile Index index;
+
+    /** The version of the security model, incremented by its modifications. */
+    private final AtomicInteger modelVersion;
+
     /** The modifiable list of role mappings. */
     private final List<RoleMapping> roleMappings;
 
@@ -135,9 +318,13 @@ public class MemoryRealm extends Realm {
     public MemoryRealm() {
         setVerifier(new DefaultVerifier());
         setEnroler(new DefaultEnroler());
-        this.rootGroups = new CopyOnWriteArrayList<Group>();
-        this.roleMappings = new CopyOnWriteArrayList<RoleMapping>();
-        this.users = new CopyOnWriteArrayList<User>();
+        this.index = null;
+        this.modelVersion = new AtomicInteger();
+        SecurityModelVersions modelVersions = new SecurityModelVersions();
+        modelVersions.register(this.modelVersion);
+        this.rootGroups = new SecurityModelList<Group>(modelVersions);
+        this.roleMappings = new SecurityModelList<RoleMapping>(modelVersions);
+        this.users = new SecurityModelList<User>(modelVersions);
     }
 
     /**
@@ -190,7 +377,7 @@ public class MemoryRealm extends Realm {
      * @return The set of groups.
      */
     public Set<Group> findGroups(User user) {
-        return findGroups(user, true);
+        return new HashSet<Group>(getIndex().getGroups(user));
     }
 
     /**
@@ -234,18 +421,7 @@ public class MemoryRealm extends Realm {
         }
 
         Set<Role> result = new HashSet<Role>();
-        Object source;
-
-        for (RoleMapping mapping : getRoleMappings()) {
-            source = mapping.getSource();
-
-            if ((userGroup != null) && userGroup.equals(source)) {
-                if (mapping.getTarget().getApplication() == application) {
-                    result.add(mapping.getTarget());
-                }
-            }
-        }
-
+        getIndex().addRoles(result, application, userGroup);
         return result;
     }
 
@@ -267,15 +443,12 @@ public class MemoryRealm extends Realm {
         }
 
         Set<Role> result = new HashSet<Role>();
-        Object source;
 
-        for (RoleMapping mapping : getRoleMappings()) {
-            source = mapping.getSource();
+        if (userGroups != null) {
+            Index index = getIndex();
 
-            if ((userGroups != null) && userGroups.contains(source)) {
-                if (mapping.getTarget().getApplication() == application) {
-                    result.add(mapping.getTarget());
-                }
+            for (Group userGroup : userGroups) {
+                index.addRoles(result, application, userGroup);
             }
         }
 
@@ -300,18 +473,7 @@ public class MemoryRealm extends Realm {
         }
 
         Set<Role> result = new HashSet<Role>();
-        Object source;
-
-        for (RoleMapping mapping : getRoleMappings()) {
-            source = mapping.getSource();
-
-            if ((user != null) && user.equals(source)) {
-                if (mapping.getTarget().getApplication() == application) {
-                    result.add(mapping.getTarget());
-                }
-            }
-        }
-
+        getIndex().addRoles(result, application, user);
         return result;
     }
 
@@ -324,16 +486,7 @@ public class MemoryRealm extends Realm {
      */
     public Set<Role> findRoles(Group userGroup) {
         Set<Role> result = new HashSet<Role>();
-        Object source;
-
-        for (RoleMapping mapping : getRoleMappings()) {
-            source = mapping.getSource();
-
-            if ((userGroup != null) && userGroup.equals(source)) {
-                result.add(mapping.getTarget());
-            }
-        }
-
+        getIndex().addRoles(result, null, userGroup);
         return result;
     }
 
@@ -346,13 +499,12 @@ public class MemoryRealm extends Realm {
      */
     public Set<Role> findRoles(Set<Group> userGroups) {
         Set<Role> result = new HashSet<Role>();
-        Object source;
 
-        for (RoleMapping mapping : getRoleMappings()) {
-            source = mapping.getSource();
+        if (userGroups != null) {
+            Index index = getIndex();
 
-            if ((userGroups != null) && userGroups.contains(source)) {
-                result.add(mapping.getTarget());
+            for (Group userGroup : userGroups) {
+                index.addRoles(result, null, userGroup);
             }
         }
 
@@ -368,16 +520,7 @@ public class MemoryRealm extends Realm {
      */
     public Set<Role> findRoles(User user) {
         Set<Role> result = new HashSet<Role>();
-        Object source;
-
-        for (RoleMapping mapping : getRoleMappings()) {
-            source = mapping.getSource();
-
-            if ((user != null) && user.equals(source)) {
-                result.add(mapping.getTarget());
-            }
-        }
-
+        getIndex().addRoles(result, null, user);
         return result;
     }
 
@@ -389,18 +532,19 @@ public class MemoryRealm extends Realm {
      * @return The matched user or null.
      */
     public User findUser(String userIdentifier) {
-        User result = null;
-        User user;
-
-        for (int i = 0; (result == null) && (i < getUsers().size()); i++) {
-            user = getUsers().get(i);
-
-            if (user.getIdentifier().equals(userIdentifier)) {
-                result = user;
-            }
-        }
+        return getIndex().users.get(userIdentifier);
+    }
 
-        return result;
+    /**
+     * Returns the index of the security model, rebuilding it if the model was
+     * modified since the last lookup.
+     * 
+     * @return The index of the security model.
+     */
+    private Index getIndex() {
+        Index result = this.index;
+        return ((result == null) || (result.version != this.modelVersion
+                .get())) ? updateIndex() : result;
     }
 
     /**
@@ -550,7 +694,7 @@ public class MemoryRealm extends Realm {
     private void unmap(Object source, Role role) {
         RoleMapping mapping;
 
-        for (int i = getRoleMappings().size(); i >= 0; i--) {
+        for (int i = getRoleMappings().size() - 1; i >= 0; i--) {
             mapping = getRoleMappings().get(i);
 
             if (mapping.getSource().equals(source)
@@ -590,4 +734,23 @@ public class MemoryRealm extends Realm {
         unmap((Object) user, role);
     }
 
+    /**
+     * Rebuilds the index of the security model, unless another thread just
+     * did it. The rebuilds are serialized so that concurrent lookups don't
+     * build the same index several times.
+     * 
+     * @return The current index.
+     */
+    private synchronized Index updateIndex() {
+        Index result = this.index;
+
+        if ((result == null) || (result.version != this.modelVersion.get())) {
+            result = new Index(getUsers(), getRootGroups(), getRoleMappings(),
+                    this.modelVersion);
+            this.index = result;
+        }
+
+        return result;
+    }
+
 }
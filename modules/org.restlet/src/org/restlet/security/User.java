@@ -35,6 +35,8 @@ package org.restlet.security;
 
 import java.security.Principal;
 
+import org.restlet.engine.security.SecurityModelVersions;
+
 /**
  * User part of a security realm. Note the same user can be member of several
  * groups.
@@ -57,6 +59,9 @@ public class User implements Principal {
     /** The last name. */
     private volatile String lastName;
 
+    /** The versions of the security models containing the user. */
+    private final SecurityModelVersions modelVersions;
+
     /** The secret. */
     private volatile char[] secret;
 
@@ -106,6 +111,7 @@ public class User implements Principal {
     public User(String identifier, char[] secret, String firstName,
             String lastName, String email) {
         this.identifier = identifier;
+        this.modelVersions = new SecurityModelVersions();
         this.secret = secret;
         this.firstName = firstName;
         this.lastName = lastName;
@@ -179,6 +185,15 @@ public class User implements Principal {
         return lastName;
     }
 
+    /**
+     * Returns the versions of the security models containing the user.
+     * 
+     * @return The versions of the security models containing the user.
+     */
+    SecurityModelVersions getModelVersions() {
+        return modelVersions;
+    }
+
     /**
      * Returns the user identifier.
      * 
@@ -225,6 +240,7 @@ public class User implements Principal {
      */
     public void setIdentifier(String identifier) {
         this.identifier = identifier;
+        this.modelVersions.touch();
     }
 
     /**
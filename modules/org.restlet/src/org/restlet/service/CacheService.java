@@ -0,0 +1,296 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.service;
+
+import java.io.File;
+
+import org.restlet.Context;
+import org.restlet.engine.application.CacheFilter;
+import org.restlet.engine.application.ResponseCache;
+import org.restlet.routing.Filter;
+
+/**
+ * Application service caching the responses to GET requests in memory. Fresh
+ * responses are served without invoking the resources, while stale ones are
+ * revalidated with conditional requests when they have a tag or a modification
+ * date. The freshness is computed from the "Cache-Control" directives and from
+ * the expiration date of the response entities.<br>
+ * <br>
+ * On the server side, the cache is shared between all the clients. When the
+ * client side caching is enabled, the responses received by the client
+ * dispatcher of the application are also cached, in a separate private cache.
+ * The least recently used entries are evicted first when the memory bounds are
+ * reached. If an overflow directory is set, they are then written to files and
+ * loaded back into memory when accessed again.<br>
+ * <br>
+ * This service is disabled by default. Its bounds must be set before the
+ * application is started.
+ * 
+ * @author Jerome Louvel
+ */
+public class CacheService extends Service {
+
+    /** Indicates if the client side caching is enabled. */
+    private volatile boolean clientCaching;
+
+    /** The cache of the client responses. */
+    private volatile ResponseCache clientCache;
+
+    /** The maximum number of entries in memory. */
+    private volatile int maxEntries;
+
+    /** The maximum size of a single entry in bytes. */
+    private volatile long maxEntrySize;
+
+    /** The maximum number of bytes of content stored in memory. */
+    private volatile long maxMemorySize;
+
+    /** The maximum number of bytes of content stored in overflow files. */
+    private volatile long maxOverflowSize;
+
+    /** The directory of the overflow files or null. */
+    private volatile File overflowDirectory;
+
+    /** The cache of the server responses. */
+    private volatile ResponseCache serverCache;
+
+    /**
+     * Constructor.
+     */
+    public CacheService() {
+        this(true);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param enabled
+     *            True if the service has been enabled.
+     */
+    public CacheService(boolean enabled) {
+        super(enabled);
+        this.clientCaching = false;
+        this.maxEntries = 1000;
+        this.maxEntrySize = 1024 * 1024;
+        this.maxMemorySize = 16 * 1024 * 1024;
+        this.maxOverflowSize = 64 * 1024 * 1024;
+        this.overflowDirectory = null;
+    }
+
+    /**
+     * Creates a new response cache with the current bounds.
+     * 
+     * @return A new response cache.
+     */
+    protected ResponseCache createCache() {
+        return new ResponseCache(getMaxEntries(), getMaxMemorySize(),
+                getMaxEntrySize(), getOverflowDirectory(), getMaxOverflowSize());
+    }
+
+    @Override
+    public Filter createInboundFilter(Context context) {
+        return new CacheFilter(context, getServerCache(), true);
+    }
+
+    @Override
+    public Filter createOutboundFilter(Context context) {
+        return isClientCaching() ? new CacheFilter(context, getClientCache(),
+                false) : null;
+    }
+
+    /**
+     * Returns the cache of the client responses, created on first access.
+     * 
+     * @return The cache of the client responses.
+     */
+    public ResponseCache getClientCache() {
+        ResponseCache result = this.clientCache;
+
+        if (result == null) {
+            synchronized (this) {
+                result = this.clientCache;
+
+                if (result == null) {
+                    result = createCache();
+                    this.clientCache = result;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the maximum number of entries in memory. By default, it is 1000.
+     * 
+     * @return The maximum number of entries in memory.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Returns the maximum size of a single entry in bytes. By default, it is 1
+     * MB.
+     * 
+     * @return The maximum size of a single entry in bytes.
+     */
+    public long getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    /**
+     * Returns the maximum number of bytes of content stored in memory. By
+     * default, it is 16 MB.
+     * 
+     * @return The maximum number of bytes of content stored in memory.
+     */
+    public long getMaxMemorySize() {
+        return maxMemorySize;
+    }
+
+    /**
+     * Returns the maximum number of bytes of content stored in overflow files.
+     * By default, it is 64 MB.
+     * 
+     * @return The maximum number of bytes of content stored in overflow files.
+     */
+    public long getMaxOverflowSize() {
+        return maxOverflowSize;
+    }
+
+    /**
+     * Returns the directory of the overflow files. By default, it is null and
+     * the evicted entries are discarded.
+     * 
+     * @return The directory of the overflow files or null.
+     */
+    public File getOverflowDirectory() {
+        return overflowDirectory;
+    }
+
+    /**
+     * Returns the cache of the server responses, created on first access.
+     * 
+     * @return The cache of the server responses.
+     */
+    public ResponseCache getServerCache() {
+        ResponseCache result = this.serverCache;
+
+        if (result == null) {
+            synchronized (this) {
+                result = this.serverCache;
+
+                if (result == null) {
+                    result = createCache();
+                    this.serverCache = result;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Indicates if the client side caching is enabled. By default, it is
+     * false.
+     * 
+     * @return True if the client side caching is enabled.
+     */
+    public boolean isClientCaching() {
+        return clientCaching;
+    }
+
+    /**
+     * Indicates if the client side caching is enabled.
+     * 
+     * @param clientCaching
+     *            True if the client side caching is enabled.
+     */
+    public void setClientCaching(boolean clientCaching) {
+        this.clientCaching = clientCaching;
+    }
+
+    /**
+     * Sets the maximum number of entries in memory.
+     * 
+     * @param maxEntries
+     *            The maximum number of entries in memory.
+     */
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Sets the maximum size of a single entry in bytes.
+     * 
+     * @param maxEntrySize
+     *            The maximum size of a single entry in bytes.
+     */
+    public void setMaxEntrySize(long maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    /**
+     * Sets the maximum number of bytes of content stored in memory.
+     * 
+     * @param maxMemorySize
+     *            The maximum number of bytes of content stored in memory.
+     */
+    public void setMaxMemorySize(long maxMemorySize) {
+        this.maxMemorySize = maxMemorySize;
+    }
+
+    /**
+     * Sets the maximum number of bytes of content stored in overflow files.
+     * 
+     * @param maxOverflowSize
+     *            The maximum number of bytes of content stored in overflow
+     *            files.
+     */
+    public void setMaxOverflowSize(long maxOverflowSize) {
+        this.maxOverflowSize = maxOverflowSize;
+    }
+
+    /**
+     * Sets the directory of the overflow files.
+     * 
+     * @param overflowDirectory
+     *            The directory of the overflow files or null.
+     */
+    public void setOverflowDirectory(File overflowDirectory) {
+        this.overflowDirectory = overflowDirectory;
+    }
+
+}
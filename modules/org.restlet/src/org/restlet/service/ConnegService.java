@@ -37,6 +37,7 @@ import java.util.List;
 
 import org.restlet.Request;
 import org.restlet.engine.application.Conneg;
+import org.restlet.engine.application.ConnegCache;
 import org.restlet.engine.application.FlexibleConneg;
 import org.restlet.engine.application.StrictConneg;
 import org.restlet.representation.Variant;
@@ -44,12 +45,18 @@ import org.restlet.representation.Variant;
 /**
  * Application service negotiating the preferred resource variants. This service
  * is leveraged by server-side and client-side content negotiation, annotated
- * method dispatching, and so on.
+ * method dispatching, and so on.<br>
+ * <br>
+ * The preferred variants are cached, keyed by the client preferences and the
+ * candidate variants. See {@link #getCache()} to tune or disable the cache.
  * 
  * @author Jerome Louvel
  */
 public class ConnegService extends Service {
 
+    /** The cache of the preferred variants. */
+    private final ConnegCache cache;
+
     /**
      * Indicates if the conneg algorithm should strictly respect client
      * preferences or be more flexible.
@@ -71,9 +78,20 @@ public class ConnegService extends Service {
      */
     public ConnegService(boolean enabled) {
         super(enabled);
+        this.cache = new ConnegCache();
         this.strict = false;
     }
 
+    /**
+     * Returns the cache of the preferred variants, keyed by the client
+     * preferences and the candidate variants.
+     * 
+     * @return The cache of the preferred variants.
+     */
+    public ConnegCache getCache() {
+        return this.cache;
+    }
+
     /**
      * Returns the best variant representation for a given resource according
      * the the client preferences.<br>
@@ -93,9 +111,54 @@ public class ConnegService extends Service {
      */
     public Variant getPreferredVariant(List<? extends Variant> variants,
             Request request, MetadataService metadataService) {
-        Conneg conneg = isStrict() ? new StrictConneg(request, metadataService)
-                : new FlexibleConneg(request, metadataService);
-        return conneg.getPreferredVariant(variants);
+        Variant result = null;
+
+        if ((variants != null) && !variants.isEmpty()) {
+            Object key = null;
+
+            if (getCache().isEnabled()) {
+                key = ConnegCache.getKey(variants, request, metadataService,
+                        isStrict());
+                Integer index = getCache().get(key);
+
+                if (index != null) {
+                    return (index < 0) ? null : variants.get(index);
+                }
+            }
+
+            Conneg conneg = isStrict() ? new StrictConneg(request,
+                    metadataService) : new FlexibleConneg(request,
+                    metadataService);
+            result = conneg.getPreferredVariant(variants);
+
+            if (key != null) {
+                getCache().put(key, indexOf(variants, result));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the position of a variant in a list, comparing instances.
+     * 
+     * @param variants
+     *            The list of variants.
+     * @param variant
+     *            The variant to find.
+     * @return The position of the variant, or -1 if not found.
+     */
+    private int indexOf(List<? extends Variant> variants, Variant variant) {
+        int result = -1;
+
+        for (int i = 0; (result == -1) && (variant != null)
+                && (i < variants.size()); i++) {
+            if (variants.get(i) == variant) {
+                result = i;
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -33,7 +33,10 @@
 
 package org.restlet.service;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.LogManager;
+import java.util.logging.Logger;
 
 import org.restlet.Context;
 import org.restlet.Request;
@@ -41,7 +44,10 @@ import org.restlet.Response;
 import org.restlet.data.Method;
 import org.restlet.data.Reference;
 import org.restlet.data.Status;
+import org.restlet.engine.log.AccessLogEvent;
+import org.restlet.engine.log.AccessLogWriter;
 import org.restlet.engine.log.LogFilter;
+import org.restlet.engine.util.CallTemplate;
 import org.restlet.representation.Representation;
 import org.restlet.resource.ClientResource;
 import org.restlet.routing.Filter;
@@ -80,6 +86,13 @@ import org.restlet.routing.Template;
  * <br>
  * For custom access log format, see the syntax to use and the list of available
  * variable names in {@link org.restlet.routing.Template}. <br>
+ * <br>
+ * In the asynchronous mode, the calling threads only capture compact events in
+ * a bounded ring buffer, formatted and logged one by one by a background thread
+ * (see {@link AccessLogWriter}), the access log files being flushed once per
+ * batch of events. When the buffer is full, the events are dropped unless the
+ * blocking mode is enabled, in which case the calling threads wait for free
+ * slots. The background threads are started and stopped with the service.<br>
  * 
  * @see <a href="http://wiki.restlet.org/docs_2.2/201-restlet.html">User Guide -
  *      Access logging</a>
@@ -89,6 +102,18 @@ import org.restlet.routing.Template;
  */
 public class LogService extends Service {
 
+    /** The asynchronous writers created for the log filters, by logger name. */
+    private final ConcurrentMap<String, AccessLogWriter> accessLogWriters;
+
+    /** Indicates if the access log is asynchronously written. */
+    private volatile boolean asynchronous;
+
+    /** Indicates if the callers wait when the buffer is full. */
+    private volatile boolean blocking;
+
+    /** The number of events buffered in the asynchronous mode. */
+    private volatile int bufferSize;
+
     /** Indicates if the debugging mode is enabled. */
     private volatile boolean debugging;
 
@@ -110,6 +135,9 @@ public class LogService extends Service {
     /** The response log template to use. */
     protected volatile Template responseLogTemplate;
 
+    /** The compiled response log template. */
+    private volatile CallTemplate responseLogFormatter;
+
     /**
      * Constructor.
      */
@@ -125,6 +153,10 @@ public class LogService extends Service {
      */
     public LogService(boolean enabled) {
         super(enabled);
+        this.accessLogWriters = new ConcurrentHashMap<String, AccessLogWriter>();
+        this.asynchronous = false;
+        this.blocking = false;
+        this.bufferSize = 8192;
         this.loggableTemplate = null;
         this.loggerName = null;
         this.responseLogFormat = null;
@@ -132,11 +164,86 @@ public class LogService extends Service {
         this.identityCheck = false;
     }
 
+    /**
+     * Captures an access log event for the asynchronous mode. If a custom log
+     * format is set, the entry is formatted right away, otherwise the values
+     * of the call are captured and formatted later with the default format.
+     * 
+     * @param event
+     *            The event to fill.
+     * @param response
+     *            The response to log.
+     * @param duration
+     *            The call duration (in milliseconds).
+     */
+    public void captureResponseLogEvent(AccessLogEvent event,
+            Response response, int duration) {
+        if ((this.responseLogTemplate != null) || isDebugging()) {
+            event.setMessage(getResponseLogMessage(response, duration));
+        } else {
+            Request request = response.getRequest();
+            String user = null;
+
+            if (isIdentityCheck()) {
+                // [ifndef gae]
+                org.restlet.engine.log.IdentClient ic = new org.restlet.engine.log.IdentClient(
+                        request.getClientInfo().getUpstreamAddress(), request
+                                .getClientInfo().getPort(), response
+                                .getServerInfo().getPort());
+                user = ic.getUserIdentifier();
+            } else if (request.getChallengeResponse() != null) {
+                user = request.getChallengeResponse().getIdentifier();
+                // [enddef]
+            }
+
+            event.capture(response, duration, user);
+        }
+    }
+
+    /**
+     * Creates an asynchronous writer for the given access logger, or returns
+     * the one already created for this logger. The writer is started if the
+     * service is started, and then started and stopped with the service.
+     * 
+     * @param logger
+     *            The access logger.
+     * @return The writer.
+     */
+    public AccessLogWriter createAccessLogWriter(Logger logger) {
+        AccessLogWriter result = this.accessLogWriters.get(logger.getName());
+
+        if (result == null) {
+            result = new AccessLogWriter(logger, getBufferSize(), isBlocking());
+            AccessLogWriter current = this.accessLogWriters.putIfAbsent(
+                    logger.getName(), result);
+
+            if (current != null) {
+                result = current;
+            }
+        }
+
+        if (isStarted()) {
+            result.start();
+        }
+
+        return result;
+    }
+
     @Override
     public Filter createInboundFilter(Context context) {
         return new LogFilter(context, this);
     }
 
+    /**
+     * Returns the number of events buffered in the asynchronous mode. By
+     * default, it is 8192.
+     * 
+     * @return The number of events buffered in the asynchronous mode.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
     /**
      * Format a log entry using the default IIS log format.
      * 
@@ -313,7 +420,8 @@ public class LogService extends Service {
 
     /**
      * Format an access log entry. If the log template property isn't provided,
-     * then a default IIS like format is used.
+     * then a default IIS like format is used. Otherwise, the template is
+     * compiled once into a {@link CallTemplate}.
      * 
      * @param response
      *            The response to log.
@@ -325,9 +433,17 @@ public class LogService extends Service {
         String result = null;
 
         // Format the call into a log entry
-        if (this.responseLogTemplate != null) {
-            result = this.responseLogTemplate.format(response.getRequest(),
-                    response);
+        Template template = this.responseLogTemplate;
+
+        if (template != null) {
+            CallTemplate formatter = this.responseLogFormatter;
+
+            if ((formatter == null) || (formatter.getTemplate() != template)) {
+                formatter = new CallTemplate(template);
+                this.responseLogFormatter = formatter;
+            }
+
+            result = formatter.format(response.getRequest(), response);
         } else {
             result = getDefaultResponseLogMessage(response, duration);
         }
@@ -335,6 +451,26 @@ public class LogService extends Service {
         return result;
     }
 
+    /**
+     * Indicates if the access log is asynchronously written. False by default.
+     * 
+     * @return True if the access log is asynchronously written.
+     */
+    public boolean isAsynchronous() {
+        return asynchronous;
+    }
+
+    /**
+     * Indicates if the calling threads wait when the buffer of the
+     * asynchronous mode is full, instead of dropping the events. False by
+     * default.
+     * 
+     * @return True if the calling threads wait when the buffer is full.
+     */
+    public boolean isBlocking() {
+        return blocking;
+    }
+
     /**
      * Indicates if the debugging mode is enabled. False by default.
      * 
@@ -368,6 +504,38 @@ public class LogService extends Service {
                 .match(request.getResourceRef().getTargetRef().toString()) > 0;
     }
 
+    /**
+     * Indicates if the access log is asynchronously written. Must be set
+     * before the service is started.
+     * 
+     * @param asynchronous
+     *            True if the access log is asynchronously written.
+     */
+    public void setAsynchronous(boolean asynchronous) {
+        this.asynchronous = asynchronous;
+    }
+
+    /**
+     * Indicates if the calling threads wait when the buffer of the
+     * asynchronous mode is full, instead of dropping the events.
+     * 
+     * @param blocking
+     *            True if the calling threads wait when the buffer is full.
+     */
+    public void setBlocking(boolean blocking) {
+        this.blocking = blocking;
+    }
+
+    /**
+     * Sets the number of events buffered in the asynchronous mode.
+     * 
+     * @param bufferSize
+     *            The number of events buffered in the asynchronous mode.
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
     /**
      * Indicates if the debugging mode is enabled.
      * 
@@ -457,7 +625,8 @@ public class LogService extends Service {
 
     /**
      * Starts the log service by attempting to read the log properties if the
-     * {@link #getLogPropertiesRef()} returns a non null URI reference.
+     * {@link #getLogPropertiesRef()} returns a non null URI reference. Also
+     * starts the asynchronous writers already created.
      */
     @Override
     public synchronized void start() throws Exception {
@@ -475,5 +644,23 @@ public class LogService extends Service {
                         logProperties.getStream());
             }
         }
+
+        for (AccessLogWriter writer : this.accessLogWriters.values()) {
+            writer.start();
+        }
+    }
+
+    /**
+     * Stops the log service, writing the pending events of the asynchronous
+     * writers.
+     */
+    @Override
+    public synchronized void stop() throws Exception {
+        for (AccessLogWriter writer : this.accessLogWriters.values()) {
+            writer.stop();
+        }
+
+        super.stop();
     }
+
 }
@@ -34,7 +34,10 @@
 package org.restlet.service;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.restlet.data.CharacterSet;
@@ -50,10 +53,34 @@ import org.restlet.engine.application.MetadataExtension;
  * {@link #addCommonExtensions()} method.<br>
  * <br>
  * Internally, the mappings are stored as a list of "extension, metadata" pairs.
+ * This list is indexed by lower case extension name and by metadata, the
+ * indexes being rebuilt each time the mappings change, so that the extension
+ * lookups are case insensitive and done in constant time.
  * 
  * @author Jerome Louvel
  */
 public class MetadataService extends Service {
+
+    /** Indexes of the mappings list, published together once built. */
+    private static final class Indexes {
+
+        /** The index of the mappings by lower case extension name. */
+        private final Map<String, List<MetadataExtension>> extensions;
+
+        /** The index of the first extension name mapped to each metadata. */
+        private final Map<Metadata, String> metadata;
+
+        /** The version of the mappings list indexed. */
+        private final int version;
+
+        private Indexes(Map<String, List<MetadataExtension>> extensions,
+                Map<Metadata, String> metadata, int version) {
+            this.extensions = extensions;
+            this.metadata = metadata;
+            this.version = version;
+        }
+    }
+
     /** The default character set for textual representations. */
     private volatile CharacterSet defaultCharacterSet;
 
@@ -66,6 +93,9 @@ public class MetadataService extends Service {
     /** The default media type for representations. */
     private volatile MediaType defaultMediaType;
 
+    /** The indexes of the mappings list. */
+    private volatile Indexes indexes;
+
     /** The list of mappings between extension names and metadata. */
     private final List<MetadataExtension> mappings;
 
@@ -84,6 +114,7 @@ public class MetadataService extends Service {
         // [ifdef gwt] instruction uncomment
         // this.defaultMediaType = MediaType.APPLICATION_JSON;
         this.mappings = new CopyOnWriteArrayList<MetadataExtension>();
+        updateIndexes();
         addCommonExtensions();
     }
 
@@ -222,7 +253,7 @@ public class MetadataService extends Service {
      * <li>zip: Zip archive</li>
      * </ul>
      */
-    public void addCommonExtensions() {
+    public synchronized void addCommonExtensions() {
         List<MetadataExtension> dm = new ArrayList<MetadataExtension>();
 
         ext(dm, "en", Language.ENGLISH);
@@ -374,6 +405,7 @@ public class MetadataService extends Service {
 
         // Add all those mappings
         this.mappings.addAll(dm);
+        updateIndexes();
     }
 
     /**
@@ -400,8 +432,8 @@ public class MetadataService extends Service {
      * @param preferred
      *            indicates if this mapping is the preferred one.
      */
-    public void addExtension(String extension, Metadata metadata,
-            boolean preferred) {
+    public synchronized void addExtension(String extension,
+            Metadata metadata, boolean preferred) {
         if (preferred) {
             // Add the mapping at the beginning of the list
             this.mappings.add(0, new MetadataExtension(extension, metadata));
@@ -409,13 +441,16 @@ public class MetadataService extends Service {
             // Add the mapping at the end of the list
             this.mappings.add(new MetadataExtension(extension, metadata));
         }
+
+        updateIndexes();
     }
 
     /**
      * clears the mappings for all extensions.
      */
-    public void clearExtensions() {
+    public synchronized void clearExtensions() {
         this.mappings.clear();
+        updateIndexes();
     }
 
     /**
@@ -491,9 +526,8 @@ public class MetadataService extends Service {
 
         if (extension != null) {
             // Look for all registered convenient mapping.
-            for (MetadataExtension metadataExtension : this.mappings) {
-                if (extension.equals(metadataExtension.getName())
-                        && (metadataExtension.getMetadata() instanceof CharacterSet)) {
+            for (MetadataExtension metadataExtension : getMappings(extension)) {
+                if (metadataExtension.getMetadata() instanceof CharacterSet) {
                     if (result == null) {
                         result = new ArrayList<CharacterSet>();
                     }
@@ -572,9 +606,8 @@ public class MetadataService extends Service {
 
         if (extension != null) {
             // Look for all registered convenient mapping.
-            for (MetadataExtension metadataExtension : this.mappings) {
-                if (extension.equals(metadataExtension.getName())
-                        && (metadataExtension.getMetadata() instanceof Language)) {
+            for (MetadataExtension metadataExtension : getMappings(extension)) {
+                if (metadataExtension.getMetadata() instanceof Language) {
                     if (result == null) {
                         result = new ArrayList<Language>();
                     }
@@ -618,9 +651,8 @@ public class MetadataService extends Service {
 
         if (extension != null) {
             // Look for all registered convenient mapping.
-            for (MetadataExtension metadataExtension : this.mappings) {
-                if (extension.equals(metadataExtension.getName())
-                        && (metadataExtension.getMetadata() instanceof MediaType)) {
+            for (MetadataExtension metadataExtension : getMappings(extension)) {
+                if (metadataExtension.getMetadata() instanceof MediaType) {
                     if (result == null) {
                         result = new ArrayList<MediaType>();
                     }
@@ -646,14 +678,12 @@ public class MetadataService extends Service {
 
         if (extension != null) {
             // Look for all registered convenient mapping.
-            for (MetadataExtension metadataExtension : this.mappings) {
-                if (extension.equals(metadataExtension.getName())) {
-                    if (result == null) {
-                        result = new ArrayList<Metadata>();
-                    }
-
-                    result.add(metadataExtension.getMetadata());
+            for (MetadataExtension metadataExtension : getMappings(extension)) {
+                if (result == null) {
+                    result = new ArrayList<Metadata>();
                 }
+
+                result.add(metadataExtension.getMetadata());
             }
         }
 
@@ -751,15 +781,8 @@ public class MetadataService extends Service {
      * @return The first extension mapping to this metadata.
      */
     public String getExtension(Metadata metadata) {
-        if (metadata != null) {
-            // Look for the first registered convenient mapping.
-            for (final MetadataExtension metadataExtension : this.mappings) {
-                if (metadata.equals(metadataExtension.getMetadata())) {
-                    return metadataExtension.getName();
-                }
-            }
-        }
-        return null;
+        return (metadata == null) ? null : this.indexes.metadata
+                .get(metadata);
     }
 
     /**
@@ -810,6 +833,37 @@ public class MetadataService extends Service {
         // [enddef]
     }
 
+    /**
+     * Returns the mappings of an extension name, ignoring its case, in the
+     * order of the mappings list.
+     * 
+     * @param extension
+     *            The extension name without any delimiter.
+     * @return The mappings of the extension name.
+     */
+    private List<MetadataExtension> getMappings(String extension) {
+        Map<String, List<MetadataExtension>> index = this.indexes.extensions;
+        List<MetadataExtension> result = index.get(extension);
+
+        if (result == null) {
+            // [ifndef gwt] instruction
+            String key = extension.toLowerCase(java.util.Locale.ENGLISH);
+            // [ifdef gwt] uncomment
+            // String key = extension.toLowerCase();
+            // [enddef]
+
+            if (!key.equals(extension)) {
+                result = index.get(key);
+            }
+        }
+
+        if (result == null) {
+            result = Collections.emptyList();
+        }
+
+        return result;
+    }
+
     /**
      * Returns the metadata associated to this extension. It returns null if the
      * extension was not declared. If several metadata are associated to the
@@ -823,10 +877,10 @@ public class MetadataService extends Service {
     public Metadata getMetadata(String extension) {
         if (extension != null) {
             // Look for the first registered convenient mapping.
-            for (final MetadataExtension metadataExtension : this.mappings) {
-                if (extension.equals(metadataExtension.getName())) {
-                    return metadataExtension.getMetadata();
-                }
+            List<MetadataExtension> mappings = getMappings(extension);
+
+            if (!mappings.isEmpty()) {
+                return mappings.get(0).getMetadata();
             }
         }
 
@@ -857,6 +911,16 @@ public class MetadataService extends Service {
         return null;
     }
 
+    /**
+     * Returns the version of the extension mappings, incremented each time
+     * they change.
+     * 
+     * @return The version of the extension mappings.
+     */
+    public int getVersion() {
+        return this.indexes.version;
+    }
+
     /**
      * Sets the default character set for local representations.
      * 
@@ -897,4 +961,39 @@ public class MetadataService extends Service {
         this.defaultMediaType = defaultMediaType;
     }
 
+    /**
+     * Rebuilds the indexes of the mappings list. Must be called each time the
+     * mappings change.
+     */
+    private synchronized void updateIndexes() {
+        Map<String, List<MetadataExtension>> extensions = new HashMap<String, List<MetadataExtension>>();
+        Map<Metadata, String> metadata = new HashMap<Metadata, String>();
+        List<MetadataExtension> list;
+        String key;
+
+        for (MetadataExtension mapping : this.mappings) {
+            // [ifndef gwt] instruction
+            key = mapping.getName().toLowerCase(java.util.Locale.ENGLISH);
+            // [ifdef gwt] uncomment
+            // key = mapping.getName().toLowerCase();
+            // [enddef]
+            list = extensions.get(key);
+
+            if (list == null) {
+                list = new ArrayList<MetadataExtension>(2);
+                extensions.put(key, list);
+            }
+
+            list.add(mapping);
+
+            if (!metadata.containsKey(mapping.getMetadata())) {
+                metadata.put(mapping.getMetadata(), mapping.getName());
+            }
+        }
+
+        // Publish both indexes at once, when complete
+        this.indexes = new Indexes(extensions, metadata,
+                (this.indexes == null) ? 0 : this.indexes.version + 1);
+    }
+
 }
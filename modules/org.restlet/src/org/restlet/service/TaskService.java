@@ -54,6 +54,7 @@ import org.restlet.Context;
 import org.restlet.Response;
 import org.restlet.engine.Engine;
 import org.restlet.engine.util.ContextualRunnable;
+import org.restlet.engine.util.VirtualThreadScheduledExecutor;
 import org.restlet.routing.VirtualHost;
 
 /**
@@ -70,7 +71,13 @@ import org.restlet.routing.VirtualHost;
  * Resources that are part of your context. In general this context corresponds
  * to a parent Application's context. If you want to have your own service
  * instance, you can use the {@link TaskService#wrap(ScheduledExecutorService)}
- * method to ensure that thread local variables are correctly set.
+ * method to ensure that thread local variables are correctly set.<br>
+ * <br>
+ * When the "virtualThreads" property is set, or when the "virtualThreads"
+ * parameter of the service's context is "true", the tasks executed or
+ * submitted without delay are run on virtual threads if the Java Runtime
+ * Environment supports them. The delayed and periodic tasks are still run by a
+ * pool of "corePoolSize" platform threads.
  * 
  * @author Jerome Louvel
  * @author Doug Lea (docs of ExecutorService in public domain)
@@ -245,6 +252,9 @@ public class TaskService extends Service implements ScheduledExecutorService {
     /** The core pool size defining the maximum number of threads. */
     private volatile int corePoolSize;
 
+    /** Indicates if the tasks should be run on virtual threads. */
+    private volatile boolean virtualThreads;
+
     /**
      * Constructor. Enables the service and set the core pool size to 4 by
      * default.
@@ -275,6 +285,7 @@ public class TaskService extends Service implements ScheduledExecutorService {
         super(enabled);
         this.corePoolSize = corePoolSize;
         this.shutdownAllowed = false;
+        this.virtualThreads = false;
     }
 
     /**
@@ -307,14 +318,29 @@ public class TaskService extends Service implements ScheduledExecutorService {
 
     /**
      * Creates a new JDK executor service that will be wrapped. By default it
-     * calls {@link Executors#newCachedThreadPool(ThreadFactory)}, passing the
-     * result of {@link #createThreadFactory()} as a parameter.
+     * calls {@link Executors#newScheduledThreadPool(int, ThreadFactory)},
+     * passing the result of {@link #createThreadFactory()} as a parameter. If
+     * {@link #isVirtualThreads()} returns true and virtual threads are
+     * supported, a {@link VirtualThreadScheduledExecutor} is returned instead.
      * 
      * @param corePoolSize
      *            The core pool size defining the maximum number of threads.
      * @return A new JDK executor service.
      */
     protected ScheduledExecutorService createExecutorService(int corePoolSize) {
+        if (isVirtualThreads()) {
+            ScheduledExecutorService result = VirtualThreadScheduledExecutor
+                    .create(corePoolSize, createThreadFactory(), "restlet-");
+
+            if (result != null) {
+                return result;
+            }
+
+            Context.getCurrentLogger().fine(
+                    "Virtual threads aren't supported by this JVM. "
+                            + "Using platform threads instead.");
+        }
+
         return Executors.newScheduledThreadPool(corePoolSize,
                 createThreadFactory());
     }
@@ -487,6 +513,20 @@ public class TaskService extends Service implements ScheduledExecutorService {
         return (getWrapped() == null) || getWrapped().isTerminated();
     }
 
+    /**
+     * Indicates if the tasks executed or submitted without delay should be run
+     * on virtual threads. Returns true if the "virtualThreads" property is set
+     * or if the "virtualThreads" parameter of the service's context is "true".
+     * 
+     * @return True if the tasks should be run on virtual threads.
+     */
+    public boolean isVirtualThreads() {
+        return this.virtualThreads
+                || ((getContext() != null) && Boolean
+                        .parseBoolean(getContext().getParameters()
+                                .getFirstValue("virtualThreads", "false")));
+    }
+
     /**
      * Creates and executes a ScheduledFuture that becomes enabled after the
      * given delay.
@@ -619,6 +659,18 @@ public class TaskService extends Service implements ScheduledExecutorService {
         this.shutdownAllowed = allowShutdown;
     }
 
+    /**
+     * Indicates if the tasks executed or submitted without delay should be run
+     * on virtual threads. Only taken into account when the service is
+     * started.
+     * 
+     * @param virtualThreads
+     *            True if the tasks should be run on virtual threads.
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
     /**
      * Sets the wrapped JDK executor service.
      * 
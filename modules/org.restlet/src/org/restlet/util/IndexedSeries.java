@@ -0,0 +1,492 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Locale;
+import java.util.Map;
+
+import org.restlet.engine.header.HeaderConstants;
+
+/**
+ * Series maintaining a case insensitive hash index of the entry names on top
+ * of the insertion ordered list. Lookups by name such as
+ * {@link #getFirst(String, boolean)}, {@link #getValues(String)} or
+ * {@link #removeAll(String, boolean)} don't need to scan the entries anymore.
+ * The index is lazily rebuilt after structural modifications. The well-known
+ * header names defined in {@link HeaderConstants} are interned, so that
+ * creating or looking up a standard header doesn't need to compute a new
+ * lower case key.<br>
+ * <br>
+ * Note that entries shouldn't be renamed while they are contained in the
+ * series, and that sub lists views shouldn't be structurally modified after
+ * a lookup, as the index wouldn't be aware of those changes. Like its parent class,
+ * this class isn't thread-safe.
+ * 
+ * @author Jerome Louvel
+ * @param <T>
+ *            The contained type
+ */
+public class IndexedSeries<T extends NamedValue<String>> extends Series<T> {
+
+    /** The lower case keys of the well-known header names and keys. */
+    private static final Map<String, String> KNOWN_KEYS;
+
+    /** The well-known header names associated to their lower case key. */
+    private static final Map<String, String> KNOWN_NAMES;
+
+    static {
+        Map<String, String> keys = new HashMap<String, String>();
+        Map<String, String> names = new HashMap<String, String>();
+
+        for (Field field : HeaderConstants.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers())
+                    && field.getName().startsWith("HEADER_")
+                    && (field.getType() == String.class)) {
+                try {
+                    String name = (String) field.get(null);
+                    String key = name.toLowerCase(Locale.ENGLISH).intern();
+                    keys.put(name, key);
+                    keys.put(key, key);
+                    names.put(key, name);
+                } catch (IllegalAccessException e) {
+                    // Ignore this field
+                }
+            }
+        }
+
+        KNOWN_KEYS = keys;
+        KNOWN_NAMES = names;
+    }
+
+    /**
+     * Returns the lower case key of a name, reusing the interned key of
+     * well-known header names.
+     * 
+     * @param name
+     *            The name.
+     * @return The lower case key or null.
+     */
+    private static String getKey(String name) {
+        String result = null;
+
+        if (name != null) {
+            result = KNOWN_KEYS.get(name);
+
+            if (result == null) {
+                result = name.toLowerCase(Locale.ENGLISH);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Tests the equality of two potentially null names.
+     * 
+     * @param name1
+     *            The first name.
+     * @param name2
+     *            The second name.
+     * @param ignoreCase
+     *            Indicates if the test should be case insensitive.
+     * @return True if both names are equal.
+     */
+    private static boolean matches(String name1, String name2,
+            boolean ignoreCase) {
+        if (name1 == name2) {
+            return true;
+        } else if ((name1 == null) || (name2 == null)) {
+            return false;
+        }
+
+        return ignoreCase ? name1.equalsIgnoreCase(name2) : name1.equals(name2);
+    }
+
+    /** The index of entries by lower case name, null if it must be rebuilt. */
+    private Map<String, List<T>> index;
+
+    /**
+     * Constructor.
+     * 
+     * @param entryClass
+     *            The entry class.
+     */
+    public IndexedSeries(Class<T> entryClass) {
+        super(entryClass);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param entryClass
+     *            The entry class.
+     * @param initialCapacity
+     *            The initial list capacity.
+     */
+    public IndexedSeries(Class<T> entryClass, int initialCapacity) {
+        super(entryClass, initialCapacity);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param entryClass
+     *            The entry class.
+     * @param delegate
+     *            The delegate list.
+     */
+    public IndexedSeries(Class<T> entryClass, List<T> delegate) {
+        super(entryClass, delegate);
+    }
+
+    @Override
+    public void add(int index, T element) {
+        invalidate();
+        super.add(index, element);
+    }
+
+    @Override
+    public boolean add(T element) {
+        boolean result = super.add(element);
+
+        if (result && (this.index != null) && (element != null)) {
+            // Appending preserves the order of the existing buckets
+            getBucket(element.getName(), true).add(element);
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends T> elements) {
+        invalidate();
+        return super.addAll(elements);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends T> elements) {
+        invalidate();
+        return super.addAll(index, elements);
+    }
+
+    @Override
+    public void clear() {
+        invalidate();
+        super.clear();
+    }
+
+    /**
+     * Creates a new entry. If the name matches exactly a well-known header
+     * name, the shared constant instance is used.
+     * 
+     * @param name
+     *            The name of the entry.
+     * @param value
+     *            The value of the entry.
+     * @return A new entry.
+     */
+    @Override
+    public T createEntry(String name, String value) {
+        String key = (name == null) ? null : KNOWN_KEYS.get(name);
+
+        if (key != null) {
+            String knownName = KNOWN_NAMES.get(key);
+
+            if (knownName.equals(name)) {
+                name = knownName;
+            }
+        }
+
+        return super.createEntry(name, value);
+    }
+
+    /**
+     * Returns the bucket of entries indexed under the given name.
+     * 
+     * @param name
+     *            The entry name.
+     * @param create
+     *            Indicates if a missing bucket should be created.
+     * @return The bucket of entries or null.
+     */
+    private List<T> getBucket(String name, boolean create) {
+        String key = getKey(name);
+        List<T> result = getIndex().get(key);
+
+        if ((result == null) && create) {
+            result = new ArrayList<T>(1);
+            getIndex().put(key, result);
+        }
+
+        return result;
+    }
+
+    @Override
+    public T getFirst(String name, boolean ignoreCase) {
+        List<T> bucket = getBucket(name, false);
+
+        if (bucket != null) {
+            for (T param : bucket) {
+                if (matches(param.getName(), name, ignoreCase)) {
+                    return param;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the index of entries by lower case name, rebuilding it if
+     * necessary.
+     * 
+     * @return The index of entries by lower case name.
+     */
+    private Map<String, List<T>> getIndex() {
+        Map<String, List<T>> result = this.index;
+
+        if (result == null) {
+            result = new HashMap<String, List<T>>();
+
+            for (T param : getDelegate()) {
+                if (param != null) {
+                    String key = getKey(param.getName());
+                    List<T> bucket = result.get(key);
+
+                    if (bucket == null) {
+                        bucket = new ArrayList<T>(1);
+                        result.put(key, bucket);
+                    }
+
+                    bucket.add(param);
+                }
+            }
+
+            this.index = result;
+        }
+
+        return result;
+    }
+
+    @Override
+    public String getValues(String name, String separator, boolean ignoreCase) {
+        String result = null;
+        StringBuilder sb = null;
+        List<T> bucket = getBucket(name, false);
+
+        if (bucket != null) {
+            for (T param : bucket) {
+                if (matches(param.getName(), name, ignoreCase)) {
+                    if (sb == null) {
+                        if (result == null) {
+                            result = param.getValue();
+                        } else {
+                            sb = new StringBuilder();
+                            sb.append(result).append(separator)
+                                    .append(param.getValue());
+                        }
+                    } else {
+                        sb.append(separator).append(param.getValue());
+                    }
+                }
+            }
+        }
+
+        if (sb != null) {
+            result = sb.toString();
+        }
+
+        return result;
+    }
+
+    /**
+     * Indicates if at least one entry has the given name.
+     * 
+     * @param name
+     *            The entry name.
+     * @param ignoreCase
+     *            Indicates if the name comparison is case insensitive.
+     * @return True if at least one entry has the given name.
+     */
+    private boolean hasEntry(String name, boolean ignoreCase) {
+        return getFirst(name, ignoreCase) != null;
+    }
+
+    /**
+     * Discards the index so that it is rebuilt on the next lookup.
+     */
+    private void invalidate() {
+        this.index = null;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return listIterator();
+    }
+
+    @Override
+    public ListIterator<T> listIterator() {
+        return listIterator(0);
+    }
+
+    @Override
+    public ListIterator<T> listIterator(int index) {
+        final ListIterator<T> iterator = super.listIterator(index);
+
+        return new ListIterator<T>() {
+
+            public void add(T e) {
+                invalidate();
+                iterator.add(e);
+            }
+
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            public boolean hasPrevious() {
+                return iterator.hasPrevious();
+            }
+
+            public T next() {
+                return iterator.next();
+            }
+
+            public int nextIndex() {
+                return iterator.nextIndex();
+            }
+
+            public T previous() {
+                return iterator.previous();
+            }
+
+            public int previousIndex() {
+                return iterator.previousIndex();
+            }
+
+            public void remove() {
+                invalidate();
+                iterator.remove();
+            }
+
+            public void set(T e) {
+                invalidate();
+                iterator.set(e);
+            }
+        };
+    }
+
+    @Override
+    public T remove(int index) {
+        invalidate();
+        return super.remove(index);
+    }
+
+    @Override
+    public boolean remove(Object element) {
+        invalidate();
+        return super.remove(element);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> elements) {
+        invalidate();
+        return super.removeAll(elements);
+    }
+
+    @Override
+    public boolean removeAll(String name, boolean ignoreCase) {
+        return hasEntry(name, ignoreCase) && super.removeAll(name, ignoreCase);
+    }
+
+    @Override
+    public boolean removeFirst(String name, boolean ignoreCase) {
+        return hasEntry(name, ignoreCase)
+                && super.removeFirst(name, ignoreCase);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> elements) {
+        invalidate();
+        return super.retainAll(elements);
+    }
+
+    @Override
+    public T set(int index, T element) {
+        invalidate();
+        return super.set(index, element);
+    }
+
+    @Override
+    public T set(String name, String value, boolean ignoreCase) {
+        if (hasEntry(name, ignoreCase)) {
+            return super.set(name, value, ignoreCase);
+        }
+
+        add(name, value);
+        return null;
+    }
+
+    @Override
+    public Series<T> subList(int fromIndex, int toIndex) {
+        // The returned view may be modified behind the index
+        invalidate();
+        return super.subList(fromIndex, toIndex);
+    }
+
+    @Override
+    public Series<T> subList(String name, boolean ignoreCase) {
+        Series<T> result = new Series<T>(getEntryClass());
+        List<T> bucket = getBucket(name, false);
+
+        if (bucket != null) {
+            for (T param : bucket) {
+                if (matches(param.getName(), name, ignoreCase)) {
+                    result.add(param);
+                }
+            }
+        }
+
+        return result;
+    }
+
+}
@@ -41,6 +41,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Restlet;
+import org.restlet.engine.util.RouteIndex;
 import org.restlet.routing.Route;
 
 /**
@@ -56,7 +57,10 @@ import org.restlet.routing.Route;
  * @see java.util.Collections
  * @see java.util.List
  */
-public final class RouteList extends WrapperList<Route> {
+public final class RouteList extends VersionedWrapperList<Route> {
+    /** The prefix index of the routes, lazily created. */
+    private volatile RouteIndex index;
+
     /** The index of the last route used in the round robin mode. */
     private volatile int lastIndex;
 
@@ -107,6 +111,25 @@ public final class RouteList extends WrapperList<Route> {
         return result;
     }
 
+    /**
+     * Returns the best route match for a given call, only scoring the routes
+     * whose URI pattern can match according to the prefix index. The result is
+     * the same as {@link #getBest(Request, Response, float)}.
+     * 
+     * @param request
+     *            The request to score.
+     * @param response
+     *            The response to score.
+     * @param requiredScore
+     *            The minimum score required to have a match.
+     * @return The best route match or null.
+     * @see RouteIndex
+     */
+    public Route getBestIndexed(Request request, Response response,
+            float requiredScore) {
+        return getIndex().getBest(request, response, requiredScore);
+    }
+
     /**
      * Returns the first route match for a given call.
      * 
@@ -130,6 +153,42 @@ public final class RouteList extends WrapperList<Route> {
         return null;
     }
 
+    /**
+     * Returns the first route match for a given call, only scoring the routes
+     * whose URI pattern can match according to the prefix index. The result is
+     * the same as {@link #getFirst(Request, Response, float)}.
+     * 
+     * @param request
+     *            The request to score.
+     * @param response
+     *            The response to score.
+     * @param requiredScore
+     *            The minimum score required to have a match.
+     * @return The first route match or null.
+     * @see RouteIndex
+     */
+    public Route getFirstIndexed(Request request, Response response,
+            float requiredScore) {
+        return getIndex().getFirst(request, response, requiredScore);
+    }
+
+    /**
+     * Returns the prefix index of the routes. Creates a new instance if the
+     * list was modified since the last call.
+     * 
+     * @return The prefix index of the routes.
+     */
+    private RouteIndex getIndex() {
+        RouteIndex result = this.index;
+        int version = getVersion();
+
+        if ((result == null) || (result.getVersion() != version)) {
+            this.index = result = new RouteIndex(getDelegate(), version);
+        }
+
+        return result;
+    }
+
     /**
      * Returns the last route match for a given call.
      * 
@@ -254,6 +254,16 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
         return result;
     }
 
+    // [ifndef gwt] method
+    /**
+     * Returns the entry class.
+     * 
+     * @return The entry class.
+     */
+    protected Class<T> getEntryClass() {
+        return entryClass;
+    }
+
     /**
      * Returns the first parameter found with the given name.
      * 
@@ -0,0 +1,209 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.util;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * List wrapper keeping track of its structural modifications. This allows the
+ * indexes or caches computed from the list, such as the prefix index of a
+ * {@link RouteList}, to detect when they become stale. By default, it wraps a
+ * thread-safe {@link CopyOnWriteArrayList} instance.<br>
+ * <br>
+ * The version is incremented after each modification, including the ones made
+ * via a sub-list view. Subclasses can be notified of the modifications by
+ * overriding the {@link #modified()} method.
+ * 
+ * @author Jerome Louvel
+ * @param <E>
+ *            The type of the list elements.
+ */
+public class VersionedWrapperList<E> extends WrapperList<E> {
+
+    /** The number of structural modifications. */
+    private final AtomicInteger version;
+
+    /**
+     * Constructor.
+     */
+    public VersionedWrapperList() {
+        this(new CopyOnWriteArrayList<E>());
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param delegate
+     *            The delegate list.
+     */
+    public VersionedWrapperList(List<E> delegate) {
+        super(delegate);
+        this.version = new AtomicInteger();
+    }
+
+    @Override
+    public boolean add(E element) {
+        try {
+            return super.add(element);
+        } finally {
+            modified();
+        }
+    }
+
+    @Override
+    public void add(int index, E element) {
+        try {
+            super.add(index, element);
+        } finally {
+            modified();
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> elements) {
+        try {
+            return super.addAll(elements);
+        } finally {
+            modified();
+        }
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> elements) {
+        try {
+            return super.addAll(index, elements);
+        } finally {
+            modified();
+        }
+    }
+
+    @Override
+    public void clear() {
+        try {
+            super.clear();
+        } finally {
+            modified();
+        }
+    }
+
+    /**
+     * Returns the version of the list, incremented after each structural
+     * modification.
+     * 
+     * @return The version of the list.
+     */
+    public int getVersion() {
+        return this.version.get();
+    }
+
+    /**
+     * Invoked after each structural modification. By default, increments the
+     * version of the list.
+     */
+    protected void modified() {
+        this.version.incrementAndGet();
+    }
+
+    @Override
+    public E remove(int index) {
+        try {
+            return super.remove(index);
+        } finally {
+            modified();
+        }
+    }
+
+    @Override
+    public boolean remove(Object element) {
+        try {
+            return super.remove(element);
+        } finally {
+            modified();
+        }
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> elements) {
+        try {
+            return super.removeAll(elements);
+        } finally {
+            modified();
+        }
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> elements) {
+        try {
+            return super.retainAll(elements);
+        } finally {
+            modified();
+        }
+    }
+
+    @Override
+    public E set(int index, E element) {
+        try {
+            return super.set(index, element);
+        } finally {
+            modified();
+        }
+    }
+
+    /**
+     * Returns a view of the portion of this list between the specified
+     * fromIndex, inclusive, and toIndex, exclusive. The modifications made via
+     * the view increment the version of this list.
+     * 
+     * @param fromIndex
+     *            The start position.
+     * @param toIndex
+     *            The end position (exclusive).
+     * @return The sub-list.
+     */
+    @Override
+    public List<E> subList(int fromIndex, int toIndex) {
+        return new VersionedWrapperList<E>(getDelegate().subList(fromIndex,
+                toIndex)) {
+            @Override
+            protected void modified() {
+                super.modified();
+                VersionedWrapperList.this.modified();
+            }
+        };
+    }
+
+}